@@ -35,6 +35,7 @@ import jakarta.faces.event.AbortProcessingException;
 import jakarta.faces.event.ComponentSystemEvent;
 import jakarta.faces.event.ComponentSystemEventListener;
 import jakarta.faces.event.PostAddToViewEvent;
+import jakarta.faces.event.PreRenderViewEvent;
 import jakarta.faces.event.SystemEvent;
 import jakarta.faces.event.SystemEventListener;
 
@@ -237,32 +238,6 @@ System.out.println("DeferredFragmentTaskListener.processEvent()!");
 	    // Move this component to the FacetMap
 	    facetMap.put(key, comp);
 
-	    // Register task(s)
-	    String task = (String) comp.getAttributes().get("task");
-	    StringTokenizer tok = new StringTokenizer(task, ";");
-	    TaskManager tm = TaskManager.getInstance();
-	    int taskCount = 0;
-	    while (tok.hasMoreTokens()) {
-		task = tok.nextToken().trim();
-
-		// Check to see if we have task:listenerType
-		int idx = task.indexOf(":");
-		String type = null;
-		if (idx != -1) {
-		    type = task.substring(idx + 1);
-		    task = task.substring(0, idx);
-	    }
-
-		// Register the Task...
-		tm.addTask(task, type, new DeferredFragmentTaskListener(comp));
-
-		// Count the tasks we depend on...
-		taskCount++;
-	    }
-
-	    // Store the task count...
-	    comp.setTaskCount(taskCount);
-
 	    // Ensure we have a FragmentRenderer component...
 	    Map<String, Object> requestScope =
 		    ctx.getExternalContext().getRequestMap();
@@ -277,17 +252,85 @@ System.out.println("DeferredFragmentTaskListener.processEvent()!");
 		// component in the UIViewRoot. (request scope for fast access)
 		viewRoot.getChildren().add(fragmentRenderer);
 		requestScope.put(FRAGMENT_RENDERER, fragmentRenderer);
+
+		// Start the tasks before the page renders
+		if (!hasStartTasksListener(viewRoot)) {
+		    viewRoot.subscribeToViewEvent(
+			PreRenderViewEvent.class, new StartTasksListener());
+		}
 	    }
 
 	    // Increment fragment count on FragmentRenderer component...
 	    fragmentRenderer.addDeferredFragment(comp);
 	    comp.addReadyListener(fragmentRenderer);
+
+	    // Count the tasks we depend on... this must be done before they
+	    // are registered as they may complete immediately.
+	    String task = (String) comp.getAttributes().get("task");
+	    StringTokenizer tok = new StringTokenizer(task, ";");
+	    comp.setTaskCount(tok.countTokens());
+
+	    // Register task(s)
+	    TaskManager tm = TaskManager.getInstance();
+	    while (tok.hasMoreTokens()) {
+		task = tok.nextToken().trim();
+
+		// Check to see if we have task:listenerType
+		int idx = task.indexOf(":");
+		String type = null;
+		if (idx != -1) {
+		    type = task.substring(idx + 1);
+		    task = task.substring(0, idx);
+		}
+
+		// Register the Task...
+		tm.addTask(task, type, new DeferredFragmentTaskListener(comp));
+	    }
+	}
+
+	/**
+	 *  <p>	This method checks if the {@link StartTasksListener} has
+	 *	already been added to the given <code>UIViewRoot</code>.</p>
+	 */
+	private boolean hasStartTasksListener(UIViewRoot viewRoot) {
+	    List<SystemEventListener> viewListeners =
+		viewRoot.getViewListenersForEventClass(PreRenderViewEvent.class);
+	    if (viewListeners != null) {
+		for (SystemEventListener listener : viewListeners) {
+		    if (listener instanceof StartTasksListener) {
+			return true;
+		    }
+		}
+	    }
+	    return false;
 	}
 
 	private boolean done = false;
 	private static final String FRAGMENT_RENDERER	= "jsft-FR";
     }
 
+    /**
+     *	<p> Listener used to start the {@link Task}s when the page starts to
+     *	    render, so they run while it renders.</p>
+     */
+    public static class StartTasksListener implements SystemEventListener {
+
+	/**
+	 *  <p>	Default Constructor.</p>
+	 */
+	public StartTasksListener() {
+	    super();
+	}
+
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+	    TaskManager.getInstance().start();
+	}
+
+	public boolean isListenerForSource(Object source) {
+	    return true;
+	}
+    }
+
     /**
      *	<p> The component family.</p>
      */
@@ -299,9 +342,9 @@ System.out.println("DeferredFragmentTaskListener.processEvent()!");
      *	    <code>DeferredFragment</code> can be rendered.  It is initialized
      *	    to a postiive value (1) so that {@link #isReady()} will return
      *	    <code>false</code> -- important since the tasks have not yet been
-     *	    counted.</p>
+     *	    counted.  It is updated by the threads running the tasks.</p>
      */
-    private int taskCount = 1;
+    private volatile int taskCount = 1;
 
     /**
      *	<p> The id of the placeholder for this component so we can find it
@@ -95,6 +95,7 @@ public class FragmentRenderer extends UIComponentBase implements ComponentSystem
 	    }
 	    if (comp != null) {
 		fragsToRender--;
+		restoreDeferredFragment(comp);
 		try {
 System.out.println("Encoding: " + comp.getId());
 		    comp.encodeAll(FacesContext.getCurrentInstance());
@@ -128,17 +129,23 @@ System.out.println("Encoding: " + comp.getId());
 
     /**
      *  <p> This method gets invoked whenever a DeferredFragment associated
-     *	    with this component becomes ready to be rendered.</p>
+     *	    with this component becomes ready to be rendered.  It may be
+     *	    invoked by the thread that ran the task, so it only queues the
+     *	    fragment, it is rendered by {@link #encodeEnd(FacesContext)}.</p>
      */
     public void processEvent(ComponentSystemEvent event) throws AbortProcessingException {
-	// Get the component
-	processDeferredFragment((DeferredFragment) event.getComponent());
+	// Queue it up...
+	synchronized (renderQueue) {
+	    renderQueue.add((DeferredFragment) event.getComponent());
+	    renderQueue.notifyAll();
+	}
     }
 
     /**
-     *
+     *	<p> This method puts the given {@link DeferredFragment} back in place of
+     *	    its "place-holder" component.</p>
      */
-    private void processDeferredFragment(DeferredFragment comp) {
+    private void restoreDeferredFragment(DeferredFragment comp) {
 	// Find the "place-holder" component...
 	String key = ":" + comp.getPlaceHolderId();
 	UIComponent placeHolder = comp.findComponent(key);
@@ -148,12 +155,6 @@ System.out.println("Encoding: " + comp.getId());
 	    int index = peers.indexOf(placeHolder);
 	    peers.set(index, comp);
 	}
-
-	// Queue it up...
-	synchronized (renderQueue) {
-	    renderQueue.add(comp);
-	    renderQueue.notifyAll();
-	}
     }
 
 
@@ -14,31 +14,43 @@
  *
  * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
  */
-
 package com.sun.jsft.tasks;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
-import jakarta.faces.component.UIComponent;
-import jakarta.faces.component.UIComponentBase;
-import jakarta.faces.component.UIOutput;
-import jakarta.faces.component.UIViewRoot;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import jakarta.faces.context.FacesContext;
-import jakarta.faces.event.AbortProcessingException;
-import jakarta.faces.event.ListenerFor;
-import jakarta.faces.event.PostAddToViewEvent;
 import jakarta.faces.event.SystemEvent;
 import jakarta.faces.event.SystemEventListener;
 
+import com.sun.jsft.util.LogUtil;
+
 
 /**
- *  <p>	This is the default {@link TaskManager} implementation.</p>
+ *  <p>	This is the default {@link TaskManager} implementation.  It runs each
+ *	{@link Task} on an application-wide <code>ExecutorService</code> (see
+ *	{@link #getExecutorService(FacesContext)}) and fires the
+ *	{@link TaskEvent#TASK_COMPLETE} event from that thread when the
+ *	{@link Task} is done.  Tasks added after {@link #start()} has been
+ *	called are started immediately.</p>
+ *
+ *  <p>	The work of each {@link Task} is provided by overriding
+ *	{@link TaskManager#createTask(String)}, adding a {@link Task} without
+ *	work fails.  The <code>ExecutorService</code> created by this class is
+ *	shut down by the {@link ShutdownListener} when the application is
+ *	destroyed.</p>
  */
 public class DefaultTaskManager extends TaskManager {
 
@@ -55,21 +67,264 @@ public class DefaultTaskManager extends TaskManager {
      *	    care should be taken to ensure this is handled appropriately.  This
      *	    method is normally executed after the page (excluding
      *	    DefferedFragments, of course) have been rendered.</p>
+     *
+     *	<p> This implementation does not block, each {@link Task} is started
+     *	    only once.</p>
      */
     public void start() {
-	System.out.println("Starting to execute Tasks: " + getTasks());
-	// Loop through the tasks and execute them...
-	for (Task task : getTasks()) {
-// FIXME: This implementation is a no-op, it just loops through the tasks and fires the TASK_COMPLETE event.
-// FIXME: A real implementation would aggregate & dispatch the tasks and register listeners with the "backend dispatcher" which would fire the TASK_COMPLETE event.
-// FIXME: This method should not block.
-	    SystemEvent event = new TaskEvent(task);
-	    List<SystemEventListener> listeners = task.getListeners(TaskEvent.TASK_COMPLETE);
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	if (ctx == null) {
+	    // No application to share threads with, run them here
+	    List<Task> toRun = new ArrayList<Task>();
+	    synchronized (this) {
+		for (Task task : getTasks()) {
+		    if (started.add(task)) {
+			toRun.add(task);
+		    }
+		}
+	    }
+	    for (Task task : toRun) {
+		runTask(task);
+	    }
+	    return;
+	}
+	ExecutorService exec = getExecutorService(ctx);
+	synchronized (this) {
+	    if (executor == null) {
+		executor = exec;
+	    }
+	    for (Task task : getTasks()) {
+		submit(task);
+	    }
+	}
+    }
+
+    /**
+     *	<p> This method queues the <code>task</code> as described by
+     *	    {@link TaskManager#addTask(String, String, SystemEventListener...)}.
+     *	    If {@link #start()} has already been called the {@link Task} is
+     *	    started, if it has already completed the given
+     *	    {@link TaskEvent#TASK_COMPLETE} listeners are fired
+     *	    immediately.</p>
+     */
+    @Override
+    public void addTask(String taskName, String type, SystemEventListener ... newListeners) {
+	Task task = null;
+	boolean complete = false;
+	synchronized (this) {
+	    super.addTask(taskName, type, newListeners);
+	    task = getTask(taskName);
+	    complete = completed.contains(task);
+	    if (!complete && (executor != null)) {
+		submit(task);
+	    }
+	}
+	if (complete && ((type == null) || type.equals(TaskEvent.TASK_COMPLETE))) {
+	    fireTaskComplete(task, Arrays.asList(newListeners));
+	}
+    }
+
+    /**
+     *	<p> This method starts the given {@link Task} if it has not already
+     *	    been started.  The caller must hold this object's lock.</p>
+     */
+    private void submit(final Task task) {
+	if (!started.add(task)) {
+	    return;
+	}
+	try {
+	    executor.execute(new Runnable() {
+		public void run() {
+		    runTask(task);
+		}
+	    });
+	} catch (RejectedExecutionException ex) {
+	    // The ExecutorService has been shut down, run it here
+	    runTask(task);
+	}
+    }
+
+    /**
+     *	<p> This method performs the given {@link Task} and then fires its
+     *	    {@link TaskEvent#TASK_COMPLETE} event.  The event is fired even if
+     *	    the {@link Task} fails, so that nothing waits for it
+     *	    forever.</p>
+     */
+    private void runTask(Task task) {
+	try {
+	    task.run();
+	} catch (Throwable ex) {
+	    LOGGER.log(Level.WARNING, "Task '" + task.getName() + "' failed.", ex);
+	}
+	List<SystemEventListener> listeners = null;
+	synchronized (this) {
+	    completed.add(task);
+	    listeners = task.getListeners(TaskEvent.TASK_COMPLETE);
 	    if (listeners != null) {
-		for (SystemEventListener listener : listeners) {
-		    listener.processEvent(event);
+		// Copy it, more may be added while we fire the event
+		listeners = new ArrayList<SystemEventListener>(listeners);
+	    }
+	}
+	if (listeners != null) {
+	    fireTaskComplete(task, listeners);
+	}
+    }
+
+    /**
+     *	<p> This method fires the {@link TaskEvent#TASK_COMPLETE} event to the
+     *	    given listeners.</p>
+     */
+    private void fireTaskComplete(Task task, List<SystemEventListener> listeners) {
+	SystemEvent event = new TaskEvent(task);
+	for (SystemEventListener listener : listeners) {
+	    try {
+		listener.processEvent(event);
+	    } catch (RuntimeException ex) {
+		LOGGER.log(Level.WARNING, "Listener for Task '" + task.getName() + "' failed.", ex);
+	    }
+	}
+    }
+
+    /**
+     *	<p> This method returns the application's
+     *	    <code>ExecutorService</code> used to run {@link Task}s.  Unless
+     *	    one was provided via
+     *	    {@link #setExecutorService(FacesContext, ExecutorService)}, a
+     *	    pool of daemon threads is created.  Its size is set by the
+     *	    {@link #THREADS} <code>context-param</code>, it defaults to twice
+     *	    the number of processors.  Idle threads exit after a minute.</p>
+     */
+    public static ExecutorService getExecutorService(FacesContext ctx) {
+	Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+	ExecutorService exec = (ExecutorService) appMap.get(EXECUTOR_SERVICE);
+	if (exec == null) {
+	    synchronized (DefaultTaskManager.class) {
+		exec = (ExecutorService) appMap.get(EXECUTOR_SERVICE);
+		if (exec == null) {
+		    exec = createExecutorService(ctx);
+		    appMap.put(EXECUTOR_SERVICE, exec);
 		}
 	    }
 	}
+	return exec;
+    }
+
+    /**
+     *	<p> This method sets the application's <code>ExecutorService</code>
+     *	    used to run {@link Task}s, for example one managed by the
+     *	    container.</p>
+     */
+    public static void setExecutorService(FacesContext ctx, ExecutorService exec) {
+	ctx.getExternalContext().getApplicationMap().put(EXECUTOR_SERVICE, exec);
+    }
+
+    /**
+     *	<p> This method creates the default <code>ExecutorService</code>.</p>
+     */
+    private static ExecutorService createExecutorService(FacesContext ctx) {
+	int threads = Runtime.getRuntime().availableProcessors() * 2;
+	String value = ctx.getExternalContext().getInitParameter(THREADS);
+	if ((value != null) && !value.trim().equals("")) {
+	    try {
+		threads = Integer.parseInt(value.trim());
+	    } catch (NumberFormatException ex) {
+		throw new IllegalArgumentException(
+		    "'" + THREADS + "' must be a number: '" + value + "'", ex);
+	    }
+	}
+	ThreadPoolExecutor exec = new ThreadPoolExecutor(
+		threads, threads, 60, TimeUnit.SECONDS,
+		new LinkedBlockingQueue<Runnable>(),
+		new TaskThreadFactory());
+	exec.allowCoreThreadTimeOut(true);
+	return exec;
     }
+
+    /**
+     *	<p> This method removes the application's
+     *	    <code>ExecutorService</code> from the given application
+     *	    <code>Map</code>.  If it was created by this class, it is shut
+     *	    down and its running {@link Task}s are interrupted.  An
+     *	    <code>ExecutorService</code> provided via
+     *	    {@link #setExecutorService(FacesContext, ExecutorService)} is left
+     *	    to its owner.</p>
+     */
+    public static void shutdown(Map<String, Object> appMap) {
+	Object exec = null;
+	synchronized (DefaultTaskManager.class) {
+	    exec = appMap.remove(EXECUTOR_SERVICE);
+	}
+	if ((exec instanceof ThreadPoolExecutor)
+		&& (((ThreadPoolExecutor) exec).getThreadFactory() instanceof TaskThreadFactory)) {
+	    ((ThreadPoolExecutor) exec).shutdownNow();
+	}
+    }
+
+
+    /**
+     *	<p> This listener shuts down the application's
+     *	    <code>ExecutorService</code> (see {@link #shutdown(Map)}) when the
+     *	    application is destroyed.  It is registered for the
+     *	    <code>PreDestroyApplicationEvent</code> in the
+     *	    faces-config.xml.</p>
+     */
+    public static class ShutdownListener implements SystemEventListener {
+	public boolean isListenerForSource(Object source) {
+	    return true;
+	}
+
+	public void processEvent(SystemEvent event) {
+	    FacesContext ctx = FacesContext.getCurrentInstance();
+	    if (ctx != null) {
+		shutdown(ctx.getExternalContext().getApplicationMap());
+	    }
+	}
+    }
+
+    /**
+     *	<p> This <code>ThreadFactory</code> creates the daemon threads of the
+     *	    <code>ExecutorService</code> created by this class.</p>
+     */
+    private static class TaskThreadFactory implements ThreadFactory {
+	public Thread newThread(Runnable runnable) {
+	    Thread thread = new Thread(runnable,
+		"jsft-task-" + threadCount.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+
+	private final AtomicInteger threadCount = new AtomicInteger();
+    }
+
+
+    /**
+     *	<p> The <code>ExecutorService</code> used by this request, set by
+     *	    {@link #start()}.</p>
+     */
+    private ExecutorService executor = null;
+
+    /**
+     *	<p> The {@link Task}s which have been started.</p>
+     */
+    private Set<Task> started = new HashSet<Task>();
+
+    /**
+     *	<p> The {@link Task}s which have completed.</p>
+     */
+    private Set<Task> completed = new HashSet<Task>();
+
+    private static final Logger LOGGER =
+	    Logger.getLogger(LogUtil.DEFAULT_LOGGER_NAME);
+
+    /**
+     *	<p> The application scope key for the
+     *	    <code>ExecutorService</code>.</p>
+     */
+    private static final String	EXECUTOR_SERVICE    = "__jsft_TaskExecutor";
+
+    /**
+     *	<p> The web.xml <code>context-param</code> for declaring the number of
+     *	    threads used to run {@link Task}s.</p>
+     */
+    public static final String	THREADS		    = "com.sun.jsft.TASK_THREADS";
 }
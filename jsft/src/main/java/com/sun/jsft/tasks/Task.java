@@ -24,9 +24,13 @@ import jakarta.faces.event.SystemEventListener;
 
 
 /**
- *  <p>	This class holds the representation of a single task.</p>
+ *  <p>	This class holds the representation of a single task.  The work
+ *	performed by the task is provided via {@link #setWork(Runnable)}, or
+ *	by overriding {@link #run()}.  A {@link TaskManager} may run it on
+ *	another thread, so the work must not depend on the
+ *	<code>FacesContext</code>.</p>
  */
-public class Task {
+public class Task implements Runnable {
 
     /**
      *	<p> Default constructor.</p>
@@ -59,6 +63,42 @@ public class Task {
 	this.name = name;
     }
 
+    /**
+     *	<p> This method performs the work of this task.</p>
+     *
+     *	@throws	IllegalStateException	If no work was set.
+     */
+    public void run() {
+	if (work == null) {
+	    throw new IllegalStateException(
+		"Task '" + name + "' has no work to perform!");
+	}
+	work.run();
+    }
+
+    /**
+     *	<p> This method returns <code>true</code> if this task has work to
+     *	    perform, either set via {@link #setWork(Runnable)} or provided by
+     *	    a subclass overriding {@link #run()}.</p>
+     */
+    public boolean hasWork() {
+	return (work != null) || (getClass() != Task.class);
+    }
+
+    /**
+     *	<p> The work performed by this task, or <code>null</code>.</p>
+     */
+    public Runnable getWork() {
+	return work;
+    }
+
+    /**
+     *	<p> This method sets the work performed by this task.</p>
+     */
+    public void setWork(Runnable work) {
+	this.work = work;
+    }
+
     /**
      *
      */
@@ -83,6 +123,9 @@ public class Task {
     // The identifier for this Task
     private String name = "";
 
+    // The work to perform
+    private Runnable work = null;
+
     // Map of List to store the events by type
     private Map<String, List<SystemEventListener>> listenersByType =
 	    new HashMap<String, List<SystemEventListener>>(2);
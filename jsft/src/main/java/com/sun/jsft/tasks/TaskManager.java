@@ -144,7 +144,11 @@ public abstract class TaskManager {
 	Task task = tasks.get(taskName);
 	if (task == null) {
 	    // New Task, create and add...
-	    task = new Task(taskName);
+	    task = createTask(taskName);
+	    if (!task.hasWork()) {
+		throw new IllegalStateException("Task '" + taskName
+		    + "' has no work to perform, createTask() must provide it!");
+	    }
 	    task.setListeners(type, toArrayList(newListeners));
 	    tasks.put(taskName, task);
 	} else {
@@ -158,6 +162,26 @@ public abstract class TaskManager {
 	}
     }
 
+    /**
+     *	<p> This method creates the {@link Task} for the given
+     *	    <code>taskName</code>.  Implementations must override this to
+     *	    provide the work the {@link Task} performs (see
+     *	    {@link Task#setWork(Runnable)}), the {@link Task} created here
+     *	    has none and can't be added.</p>
+     */
+    protected Task createTask(String taskName) {
+	return new Task(taskName);
+    }
+
+    /**
+     *	<p> This method returns the {@link Task} with the given
+     *	    <code>taskName</code>, or <code>null</code> if it has not been
+     *	    added.</p>
+     */
+    public Task getTask(String taskName) {
+	return tasks.get(taskName);
+    }
+
     /**
      *	<p> This method returns the <code>List&lt;Task&gt;</code>.</p>
      */
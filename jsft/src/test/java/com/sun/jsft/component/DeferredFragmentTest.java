@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsft.component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.faces.event.ComponentSystemEvent;
+import jakarta.faces.event.ComponentSystemEventListener;
+
+import com.sun.jsft.tasks.Task;
+import com.sun.jsft.tasks.TaskEvent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link DeferredFragment}.</p>
+ */
+public class DeferredFragmentTest {
+
+    /**
+     *	<p> Ensure the task count is counted down exactly once for each
+     *	    {@link TaskEvent} when they are fired by many threads at once, and
+     *	    the fragment is ready exactly once.</p>
+     */
+    @Test
+    public void testTaskCountdown() throws Exception {
+	final int threads = 8;
+	final int perThread = 20000;
+	DeferredFragment df = new DeferredFragment();
+	df.setTaskCount(threads * perThread);
+	final AtomicInteger readyCount = new AtomicInteger();
+	df.addReadyListener(new ComponentSystemEventListener() {
+	    public void processEvent(ComponentSystemEvent event) {
+		readyCount.incrementAndGet();
+	    }
+	});
+	final DeferredFragment.DeferredFragmentTaskListener listener =
+		new DeferredFragment.DeferredFragmentTaskListener(df);
+	final CountDownLatch gate = new CountDownLatch(1);
+	List<Thread> running = new ArrayList<Thread>();
+	for (int idx = 0; idx < threads; idx++) {
+	    final Task task = new Task("task" + idx);
+	    Thread thread = new Thread() {
+		public void run() {
+		    try {
+			gate.await();
+		    } catch (InterruptedException ex) {
+			return;
+		    }
+		    for (int cnt = 0; cnt < perThread; cnt++) {
+			listener.processEvent(new TaskEvent(task));
+		    }
+		}
+	    };
+	    thread.start();
+	    running.add(thread);
+	}
+	// The listener prints each event, System.out would serialize them
+	PrintStream out = System.out;
+	System.setOut(new PrintStream(new ByteArrayOutputStream()) {
+	    public void println(String line) {
+	    }
+	});
+	try {
+	    gate.countDown();
+	    for (Thread thread : running) {
+		thread.join(10000);
+	    }
+	} finally {
+	    System.setOut(out);
+	}
+	Assert.assertEquals(0, df.getTaskCount());
+	Assert.assertEquals(1, readyCount.get());
+    }
+}
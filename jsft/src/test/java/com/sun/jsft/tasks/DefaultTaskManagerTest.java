@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsft.tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.event.ComponentSystemEvent;
+import jakarta.faces.event.ComponentSystemEventListener;
+import jakarta.faces.event.SystemEvent;
+import jakarta.faces.event.SystemEventListener;
+
+import com.sun.jsft.component.DeferredFragment;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *  <p>	Tests for the {@link DefaultTaskManager}.</p>
+ */
+public class DefaultTaskManagerTest {
+
+    @Before
+    public void init() {
+	_appMap = new HashMap<String, Object>();
+	ExternalContext extCtx = Mockito.mock(ExternalContext.class);
+	Mockito.when(extCtx.getApplicationMap()).thenReturn(_appMap);
+	FacesContext ctx = Mockito.mock(FacesContext.class);
+	Mockito.when(ctx.getExternalContext()).thenReturn(extCtx);
+	ContextSetter.set(ctx);
+	_exec = Executors.newFixedThreadPool(8);
+	DefaultTaskManager.setExecutorService(ctx, _exec);
+    }
+
+    @After
+    public void destroy() {
+	_exec.shutdownNow();
+	ContextSetter.set(null);
+    }
+
+    /**
+     *	<p> Ensure a fragment waiting for many tasks which complete at the
+     *	    same time on different threads is ready exactly once, after all
+     *	    of them.</p>
+     */
+    @Test
+    public void testConcurrentCompletion() throws Exception {
+	final CountDownLatch gate = new CountDownLatch(1);
+	final AtomicInteger done = new AtomicInteger();
+	Map<String, Runnable> work = new HashMap<String, Runnable>();
+	int count = 200;
+	for (int idx = 0; idx < count; idx++) {
+	    work.put("task" + idx, new Runnable() {
+		public void run() {
+		    try {
+			gate.await();
+		    } catch (InterruptedException ex) {
+			throw new RuntimeException(ex);
+		    }
+		    done.incrementAndGet();
+		}
+	    });
+	}
+	TaskManager tm = new WorkTaskManager(work);
+	final AtomicInteger completeEvents = new AtomicInteger();
+	SystemEventListener completeListener = new SystemEventListener() {
+	    public void processEvent(SystemEvent event) {
+		completeEvents.incrementAndGet();
+	    }
+	    public boolean isListenerForSource(Object source) {
+		return true;
+	    }
+	};
+	final List<String> ready = Collections.synchronizedList(new ArrayList<String>());
+	DeferredFragment df = newFragment("df", count, ready);
+	for (int idx = 0; idx < count; idx++) {
+	    tm.addTask("task" + idx, null, new DeferredFragment.DeferredFragmentTaskListener(df), completeListener);
+	}
+	tm.start();
+	Assert.assertTrue(ready.isEmpty());
+	gate.countDown();
+	_exec.shutdown();
+	Assert.assertTrue(_exec.awaitTermination(10, TimeUnit.SECONDS));
+
+	Assert.assertEquals(count, done.get());
+	Assert.assertEquals(count, completeEvents.get());
+	Assert.assertEquals(0, df.getTaskCount());
+	Assert.assertEquals(Collections.singletonList("df"), ready);
+    }
+
+    /**
+     *	<p> Ensure fragments are ready in the order their tasks complete, and
+     *	    a fragment added after its task completed is ready
+     *	    immediately.</p>
+     */
+    @Test
+    public void testFragmentOrder() throws Exception {
+	final CountDownLatch slowGate = new CountDownLatch(1);
+	Map<String, Runnable> work = new HashMap<String, Runnable>();
+	work.put("slow", new Runnable() {
+	    public void run() {
+		try {
+		    slowGate.await();
+		} catch (InterruptedException ex) {
+		    throw new RuntimeException(ex);
+		}
+	    }
+	});
+	work.put("fast", new Runnable() {
+	    public void run() {
+	    }
+	});
+	TaskManager tm = new WorkTaskManager(work);
+	List<String> ready = Collections.synchronizedList(new ArrayList<String>());
+	final CountDownLatch fastReady = new CountDownLatch(1);
+	DeferredFragment first = newFragment("first", 1, ready);
+	DeferredFragment second = newFragment("second", 1, ready);
+	DeferredFragment both = newFragment("both", 2, ready);
+	tm.addTask("slow", null, new DeferredFragment.DeferredFragmentTaskListener(first));
+	tm.addTask("fast", null, new DeferredFragment.DeferredFragmentTaskListener(second));
+	tm.addTask("slow", null, new DeferredFragment.DeferredFragmentTaskListener(both));
+	tm.addTask("fast", null, new DeferredFragment.DeferredFragmentTaskListener(both));
+	tm.addTask("fast", null, new SystemEventListener() {
+	    public void processEvent(SystemEvent event) {
+		fastReady.countDown();
+	    }
+	    public boolean isListenerForSource(Object source) {
+		return true;
+	    }
+	});
+	tm.start();
+
+	Assert.assertTrue(fastReady.await(10, TimeUnit.SECONDS));
+	Assert.assertEquals(1, both.getTaskCount());
+	DeferredFragment late = newFragment("late", 1, ready);
+	tm.addTask("fast", null, new DeferredFragment.DeferredFragmentTaskListener(late));
+	Assert.assertEquals(0, late.getTaskCount());
+
+	slowGate.countDown();
+	_exec.shutdown();
+	Assert.assertTrue(_exec.awaitTermination(10, TimeUnit.SECONDS));
+	Assert.assertEquals(Arrays.asList("second", "late", "first", "both"), ready);
+    }
+
+    /**
+     *	<p> Ensure a {@link Task} without work can't be added or run.</p>
+     */
+    @Test
+    public void testNoWork() {
+	try {
+	    new DefaultTaskManager().addTask("nothing", null);
+	    Assert.fail("A Task without work was added.");
+	} catch (IllegalStateException ex) {
+	    Assert.assertTrue(ex.getMessage(), ex.getMessage().contains("nothing"));
+	}
+	try {
+	    new Task("nothing").run();
+	    Assert.fail("A Task without work was run.");
+	} catch (IllegalStateException ex) {
+	    // Expected
+	}
+	Assert.assertFalse(new Task("nothing").hasWork());
+	Assert.assertTrue(new Task("something") {
+	    public void run() {
+	    }
+	}.hasWork());
+    }
+
+    /**
+     *	<p> Ensure the {@link DefaultTaskManager.ShutdownListener} shuts down
+     *	    the <code>ExecutorService</code> created by the
+     *	    {@link DefaultTaskManager}, but not one which was provided.</p>
+     */
+    @Test
+    public void testShutdown() {
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	new DefaultTaskManager.ShutdownListener().processEvent(null);
+	Assert.assertFalse(_exec.isShutdown());
+	Assert.assertTrue(_appMap.isEmpty());
+
+	ExecutorService exec = DefaultTaskManager.getExecutorService(ctx);
+	Assert.assertTrue(exec instanceof ThreadPoolExecutor);
+	Assert.assertSame(exec, DefaultTaskManager.getExecutorService(ctx));
+	new DefaultTaskManager.ShutdownListener().processEvent(null);
+	Assert.assertTrue(exec.isShutdown());
+	Assert.assertTrue(_appMap.isEmpty());
+	Assert.assertNotSame(exec, DefaultTaskManager.getExecutorService(ctx));
+	DefaultTaskManager.shutdown(_appMap);
+    }
+
+    /**
+     *	<p> This method creates a {@link DeferredFragment} waiting for the
+     *	    given number of tasks, which adds its id to <code>ready</code>
+     *	    when it is ready.</p>
+     */
+    private DeferredFragment newFragment(final String id, int taskCount, final List<String> ready) {
+	DeferredFragment df = new DeferredFragment();
+	df.setTaskCount(taskCount);
+	df.addReadyListener(new ComponentSystemEventListener() {
+	    public void processEvent(ComponentSystemEvent event) {
+		ready.add(id);
+	    }
+	});
+	return df;
+    }
+
+    /**
+     *	<p> This {@link DefaultTaskManager} performs the given work for each
+     *	    task name.</p>
+     */
+    private static class WorkTaskManager extends DefaultTaskManager {
+	WorkTaskManager(Map<String, Runnable> work) {
+	    this.work = work;
+	}
+
+	@Override
+	protected Task createTask(String taskName) {
+	    Task task = new Task(taskName);
+	    task.setWork(work.get(taskName));
+	    return task;
+	}
+
+	private Map<String, Runnable> work;
+    }
+
+    /**
+     *	<p> Provides access to <code>FacesContext.setCurrentInstance()</code>.</p>
+     */
+    private static abstract class ContextSetter extends FacesContext {
+	static void set(FacesContext ctx) {
+	    setCurrentInstance(ctx);
+	}
+    }
+
+    private Map<String, Object> _appMap;
+    private ExecutorService _exec;
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.benchmarks;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.jsftemplating.ContextMocker;
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import jakarta.faces.FacesException;
+import jakarta.faces.application.Application;
+import jakarta.faces.application.ApplicationWrapper;
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.application.ViewHandlerWrapper;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIOutput;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.PartialViewContext;
+import jakarta.faces.context.PartialViewContextWrapper;
+import jakarta.faces.context.ResponseStream;
+import jakarta.faces.context.ResponseWriter;
+import jakarta.faces.event.PhaseId;
+import jakarta.faces.event.SystemEvent;
+import jakarta.faces.render.RenderKit;
+import jakarta.faces.render.Renderer;
+import jakarta.faces.render.ResponseStateManager;
+import jakarta.faces.view.ViewDeclarationLanguage;
+import org.mockito.Mockito;
+
+/**
+ *  <p>	This is the {@link ContextMocker} used by the benchmarks.  Unlike the
+ *	one used by the unit tests it does not create mocks while it is used,
+ *	so it does not add work (or garbage) to what is being measured.</p>
+ *
+ *  <p>	<code>UIComponent</code>s are created from their standard type (e.g.
+ *	<code>jakarta.faces.HtmlInputText</code>) and have no
+ *	<code>Renderer</code>s, so encoding measures the work done by
+ *	JSFTemplating.</p>
+ */
+public class BenchmarkContext extends ContextMocker {
+
+    public BenchmarkContext() {
+	// Like requests, all BenchmarkContexts share the application scope
+	((ExternalContextMocker) _extCtx)._appMap = APPLICATION_MAP;
+	_viewRoot = new UIViewRoot();
+    }
+
+    /**
+     *	<p> This method creates a <code>BenchmarkContext</code> and makes it
+     *	    the current <code>FacesContext</code>.</p>
+     */
+    public static BenchmarkContext install() {
+	BenchmarkContext ctx = new BenchmarkContext();
+	setCurrentInstance(ctx);
+	return ctx;
+    }
+
+    @Override
+    public Application getApplication() {
+	return _application;
+    }
+
+    @Override
+    public Map<Object, Object> getAttributes() {
+	return _attributes;
+    }
+
+    @Override
+    public ELContext getELContext() {
+	return _elContext;
+    }
+
+    @Override
+    public RenderKit getRenderKit() {
+	return _renderKit;
+    }
+
+    @Override
+    public ResponseWriter getResponseWriter() {
+	return _writer;
+    }
+
+    @Override
+    public void setResponseWriter(ResponseWriter writer) {
+	_writer = writer;
+    }
+
+    @Override
+    public void setViewRoot(UIViewRoot root) {
+	_viewRoot = root;
+    }
+
+    @Override
+    public PartialViewContext getPartialViewContext() {
+	return _partialViewContext;
+    }
+
+    @Override
+    public PhaseId getCurrentPhaseId() {
+	return PhaseId.RENDER_RESPONSE;
+    }
+
+    @Override
+    public boolean isPostback() {
+	return false;
+    }
+
+    @Override
+    public boolean getRenderResponse() {
+	return true;
+    }
+
+    @Override
+    public boolean getResponseComplete() {
+	return false;
+    }
+
+    @Override
+    public boolean isProcessingEvents() {
+	return false;
+    }
+
+    /**
+     *	<p> This <code>Application</code> creates the standard
+     *	    <code>UIComponent</code>s and provides the
+     *	    <code>ExpressionFactory</code>.  Events are not delivered.</p>
+     */
+    private static class BenchmarkApplication extends ApplicationWrapper {
+	BenchmarkApplication() {
+	    super(Mockito.mock(Application.class));
+	}
+
+	@Override
+	public UIComponent createComponent(String componentType) throws FacesException {
+	    Class<?> cls = _componentClasses.get(componentType);
+	    if (cls == null) {
+		cls = findComponentClass(componentType);
+		_componentClasses.put(componentType, cls);
+	    }
+	    try {
+		return (UIComponent) cls.newInstance();
+	    } catch (Exception ex) {
+		throw new FacesException(ex);
+	    }
+	}
+
+	@Override
+	public UIComponent createComponent(ValueExpression binding, FacesContext ctx, String componentType) throws FacesException {
+	    return createComponent(componentType);
+	}
+
+	/**
+	 *  <p>	This method maps <code>jakarta.faces.HtmlFoo</code> to
+	 *	<code>jakarta.faces.component.html.HtmlFoo</code> and
+	 *	<code>jakarta.faces.Foo</code> to
+	 *	<code>jakarta.faces.component.UIFoo</code>.  Other types are
+	 *	created as <code>UIOutput</code>.</p>
+	 */
+	private Class<?> findComponentClass(String componentType) {
+	    String name = componentType;
+	    if (name.startsWith(FACES_PREFIX)) {
+		name = name.substring(FACES_PREFIX.length());
+		name = name.startsWith("Html") ?
+		    "jakarta.faces.component.html." + name :
+		    "jakarta.faces.component.UI" + name;
+	    }
+	    try {
+		return Class.forName(name);
+	    } catch (ClassNotFoundException ex) {
+		return UIOutput.class;
+	    }
+	}
+
+	@Override
+	public ExpressionFactory getExpressionFactory() {
+	    return EXPRESSION_FACTORY;
+	}
+
+	@Override
+	public ViewHandler getViewHandler() {
+	    return _viewHandler;
+	}
+
+	@Override
+	public void publishEvent(FacesContext ctx, Class<? extends SystemEvent> eventClass, Object source) {
+	}
+
+	@Override
+	public void publishEvent(FacesContext ctx, Class<? extends SystemEvent> eventClass, Class<?> sourceBaseType, Object source) {
+	}
+
+	private ViewHandler _viewHandler = new ViewHandlerWrapper(Mockito.mock(ViewHandler.class)) {
+	    @Override
+	    public ViewDeclarationLanguage getViewDeclarationLanguage(FacesContext ctx, String viewId) {
+		// No view parameters
+		return null;
+	    }
+	};
+	private Map<String, Class<?>> _componentClasses = new HashMap<String, Class<?>>();
+	private static final String FACES_PREFIX = "jakarta.faces.";
+    }
+
+    /**
+     *	<p> The <code>PartialViewContext</code> of a normal (non-Ajax)
+     *	    request.</p>
+     */
+    private static class BenchmarkPartialViewContext extends PartialViewContextWrapper {
+	BenchmarkPartialViewContext() {
+	    super(Mockito.mock(PartialViewContext.class));
+	}
+
+	@Override
+	public boolean isAjaxRequest() {
+	    return false;
+	}
+
+	@Override
+	public boolean isPartialRequest() {
+	    return false;
+	}
+
+	@Override
+	public boolean isRenderAll() {
+	    return false;
+	}
+    }
+
+    /**
+     *	<p> A <code>RenderKit</code> without <code>Renderer</code>s.</p>
+     */
+    private static class BenchmarkRenderKit extends RenderKit {
+	@Override
+	public void addRenderer(String family, String rendererType, Renderer renderer) {
+	    throw new UnsupportedOperationException("Not supported.");
+	}
+
+	@Override
+	public Renderer getRenderer(String family, String rendererType) {
+	    return null;
+	}
+
+	@Override
+	public ResponseStateManager getResponseStateManager() {
+	    throw new UnsupportedOperationException("Not supported.");
+	}
+
+	@Override
+	public ResponseWriter createResponseWriter(Writer writer, String contentTypeList, String characterEncoding) {
+	    return new BenchmarkResponseWriter(writer);
+	}
+
+	@Override
+	public ResponseStream createResponseStream(OutputStream out) {
+	    throw new UnsupportedOperationException("Not supported.");
+	}
+    }
+
+    private static final Map<String, Object> APPLICATION_MAP = new ConcurrentHashMap<String, Object>();
+    private static final ExpressionFactory EXPRESSION_FACTORY = ExpressionFactory.newInstance();
+
+    private Application _application = new BenchmarkApplication();
+    private Map<Object, Object> _attributes = new HashMap<Object, Object>();
+    private ELContext _elContext = new StandardELContext(EXPRESSION_FACTORY);
+    private PartialViewContext _partialViewContext = new BenchmarkPartialViewContext();
+    private RenderKit _renderKit = new BenchmarkRenderKit();
+    private ResponseWriter _writer = null;
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.context.ResponseWriter;
+
+/**
+ *  <p>	A simple <code>ResponseWriter</code> which writes markup to the given
+ *	<code>Writer</code> without escaping it.</p>
+ */
+public class BenchmarkResponseWriter extends ResponseWriter {
+
+    public BenchmarkResponseWriter(Writer writer) {
+	_writer = writer;
+    }
+
+    @Override
+    public String getContentType() {
+	return "text/html";
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+	return "UTF-8";
+    }
+
+    @Override
+    public void flush() throws IOException {
+	closeStart();
+	_writer.flush();
+    }
+
+    @Override
+    public void startDocument() throws IOException {
+    }
+
+    @Override
+    public void endDocument() throws IOException {
+	flush();
+    }
+
+    @Override
+    public void startElement(String name, UIComponent component) throws IOException {
+	closeStart();
+	_writer.write('<');
+	_writer.write(name);
+	_inStart = true;
+    }
+
+    @Override
+    public void endElement(String name) throws IOException {
+	closeStart();
+	_writer.write("</");
+	_writer.write(name);
+	_writer.write('>');
+    }
+
+    @Override
+    public void writeAttribute(String name, Object value, String property) throws IOException {
+	_writer.write(' ');
+	_writer.write(name);
+	_writer.write("=\"");
+	_writer.write(String.valueOf(value));
+	_writer.write('"');
+    }
+
+    @Override
+    public void writeURIAttribute(String name, Object value, String property) throws IOException {
+	writeAttribute(name, value, property);
+    }
+
+    @Override
+    public void writeComment(Object comment) throws IOException {
+	closeStart();
+	_writer.write("<!--");
+	_writer.write(String.valueOf(comment));
+	_writer.write("-->");
+    }
+
+    @Override
+    public void writeText(Object text, String property) throws IOException {
+	closeStart();
+	_writer.write(String.valueOf(text));
+    }
+
+    @Override
+    public void writeText(char[] text, int off, int len) throws IOException {
+	closeStart();
+	_writer.write(text, off, len);
+    }
+
+    @Override
+    public ResponseWriter cloneWithWriter(Writer writer) {
+	return new BenchmarkResponseWriter(writer);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+	closeStart();
+	_writer.write(cbuf, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+	closeStart();
+	_writer.close();
+    }
+
+    /**
+     *	<p> Closes the start tag, if one is open.</p>
+     */
+    private void closeStart() throws IOException {
+	if (_inStart) {
+	    _writer.write('>');
+	    _inStart = false;
+	}
+    }
+
+    private Writer _writer;
+    private boolean _inStart = false;
+}
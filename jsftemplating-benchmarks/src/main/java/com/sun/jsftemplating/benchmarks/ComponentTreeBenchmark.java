@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.jsftemplating.layout.LayoutViewHandler;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIOutput;
+import jakarta.faces.component.UIViewRoot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  <p>	Measures building the <code>UIComponent</code> tree for the
+ *	<code>speed-*</code> templates via
+ *	{@link LayoutViewHandler#buildUIComponentTree}, and encoding it via
+ *	{@link LayoutDefinition#encode}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentTreeBenchmark {
+
+    @Param({"s", "m", "l", "xl"})
+    public String size;
+
+    @Param({"jsf", "xhtml"})
+    public String format;
+
+    @Setup
+    public void init() throws IOException {
+	_ctx = BenchmarkContext.install();
+	_ld = ParseBenchmark.read(format, ParseBenchmark.getResource("speed-" + size + "." + format));
+	_viewRoot = build();
+	_out = new CharArrayWriter(64 * 1024);
+	_ctx.setResponseWriter(new BenchmarkResponseWriter(_out));
+    }
+
+    @Benchmark
+    public UIViewRoot build() {
+	UIViewRoot viewRoot = new UIViewRoot();
+	_ctx.setViewRoot(viewRoot);
+
+	// The speed-* templates read a property from the "jkl" component
+	UIComponent jkl = new UIOutput();
+	jkl.setId("jkl");
+	viewRoot.getChildren().add(jkl);
+
+	LayoutViewHandler.buildUIComponentTree(_ctx, viewRoot, _ld);
+	return viewRoot;
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+	_ctx.setViewRoot(_viewRoot);
+	_out.reset();
+	_ld.encode(_ctx, _viewRoot);
+	return _out.size();
+    }
+
+    private BenchmarkContext _ctx;
+    private LayoutDefinition _ld;
+    private UIViewRoot _viewRoot;
+    private CharArrayWriter _out;
+}
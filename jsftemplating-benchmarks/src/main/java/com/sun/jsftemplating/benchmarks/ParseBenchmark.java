@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.benchmarks;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.layout.facelets.FaceletsLayoutDefinitionReader;
+import com.sun.jsftemplating.layout.template.TemplateReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  <p>	Measures reading the <code>speed-*</code> templates into a
+ *	{@link LayoutDefinition}, the <code>.jsf</code> files with the
+ *	{@link TemplateReader} and the <code>.xhtml</code> files with the
+ *	{@link FaceletsLayoutDefinitionReader}.  The readers are used directly
+ *	so nothing is cached.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"s", "m", "l", "xl"})
+    public String size;
+
+    @Param({"jsf", "xhtml"})
+    public String format;
+
+    @Setup
+    public void init() {
+	BenchmarkContext.install();
+	_url = getResource("speed-" + size + "." + format);
+    }
+
+    @Benchmark
+    public LayoutDefinition read() throws IOException {
+	return read(format, _url);
+    }
+
+    /**
+     *	<p> Reads the given template with the reader for its format.</p>
+     */
+    static LayoutDefinition read(String format, URL url) throws IOException {
+	if ("jsf".equals(format)) {
+	    return new TemplateReader(url.toString(), url).read();
+	}
+	return new FaceletsLayoutDefinitionReader(url.toString(), url).read();
+    }
+
+    /**
+     *	<p> Finds the given resource, the <code>speed-*</code> templates come
+     *	    from the <code>jsftemplating</code> test jar.</p>
+     */
+    static URL getResource(String name) {
+	URL url = ParseBenchmark.class.getClassLoader().getResource(name);
+	if (url == null) {
+	    throw new IllegalArgumentException("'" + name + "' not found!");
+	}
+	return url;
+    }
+
+    private URL _url;
+}
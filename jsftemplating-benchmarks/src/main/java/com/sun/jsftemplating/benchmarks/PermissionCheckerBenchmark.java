@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.jsftemplating.el.PermissionChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *  <p>	Measures creating and evaluating {@link PermissionChecker}s, as is
+ *	done for each <code>rendered</code> and <code>if</code> condition.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionCheckerBenchmark {
+
+    @Param({
+	"true",
+	"true&(false|true)",
+	"!true|false&!(false|true)",
+	"(3>1)&(7%2=1)",
+	"$attribute{a}=A",
+	"$attribute{admin}&!$attribute{readOnly}|($attribute{count}>10)"
+    })
+    public String equation;
+
+    @Setup
+    public void init() {
+	_ctx = BenchmarkContext.install();
+	Map<String, Object> requestMap = _ctx.getExternalContext().getRequestMap();
+	requestMap.put("a", "A");
+	requestMap.put("admin", "true");
+	requestMap.put("readOnly", "false");
+	requestMap.put("count", "12");
+    }
+
+    @Benchmark
+    public boolean hasPermission() {
+	return new PermissionChecker(null, null, equation).hasPermission();
+    }
+
+    private BenchmarkContext _ctx;
+}
@@ -21,6 +21,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -38,8 +39,11 @@ import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.SimpleElementVisitor6;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
@@ -64,6 +68,14 @@ public class HandlerAP extends AbstractProcessor {
 
 //  public static final String HANDLER_FILE = "Handler.map";
   public static final String HANDLER_FILE = "META-INF/jsftemplating/Handler.map";
+
+  /**
+   * <p>
+   * The interface implemented by the generated invoker classes.</p>
+   */
+  public static final String INVOKER_INTERFACE = "com.sun.jsftemplating.layout.descriptors.handler.HandlerInvoker";
+
+  private static final String HANDLER_CONTEXT = "com.sun.jsftemplating.layout.descriptors.handler.HandlerContext";
   private PrintWriter writer = null;
   private boolean _setup = false;
   private Map handlers = new HashMap();
@@ -268,6 +280,107 @@ public class HandlerAP extends AbstractProcessor {
     return buf.toString();
   }
 
+  /**
+   * <p>
+   * This method determines if generated code in the package of the
+   * handler's class is able to call the handler method. Otherwise the
+   * handler is invoked via reflection.</p>
+   */
+  private boolean canInvokeDirectly(TypeElement type, ExecutableElement method) {
+    List<? extends VariableElement> params = method.getParameters();
+    if (!method.getModifiers().contains(Modifier.PUBLIC)
+        || (params.size() != 1)
+        || !params.get(0).asType().toString().equals(HANDLER_CONTEXT)) {
+      return false;
+    }
+    for (Element elt = type; elt instanceof TypeElement; elt = elt.getEnclosingElement()) {
+      if (elt.getModifiers().contains(Modifier.PRIVATE)) {
+        return false;
+      }
+    }
+    if (method.getModifiers().contains(Modifier.STATIC)) {
+      return true;
+    }
+
+    // A new instance is created for each invocation
+    if (type.getModifiers().contains(Modifier.ABSTRACT)
+        || ((type.getNestingKind() != NestingKind.TOP_LEVEL)
+            && !type.getModifiers().contains(Modifier.STATIC))) {
+      return false;
+    }
+    for (ExecutableElement ctor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (ctor.getParameters().isEmpty()
+          && !ctor.getModifiers().contains(Modifier.PRIVATE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * <p>
+   * This method generates a class implementing
+   * {@link #INVOKER_INTERFACE} which calls the given handler method. The
+   * class is generated in the same package as the handler's class. It
+   * returns the name of the generated class, or <code>null</code> if it
+   * could not be written.</p>
+   */
+  private String writeInvoker(String id, TypeElement type, ExecutableElement method) {
+    String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    String typeName = type.getQualifiedName().toString();
+    String simpleName = (pkg.length() == 0) ? typeName : typeName.substring(pkg.length() + 1);
+    simpleName = simpleName.replace('.', '_') + "_" + method.getSimpleName() + "Invoker";
+    String className = (pkg.length() == 0) ? simpleName : pkg + "." + simpleName;
+
+    String target = method.getModifiers().contains(Modifier.STATIC)
+        ? typeName : "new " + typeName + "()";
+    boolean isVoid = (method.getReturnType().getKind() == TypeKind.VOID);
+    Writer out = null;
+    try {
+      out = processingEnv.getFiler().createSourceFile(className, method).openWriter();
+      PrintWriter src = new PrintWriter(out);
+      if (pkg.length() > 0) {
+        src.println("package " + pkg + ";");
+        src.println();
+      }
+      src.println("/**");
+      src.println(" * Invokes the '" + id + "' handler, generated by " + HandlerAP.class.getName() + ".");
+      src.println(" */");
+      src.println("public final class " + simpleName + " implements " + INVOKER_INTERFACE + " {");
+      src.println("    @Override");
+      src.println("    public Object invoke(" + HANDLER_CONTEXT + " handlerContext) throws java.lang.reflect.InvocationTargetException {");
+      src.println("        try {");
+      if (isVoid) {
+        src.println("            " + target + "." + method.getSimpleName() + "(handlerContext);");
+        src.println("            return null;");
+      } else {
+        src.println("            return " + target + "." + method.getSimpleName() + "(handlerContext);");
+      }
+      src.println("        } catch (Throwable ex) {");
+      src.println("            // Report it as Method.invoke() would");
+      src.println("            throw new java.lang.reflect.InvocationTargetException(ex);");
+      src.println("        }");
+      src.println("    }");
+      src.println("}");
+      src.flush();
+    } catch (IOException ex) {
+      processingEnv.getMessager().printMessage(Kind.WARNING,
+          String.format("Unable to generate %s, handler '%s' will be invoked via reflection: %s",
+              className, id, ex),
+          method);
+      return null;
+    } finally {
+      if (out != null) {
+        try {
+          out.close();
+        } catch (IOException ex) {
+          // Ignore
+        }
+      }
+    }
+    return className;
+  }
+
   @Override
   public SourceVersion getSupportedSourceVersion() {
     if (SourceVersion.latest().compareTo(SourceVersion.RELEASE_6) > 0) {
@@ -325,7 +438,8 @@ public class HandlerAP extends AbstractProcessor {
         }
 
         // Check for duplicate handler definitions
-        if (handlers.get(id) != null) {
+        boolean duplicate = (handlers.get(id) != null);
+        if (duplicate) {
           processingEnv.getMessager().printMessage(Kind.WARNING,
               String.format(
                   "Handler with 'id' of '%s' is declared more than once!'",
@@ -364,7 +478,7 @@ public class HandlerAP extends AbstractProcessor {
         List<? extends VariableElement> params = exe.getParameters();
         String pdec = params.iterator().next().asType().toString();
         if ((params.size() != 1)
-            || !pdec.equals("com.sun.jsftemplating.layout.descriptors.handler.HandlerContext")) {
+            || !pdec.equals(HANDLER_CONTEXT)) {
 
           processingEnv.getMessager().printMessage(Kind.ERROR,
               String.format("Annotated method: %s.%s  must contain a single parameter of type 'com.sun.jsftemplating.layout.descriptors.handler.HandlerContext', instead type: %s was found",
@@ -374,6 +488,18 @@ public class HandlerAP extends AbstractProcessor {
               decl);
         }
 
+        // Generate a class which calls the method without reflection
+        String invoker = null;
+        if (canInvokeDirectly(teDecl, exe)) {
+          invoker = writeInvoker(id, teDecl, exe);
+        }
+        if (invoker != null) {
+          writer.println(String.format("%s.invoker=%s", id, invoker));
+        } else if (duplicate) {
+          // Don't use the invoker of the other declaration
+          writer.println(String.format("%s.invoker=", id));
+        }
+
 // FIXME: Consider an alternate method declaration that annotates a pojo method
 //	    @Handler(id="foo")
 //	    public String method(String a, String b, String c)
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import com.sun.jsftemplating.layout.LayoutDefinitionException;
+import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.layout.LayoutDefinitionPrecompiler;
+
+/**
+ * <p>
+ * This goal precompiles the templates in <code>src/main/webapp</code> and <code>META-INF/jsftemplating</code> with the
+ * {@link LayoutDefinitionPrecompiler}, and stores them in the classes directory so they are packaged with the
+ * application. The build fails if a template can't be read.
+ * </p>
+ */
+@Mojo(name = "precompile", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class PrecompileMojo extends AbstractMojo {
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping template precompilation.");
+            return;
+        }
+        LayoutDefinitionPrecompiler precompiler = new LayoutDefinitionPrecompiler(webappDirectory, outputDirectory);
+        if (extensions != null && extensions.length > 0) {
+            precompiler.setExtensions(Arrays.asList(extensions));
+        }
+        if (layoutDefinitionManager != null) {
+            precompiler.setInitParameter(LayoutDefinitionManager.LAYOUT_DEFINITION_MANAGER_KEY, layoutDefinitionManager);
+        }
+
+        // Handlers and component types of the project are found via the context ClassLoader
+        Thread thread = Thread.currentThread();
+        ClassLoader loader = thread.getContextClassLoader();
+        URLClassLoader projectLoader = new URLClassLoader(getClasspath(), getClass().getClassLoader());
+        thread.setContextClassLoader(projectLoader);
+        int count = 0;
+        List<String> errors = new ArrayList<>();
+        try {
+            for (String key : precompiler.findKeys()) {
+                try {
+                    if (precompiler.precompile(key)) {
+                        count++;
+                    } else if (getLog().isDebugEnabled()) {
+                        getLog().debug("Not a template: " + key);
+                    }
+                } catch (LayoutDefinitionException ex) {
+                    getLog().error(key + ": " + ex.getMessage(), ex);
+                    errors.add(key);
+                }
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to find templates.", ex);
+        } finally {
+            thread.setContextClassLoader(loader);
+            try {
+                projectLoader.close();
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new MojoFailureException("Unable to read " + errors.size() + " template(s): " + errors);
+        }
+        getLog().info("Precompiled " + count + " template(s).");
+    }
+
+    /**
+     * <p>
+     * This method returns the compile classpath of the project.
+     * </p>
+     */
+    private URL[] getClasspath() throws MojoExecutionException {
+        try {
+            List<String> elements = project.getCompileClasspathElements();
+            URL[] urls = new URL[elements.size()];
+            for (int idx = 0; idx < urls.length; idx++) {
+                urls[idx] = new File(elements.get(idx)).toURI().toURL();
+            }
+            return urls;
+        } catch (DependencyResolutionRequiredException | MalformedURLException ex) {
+            throw new MojoExecutionException("Unable to get the classpath.", ex);
+        }
+    }
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * The document root of the web application.
+     */
+    @Parameter(defaultValue = "${basedir}/src/main/webapp")
+    private File webappDirectory;
+
+    /**
+     * The classes directory, precompiled templates are stored below it.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}")
+    private File outputDirectory;
+
+    /**
+     * The extensions of the files to precompile, by default ".jsf" and ".xhtml".
+     */
+    @Parameter
+    private String[] extensions;
+
+    /**
+     * The <code>LayoutDefinitionManager</code> to try first, as the context-param of the application.
+     */
+    @Parameter
+    private String layoutDefinitionManager;
+
+    /**
+     * Skips precompilation.
+     */
+    @Parameter(property = "jsftemplating.precompile.skip", defaultValue = "false")
+    private boolean skip;
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.component;
+
+/**
+ * <p>
+ * This <code>UIComponent</code> exists so the output of "cache" elements nested inside other components can be stored.
+ * </p>
+ */
+public class Cache extends TemplateComponentBase {
+
+    /**
+     * <p>
+     * This is the location of the template that declares the layout for the Cache. (/jsftemplating/cache.jsf)
+     * </p>
+     */
+    public static final String LAYOUT_KEY = "/jsftemplating/cache.jsf";
+
+    /**
+     * <p>
+     * Constructor for <code>Cache</code>.
+     * </p>
+     */
+    public Cache() {
+        super();
+        setRendererType("com.sun.jsftemplating.Cache");
+        setLayoutDefinitionKey(LAYOUT_KEY);
+    }
+
+    /**
+     * <p>
+     * Return the family for this component.
+     * </p>
+     */
+    @Override
+    public String getFamily() {
+        return "com.sun.jsftemplating.Cache";
+    }
+
+}
@@ -22,6 +22,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.sun.jsftemplating.el.VariableResolver;
 import com.sun.jsftemplating.layout.descriptors.ComponentType;
@@ -30,7 +34,6 @@ import com.sun.jsftemplating.layout.descriptors.LayoutElement;
 import com.sun.jsftemplating.util.LogUtil;
 import com.sun.jsftemplating.util.TypeConverter;
 
-import jakarta.el.ELContext;
 import jakarta.el.ValueExpression;
 import jakarta.faces.component.UIComponent;
 import jakarta.faces.context.FacesContext;
@@ -435,7 +438,7 @@ public class ComponentUtil {
                 comp.setValueExpression(key, (ValueExpression) value);
             }
         } else if (value instanceof String && isValueReference((String) value)) {
-            ValueExpression ve = context.getApplication().getExpressionFactory().createValueExpression(context.getELContext(), (String) value, Object.class);
+            ValueExpression ve = getValueExpression(context, (String) value, Object.class);
             if (comp != null) {
                 comp.setValueExpression(key, ve);
             }
@@ -578,9 +581,8 @@ public class ComponentUtil {
 
         // Next check to see if the result contains a JSF ValueExpression
         if (result != null && result instanceof String && isValueReference((String) result)) {
-            ELContext elctx = context.getELContext();
-            ValueExpression ve = context.getApplication().getExpressionFactory().createValueExpression(elctx, (String) result, Object.class);
-            result = ve.getValue(elctx);
+            ValueExpression ve = getValueExpression(context, (String) result, Object.class);
+            result = ve.getValue(context.getELContext());
             /*
              * 1.1+ // JSF 1.1 VB: try { ValueBinding vb = context.getApplication().createValueBinding((String) result); result =
              * vb.getValue(context); } catch (EvaluationException ex) { if (LogUtil.infoEnabled()) { LogUtil.info("JSFT0007", new
@@ -592,6 +594,76 @@ public class ComponentUtil {
         return result;
     }
 
+    /**
+     * <p>
+     * This method returns a <code>ValueExpression</code> for the given expression <code>String</code>. Parsed
+     * <code>ValueExpression</code>s are cached by expression and expected type, and shared across requests. Once
+     * {@link #MAX_CACHED_VALUE_EXPRESSIONS} are cached, new expressions are still created, but not cached.
+     * </p>
+     *
+     * <p>
+     * The <code>ValueExpression</code> is created with the <code>FacesContext</code>'s <code>ELContext</code>, so this
+     * should not be used for expressions which depend on a <code>FunctionMapper</code> or <code>VariableMapper</code> that
+     * varies between requests.
+     * </p>
+     *
+     * @param context The <code>FacesContext</code>.
+     * @param expression The expression (i.e. "#{foo.bar}").
+     * @param expectedType The type the result of the expression will be coerced to.
+     *
+     * @return The <code>ValueExpression</code>.
+     */
+    public ValueExpression getValueExpression(FacesContext context, String expression, Class<?> expectedType) {
+        Map<String, ValueExpression> cache = _valueExpressions.get(expectedType);
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>(200, 0.75f, 2);
+            Map<String, ValueExpression> existing = _valueExpressions.putIfAbsent(expectedType, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        ValueExpression ve = cache.get(expression);
+        if (ve != null) {
+            _veHits.incrementAndGet();
+            return ve;
+        }
+        _veMisses.incrementAndGet();
+        ve = context.getApplication().getExpressionFactory().createValueExpression(context.getELContext(), expression, expectedType);
+        if (_veCount.get() < MAX_CACHED_VALUE_EXPRESSIONS && cache.putIfAbsent(expression, ve) == null) {
+            _veCount.incrementAndGet();
+        }
+        return ve;
+    }
+
+    /**
+     * <p>
+     * This method returns the number of times {@link #getValueExpression(FacesContext, String, Class)} found a cached
+     * <code>ValueExpression</code>.
+     * </p>
+     */
+    public long getValueExpressionCacheHits() {
+        return _veHits.get();
+    }
+
+    /**
+     * <p>
+     * This method returns the number of times {@link #getValueExpression(FacesContext, String, Class)} had to create a
+     * <code>ValueExpression</code>.
+     * </p>
+     */
+    public long getValueExpressionCacheMisses() {
+        return _veMisses.get();
+    }
+
+    /**
+     * <p>
+     * This method returns the number of cached <code>ValueExpression</code>s.
+     * </p>
+     */
+    public int getValueExpressionCacheSize() {
+        return _veCount.get();
+    }
+
     /**
      * <p>
      * Returns true if this expression looks like an EL expression.
@@ -620,6 +692,24 @@ public class ComponentUtil {
      */
     private Map<String, ComponentType> _types = new HashMap<>();
 
+    /**
+     * <p>
+     * The maximum number of <code>ValueExpression</code>s to cache.
+     * </p>
+     */
+    public static final int MAX_CACHED_VALUE_EXPRESSIONS = 4096;
+
+    /**
+     * <p>
+     * This Map caches <code>ValueExpression</code>s by expected type, then by expression.
+     * </p>
+     */
+    private ConcurrentMap<Class<?>, Map<String, ValueExpression>> _valueExpressions = new ConcurrentHashMap<>(8, 0.75f, 2);
+
+    private AtomicInteger _veCount = new AtomicInteger();
+    private AtomicLong _veHits = new AtomicLong();
+    private AtomicLong _veMisses = new AtomicLong();
+
     /**
      * <p>
      * Application scope key for an instance of <code>ComponentUtil</code>.
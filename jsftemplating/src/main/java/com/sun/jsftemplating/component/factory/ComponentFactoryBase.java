@@ -225,7 +225,7 @@ public abstract class ComponentFactoryBase implements ComponentFactory {
         }
         if (binding != null && ComponentUtil.getInstance(ctx).isValueReference(binding)) {
             // Create a ValueExpression
-            ValueExpression ve = ctx.getApplication().getExpressionFactory().createValueExpression(ctx.getELContext(), binding, UIComponent.class);
+            ValueExpression ve = ComponentUtil.getInstance(ctx).getValueExpression(ctx, binding, UIComponent.class);
             // Create / get the UIComponent
             comp = ctx.getApplication().createComponent(ve, ctx, componentType);
         } else {
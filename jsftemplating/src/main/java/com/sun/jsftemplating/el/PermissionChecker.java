@@ -17,15 +17,17 @@
 package com.sun.jsftemplating.el;
 
 import java.util.ArrayList;
-import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import com.sun.jsftemplating.component.ComponentUtil;
 import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import com.sun.jsftemplating.util.Util;
 
 import jakarta.faces.component.UIComponent;
 import jakarta.faces.context.FacesContext;
@@ -41,9 +43,9 @@ import jakarta.faces.context.FacesContext;
  * interpretted to mean true)</li>
  * <li>'(' and ')' can be used to override order of operation</li>
  * <li>'!' negate a boolean value</li>
- * <li>'|' logical OR</li>
- * <li>'&amp;' logical AND</li>
- * <li>'=' String equals</li>
+ * <li>'|' logical OR (the right side is only evaluated when needed)</li>
+ * <li>'&amp;' logical AND (the right side is only evaluated when needed)</li>
+ * <li>'=' String matches a regular expression</li>
  * <li>'&lt;' less than between 2 Integers</li>
  * <li>'&gt;' greater than between 2 Integers</li>
  * <li>'%' modulus of 2 Integers</li>
@@ -121,6 +123,37 @@ public class PermissionChecker {
 
     private static final String PERMISSION_FUNCTIONS = "__jsft_permFuncs";
 
+    /**
+     * <p>
+     * Application scope key for the <code>Map</code> of compiled {@link Equation}s.
+     * </p>
+     */
+    private static final String EQUATION_CACHE = "__jsft_permEquations";
+
+    /**
+     * <p>
+     * The maximum number of {@link Equation}s to cache. Most equations come from templates and are therefore bounded, but
+     * equations which are themselves the result of an expression (i.e. <code>$eval{}</code>) are not. Once this many
+     * equations are cached, new equations are compiled but not cached.
+     * </p>
+     */
+    private static final int MAX_CACHED_EQUATIONS = 2048;
+
+    /**
+     * <p>
+     * The maximum number of compiled <code>Pattern</code>s (used by '=') to cache.
+     * </p>
+     */
+    private static final int MAX_CACHED_PATTERNS = 512;
+
+    /**
+     * <p>
+     * This <code>Map</code> caches the compiled <code>Pattern</code>s used by the '=' operator. <code>Pattern</code>s do
+     * not depend on the application, so this is shared.
+     * </p>
+     */
+    private static final Map<String, Pattern> _patterns = new ConcurrentHashMap<>(64, 0.75f, 2);
+
     /**
      * <p>
      * This holds the infix equation.
@@ -128,6 +161,13 @@ public class PermissionChecker {
      */
     private String _infixStr;
 
+    /**
+     * <p>
+     * This holds the compiled equation.
+     * </p>
+     */
+    private Equation _equation;
+
     /**
      * <p>
      * This holds the postfix equation.
@@ -155,12 +195,26 @@ public class PermissionChecker {
      * This is the constructor method that is required to create this object.
      */
     public PermissionChecker(LayoutElement desc, UIComponent component, String infixStr) {
-        if (infixStr == null) {
-            infixStr = "false";
-        }
+        this(desc, component, getEquation(null, infixStr));
+    }
+
+    /**
+     * <p>
+     * This constructor evaluates an already compiled {@link Equation}. See {@link #getEquation(FacesContext, String)}.
+     * </p>
+     */
+    public PermissionChecker(LayoutElement desc, UIComponent component, Equation equation) {
         setLayoutElement(desc);
         setUIComponent(component);
-        setInfix(stripWhiteSpace(infixStr));
+        setEquation(equation);
+    }
+
+    /**
+     * <p>
+     * This constructor is only used to compile an {@link Equation}.
+     * </p>
+     */
+    private PermissionChecker() {
     }
 
     /**
@@ -432,15 +486,20 @@ public class PermissionChecker {
         }
 
         // Create a new instance
-        Function function = null;
+        return getFunction(functionClass);
+    }
+
+    /**
+     * <p>
+     * This method creates a new instance of the given <code>Function</code> class.
+     * </p>
+     */
+    private static Function getFunction(Class functionClass) {
         try {
-            function = (Function) functionClass.newInstance();
+            return (Function) functionClass.newInstance();
         } catch (Exception ex) {
-            throw new RuntimeException("Unable to instantiate '" + functionClass.getName() + "' for '" + functionName + "'", ex);
+            throw new RuntimeException("Unable to instantiate '" + functionClass.getName() + "'", ex);
         }
-
-        // Return the instance
-        return function;
     }
 
     /**
@@ -481,6 +540,9 @@ public class PermissionChecker {
 
         // Save new copy of function Map
         setFunctions(null, newFuncs);
+
+        // Previously compiled Equations may have resolved this name differently
+        getEquationCache(null).clear();
     }
 
     /**
@@ -587,118 +649,103 @@ public class PermissionChecker {
      * </p>
      */
     public boolean hasPermission() {
-        char[] postfixArr = getPostfixArr();
-        int len = postfixArr.length;
-        Stack result = new Stack();
-        result.push(FALSE_BOOLEAN_FUNCTION); // Default to false
-        boolean val1, val2;
-        Iterator<Function> it = _functionList.iterator();
+        return _equation._root.evaluate(this);
+    }
 
-        // Iterate through the postfix array
-        for (int idx = 0; idx < len; idx++) {
-            switch (postfixArr[idx]) {
-            case POST_TRUE:
-                result.push(TRUE_BOOLEAN_FUNCTION);
-                break;
-            case POST_FALSE:
-                result.push(FALSE_BOOLEAN_FUNCTION);
-                break;
-            case FUNCTION_MARKER:
-                if (!it.hasNext()) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "' -- found function marker " + "w/o cooresponding function!");
-                }
-                result.push(it.next());
-                break;
-            case EQUALS_OPERATOR:
-                try {
-                    // Allow reg expression matching
-                    String matchStr = result.pop().toString();
-                    val1 = result.pop().toString().matches(matchStr);
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                result.push(val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
-                break;
-            case LESS_THAN_OPERATOR:
-                try {
-                    // The stack reverses the order, so check greater than
-                    val1 = Integer.parseInt(result.pop().toString()) > Integer.parseInt(result.pop().toString());
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                result.push(val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
-                break;
-            case MORE_THAN_OPERATOR:
-                try {
-                    // The stack reverses the order, so check less than
-                    val1 = Integer.parseInt(result.pop().toString()) < Integer.parseInt(result.pop().toString());
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                result.push(val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
-                break;
-            case MODULUS_OPERATOR:
-                try {
-                    // The stack reverses the order...
-                    int modNumber = Integer.parseInt(result.pop().toString());
-                    int num = Integer.parseInt(result.pop().toString());
-                    result.push(new StringFunction("" + num % modNumber));
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                break;
-            case DIVIDE_OPERATOR:
-                try {
-                    // The stack reverses the order...
-                    int divNumber = Integer.parseInt(result.pop().toString());
-                    int num = Integer.parseInt(result.pop().toString());
-                    result.push(new StringFunction("" + num / divNumber));
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                break;
-            case OR_OPERATOR:
-                try {
-                    val1 = ((Function) result.pop()).evaluate();
-                    val2 = ((Function) result.pop()).evaluate();
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                result.push(val1 || val2 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
-                break;
-            case AND_OPERATOR:
-                try {
-                    val1 = ((Function) result.pop()).evaluate();
-                    val2 = ((Function) result.pop()).evaluate();
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                result.push(val1 && val2 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
-                break;
-            case NOT_OPERATOR:
-                try {
-                    val1 = ((Function) result.pop()).evaluate();
-                } catch (EmptyStackException ex) {
-                    throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-                }
-                result.push(!val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
-                break;
+    /**
+     * <p>
+     * This method returns the compiled {@link Equation} for the given infix <code>String</code>. Compiled
+     * {@link Equation}s are cached in application scope, so each distinct equation is only converted to postfix once.
+     * </p>
+     *
+     * @param ctx The <code>FacesContext</code> (may be null).
+     * @param infixStr The infix equation (null is treated as "false").
+     *
+     * @return The compiled {@link Equation}.
+     */
+    public static Equation getEquation(FacesContext ctx, String infixStr) {
+        if (infixStr == null) {
+            infixStr = FALSE;
+        }
+        Map<String, Equation> cache = getEquationCache(ctx);
+        Equation equation = cache.get(infixStr);
+        if (equation == null) {
+            equation = compile(infixStr);
+            if (cache.size() < MAX_CACHED_EQUATIONS) {
+                cache.put(infixStr, equation);
             }
         }
+        return equation;
+    }
 
-        // Return the only element on the stack (hopefully)
-        try {
-            val1 = ((Function) result.pop()).evaluate();
-        } catch (EmptyStackException ex) {
-            throw new RuntimeException("Unable to evaluate: '" + toString() + "'.", ex);
-        }
-        if (!result.empty()) {
-            result.pop(); // We added a false that wasn't needed
-            if (!result.empty()) {
-                throw new RuntimeException("Unable to evaluate: '" + toString() + "' -- values left on the stack.");
+    /**
+     * <p>
+     * This method converts the given infix <code>String</code> to an {@link Equation} without consulting the cache.
+     * </p>
+     */
+    public static Equation compile(String infixStr) {
+        if (infixStr == null) {
+            infixStr = FALSE;
+        }
+        return toEquation(stripWhiteSpace(infixStr));
+    }
+
+    /**
+     * <p>
+     * This method converts the given infix <code>String</code> to an {@link Equation} (whitespace is not removed).
+     * </p>
+     */
+    private static Equation toEquation(String infixStr) {
+        PermissionChecker compiler = new PermissionChecker();
+        char[] postfix = compiler.generatePostfix(infixStr);
+        return new Equation(infixStr, postfix, compiler._functionList);
+    }
+
+    /**
+     * <p>
+     * This returns the application scoped <code>Map</code> of compiled {@link Equation}s.
+     * </p>
+     */
+    private static Map<String, Equation> getEquationCache(FacesContext ctx) {
+        if (ctx == null) {
+            ctx = FacesContext.getCurrentInstance();
+        }
+        if (ctx == null) {
+            // Not JSF env, don't cache
+            return new HashMap<>(2);
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        Map<String, Equation> cache = Util.getMapValue(appMap, EQUATION_CACHE);
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>(200, 0.75f, 2);
+            appMap.put(EQUATION_CACHE, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * <p>
+     * This method initializes this <code>PermissionChecker</code> from the given compiled {@link Equation}. A new
+     * {@link StringFunction} is created for each string operand (they are evaluated in the context of this
+     * <code>PermissionChecker</code>) and a new instance is created for each registered {@link Function}.
+     * </p>
+     */
+    protected void setEquation(Equation equation) {
+        _equation = equation;
+        _infixStr = equation.getInfix();
+        setPostfixArr(equation._postfix);
+        Object[] operands = equation._operands;
+        _functionList = new ArrayList<>(operands.length);
+        for (Object operand : operands) {
+            if (operand instanceof String) {
+                _functionList.add(new StringFunction((String) operand));
+            } else {
+                Function proto = (Function) operand;
+                Function function = getFunction(proto.getClass());
+                function.setArguments(proto.getArguments());
+                _functionList.add(function);
             }
         }
-        return val1;
     }
 
     /**
@@ -720,8 +767,17 @@ public class PermissionChecker {
      *
      */
     public void setInfix(String equation) {
-        _infixStr = equation;
-        setPostfixArr(generatePostfix(equation));
+        setEquation(toEquation(equation));
+    }
+
+    /**
+     * <p>
+     * This method provides access to the <code>Function</code>s which coorespond to the 'F' markers in the postfix
+     * equation.
+     * </p>
+     */
+    protected List<Function> getFunctionList() {
+        return _functionList;
     }
 
     /**
@@ -1009,6 +1065,375 @@ public class PermissionChecker {
         private boolean _value = false;
     }
 
+    /**
+     * <p>
+     * <code>Equation</code> is the compiled (postfix) form of an infix equation. It is immutable and may be shared across
+     * threads; {@link PermissionChecker} instances are created from it to evaluate it against a specific
+     * {@link LayoutElement} and <code>UIComponent</code>. Use {@link PermissionChecker#getEquation(FacesContext, String)}
+     * to obtain an instance.
+     * </p>
+     */
+    public static final class Equation {
+
+        /**
+         * <p>
+         * Constructor.
+         * </p>
+         *
+         * @param infix The infix equation (whitespace removed).
+         * @param postfix The postfix representation.
+         * @param functions The <code>Function</code>s cooresponding to the 'F' markers in <code>postfix</code>.
+         */
+        private Equation(String infix, char[] postfix, List<Function> functions) {
+            _infix = infix;
+            _postfix = postfix;
+            _operands = new Object[functions.size()];
+            int idx = 0;
+            for (Function function : functions) {
+                // Store the raw String for StringFunctions, they must be
+                // bound to the PermissionChecker that evaluates them
+                _operands[idx++] = function instanceof StringFunction ? ((StringFunction) function)._value : function;
+            }
+            _root = buildTree(postfix, _operands.length);
+        }
+
+        /**
+         * <p>
+         * This method converts the postfix equation into a tree of {@link Node}s. It walks the postfix equation in the same
+         * way the stack-based evaluation does (including the default "false" at the bottom of the stack). Equations which
+         * cannot be evaluated produce a {@link Node} that throws when evaluated, so errors are still reported by
+         * {@link PermissionChecker#hasPermission()}.
+         * </p>
+         */
+        private static Node buildTree(char[] postfix, int numOperands) {
+            List<Node> stack = new ArrayList<>(postfix.length + 1);
+            stack.add(BooleanNode.FALSE); // Default to false
+            int operand = 0;
+            for (char ch : postfix) {
+                switch (ch) {
+                case POST_TRUE:
+                    stack.add(BooleanNode.TRUE);
+                    break;
+                case POST_FALSE:
+                    stack.add(BooleanNode.FALSE);
+                    break;
+                case FUNCTION_MARKER:
+                    if (operand >= numOperands) {
+                        return new InvalidNode(" -- found function marker w/o cooresponding function!");
+                    }
+                    stack.add(new OperandNode(operand++));
+                    break;
+                case NOT_OPERATOR:
+                    if (stack.isEmpty()) {
+                        return new InvalidNode(".");
+                    }
+                    stack.add(new NotNode(stack.remove(stack.size() - 1)));
+                    break;
+                case EQUALS_OPERATOR:
+                case LESS_THAN_OPERATOR:
+                case MORE_THAN_OPERATOR:
+                case MODULUS_OPERATOR:
+                case DIVIDE_OPERATOR:
+                case OR_OPERATOR:
+                case AND_OPERATOR:
+                    if (stack.size() < 2) {
+                        return new InvalidNode(".");
+                    }
+                    Node right = stack.remove(stack.size() - 1);
+                    Node left = stack.remove(stack.size() - 1);
+                    stack.add(new BinaryNode(ch, left, right));
+                    break;
+                default:
+                    // Unmatched '(' may be left in the postfix, ignore it
+                }
+            }
+
+            // Return the only element on the stack (hopefully)
+            Node root = stack.remove(stack.size() - 1);
+            if (!stack.isEmpty()) {
+                stack.remove(stack.size() - 1); // We added a false that wasn't needed
+                if (!stack.isEmpty()) {
+                    return new InvalidNode(" -- values left on the stack.");
+                }
+            }
+            return root;
+        }
+
+        /**
+         * <p>
+         * This method returns the infix representation of the equation.
+         * </p>
+         */
+        public String getInfix() {
+            return _infix;
+        }
+
+        /**
+         * <p>
+         * This method returns the postfix representation of the equation (the f()'s are represented by 'F').
+         * </p>
+         */
+        public String getPostfix() {
+            return new String(_postfix);
+        }
+
+        @Override
+        public String toString() {
+            return _infix + " = " + getPostfix();
+        }
+
+        private final String _infix;
+        private final char[] _postfix;
+
+        /**
+         * <p>
+         * Each entry is either a <code>String</code> (for a {@link StringFunction}) or a registered {@link Function} used
+         * as a prototype.
+         * </p>
+         */
+        private final Object[] _operands;
+
+        /**
+         * <p>
+         * The root of the evaluation tree.
+         * </p>
+         */
+        private final Node _root;
+    }
+
+    /**
+     * <p>
+     * This method returns a compiled <code>Pattern</code> for the given regular expression.
+     * </p>
+     */
+    private static Pattern getPattern(String regex) {
+        Pattern pattern = _patterns.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            if (_patterns.size() < MAX_CACHED_PATTERNS) {
+                _patterns.put(regex, pattern);
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * <p>
+     * A <code>Node</code> in the evaluation tree of an {@link Equation}. Like a {@link Function}, each <code>Node</code>
+     * may be viewed as a boolean or as a <code>String</code>. <code>Node</code>s are immutable and shared; all state
+     * needed during evaluation comes from the given {@link PermissionChecker}.
+     * </p>
+     */
+    private abstract static class Node {
+        /**
+         * <p>
+         * This method evaluates this <code>Node</code> to <code>true</code> or <code>false</code>.
+         * </p>
+         */
+        abstract boolean evaluate(PermissionChecker checker);
+
+        /**
+         * <p>
+         * This method returns the <code>String</code> value of this <code>Node</code>.
+         * </p>
+         */
+        abstract String getString(PermissionChecker checker);
+
+        /**
+         * <p>
+         * This method returns the value of this <code>Node</code> as an <code>int</code>.
+         * </p>
+         */
+        int getInt(PermissionChecker checker) {
+            return Integer.parseInt(getString(checker));
+        }
+    }
+
+    /**
+     * <p>
+     * A constant <code>true</code> or <code>false</code>.
+     * </p>
+     */
+    private static final class BooleanNode extends Node {
+        static final BooleanNode TRUE = new BooleanNode(true);
+        static final BooleanNode FALSE = new BooleanNode(false);
+
+        private BooleanNode(boolean value) {
+            _value = value;
+        }
+
+        @Override
+        boolean evaluate(PermissionChecker checker) {
+            return _value;
+        }
+
+        @Override
+        String getString(PermissionChecker checker) {
+            return _value ? PermissionChecker.TRUE : PermissionChecker.FALSE;
+        }
+
+        private final boolean _value;
+    }
+
+    /**
+     * <p>
+     * An operand, it delegates to the {@link PermissionChecker}'s <code>Function</code> at the given index.
+     * </p>
+     */
+    private static final class OperandNode extends Node {
+        OperandNode(int index) {
+            _index = index;
+        }
+
+        @Override
+        boolean evaluate(PermissionChecker checker) {
+            return checker._functionList.get(_index).evaluate();
+        }
+
+        @Override
+        String getString(PermissionChecker checker) {
+            return checker._functionList.get(_index).toString();
+        }
+
+        /**
+         * <p>
+         * Integer values are used directly, other values are parsed from their <code>String</code> form.
+         * </p>
+         */
+        @Override
+        int getInt(PermissionChecker checker) {
+            Function function = checker._functionList.get(_index);
+            if (function instanceof StringFunction) {
+                Object value = ((StringFunction) function).getEvaluatedValue();
+                if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    return ((Number) value).intValue();
+                }
+                return Integer.parseInt(value == null ? "" : value.toString());
+            }
+            return Integer.parseInt(function.toString());
+        }
+
+        private final int _index;
+    }
+
+    /**
+     * <p>
+     * The '!' operator.
+     * </p>
+     */
+    private static final class NotNode extends Node {
+        NotNode(Node child) {
+            _child = child;
+        }
+
+        @Override
+        boolean evaluate(PermissionChecker checker) {
+            return !_child.evaluate(checker);
+        }
+
+        @Override
+        String getString(PermissionChecker checker) {
+            return evaluate(checker) ? PermissionChecker.TRUE : PermissionChecker.FALSE;
+        }
+
+        private final Node _child;
+    }
+
+    /**
+     * <p>
+     * All binary operators. '&amp;' and '|' short-circuit, '=' uses cached <code>Pattern</code>s, and the numeric
+     * operators work on <code>int</code>s. '%' and '/' produce a number, which (like any non-empty <code>String</code>
+     * other than "false") evaluates to <code>true</code>.
+     * </p>
+     */
+    private static final class BinaryNode extends Node {
+        BinaryNode(char operator, Node left, Node right) {
+            _operator = operator;
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        boolean evaluate(PermissionChecker checker) {
+            switch (_operator) {
+            case AND_OPERATOR:
+                return _left.evaluate(checker) && _right.evaluate(checker);
+            case OR_OPERATOR:
+                return _left.evaluate(checker) || _right.evaluate(checker);
+            case EQUALS_OPERATOR:
+                // Allow reg expression matching
+                String regex = _right.getString(checker);
+                return getPattern(regex).matcher(_left.getString(checker)).matches();
+            case LESS_THAN_OPERATOR: {
+                int right = _right.getInt(checker);
+                return _left.getInt(checker) < right;
+            }
+            case MORE_THAN_OPERATOR: {
+                int right = _right.getInt(checker);
+                return _left.getInt(checker) > right;
+            }
+            default:
+                // '%' or '/', calculate it to report errors
+                getInt(checker);
+                return true;
+            }
+        }
+
+        @Override
+        String getString(PermissionChecker checker) {
+            switch (_operator) {
+            case MODULUS_OPERATOR:
+            case DIVIDE_OPERATOR:
+                return String.valueOf(getInt(checker));
+            default:
+                return evaluate(checker) ? PermissionChecker.TRUE : PermissionChecker.FALSE;
+            }
+        }
+
+        @Override
+        int getInt(PermissionChecker checker) {
+            switch (_operator) {
+            case MODULUS_OPERATOR: {
+                int modNumber = _right.getInt(checker);
+                return _left.getInt(checker) % modNumber;
+            }
+            case DIVIDE_OPERATOR: {
+                int divNumber = _right.getInt(checker);
+                return _left.getInt(checker) / divNumber;
+            }
+            default:
+                return super.getInt(checker);
+            }
+        }
+
+        private final char _operator;
+        private final Node _left;
+        private final Node _right;
+    }
+
+    /**
+     * <p>
+     * An equation that cannot be evaluated, evaluating it throws an exception.
+     * </p>
+     */
+    private static final class InvalidNode extends Node {
+        InvalidNode(String message) {
+            _message = message;
+        }
+
+        @Override
+        boolean evaluate(PermissionChecker checker) {
+            throw new RuntimeException("Unable to evaluate: '" + checker.toString() + "'" + _message);
+        }
+
+        @Override
+        String getString(PermissionChecker checker) {
+            return String.valueOf(evaluate(checker));
+        }
+
+        private final String _message;
+    }
+
     /**
      * <p>
      * This is here to provide some test cases. It only tests the conversion to postfix notation.
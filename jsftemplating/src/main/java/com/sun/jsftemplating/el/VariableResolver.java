@@ -22,12 +22,14 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Stack;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.sun.jsftemplating.layout.descriptors.LayoutComponent;
 import com.sun.jsftemplating.layout.descriptors.LayoutComposition;
@@ -283,6 +285,29 @@ public class VariableResolver {
      */
     public static final String SUB_END = "}";
 
+    /**
+     * <p>
+     * Application scope key to hold the cached {@link ParsedString}s.
+     * </p>
+     */
+    private static final String PARSED_STRING_KEY = "__jsft_vr_parsed";
+
+    /**
+     * <p>
+     * The maximum number of {@link ParsedString}s to cache. Strings built at runtime may also contain substitutions, once
+     * this many are cached, new ones are no longer cached.
+     * </p>
+     */
+    private static final int MAX_PARSED_STRINGS = 4096;
+
+    /**
+     * <p>
+     * This character marks the location of a substitution while parsing a {@link ParsedString}. It is a non-character, so
+     * it should never appear in a real <code>String</code> (if it does, the <code>String</code> isn't parsed).
+     * </p>
+     */
+    private static final char PLACEHOLDER = '\uFFFF';
+
     /**
      * <p>
      * This method will substitute variables into the given String, or return the variable if the substitution is the whole
@@ -328,6 +353,52 @@ public class VariableResolver {
     public static Object resolveVariables(FacesContext ctx, LayoutElement desc, UIComponent component, String string, String startToken, String typeDelim,
             String endToken) {
 
+        if (SUB_START.equals(startToken) && SUB_TYPE_DELIM.equals(typeDelim) && SUB_END.equals(endToken)) {
+            if (string.indexOf(SUB_START) == -1) {
+                // Nothing to substitute
+                return replaceCompParams(ctx, desc, component, string);
+            }
+            ParsedString parsed = getParsedString(ctx, string);
+            if (parsed != null) {
+                List<Object> evaluated = parsed._mayBeUnresolved ? new ArrayList<>() : null;
+                Object result = parsed.resolve(ctx, desc, component, evaluated);
+                if (result != ParsedString.UNRESOLVED) {
+                    return result;
+                }
+
+                // Don't evaluate the values found so far again
+                return scanVariables(ctx, desc, component, string, startToken, typeDelim, endToken, evaluated);
+            }
+        }
+        return scanVariables(ctx, desc, component, string, startToken, typeDelim, endToken);
+    }
+
+    /**
+     * <p>
+     * This method performs the substitutions described in
+     * {@link #resolveVariables(FacesContext, LayoutElement, UIComponent, String, String, String, String)} by searching the
+     * given <code>String</code>. This is used when the <code>String</code> cannot be handled by a {@link ParsedString}.
+     * </p>
+     */
+    static Object scanVariables(FacesContext ctx, LayoutElement desc, UIComponent component, String string, String startToken, String typeDelim,
+            String endToken) {
+        return scanVariables(ctx, desc, component, string, startToken, typeDelim, endToken, null);
+    }
+
+    /**
+     * <p>
+     * This method performs the substitutions like {@link #scanVariables(FacesContext, LayoutElement, UIComponent, String,
+     * String, String, String)}. <code>evaluated</code> holds the values a {@link ParsedString} already evaluated (see
+     * {@link ParsedString#resolve(FacesContext, LayoutElement, UIComponent, List)}). Substitutions are evaluated in the
+     * same order, so as long as the {@link DataSource} and key match, these values are used instead of evaluating them
+     * again.
+     * </p>
+     */
+    static Object scanVariables(FacesContext ctx, LayoutElement desc, UIComponent component, String string, String startToken, String typeDelim,
+            String endToken, List<Object> evaluated) {
+
+        int evaluatedIdx = 0;
+        int evaluatedLen = (evaluated == null) ? 0 : evaluated.size();
         int stringLen = string.length();
         int delimIndex;
         int endIndex;
@@ -423,7 +494,13 @@ public class VariableResolver {
             variable = string.substring(delimIndex + delimLen, endIndex);
 
             // Get the value...
-            variable = ds.getValue(ctx, desc, component, (String) variable);
+            if (evaluatedIdx < evaluatedLen && evaluated.get(evaluatedIdx) == ds && variable.equals(evaluated.get(evaluatedIdx + 1))) {
+                variable = evaluated.get(evaluatedIdx + 2);
+                evaluatedIdx += 3;
+            } else {
+                evaluatedIdx = evaluatedLen;
+                variable = ds.getValue(ctx, desc, component, (String) variable);
+            }
             if (expressionIsWholeString) {
                 if (variable instanceof String) {
                     // See if we need to do EL magic manipulation...
@@ -442,6 +519,161 @@ public class VariableResolver {
         return replaceCompParams(ctx, desc, component, string);
     }
 
+    /**
+     * <p>
+     * This method returns the {@link ParsedString} for the given <code>String</code>, or <code>null</code> if it cannot be
+     * parsed ahead of time. {@link ParsedString}s are cached in application scope, so each distinct <code>String</code>
+     * is only parsed once.
+     * </p>
+     *
+     * @param ctx The <code>FacesContext</code>
+     * @param string The <code>String</code> containing $&lt;type&gt;{&lt;key&gt;} expressions.
+     *
+     * @return The {@link ParsedString} or <code>null</code>.
+     */
+    public static ParsedString getParsedString(FacesContext ctx, String string) {
+        if (ctx == null) {
+            ctx = FacesContext.getCurrentInstance();
+            if (ctx == null) {
+                // Not JSF env, don't cache
+                return null;
+            }
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        Map<String, ParsedString> cache = Util.getMapValue(appMap, PARSED_STRING_KEY);
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>(400, 0.75f, 2);
+            appMap.put(PARSED_STRING_KEY, cache);
+        }
+        ParsedString parsed = cache.get(string);
+        if (parsed == null) {
+            parsed = parse(ctx, string);
+            if (parsed == null) {
+                parsed = ParsedString.NOT_PARSED;
+            }
+            if (cache.size() < MAX_PARSED_STRINGS) {
+                cache.put(string, parsed);
+            }
+        }
+        return parsed == ParsedString.NOT_PARSED ? null : parsed;
+    }
+
+    /**
+     * <p>
+     * This method parses the given <code>String</code> into a {@link ParsedString}. It walks the <code>String</code>
+     * exactly as {@link #resolveVariables(FacesContext, LayoutElement, UIComponent, String, String, String, String)} does,
+     * except each substitution is replaced with a placeholder instead of its value. If the outcome of the walk would depend
+     * on a substituted value (other than the case where the value may contain no '{' or '}', which is checked when the
+     * {@link ParsedString} is resolved), <code>null</code> is returned.
+     * </p>
+     */
+    private static ParsedString parse(FacesContext ctx, String string) {
+        if (string.indexOf(PLACEHOLDER) != -1) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder(string);
+        // Substitutions in the order they appear in text
+        LinkedList<Substitution> subs = new LinkedList<>();
+        String placeholder = String.valueOf(PLACEHOLDER);
+        int stringLen = text.length();
+        int delimIndex;
+        int endIndex;
+        int parenSemi;
+        int crossed;
+        char currChar;
+        String type;
+
+        for (int startIndex = text.lastIndexOf(SUB_START); startIndex != -1; startIndex = text.lastIndexOf(SUB_START, startIndex - 1)) {
+            // Make sure the startToken isn't escaped
+            if (startIndex > 0 && text.charAt(startIndex - 1) == ESCAPE_CHAR) {
+                text.deleteCharAt(startIndex - 1);
+                stringLen--;
+                startIndex--;
+                continue;
+            }
+
+            // Find first typeDelim, it may not be part of a substituted value
+            delimIndex = text.indexOf(SUB_TYPE_DELIM, startIndex + 1);
+            int placeholderIndex = text.indexOf(placeholder, startIndex + 1);
+            if (placeholderIndex != -1 && (delimIndex == -1 || placeholderIndex < delimIndex)) {
+                return null;
+            }
+            if (delimIndex == -1) {
+                continue;
+            }
+
+            // Next find the end token
+            parenSemi = 0;
+            endIndex = -1;
+            crossed = 0;
+            for (int curr = delimIndex + 1; curr < stringLen; curr++) {
+                currChar = text.charAt(curr);
+                if (currChar == '{') {
+                    parenSemi++;
+                } else if (currChar == '}') {
+                    parenSemi--;
+                    if (parenSemi < 0) {
+                        // Found the right one!
+                        endIndex = curr;
+                        break;
+                    }
+                } else if (currChar == PLACEHOLDER) {
+                    // Only valid if the value contains no '{' or '}'
+                    subs.get(crossed++).setCheckBraces();
+                }
+            }
+            if (endIndex == -1) {
+                // We didn't find a matching end...
+                continue;
+            }
+
+            // Pull off the type...
+            type = text.substring(startIndex + 1, delimIndex);
+            DataSource ds = getDataSource(ctx, type);
+            if (ds == null) {
+                if (type.indexOf('<') > -1 || type.indexOf('&') > -1 || type.indexOf('[') > -1 || type.indexOf('#') > -1 || type.indexOf('$') > -1
+                        || type.indexOf('%') > -1 || type.indexOf('(') > -1 || type.indexOf(')') > -1) {
+                    // Do not consider this a valid EL expression, continue...
+                    continue;
+                }
+                // Let resolveVariables() report the error
+                return null;
+            }
+
+            // Any placeholders in the key are nested substitutions
+            subs.addFirst(new Substitution(ds, toSegments(text, delimIndex + 1, endIndex, subs)));
+            text.replace(startIndex, endIndex + 1, placeholder);
+            stringLen = text.length();
+        }
+
+        return new ParsedString(toSegments(text, 0, text.length(), subs));
+    }
+
+    /**
+     * <p>
+     * This method splits <code>text</code> (from <code>start</code> to <code>end</code>) into literal
+     * <code>String</code>s and {@link Substitution}s. Each placeholder consumes the first {@link Substitution} in
+     * <code>subs</code>.
+     * </p>
+     */
+    private static Object[] toSegments(StringBuilder text, int start, int end, LinkedList<Substitution> subs) {
+        List<Object> segments = new ArrayList<>();
+        int literalStart = start;
+        for (int idx = start; idx < end; idx++) {
+            if (text.charAt(idx) == PLACEHOLDER) {
+                if (idx > literalStart) {
+                    segments.add(text.substring(literalStart, idx));
+                }
+                segments.add(subs.removeFirst());
+                literalStart = idx + 1;
+            }
+        }
+        if (end > literalStart || segments.isEmpty()) {
+            segments.add(text.substring(literalStart, end));
+        }
+        return segments.toArray();
+    }
+
     /**
      * <p>
      * This method implements a "hack" which manipulates the given String when it starts with "#{". In this case, it will
@@ -752,6 +984,231 @@ public class VariableResolver {
         // Get the Map... and pull off the value (may be null)
         // NOTE: This is not thread safe.... although this is very rare
         VariableResolver.getDataSourceMap(ctx).put(key, dataSource);
+
+        // ParsedStrings hold the DataSources they found, start over
+        if (ctx == null) {
+            ctx = FacesContext.getCurrentInstance();
+        }
+        if (ctx != null) {
+            ctx.getExternalContext().getApplicationMap().remove(PARSED_STRING_KEY);
+        }
+    }
+
+    /**
+     * <p>
+     * A <code>ParsedString</code> is a <code>String</code> which has been broken into literal <code>String</code>s and
+     * $&lt;type&gt;{&lt;key&gt;} substitutions (with their {@link VariableResolver.DataSource} already located), so it can
+     * be resolved without searching the <code>String</code> again. It produces the same result as
+     * {@link VariableResolver#resolveVariables(FacesContext, LayoutElement, UIComponent, String, String, String, String)}.
+     * It is immutable and may be shared across threads.
+     * </p>
+     */
+    public static final class ParsedString {
+
+        /**
+         * <p>
+         * Returned by {@link #resolve(FacesContext, LayoutElement, UIComponent)} when a substituted value contains a '{' or
+         * '}' that would have changed how the original <code>String</code> is searched. The caller must resolve the
+         * original <code>String</code> instead.
+         * </p>
+         */
+        public static final Object UNRESOLVED = new Object();
+
+        /**
+         * <p>
+         * Cached in place of a <code>String</code> that could not be parsed.
+         * </p>
+         */
+        static final ParsedString NOT_PARSED = new ParsedString(new Object[] { "" });
+
+        /**
+         * <p>
+         * Constructor.
+         * </p>
+         */
+        ParsedString(Object[] segments) {
+            _segments = segments;
+            _mayBeUnresolved = checksBraces(segments);
+        }
+
+        /**
+         * <p>
+         * This method returns <code>true</code> if any {@link Substitution} in <code>segments</code> must be checked for
+         * '{' or '}', i.e. {@link #resolve(FacesContext, LayoutElement, UIComponent)} may return {@link #UNRESOLVED}.
+         * </p>
+         */
+        private static boolean checksBraces(Object[] segments) {
+            for (Object segment : segments) {
+                if (segment instanceof Substitution) {
+                    Substitution sub = (Substitution) segment;
+                    if (sub._checkBraces || (sub._keySegments != null && checksBraces(sub._keySegments))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * <p>
+         * This method resolves this <code>ParsedString</code>. If the whole <code>String</code> was a single substitution,
+         * the value is returned as is; otherwise the values are concatenated. Substitutions are evaluated last to first,
+         * in the same order as
+         * {@link VariableResolver#resolveVariables(FacesContext, LayoutElement, UIComponent, String, String, String, String)}
+         * evaluates them.
+         * </p>
+         *
+         * @return The result, or {@link #UNRESOLVED}.
+         */
+        public Object resolve(FacesContext ctx, LayoutElement desc, UIComponent component) {
+            return resolve(ctx, desc, component, null);
+        }
+
+        /**
+         * <p>
+         * This method resolves this <code>ParsedString</code> like {@link #resolve(FacesContext, LayoutElement,
+         * UIComponent)}. If <code>evaluated</code> is not <code>null</code>, the {@link DataSource}, key and value of each
+         * substitution are added to it in the order they are evaluated, so they need not be evaluated again when
+         * {@link #UNRESOLVED} is returned.
+         * </p>
+         *
+         * @return The result, or {@link #UNRESOLVED}.
+         */
+        public Object resolve(FacesContext ctx, LayoutElement desc, UIComponent component, List<Object> evaluated) {
+            Object[] values = resolveSegments(ctx, desc, component, _segments, evaluated);
+            if (values == null) {
+                return UNRESOLVED;
+            }
+
+            // The whole string is a substitution if the first one starts at
+            // index 0 and everything after it turned out to be empty
+            int len = values.length;
+            if (_segments[0] instanceof Substitution) {
+                boolean wholeString = true;
+                for (int idx = 1; idx < len; idx++) {
+                    if (values[idx] != null && values[idx].toString().length() > 0) {
+                        wholeString = false;
+                        break;
+                    }
+                }
+                if (wholeString) {
+                    Object variable = values[0];
+                    if (variable instanceof String) {
+                        // See if we need to do EL magic manipulation...
+                        variable = replaceCompParams(ctx, desc, component, (String) variable);
+                    }
+                    return variable;
+                }
+            }
+            return replaceCompParams(ctx, desc, component, concat(values));
+        }
+
+        /**
+         * <p>
+         * This method evaluates each {@link Substitution} in <code>segments</code> (last to first). It returns
+         * <code>null</code> if a value was found which prevents this <code>ParsedString</code> from being used.
+         * </p>
+         */
+        private static Object[] resolveSegments(FacesContext ctx, LayoutElement desc, UIComponent component, Object[] segments, List<Object> evaluated) {
+            int len = segments.length;
+            Object[] values = new Object[len];
+            for (int idx = len - 1; idx >= 0; idx--) {
+                Object segment = segments[idx];
+                if (segment instanceof Substitution) {
+                    Substitution sub = (Substitution) segment;
+                    String key = sub._key;
+                    if (key == null) {
+                        Object[] keyValues = resolveSegments(ctx, desc, component, sub._keySegments, evaluated);
+                        if (keyValues == null) {
+                            return null;
+                        }
+                        key = concat(keyValues);
+                    }
+                    Object value = sub._dataSource.getValue(ctx, desc, component, key);
+                    if (evaluated != null) {
+                        evaluated.add(sub._dataSource);
+                        evaluated.add(key);
+                        evaluated.add(value);
+                    }
+                    if (sub._checkBraces && value != null) {
+                        String str = value.toString();
+                        if (str.indexOf('{') != -1 || str.indexOf('}') != -1) {
+                            return null;
+                        }
+                    }
+                    values[idx] = value;
+                } else {
+                    values[idx] = segment;
+                }
+            }
+            return values;
+        }
+
+        /**
+         * <p>
+         * Concatenates the given values, <code>null</code> values are treated as "".
+         * </p>
+         */
+        private static String concat(Object[] values) {
+            if (values.length == 1) {
+                return values[0] == null ? "" : values[0].toString();
+            }
+            StringBuilder buf = new StringBuilder();
+            for (Object value : values) {
+                if (value != null) {
+                    buf.append(value);
+                }
+            }
+            return buf.toString();
+        }
+
+        /**
+         * <p>
+         * The literal <code>String</code>s and {@link Substitution}s in the order they appear.
+         * </p>
+         */
+        private final Object[] _segments;
+
+        /**
+         * <p>
+         * <code>true</code> if {@link #UNRESOLVED} may be returned.
+         * </p>
+         */
+        final boolean _mayBeUnresolved;
+    }
+
+    /**
+     * <p>
+     * A single $&lt;type&gt;{&lt;key&gt;} within a {@link ParsedString}. The key is either a literal <code>String</code>,
+     * or (when nested substitutions exist) an array of literal <code>String</code>s and <code>Substitution</code>s.
+     * </p>
+     */
+    private static final class Substitution {
+        Substitution(DataSource dataSource, Object[] keySegments) {
+            _dataSource = dataSource;
+            if (keySegments.length == 1 && keySegments[0] instanceof String) {
+                _key = (String) keySegments[0];
+                _keySegments = null;
+            } else {
+                _key = null;
+                _keySegments = keySegments;
+            }
+        }
+
+        /**
+         * <p>
+         * Marks this <code>Substitution</code> as one which was searched past while parsing, its value must not contain '{'
+         * or '}'. This is only called while parsing.
+         * </p>
+         */
+        void setCheckBraces() {
+            _checkBraces = true;
+        }
+
+        private final DataSource _dataSource;
+        private final String _key;
+        private final Object[] _keySegments;
+        private boolean _checkBraces = false;
     }
 
     /**
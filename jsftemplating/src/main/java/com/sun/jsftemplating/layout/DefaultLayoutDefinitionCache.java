@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+
+/**
+ * <p>
+ * This is the default {@link LayoutDefinitionCache}. It stores {@link LayoutDefinition}s in a
+ * <code>ConcurrentHashMap</code> so that lookups do not lock. It may optionally be bounded, in which case the least
+ * recently used (LRU) or least frequently used (LFU) {@link LayoutDefinition} is removed when a new one is added to a
+ * full cache. Finding the entry to remove requires walking the cache, this only happens when a {@link LayoutDefinition}
+ * is added (which is rare compared to reading one).
+ * </p>
+ */
+public class DefaultLayoutDefinitionCache implements LayoutDefinitionCache {
+
+    /**
+     * <p>
+     * Constructor which creates an unbounded cache.
+     * </p>
+     */
+    public DefaultLayoutDefinitionCache() {
+        this(0, false);
+    }
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param maxSize The maximum number of {@link LayoutDefinition}s to cache, or 0 for no limit.
+     * @param lfu <code>true</code> to remove the least frequently used {@link LayoutDefinition} when the cache is full,
+     * <code>false</code> to remove the least recently used one.
+     */
+    public DefaultLayoutDefinitionCache(int maxSize, boolean lfu) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The maximum size must not be negative: " + maxSize);
+        }
+        _maxSize = maxSize;
+        _lfu = lfu;
+    }
+
+    /**
+     * <p>
+     * This method returns the maximum number of {@link LayoutDefinition}s this cache will hold, 0 means there is no
+     * limit.
+     * </p>
+     */
+    public int getMaxSize() {
+        return _maxSize;
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the least frequently used {@link LayoutDefinition} is removed when the
+     * cache is full, <code>false</code> if the least recently used one is removed.
+     * </p>
+     */
+    public boolean isLFU() {
+        return _lfu;
+    }
+
+    @Override
+    public LayoutDefinition get(String key) {
+        Entry entry = _entries.get(key);
+        if (entry == null) {
+            _misses.incrementAndGet();
+            return null;
+        }
+        _hits.incrementAndGet();
+        entry.touch();
+        return entry._value;
+    }
+
+    @Override
+    public LayoutDefinition get(String key, Loader loader) throws LayoutDefinitionException {
+        LayoutDefinition value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        Thread current = Thread.currentThread();
+        Loading loading = new Loading(current);
+        Loading inProgress = _loading.putIfAbsent(key, loading);
+        if (inProgress != null) {
+            if (inProgress._owner == current) {
+                // Loading this key requires this key, don't wait on ourself
+                return load(key, loader);
+            }
+            return inProgress.await(key);
+        }
+        try {
+            // It may have been cached while we were checking
+            Entry entry = _entries.get(key);
+            if (entry == null) {
+                value = load(key, loader);
+                put(key, value);
+            } else {
+                value = entry._value;
+            }
+            loading.done(value, null);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            loading.done(null, ex);
+            throw ex;
+        } finally {
+            _loading.remove(key, loading);
+        }
+    }
+
+    /**
+     * <p>
+     * This method invokes the given {@link Loader} and records how long it took.
+     * </p>
+     */
+    private LayoutDefinition load(String key, Loader loader) {
+        long start = System.nanoTime();
+        try {
+            return loader.load(key);
+        } finally {
+            _loadTime.addAndGet(System.nanoTime() - start);
+            _loads.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void put(String key, LayoutDefinition value) {
+        if (value == null) {
+            _entries.remove(key);
+            return;
+        }
+        _entries.put(key, new Entry(value));
+        if (_maxSize > 0 && _entries.size() > _maxSize) {
+            evict(key);
+        }
+    }
+
+    /**
+     * <p>
+     * This method removes {@link LayoutDefinition}s until the cache is within its bounds. The given key (which was just
+     * added) is not removed.
+     * </p>
+     */
+    private synchronized void evict(String added) {
+        while (_entries.size() > _maxSize) {
+            String victim = null;
+            Entry victimEntry = null;
+            for (Map.Entry<String, Entry> mapEntry : _entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                if (mapEntry.getKey().equals(added)) {
+                    continue;
+                }
+                if (victimEntry == null || entry.isLessUsed(victimEntry, _lfu)) {
+                    victim = mapEntry.getKey();
+                    victimEntry = entry;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            if (_entries.remove(victim, victimEntry)) {
+                _evictions.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        _entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        _entries.clear();
+    }
+
+    @Override
+    public int size() {
+        return _entries.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return _hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return _misses.get();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return _loads.get();
+    }
+
+    @Override
+    public long getLoadTime() {
+        return _loadTime.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return _evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "LayoutDefinitionCache[size=" + size() + ", maxSize=" + _maxSize + ", policy=" + (_lfu ? "LFU" : "LRU") + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + ", loads=" + getLoadCount() + ", loadTime=" + getLoadTime() / 1000000 + "ms, evictions="
+                + getEvictionCount() + "]";
+    }
+
+    /**
+     * <p>
+     * A cached {@link LayoutDefinition} along with its usage information. The usage information is only used to choose
+     * which entry to remove, so it is updated without synchronization.
+     * </p>
+     */
+    private static final class Entry {
+        Entry(LayoutDefinition value) {
+            _value = value;
+            _lastAccess = System.nanoTime();
+        }
+
+        void touch() {
+            _lastAccess = System.nanoTime();
+            _useCount++;
+        }
+
+        boolean isLessUsed(Entry other, boolean lfu) {
+            if (lfu && _useCount != other._useCount) {
+                return _useCount < other._useCount;
+            }
+            return _lastAccess - other._lastAccess < 0;
+        }
+
+        final LayoutDefinition _value;
+        volatile long _lastAccess;
+        volatile int _useCount;
+    }
+
+    /**
+     * <p>
+     * A {@link Loader} invocation in progress. Other threads requesting the same key wait for its result.
+     * </p>
+     */
+    private static final class Loading {
+        Loading(Thread owner) {
+            _owner = owner;
+        }
+
+        void done(LayoutDefinition value, Throwable error) {
+            _value = value;
+            _error = error;
+            _latch.countDown();
+        }
+
+        LayoutDefinition await(String key) {
+            try {
+                _latch.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new LayoutDefinitionException("Interrupted while waiting for '" + key + "' to load.", ex);
+            }
+            if (_error instanceof RuntimeException) {
+                throw (RuntimeException) _error;
+            }
+            if (_error instanceof Error) {
+                throw (Error) _error;
+            }
+            return _value;
+        }
+
+        final Thread _owner;
+        private final CountDownLatch _latch = new CountDownLatch(1);
+        private LayoutDefinition _value;
+        private Throwable _error;
+    }
+
+    private final int _maxSize;
+    private final boolean _lfu;
+    private final ConcurrentHashMap<String, Entry> _entries = new ConcurrentHashMap<>(400, 0.75f, 2);
+    private final ConcurrentHashMap<String, Loading> _loading = new ConcurrentHashMap<>(16, 0.75f, 2);
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+    private final AtomicLong _loads = new AtomicLong();
+    private final AtomicLong _loadTime = new AtomicLong();
+    private final AtomicLong _evictions = new AtomicLong();
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+
+/**
+ * <p>
+ * This interface defines the application-wide cache of {@link LayoutDefinition}s used by the
+ * {@link LayoutDefinitionManager}. The default implementation is {@link DefaultLayoutDefinitionCache}, a different
+ * implementation may be specified via the {@link LayoutDefinitionManager#LAYOUT_DEFINITION_CACHE} initParam.
+ * Implementations must be thread safe and must have a public no-argument constructor.
+ * </p>
+ *
+ * <p>
+ * {@link #get(String, Loader)} must ensure that concurrent requests for the same key cause the {@link Loader} to be
+ * invoked only once; all other threads should wait for and share its result.
+ * </p>
+ */
+public interface LayoutDefinitionCache {
+
+    /**
+     * <p>
+     * This method returns the cached {@link LayoutDefinition} for the given key, or <code>null</code> if it is not
+     * cached.
+     * </p>
+     */
+    LayoutDefinition get(String key);
+
+    /**
+     * <p>
+     * This method returns the cached {@link LayoutDefinition} for the given key. If it is not cached, the given
+     * {@link Loader} is used to create it and the result is cached. Only one thread will invoke a {@link Loader} for the
+     * same key at the same time, any exception it throws will be thrown to all threads waiting for the result.
+     * </p>
+     */
+    LayoutDefinition get(String key, Loader loader) throws LayoutDefinitionException;
+
+    /**
+     * <p>
+     * This method caches the given {@link LayoutDefinition}. If <code>value</code> is <code>null</code>, the key is
+     * removed.
+     * </p>
+     */
+    void put(String key, LayoutDefinition value);
+
+    /**
+     * <p>
+     * This method removes the given key from the cache.
+     * </p>
+     */
+    void remove(String key);
+
+    /**
+     * <p>
+     * This method removes all {@link LayoutDefinition}s from the cache.
+     * </p>
+     */
+    void clear();
+
+    /**
+     * <p>
+     * This method returns the number of cached {@link LayoutDefinition}s.
+     * </p>
+     */
+    int size();
+
+    /**
+     * <p>
+     * This method returns the number of lookups that found a cached {@link LayoutDefinition}.
+     * </p>
+     */
+    long getHitCount();
+
+    /**
+     * <p>
+     * This method returns the number of lookups that did not find a cached {@link LayoutDefinition}.
+     * </p>
+     */
+    long getMissCount();
+
+    /**
+     * <p>
+     * This method returns the number of times a {@link Loader} was invoked.
+     * </p>
+     */
+    long getLoadCount();
+
+    /**
+     * <p>
+     * This method returns the total time (in nanoseconds) spent in {@link Loader}s.
+     * </p>
+     */
+    long getLoadTime();
+
+    /**
+     * <p>
+     * This method returns the number of {@link LayoutDefinition}s removed to keep the cache within its bounds.
+     * </p>
+     */
+    long getEvictionCount();
+
+    /**
+     * <p>
+     * Implementations of this interface create a {@link LayoutDefinition} which is not yet cached.
+     * </p>
+     */
+    interface Loader {
+
+        /**
+         * <p>
+         * This method creates the {@link LayoutDefinition} for the given key.
+         * </p>
+         */
+        LayoutDefinition load(String key) throws LayoutDefinitionException;
+    }
+}
@@ -133,25 +133,102 @@ public abstract class LayoutDefinitionManager {
         // Determine the key we should use to cache this
         String cacheKey = FileUtil.cleanUpPath(key.startsWith("/") ? key : FileUtil.getAbsolutePath(ctx, key));
 
-        // Check to see if we already have it.
-        LayoutDefinition def = getCachedLayoutDefinition(ctx, cacheKey);
+        LayoutDefinition def = null;
+        if (isDebug(ctx)) {
+            // Check to see if we already have it.
+            def = getCachedLayoutDefinition(ctx, cacheKey);
 //System.out.println("GET LD (" + cacheKey + ", " + isDebug(ctx) + "):" + def);
-        if (def == null) {
-            // Obtain the correct LDM, and get the LD
-            def = getLayoutDefinitionManager(ctx, key).getLayoutDefinition(key);
+            if (def == null) {
+                // Obtain the correct LDM, and get the LD
+                def = getLayoutDefinitionManager(ctx, key).getLayoutDefinition(key);
 //System.out.println("  Found LD (" + cacheKey + ")?:" + def);
-            putCachedLayoutDefinition(ctx, cacheKey, def);
+                putCachedLayoutDefinition(ctx, cacheKey, def);
+                return def;
+            }
         } else {
-            // In the case where we found a cached version,
-            // ensure we invoke "initPage" handlers
-            def.dispatchInitPageHandlers(ctx, def);
+            // Get it from the cache, only one thread will read it
+            ManagerLoader loader = new ManagerLoader(ctx, key);
+            def = getLayoutDefinitionCache(ctx).get(cacheKey, loader);
+            if (loader._loaded) {
+                if (loader._watcher != null) {
+                    // Reload it if it changed while it was being read
+                    loader._watcher.checkModified(cacheKey);
+                }
+
+                // A new page may have been added, forget what wasn't found
+                FileUtil.clearNotFoundCache(ctx);
+            }
+            if (loader._loaded || def == null) {
+                // The LDM already invoked the "initPage" handlers
+                return def;
+            }
         }
+
+        // In the case where we found a cached version,
+        // ensure we invoke "initPage" handlers
+        def.dispatchInitPageHandlers(ctx, def);
 // FIXME: Flag a page as *not found* for performance reasons when JSP is used (or other view technologies)
 
         // Return the LD
         return def;
     }
 
+    /**
+     * <p>
+     * This {@link LayoutDefinitionCache.Loader} obtains a {@link LayoutDefinition} from the
+     * <code>LayoutDefinitionManager</code> that accepts its key. It remembers if it was invoked, in which case the
+     * <code>LayoutDefinitionManager</code> has already dispatched the "initPage" handlers.
+     * </p>
+     */
+    private static final class ManagerLoader implements LayoutDefinitionCache.Loader {
+        ManagerLoader(FacesContext ctx, String key) {
+            _ctx = ctx;
+            _key = key;
+        }
+
+        @Override
+        public LayoutDefinition load(String cacheKey) throws LayoutDefinitionException {
+            _loaded = true;
+            _watcher = LayoutDefinitionWatcher.getInstance(_ctx);
+            if (_watcher != null) {
+                // Watch the files it is read from
+                return _watcher.load(cacheKey, new LayoutDefinitionCache.Loader() {
+                    @Override
+                    public LayoutDefinition load(String key) throws LayoutDefinitionException {
+                        return read(key);
+                    }
+                });
+            }
+
+            // Use the LayoutDefinition precompiled at build time, if any
+            LayoutDefinition ld = LayoutDefinitionSnapshots.readPrecompiled(cacheKey);
+            if (ld != null) {
+                ld.dispatchInitPageHandlers(_ctx, ld);
+                return ld;
+            }
+            return read(cacheKey);
+        }
+
+        private LayoutDefinition read(String cacheKey) throws LayoutDefinitionException {
+            LayoutDefinitionSnapshots snapshots = LayoutDefinitionSnapshots.getInstance(_ctx);
+            if (snapshots != null) {
+                // Use the snapshot if it is up to date
+                return snapshots.load(cacheKey, new LayoutDefinitionCache.Loader() {
+                    @Override
+                    public LayoutDefinition load(String key) throws LayoutDefinitionException {
+                        return getLayoutDefinitionManager(_ctx, _key).getLayoutDefinition(_key);
+                    }
+                });
+            }
+            return getLayoutDefinitionManager(_ctx, _key).getLayoutDefinition(_key);
+        }
+
+        private final FacesContext _ctx;
+        private final String _key;
+        private boolean _loaded;
+        private LayoutDefinitionWatcher _watcher;
+    }
+
     /**
      * <p>
      * This method finds the (closest) requested <code>LayoutComponent</code> for the given <code>clientId</code>. If the
@@ -183,6 +260,14 @@ public abstract class LayoutDefinitionManager {
             layElt = ViewRootUtil.getLayoutDefinition(FacesContext.getCurrentInstance().getViewRoot());
         }
 
+        // Most clientIds can be found via the index
+        if (layElt != null) {
+            LayoutComponent comp = ((LayoutDefinition) layElt).getLayoutComponentIndex().findByClientId(clientId, true);
+            if (comp != null) {
+                return comp;
+            }
+        }
+
         // Save the current LayoutComposition Stack
         // - This is needed b/c we may be in the middle of walking the tree
         // - already and we need ot use this Stack... so we must save the
@@ -323,6 +408,17 @@ public abstract class LayoutDefinitionManager {
      * @see #LAYOUT_DEFINITION_MANAGER_KEY
      */
     public static LayoutDefinitionManager getLayoutDefinitionManager(FacesContext ctx, String key) throws LayoutDefinitionException {
+        // Check to see if we already know which one accepts it
+        Map<String, LayoutDefinitionManager> resolved = getResolvedManagers(ctx);
+        String resolvedKey = null;
+        if (resolved != null) {
+            resolvedKey = FileUtil.cleanUpPath(key.startsWith("/") ? key : FileUtil.getAbsolutePath(ctx, key));
+            LayoutDefinitionManager mgr = resolved.get(resolvedKey);
+            if (mgr != null) {
+                return mgr;
+            }
+        }
+
         List<String> ldms = getLayoutDefinitionManagers(ctx);
 //System.out.println("LDMS: " + ldms);
         LayoutDefinitionManager mgr = null;
@@ -331,6 +427,9 @@ public abstract class LayoutDefinitionManager {
 //System.out.println("LDM ("+className+"): " + mgr);
             if (mgr.accepts(key)) {
 //System.out.println("Accepts!");
+                if (resolved != null) {
+                    resolved.put(resolvedKey, mgr);
+                }
                 return mgr;
             }
         }
@@ -338,6 +437,51 @@ public abstract class LayoutDefinitionManager {
                 "No LayoutDefinitionManager " + "available for '" + key + "'.  This may mean the file cannot " + "be found, or is unrecognizable.");
     }
 
+    /**
+     * <p>
+     * This method returns the application scoped <code>Map</code> of keys to the <code>LayoutDefinitionManager</code>
+     * that accepted them, so files are not searched for and inspected by each <code>LayoutDefinitionManager</code> every
+     * time they are read. It returns <code>null</code> in debug mode, where files may be replaced by another format.
+     * </p>
+     */
+    private static Map<String, LayoutDefinitionManager> getResolvedManagers(FacesContext ctx) {
+        if (ctx == null) {
+            ctx = FacesContext.getCurrentInstance();
+        }
+        if (ctx == null || isDebug(ctx)) {
+            return null;
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        Map<String, LayoutDefinitionManager> resolved = Util.getMapValue(appMap, LDM_RESOLVED);
+        if (resolved == null) {
+            synchronized (LayoutDefinitionManager.class) {
+                resolved = Util.getMapValue(appMap, LDM_RESOLVED);
+                if (resolved == null) {
+                    resolved = new ConcurrentHashMap<>();
+                    appMap.put(LDM_RESOLVED, resolved);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * <p>
+     * This method forgets which <code>LayoutDefinitionManager</code> accepts the given key (or all keys if
+     * <code>null</code>). It should be called when the file changes.
+     * </p>
+     */
+    static void clearResolvedManager(Map<String, Object> appMap, String key) {
+        Map<String, LayoutDefinitionManager> resolved = Util.getMapValue(appMap, LDM_RESOLVED);
+        if (resolved != null) {
+            if (key == null) {
+                resolved.clear();
+            } else {
+                resolved.remove(key);
+            }
+        }
+    }
+
     /**
      * <p>
      * This method is responsible for returning a <code>List</code> of known <code>LayoutDefinitionManager</code> instances.
@@ -487,35 +631,81 @@ public abstract class LayoutDefinitionManager {
             return null;
         }
 
-        return getLayoutDefinitionMap(ctx).get(key);
+        return getLayoutDefinitionCache(ctx).get(key);
     }
 
     /**
      * <p>
-     * This method returns the LD Map which is stored in application scope. If it has not been created yet, it will be
-     * created as a <code>ConcurrentHashMap
+     * This method returns the {@link LayoutDefinitionCache} which is stored in application scope. If it has not been
+     * created yet, it will be created. The {@link #LAYOUT_DEFINITION_CACHE} initParam may specify the
+     * {@link LayoutDefinitionCache} implementation class. Otherwise a {@link DefaultLayoutDefinitionCache} is created; it
+     * is unbounded unless the {@link #LAYOUT_DEFINITION_CACHE_SIZE} initParam is set, and when bounded it uses the
+     * eviction policy specified by the {@link #LAYOUT_DEFINITION_CACHE_POLICY} initParam ("LRU" or "LFU").
+     * </p>
+     *
+     * <p>
+     * The returned {@link LayoutDefinitionCache} also provides statistics about its use.
      * </p>
-     * .
+     *
+     * @param ctx The <code>FacesContext</code>.
      */
-    private static Map<String, LayoutDefinition> getLayoutDefinitionMap(FacesContext ctx) {
+    public static LayoutDefinitionCache getLayoutDefinitionCache(FacesContext ctx) {
         if (ctx == null) {
             ctx = FacesContext.getCurrentInstance();
         }
-        Map<String, LayoutDefinition> ldMap = null;
-        if (ctx != null) {
-            ldMap = (Map<String, LayoutDefinition>) ctx.getExternalContext().getApplicationMap().get(LD_MAP);
+        if (ctx == null) {
+            // Nowhere to store it, don't cache anything
+            return new DefaultLayoutDefinitionCache();
         }
-        if (ldMap == null) {
-            // 1st time... initialize it
-            // Consider using a SoftReference here...
-            ldMap = new ConcurrentHashMap<>(400, 0.75f, 2);
-            if (ctx != null) {
-                ctx.getExternalContext().getApplicationMap().put(LD_MAP, ldMap);
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        LayoutDefinitionCache cache = (LayoutDefinitionCache) appMap.get(LD_MAP);
+        if (cache == null) {
+            // Ensure concurrent requests share the same cache (and loads)
+            synchronized (LayoutDefinitionManager.class) {
+                cache = (LayoutDefinitionCache) appMap.get(LD_MAP);
+                if (cache == null) {
+                    // 1st time... initialize it
+                    cache = createLayoutDefinitionCache(ctx);
+                    appMap.put(LD_MAP, cache);
+                }
+            }
+        }
+
+        // Return the cache...
+        return cache;
+    }
+
+    /**
+     * <p>
+     * This method creates the {@link LayoutDefinitionCache} as configured by the initParams.
+     * </p>
+     */
+    private static LayoutDefinitionCache createLayoutDefinitionCache(FacesContext ctx) {
+        String className = ctx.getExternalContext().getInitParameter(LAYOUT_DEFINITION_CACHE);
+        if (className != null && !className.trim().equals("")) {
+            className = className.trim();
+            try {
+                return (LayoutDefinitionCache) Util.loadClass(className, className).newInstance();
+            } catch (ClassNotFoundException ex) {
+                throw new LayoutDefinitionException("Unable to find LayoutDefinitionCache: '" + className + "'.", ex);
+            } catch (InstantiationException | IllegalAccessException ex) {
+                throw new LayoutDefinitionException("Unable to create LayoutDefinitionCache: '" + className + "'!", ex);
+            } catch (ClassCastException ex) {
+                throw new LayoutDefinitionException("'" + className + "' must implement '" + LayoutDefinitionCache.class.getName() + "'!", ex);
             }
         }
 
-        // Return the map...
-        return ldMap;
+        int size = 0;
+        String value = ctx.getExternalContext().getInitParameter(LAYOUT_DEFINITION_CACHE_SIZE);
+        if (value != null) {
+            try {
+                size = Integer.parseInt(value.trim());
+            } catch (NumberFormatException ex) {
+                throw new LayoutDefinitionException("Invalid value for '" + LAYOUT_DEFINITION_CACHE_SIZE + "': '" + value + "'.", ex);
+            }
+        }
+        value = ctx.getExternalContext().getInitParameter(LAYOUT_DEFINITION_CACHE_POLICY);
+        return new DefaultLayoutDefinitionCache(size, value != null && value.trim().equalsIgnoreCase("LFU"));
     }
 
     /**
@@ -537,7 +727,10 @@ public abstract class LayoutDefinitionManager {
                 ctx.getExternalContext().getRequestMap().put(CACHE_PREFIX + key, value);
             }
         } else {
-            getLayoutDefinitionMap(ctx).put(key, value);
+            getLayoutDefinitionCache(ctx).put(key, value);
+
+            // A new page may have been added, forget what wasn't found
+            FileUtil.clearNotFoundCache(ctx);
         }
     }
 
@@ -870,6 +1063,12 @@ public abstract class LayoutDefinitionManager {
         String value = props.get(key + '.' + "method");
         def.setHandlerMethod((String) entry.getValue(), value);
 
+        // Set the generated invoker, if there is one
+        value = props.get(key + '.' + "invoker");
+        if (value != null && !value.equals("")) {
+            def.setHandlerInvoker(value);
+        }
+
         // Read the input defs
         def.setInputDefs(readIODefs(props, key, true));
 
@@ -1111,7 +1310,14 @@ public abstract class LayoutDefinitionManager {
 
     /**
      * <p>
-     * This key stores the {@link LayoutDefinition} instances for this application.
+     * This key stores the <code>LayoutDefinitionManager</code> which accepts each key for this application.
+     * </p>
+     */
+    private static final String LDM_RESOLVED = "__jsft_LayoutDefMgrResolved";
+
+    /**
+     * <p>
+     * This key stores the {@link LayoutDefinitionCache} for this application.
      * </p>
      */
     private static final String LD_MAP = "__jsft_LayoutDefMap";
@@ -1171,6 +1377,29 @@ public abstract class LayoutDefinitionManager {
      */
     public static final String DEBUG_FLAG = "com.sun.jsftemplating.DEBUG";
 
+    /**
+     * <p>
+     * This is the name of the initParameter used to specify the {@link LayoutDefinitionCache} implementation class.
+     * </p>
+     */
+    public static final String LAYOUT_DEFINITION_CACHE = "com.sun.jsftemplating.LD_CACHE";
+
+    /**
+     * <p>
+     * This is the name of the initParameter used to set the maximum number of {@link LayoutDefinition}s cached by the
+     * {@link DefaultLayoutDefinitionCache} (0, the default, means no limit).
+     * </p>
+     */
+    public static final String LAYOUT_DEFINITION_CACHE_SIZE = "com.sun.jsftemplating.LD_CACHE_SIZE";
+
+    /**
+     * <p>
+     * This is the name of the initParameter used to set the eviction policy ("LRU", the default, or "LFU") of a bounded
+     * {@link DefaultLayoutDefinitionCache}.
+     * </p>
+     */
+    public static final String LAYOUT_DEFINITION_CACHE_POLICY = "com.sun.jsftemplating.LD_CACHE_POLICY";
+
     /**
      * <p>
      * This is the prefix of a request-scoped variable that caches {@link LayoutDefinition}s.
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.jsftemplating.layout.descriptors.LayoutCache;
+import com.sun.jsftemplating.layout.descriptors.LayoutComposition;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefine;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import com.sun.jsftemplating.layout.descriptors.LayoutElementBase;
+import com.sun.jsftemplating.layout.descriptors.LayoutForEach;
+import com.sun.jsftemplating.layout.descriptors.LayoutIf;
+import com.sun.jsftemplating.layout.descriptors.LayoutInsert;
+import com.sun.jsftemplating.layout.descriptors.LayoutMarkup;
+import com.sun.jsftemplating.layout.descriptors.LayoutStaticText;
+import com.sun.jsftemplating.layout.descriptors.handler.Handler;
+
+import jakarta.faces.context.FacesContext;
+
+/**
+ * <p>
+ * This class optimizes a {@link LayoutDefinition} once it has been read, without changing what it renders. The readers
+ * invoke it before returning the {@link LayoutDefinition}. It:
+ * </p>
+ *
+ * <ul>
+ * <li>Merges adjacent {@link LayoutStaticText}s which contain no expressions, so they are encoded (and create a
+ * <code>UIComponent</code>) once. This is only done where they are encoded by their {@link LayoutElement}s; text inside
+ * a <code>UIComponent</code> or a facet is rendered by its <code>Renderer</code>, which may treat each child on its
+ * own.</li>
+ * <li>Removes event types without {@link Handler}s, and replaces empty {@link Handler} <code>Map</code>s with a shared
+ * empty <code>Map</code>.</li>
+ * </ul>
+ *
+ * <p>
+ * It may be turned off by setting the {@link #OPTIMIZE_FLAG} ("com.sun.jsftemplating.OPTIMIZE") system property or
+ * <code>ServletContext</code> initialization parameter to <code>false</code>.
+ * </p>
+ */
+public final class LayoutDefinitionOptimizer {
+
+    /**
+     * <p>
+     * This class only has static methods.
+     * </p>
+     */
+    private LayoutDefinitionOptimizer() {
+    }
+
+    /**
+     * <p>
+     * This method optimizes the given {@link LayoutDefinition}, unless this has been turned off (see
+     * {@link #isEnabled(FacesContext)}).
+     * </p>
+     *
+     * @param ctx The <code>FacesContext</code>, may be <code>null</code>.
+     * @param ld The {@link LayoutDefinition} that was just read.
+     *
+     * @return The given {@link LayoutDefinition}.
+     */
+    public static LayoutDefinition optimize(FacesContext ctx, LayoutDefinition ld) {
+        if (ld != null && isEnabled(ctx)) {
+            optimize(ld, true);
+            ld.resetLayoutComponentIndex();
+        }
+        return ld;
+    }
+
+    /**
+     * <p>
+     * This method returns <code>false</code> if the {@link #OPTIMIZE_FLAG} system property or <code>ServletContext</code>
+     * initialization parameter is set to <code>false</code>.
+     * </p>
+     */
+    public static boolean isEnabled(FacesContext ctx) {
+        String flag = System.getProperty(OPTIMIZE_FLAG);
+        if (flag == null) {
+            if (ctx == null) {
+                ctx = FacesContext.getCurrentInstance();
+            }
+            if (ctx != null) {
+                flag = ctx.getExternalContext().getInitParameter(OPTIMIZE_FLAG);
+            }
+        }
+        return flag == null || !flag.trim().equalsIgnoreCase("false");
+    }
+
+    /**
+     * <p>
+     * This method optimizes the given {@link LayoutElement} and its children.
+     * </p>
+     *
+     * @param elt The {@link LayoutElement}.
+     * @param encoded <code>true</code> if <code>elt</code> is encoded by its {@link LayoutElement}s.
+     */
+    private static void optimize(LayoutElement elt, boolean encoded) {
+        dropEmptyHandlers(elt);
+
+        // Only merge the children if they are encoded by LayoutElements
+        encoded = encoded && isEncodedByChildren(elt);
+        List<LayoutElement> children = elt.getChildLayoutElements();
+        List<LayoutElement> optimized = null;
+        int size = children.size();
+        for (int idx = 0; idx < size; idx++) {
+            LayoutElement child = children.get(idx);
+            if (!encoded || !isConstantText(child)) {
+                optimize(child, encoded);
+                if (optimized != null) {
+                    optimized.add(child);
+                }
+                continue;
+            }
+
+            // Find the end of the constant text
+            LayoutStaticText text = (LayoutStaticText) child;
+            int end = idx + 1;
+            while (end < size && isConstantText(children.get(end)) && canMerge(text, (LayoutStaticText) children.get(end))) {
+                end++;
+            }
+            if (end - idx > 1) {
+                // Merge it
+                StringBuilder buf = new StringBuilder();
+                for (int textIdx = idx; textIdx < end; textIdx++) {
+                    buf.append(((LayoutStaticText) children.get(textIdx)).getValue());
+                }
+                LayoutStaticText merged = new LayoutStaticText(elt, text.getUnevaluatedId(), buf.toString());
+                merged.setNested(text.isNested());
+                dropEmptyHandlers(merged);
+                if (optimized == null) {
+                    optimized = new ArrayList<>(children.subList(0, idx));
+                }
+                optimized.add(merged);
+                idx = end - 1;
+            } else {
+                dropEmptyHandlers(text);
+                if (optimized != null) {
+                    optimized.add(text);
+                }
+            }
+        }
+        if (optimized != null) {
+            children.clear();
+            children.addAll(optimized);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the children of the given {@link LayoutElement} are rendered by encoding
+     * the child {@link LayoutElement}s, rather than their <code>UIComponent</code>s.
+     * </p>
+     */
+    private static boolean isEncodedByChildren(LayoutElement elt) {
+        return (elt instanceof LayoutDefinition) || (elt instanceof LayoutMarkup) || (elt instanceof LayoutIf) || (elt instanceof LayoutForEach)
+                || (elt instanceof LayoutComposition) || (elt instanceof LayoutDefine) || (elt instanceof LayoutInsert) || (elt instanceof LayoutCache);
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the given {@link LayoutElement} is a plain {@link LayoutStaticText} with
+     * no expressions, {@link Handler}s, children or options other than its value.
+     * </p>
+     */
+    private static boolean isConstantText(LayoutElement elt) {
+        if (elt.getClass() != LayoutStaticText.class) {
+            return false;
+        }
+        LayoutStaticText text = (LayoutStaticText) elt;
+        return text.isConstant() && text.getChildLayoutElements().isEmpty() && !hasHandlers(text) && (text.getOptions().size() == 1)
+                && text.containsOption("value");
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the given {@link LayoutStaticText}s may be merged.
+     * </p>
+     */
+    private static boolean canMerge(LayoutStaticText text, LayoutStaticText next) {
+        return (text.isNested() == next.isNested()) && (text.getType() == next.getType());
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the given {@link LayoutElement} has any {@link Handler}s.
+     * </p>
+     */
+    private static boolean hasHandlers(LayoutElement elt) {
+        for (List<Handler> handlers : elt.getHandlersByTypeMap().values()) {
+            if (handlers != null && !handlers.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * This method removes the event types without {@link Handler}s. If none are left, the <code>Map</code> is replaced with
+     * a shared empty <code>Map</code>.
+     * </p>
+     */
+    private static void dropEmptyHandlers(LayoutElement elt) {
+        Map<String, List<Handler>> handlersByType = elt.getHandlersByTypeMap();
+        if (handlersByType.isEmpty()) {
+            if (elt instanceof LayoutElementBase && handlersByType != Collections.<String, List<Handler>>emptyMap()) {
+                ((LayoutElementBase) elt).setHandlersByTypeMap(Collections.<String, List<Handler>>emptyMap());
+            }
+            return;
+        }
+        Iterator<List<Handler>> it = handlersByType.values().iterator();
+        while (it.hasNext()) {
+            List<Handler> handlers = it.next();
+            if (handlers == null || handlers.isEmpty()) {
+                it.remove();
+            }
+        }
+        if (handlersByType.isEmpty() && elt instanceof LayoutElementBase) {
+            ((LayoutElementBase) elt).setHandlersByTypeMap(Collections.<String, List<Handler>>emptyMap());
+        }
+    }
+
+    /**
+     * <p>
+     * The system property or <code>ServletContext</code> initialization parameter which turns off this optimization when
+     * set to <code>false</code>.
+     * </p>
+     */
+    public static final String OPTIMIZE_FLAG = "com.sun.jsftemplating.OPTIMIZE";
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.jsftemplating.TemplatingException;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.util.FileUtil;
+import com.sun.jsftemplating.util.Util;
+
+import jakarta.faces.context.FacesContext;
+
+/**
+ * <p>
+ * This class reads {@link LayoutDefinition}s at build time and stores them where
+ * {@link LayoutDefinitionSnapshots#readPrecompiled(String)} finds them at runtime, so they are not parsed when the
+ * application runs. Each file is read by the <code>LayoutDefinitionManager</code> that accepts it, as it would be at
+ * runtime, and errors are reported as {@link LayoutDefinitionException}s.
+ * </p>
+ *
+ * <p>
+ * A {@link ReaderContext} is used while reading. Files are found in the document root, or via the context
+ * <code>ClassLoader</code>, which should include the application's classes and libraries. "initPage" handlers are not
+ * invoked. The files each {@link LayoutDefinition} is read from are stored with it, by their path in the document root
+ * or their classpath resource name, so it is not used at runtime if one of them differs.
+ * </p>
+ */
+public class LayoutDefinitionPrecompiler {
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param docRoot The document root of the web application (i.e. <code>src/main/webapp</code>), or <code>null</code>.
+     *
+     * @param classesDir The directory where the precompiled {@link LayoutDefinition}s are stored (i.e.
+     * <code>target/classes</code>).
+     */
+    public LayoutDefinitionPrecompiler(File docRoot, File classesDir) {
+        _docRoot = docRoot;
+        _classesDir = classesDir;
+    }
+
+    /**
+     * <p>
+     * This method sets the file extensions which are precompiled, by default ".jsf" and ".xhtml".
+     * </p>
+     */
+    public void setExtensions(Collection<String> extensions) {
+        _extensions = new ArrayList<>(extensions);
+    }
+
+    /**
+     * <p>
+     * This method sets an initParam, i.e. {@link LayoutDefinitionManager#LAYOUT_DEFINITION_MANAGER_KEY}.
+     * </p>
+     */
+    public void setInitParameter(String name, String value) {
+        _initParams.put(name, value);
+    }
+
+    /**
+     * <p>
+     * This method returns the keys of the files to precompile in the document root, and in the
+     * <code>META-INF/jsftemplating</code> directory of the classes directory.
+     * </p>
+     */
+    public List<String> findKeys() throws IOException {
+        List<String> keys = new ArrayList<>();
+        if (_docRoot != null) {
+            keys.addAll(findKeys(_docRoot, "/"));
+        }
+        // Classpath files are also found relative to "META-INF/"
+        keys.addAll(findKeys(new File(_classesDir, "META-INF/jsftemplating"), "/jsftemplating/"));
+        return keys;
+    }
+
+    /**
+     * <p>
+     * This method returns the keys of the files with one of the extensions in the given directory, prefixed with the given
+     * prefix.
+     * </p>
+     */
+    public List<String> findKeys(File dir, String prefix) throws IOException {
+        if (!dir.isDirectory()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>();
+        Path root = dir.toPath();
+        Iterator<Path> it = Files.walk(root).iterator();
+        while (it.hasNext()) {
+            Path path = it.next();
+            String name = path.getFileName().toString();
+            for (String ext : _extensions) {
+                if (name.endsWith(ext) && Files.isRegularFile(path)) {
+                    keys.add(prefix + root.relativize(path).toString().replace(File.separatorChar, '/'));
+                    break;
+                }
+            }
+        }
+        Collections.sort(keys);
+        return keys;
+    }
+
+    /**
+     * <p>
+     * This method reads and stores the {@link LayoutDefinition} for the given key. It returns <code>false</code> if no
+     * <code>LayoutDefinitionManager</code> accepts the file, i.e. it is not a template.
+     * </p>
+     *
+     * @throws LayoutDefinitionException If the file can't be read.
+     */
+    public boolean precompile(String key) throws LayoutDefinitionException {
+        FacesContext previous = _ctx.install();
+        try {
+            for (String className : LayoutDefinitionManager.getLayoutDefinitionManagers(_ctx)) {
+                LayoutDefinitionManager mgr = LayoutDefinitionManager.getLayoutDefinitionManagerByClass(_ctx, className);
+                if (mgr.accepts(key)) {
+                    Set<URL> files = new LinkedHashSet<>();
+                    Set<URL> outer = LayoutDefinitionWatcher.startRecording(files);
+                    LayoutDefinition ld = null;
+                    try {
+                        ld = mgr.getLayoutDefinition(key);
+                    } finally {
+                        LayoutDefinitionWatcher.stopRecording(outer, files);
+                    }
+                    Map<String, URL> sources = new LinkedHashMap<>();
+                    for (URL url : files) {
+                        sources.put(getLocation(url), url);
+                    }
+                    LayoutDefinitionSnapshots.writePrecompiled(_classesDir, FileUtil.cleanUpPath(key), ld, sources);
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException ex) {
+            throw new LayoutDefinitionException("Unable to store '" + key + "'.", ex);
+        } catch (LayoutDefinitionException ex) {
+            throw ex;
+        } catch (TemplatingException ex) {
+            // i.e. a SyntaxException
+            throw new LayoutDefinitionException("Unable to read '" + key + "'.", ex);
+        } finally {
+            ReaderContext.restore(previous);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns where the given file is found at runtime: its path in the document root, or
+     * {@link LayoutDefinitionSnapshots#CLASSPATH_PREFIX} followed by its classpath resource name.
+     * </p>
+     *
+     * @throws LayoutDefinitionException If it is neither in the document root nor on the classpath.
+     */
+    protected String getLocation(URL url) throws LayoutDefinitionException {
+        String path = url.getPath();
+        if ("jar".equals(url.getProtocol())) {
+            int idx = path.indexOf("!/");
+            if (idx != -1) {
+                return LayoutDefinitionSnapshots.CLASSPATH_PREFIX + path.substring(idx + 2);
+            }
+        } else if ("file".equals(url.getProtocol())) {
+            path = toPath(url);
+            if (path == null) {
+                throw new LayoutDefinitionException("Unable to locate '" + url + "'.");
+            }
+            if (_docRoot != null) {
+                String root = _docRoot.getAbsolutePath().replace(File.separatorChar, '/') + '/';
+                if (path.startsWith(root)) {
+                    return path.substring(root.length() - 1);
+                }
+            }
+
+            // Find the shortest resource name for it on the classpath
+            ClassLoader loader = Util.getClassLoader(this);
+            for (int idx = path.lastIndexOf('/'); idx > 0; idx = path.lastIndexOf('/', idx - 1)) {
+                String name = path.substring(idx + 1);
+                URL found = loader.getResource(name);
+                if (found != null && path.equals(toPath(found))) {
+                    return LayoutDefinitionSnapshots.CLASSPATH_PREFIX + name;
+                }
+            }
+        }
+        throw new LayoutDefinitionException("'" + url + "' is neither in the document root nor on the classpath.");
+    }
+
+    /**
+     * <p>
+     * This method returns the absolute path of the given file <code>URL</code> with '/' separators, or <code>null</code>
+     * if it is not a file.
+     * </p>
+     */
+    private static String toPath(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI()).getAbsolutePath().replace(File.separatorChar, '/');
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns a <code>URL</code> for the given path in the document root, or <code>null</code>. It is used via
+     * <code>ExternalContext.getContext()</code> like <code>ServletContext.getResource(String)</code>.
+     * </p>
+     */
+    public URL getResource(String path) throws MalformedURLException {
+        if (_docRoot == null) {
+            return null;
+        }
+        File file = new File(_docRoot, path);
+        return file.isFile() ? file.toURI().toURL() : null;
+    }
+
+    /**
+     * <p>
+     * This method precompiles the templates in a document root and a classes directory:
+     * <code>LayoutDefinitionPrecompiler &lt;docRoot&gt; &lt;classesDir&gt; [extension...]</code>. The context
+     * <code>ClassLoader</code> must include the application's classes and libraries. It exits with status 1 if a file
+     * can't be read.
+     * </p>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LayoutDefinitionPrecompiler <docRoot> <classesDir> [extension...]");
+            System.exit(2);
+        }
+        LayoutDefinitionPrecompiler precompiler = new LayoutDefinitionPrecompiler(new File(args[0]), new File(args[1]));
+        if (args.length > 2) {
+            precompiler.setExtensions(Arrays.asList(args).subList(2, args.length));
+        }
+        int errors = 0;
+        for (String key : precompiler.findKeys()) {
+            try {
+                precompiler.precompile(key);
+            } catch (LayoutDefinitionException ex) {
+                System.err.println(key + ": " + ex.getMessage());
+                errors++;
+            }
+        }
+        if (errors > 0) {
+            System.exit(1);
+        }
+    }
+
+    private final File _docRoot;
+    private final File _classesDir;
+    private List<String> _extensions = Arrays.asList(".jsf", ".xhtml");
+    private final Map<String, String> _initParams = new HashMap<>();
+    private final ReaderContext _ctx = new ReaderContext(this, new HashMap<String, Object>(), _initParams);
+}
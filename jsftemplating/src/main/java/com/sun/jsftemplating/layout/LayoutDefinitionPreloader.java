@@ -0,0 +1,462 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.util.LogUtil;
+import com.sun.jsftemplating.util.Util;
+
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.event.PostConstructApplicationEvent;
+import jakarta.faces.event.SystemEvent;
+import jakarta.faces.event.SystemEventListener;
+
+/**
+ * <p>
+ * This class reads the {@link LayoutDefinition}s of an application into the {@link LayoutDefinitionCache} when it
+ * starts, so the first request for each page does not have to read it. It is enabled via the {@link #PRELOAD_FLAG}
+ * initParam, which is either "true" (one thread per processor), or the number of threads to use. It is not used in
+ * debug mode, where {@link LayoutDefinition}s are not cached.
+ * </p>
+ *
+ * <p>
+ * The files with one of the {@link #setExtensions(Collection) extensions} are read from the document root (except
+ * <code>/WEB-INF/classes/</code> and <code>/WEB-INF/lib/</code>) and from the <code>META-INF/jsftemplating</code>
+ * directories of the classpath. Files which no <code>LayoutDefinitionManager</code> accepts are skipped, files which
+ * can't be read are reported. "initPage" handlers are not invoked while reading, they are invoked when the page is
+ * first requested.
+ * </p>
+ *
+ * <p>
+ * The global {@link com.sun.jsftemplating.layout.descriptors.handler.HandlerDefinition}s, component types and
+ * <code>LayoutDefinitionManager</code>s are initialized before the files are read in parallel, so this application
+ * scoped state is only created once.
+ * </p>
+ */
+public class LayoutDefinitionPreloader {
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param ctx The <code>FacesContext</code> of the application, its <code>ServletContext</code>, application map and
+     * initParams are used while reading.
+     *
+     * @param threads The number of threads to use.
+     */
+    public LayoutDefinitionPreloader(FacesContext ctx, int threads) {
+        ExternalContext extCtx = ctx.getExternalContext();
+        _extCtx = extCtx;
+        _context = extCtx.getContext();
+        _appMap = extCtx.getApplicationMap();
+        _initParams = extCtx.getInitParameterMap();
+        _loader = Util.getClassLoader(this);
+        _threads = threads;
+    }
+
+    /**
+     * <p>
+     * This method sets the file extensions which are read, by default ".jsf" and ".xhtml".
+     * </p>
+     */
+    public void setExtensions(Collection<String> extensions) {
+        _extensions = new ArrayList<>(extensions);
+    }
+
+    /**
+     * <p>
+     * This method returns the sorted keys of the files to read in the document root, and in the
+     * <code>META-INF/jsftemplating</code> directories of the classpath (prefixed with "/jsftemplating/").
+     * </p>
+     */
+    public List<String> findKeys() throws IOException {
+        Set<String> keys = new TreeSet<>();
+        findDocRootKeys("/", keys);
+        Enumeration<URL> urls = _loader.getResources(CLASSPATH_DIR);
+        while (urls.hasMoreElements()) {
+            findClasspathKeys(urls.nextElement(), keys);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * <p>
+     * This method adds the keys of the files in the given document root directory, and its subdirectories.
+     * </p>
+     */
+    private void findDocRootKeys(String path, Set<String> keys) {
+        Set<String> paths = _extCtx.getResourcePaths(path);
+        if (paths == null) {
+            return;
+        }
+        for (String child : paths) {
+            if (child.endsWith("/")) {
+                if (!child.equals("/WEB-INF/classes/") && !child.equals("/WEB-INF/lib/")) {
+                    findDocRootKeys(child, keys);
+                }
+            } else if (isTemplate(child)) {
+                keys.add(child);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method adds the keys of the files in the given <code>META-INF/jsftemplating</code> directory, which is
+     * either a directory or in a jar file.
+     * </p>
+     */
+    private void findClasspathKeys(URL url, Set<String> keys) throws IOException {
+        if (url.getProtocol().equals("file")) {
+            Path root;
+            try {
+                root = Paths.get(url.toURI());
+            } catch (URISyntaxException ex) {
+                throw new IOException("Invalid URL: '" + url + "'.", ex);
+            }
+            Iterator<Path> it = Files.walk(root).iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                String name = root.relativize(file).toString().replace('\\', '/');
+                if (isTemplate(name) && Files.isRegularFile(file)) {
+                    keys.add(CLASSPATH_PREFIX + name);
+                }
+            }
+            return;
+        }
+        URLConnection conn = url.openConnection();
+        if (!(conn instanceof JarURLConnection)) {
+            // Only directories and jar files are searched
+            return;
+        }
+        conn.setUseCaches(false);
+        String prefix = CLASSPATH_DIR + "/";
+        JarFile jarFile = ((JarURLConnection) conn).getJarFile();
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(prefix) && isTemplate(name)) {
+                    keys.add(CLASSPATH_PREFIX + name.substring(prefix.length()));
+                }
+            }
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the given path ends with one of the extensions.
+     * </p>
+     */
+    private boolean isTemplate(String path) {
+        for (String ext : _extensions) {
+            if (path.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * This method reads the {@link LayoutDefinition}s for the given keys into the {@link LayoutDefinitionCache}, and
+     * waits until they are read. It returns the keys which could not be read, in order, with the reason.
+     * </p>
+     */
+    public Map<String, Throwable> preload(Collection<String> keys) throws InterruptedException {
+        // Initialize the shared state before it is used concurrently
+        ReaderContext ctx = new ReaderContext(_context, _appMap, _initParams);
+        FacesContext previous = ctx.install();
+        try {
+            LayoutDefinitionManager.getGlobalHandlerDefinitions();
+            LayoutDefinitionManager.getGlobalComponentTypes(ctx);
+            LayoutDefinitionManager.getLayoutDefinitionCache(ctx);
+            for (String className : LayoutDefinitionManager.getLayoutDefinitionManagers(ctx)) {
+                LayoutDefinitionManager.getLayoutDefinitionManagerByClass(ctx, className);
+            }
+        } finally {
+            ReaderContext.restore(previous);
+        }
+
+        // Read the files
+        Map<String, Throwable> failures = new TreeMap<>();
+        Map<String, Future<Boolean>> results = new LinkedHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(_threads, new PreloadThreadFactory(_loader));
+        try {
+            for (final String key : keys) {
+                results.put(key, pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return read(key);
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<Boolean>> entry : results.entrySet()) {
+                try {
+                    if (entry.getValue().get()) {
+                        _count++;
+                    }
+                } catch (ExecutionException ex) {
+                    failures.put(entry.getKey(), ex.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return failures;
+    }
+
+    /**
+     * <p>
+     * This method reads the {@link LayoutDefinition} for the given key into the {@link LayoutDefinitionCache}. It returns
+     * <code>false</code> if no <code>LayoutDefinitionManager</code> accepts the file.
+     * </p>
+     */
+    private boolean read(String key) {
+        ReaderContext ctx = new ReaderContext(_context, _appMap, _initParams);
+        FacesContext previous = ctx.install();
+        try {
+            for (String className : LayoutDefinitionManager.getLayoutDefinitionManagers(ctx)) {
+                if (LayoutDefinitionManager.getLayoutDefinitionManagerByClass(ctx, className).accepts(key)) {
+                    LayoutDefinitionManager.getLayoutDefinition(ctx, key);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            ReaderContext.restore(previous);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the number of {@link LayoutDefinition}s read by {@link #preload(Collection)}.
+     * </p>
+     */
+    public int getCount() {
+        return _count;
+    }
+
+    /**
+     * <p>
+     * This method returns the number of threads configured via the {@link #PRELOAD_FLAG} initParam, or 0 if the
+     * {@link LayoutDefinition}s should not be preloaded.
+     * </p>
+     */
+    public static int getThreadCount(FacesContext ctx) {
+        String value = ctx.getExternalContext().getInitParameter(PRELOAD_FLAG);
+        if (value == null) {
+            return 0;
+        }
+        value = value.trim();
+        if (value.equalsIgnoreCase("true")) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        if (value.equals("") || value.equalsIgnoreCase("false")) {
+            return 0;
+        }
+        try {
+            return Math.max(Integer.parseInt(value), 0);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid value for '" + PRELOAD_FLAG + "': '" + value + "'.", ex);
+        }
+    }
+
+    /**
+     * <p>
+     * This method arranges for {@link #start(FacesContext)} to be invoked once the application has started, if enabled.
+     * </p>
+     */
+    public static void subscribe(FacesContext ctx) {
+        if (ctx == null || getThreadCount(ctx) == 0) {
+            return;
+        }
+        ctx.getApplication().subscribeToEvent(PostConstructApplicationEvent.class, new StartupListener());
+    }
+
+    /**
+     * <p>
+     * This method finds the files to read and reads them in the background, if enabled and not already done for this
+     * application. The files which could not be read are logged.
+     * </p>
+     *
+     * @return The <code>LayoutDefinitionPreloader</code>, or <code>null</code> if not started.
+     */
+    public static LayoutDefinitionPreloader start(FacesContext ctx) {
+        int threads = getThreadCount(ctx);
+        if (threads == 0 || LayoutDefinitionManager.isDebug(ctx)) {
+            return null;
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        synchronized (LayoutDefinitionPreloader.class) {
+            if (appMap.containsKey(PRELOADER_KEY)) {
+                // Already started
+                return null;
+            }
+            appMap.put(PRELOADER_KEY, Boolean.TRUE);
+        }
+        final LayoutDefinitionPreloader preloader = new LayoutDefinitionPreloader(ctx, threads);
+        final List<String> keys;
+        try {
+            // Find them now, while the ServletContext may be used
+            keys = preloader.findKeys();
+        } catch (IOException ex) {
+            LogUtil.warning("Unable to find the LayoutDefinitions to preload.", ex);
+            return null;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                preloader.run(keys);
+            }
+        }, "jsft-preload");
+        thread.setDaemon(true);
+        thread.setContextClassLoader(preloader._loader);
+        thread.start();
+        return preloader;
+    }
+
+    /**
+     * <p>
+     * This method reads the given keys and logs the result.
+     * </p>
+     */
+    private void run(List<String> keys) {
+        long start = System.nanoTime();
+        Map<String, Throwable> failures;
+        try {
+            failures = preload(keys);
+        } catch (InterruptedException ex) {
+            return;
+        }
+        ReaderContext ctx = new ReaderContext(_context, _appMap, _initParams);
+        FacesContext previous = ctx.install();
+        try {
+            for (Map.Entry<String, Throwable> entry : failures.entrySet()) {
+                LogUtil.warning("Unable to preload '" + entry.getKey() + "'.", entry.getValue());
+            }
+            if (LogUtil.infoEnabled()) {
+                LogUtil.info("JSFT0013", _count, (System.nanoTime() - start) / 1000000, failures.size());
+            }
+        } finally {
+            ReaderContext.restore(previous);
+        }
+    }
+
+    /**
+     * <p>
+     * This listener invokes {@link LayoutDefinitionPreloader#start(FacesContext)} once the application has started.
+     * </p>
+     */
+    public static class StartupListener implements SystemEventListener {
+        @Override
+        public boolean isListenerForSource(Object source) {
+            return true;
+        }
+
+        @Override
+        public void processEvent(SystemEvent event) {
+            start(FacesContext.getCurrentInstance());
+        }
+    }
+
+    /**
+     * <p>
+     * This <code>ThreadFactory</code> creates daemon threads which use the application's <code>ClassLoader</code>.
+     * </p>
+     */
+    private static class PreloadThreadFactory implements ThreadFactory {
+        PreloadThreadFactory(ClassLoader loader) {
+            _loader = loader;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jsft-preload-" + _number.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(_loader);
+            return thread;
+        }
+
+        private final ClassLoader _loader;
+        private final AtomicInteger _number = new AtomicInteger();
+    }
+
+    /**
+     * <p>
+     * The initParam which enables preloading: "true" or the number of threads to use.
+     * </p>
+     */
+    public static final String PRELOAD_FLAG = "com.sun.jsftemplating.PRELOAD";
+
+    /**
+     * <p>
+     * The classpath directory which is searched, files in it are found with the {@link #CLASSPATH_PREFIX}.
+     * </p>
+     */
+    private static final String CLASSPATH_DIR = "META-INF/jsftemplating";
+    private static final String CLASSPATH_PREFIX = "/jsftemplating/";
+
+    /**
+     * <p>
+     * Application scope key which flags that preloading has started.
+     * </p>
+     */
+    private static final String PRELOADER_KEY = "__jsft_LayoutDefinitionPreloader";
+
+    private final ExternalContext _extCtx;
+    private final Object _context;
+    private final Map<String, Object> _appMap;
+    private final Map<String, String> _initParams;
+    private final ClassLoader _loader;
+    private final int _threads;
+    private List<String> _extensions = Arrays.asList(".jsf", ".xhtml");
+    private int _count;
+}
@@ -0,0 +1,589 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import com.sun.jsftemplating.annotation.HandlerAP;
+import com.sun.jsftemplating.annotation.UIComponentFactoryAP;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.util.FileUtil;
+import com.sun.jsftemplating.util.LogUtil;
+import com.sun.jsftemplating.util.Util;
+
+import jakarta.faces.context.FacesContext;
+
+/**
+ * <p>
+ * This class stores serialized {@link LayoutDefinition}s in a directory, so they don't need to be parsed again when the
+ * application is restarted. It is enabled by the {@link #SNAPSHOT_DIR} initParam.
+ * </p>
+ *
+ * <p>
+ * Each snapshot records the files the {@link LayoutDefinition} was read from (see
+ * {@link LayoutDefinitionWatcher#fileFound(java.net.URL)}), with their last modified time and size. A snapshot is only
+ * used if none of these files changed. {@link LayoutDefinition}s read from something other than files or jar entries
+ * are not stored. Note a file added in front of the original in the search path is not detected, remove the snapshot
+ * directory when doing this.
+ * </p>
+ *
+ * <p>
+ * Snapshots are also not used after the library is upgraded, or when the global handler or component type definitions
+ * (the <code>Handler.map</code> and <code>UIComponentFactory.map</code> files in the classpath) change. Only
+ * <code>com.sun.jsftemplating</code> classes, <code>String</code>s, primitive wrappers and JDK collections are
+ * deserialized, other classes may only be referenced as types (i.e. handler input types).
+ * </p>
+ */
+public class LayoutDefinitionSnapshots {
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param dir The directory in which snapshots are stored, it is created if needed.
+     */
+    public LayoutDefinitionSnapshots(File dir) {
+        _dir = dir;
+    }
+
+    /**
+     * <p>
+     * This method returns the application's <code>LayoutDefinitionSnapshots</code>, or <code>null</code> if snapshots are
+     * not used. They are not used unless the {@link #SNAPSHOT_DIR} initParam is set, or in debug mode.
+     * </p>
+     */
+    public static LayoutDefinitionSnapshots getInstance(FacesContext ctx) {
+        if (ctx == null || LayoutDefinitionManager.isDebug(ctx)) {
+            return null;
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        Object snapshots = appMap.get(SNAPSHOTS_KEY);
+        if (snapshots == null) {
+            synchronized (LayoutDefinitionSnapshots.class) {
+                snapshots = appMap.get(SNAPSHOTS_KEY);
+                if (snapshots == null) {
+                    snapshots = Boolean.FALSE;
+                    String dir = ctx.getExternalContext().getInitParameter(SNAPSHOT_DIR);
+                    if (dir != null && !dir.trim().isEmpty()) {
+                        dir = dir.trim();
+                        if (Boolean.parseBoolean(dir)) {
+                            // Use the servlet container's temp directory
+                            Object tmpDir = appMap.get("jakarta.servlet.context.tempdir");
+                            if (tmpDir instanceof File) {
+                                snapshots = new LayoutDefinitionSnapshots(new File((File) tmpDir, "jsft-snapshots"));
+                            }
+                        } else {
+                            snapshots = new LayoutDefinitionSnapshots(new File(dir));
+                        }
+                    }
+                    appMap.put(SNAPSHOTS_KEY, snapshots);
+                }
+            }
+        }
+        return snapshots instanceof LayoutDefinitionSnapshots ? (LayoutDefinitionSnapshots) snapshots : null;
+    }
+
+    /**
+     * <p>
+     * This method returns the {@link LayoutDefinition} for the given key from its snapshot if it is up to date. Otherwise
+     * it invokes the given {@link LayoutDefinitionCache.Loader} and stores a new snapshot of the result. The "initPage"
+     * handlers are dispatched in either case.
+     * </p>
+     */
+    public LayoutDefinition load(String key, LayoutDefinitionCache.Loader loader) throws LayoutDefinitionException {
+        LayoutDefinition ld = read(key);
+        if (ld != null) {
+            // The LayoutDefinitionManager would have done this
+            ld.dispatchInitPageHandlers(FacesContext.getCurrentInstance(), ld);
+            return ld;
+        }
+        Set<URL> files = new LinkedHashSet<>();
+        Set<URL> outer = LayoutDefinitionWatcher.startRecording(files);
+        try {
+            ld = loader.load(key);
+        } finally {
+            LayoutDefinitionWatcher.stopRecording(outer, files);
+        }
+        if (ld != null) {
+            write(key, ld, files);
+        }
+        return ld;
+    }
+
+    /**
+     * <p>
+     * This method reads the snapshot of the {@link LayoutDefinition} for the given key. It returns <code>null</code> if
+     * there is none, or if it is out of date.
+     * </p>
+     */
+    public LayoutDefinition read(String key) {
+        File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return read(new FileInputStream(file), key, false);
+        } catch (Exception ex) {
+            // Incompatible or damaged, parse it again
+            if (LogUtil.configEnabled()) {
+                LogUtil.config("Unable to read snapshot of '" + key + "'.", ex);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * This method reads the {@link LayoutDefinition} for the given key which was precompiled at build time (see
+     * {@link LayoutDefinitionPrecompiler}) from the classpath. It returns <code>null</code> if there is none, or if one of
+     * the files it was read from can't be found or has different content now.
+     * </p>
+     */
+    public static LayoutDefinition readPrecompiled(String key) {
+        URL url = Util.getClassLoader(key).getResource(PRECOMPILED_PATH + getName(key));
+        if (url == null) {
+            return null;
+        }
+        try {
+            return read(url.openStream(), key, true);
+        } catch (Exception ex) {
+            // Incompatible or damaged, parse it instead
+            if (LogUtil.configEnabled()) {
+                LogUtil.config("Unable to read precompiled '" + key + "'.", ex);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * This method reads a snapshot of the {@link LayoutDefinition} for the given key from the given
+     * <code>InputStream</code>, and closes it. It returns <code>null</code> if it is out of date. The files of a
+     * <code>precompiled</code> snapshot are located again (see {@link #findSource(String, String)}) and compared by
+     * content, as they have different <code>URL</code>s and times at runtime.
+     * </p>
+     */
+    private static LayoutDefinition read(InputStream stream, String key, boolean precompiled) throws IOException, ClassNotFoundException {
+        ObjectInputStream in = null;
+        try {
+            in = new SnapshotInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+            if (in.readInt() != VERSION || !getLibraryVersion().equals(in.readUTF()) || !getDefinitionsHash(key).equals(in.readUTF())
+                    || !key.equals(in.readUTF())) {
+                return null;
+            }
+            int count = in.readInt();
+            URL[] urls = new URL[count];
+            for (int idx = 0; idx < count; idx++) {
+                String source = in.readUTF();
+                urls[idx] = precompiled ? findSource(source, key) : new URL(source);
+                String stamp = urls[idx] == null ? null : precompiled ? getContentHash(urls[idx]) : getStamp(urls[idx]);
+                if (!in.readUTF().equals(stamp)) {
+                    // Changed
+                    return null;
+                }
+            }
+            LayoutDefinition ld = (LayoutDefinition) in.readObject();
+            for (URL url : urls) {
+                // Let a LayoutDefinitionWatcher know what it was read from
+                LayoutDefinitionWatcher.fileFound(url);
+            }
+            return ld;
+        } finally {
+            Util.closeStream(in == null ? stream : in);
+        }
+    }
+
+    /**
+     * <p>
+     * This method stores a snapshot of the given {@link LayoutDefinition}, which was read from the given files.
+     * </p>
+     */
+    public void write(String key, LayoutDefinition ld, Collection<URL> urls) {
+        if (urls.isEmpty()) {
+            // Don't know what it depends on
+            return;
+        }
+        String[] sources = new String[urls.size()];
+        String[] stamps = new String[urls.size()];
+        int idx = 0;
+        for (URL url : urls) {
+            String stamp = null;
+            try {
+                stamp = getStamp(url);
+            } catch (IOException ex) {
+                // Handled below
+            }
+            if (stamp == null) {
+                // Can't tell if it changes
+                return;
+            }
+            sources[idx] = url.toExternalForm();
+            stamps[idx++] = stamp;
+        }
+        try {
+            write(getFile(key), key, ld, sources, stamps);
+        } catch (IOException ex) {
+            if (LogUtil.configEnabled()) {
+                LogUtil.config("Unable to write snapshot of '" + key + "'.", ex);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method stores the given precompiled {@link LayoutDefinition} below the given classpath directory, so that
+     * {@link #readPrecompiled(String)} finds it. <code>sources</code> maps the files it was read from to where they are
+     * found at runtime: a path starting with '/', which is searched via {@link FileUtil#searchForFile(String, String)},
+     * or {@link #CLASSPATH_PREFIX} followed by a resource name. The precompiled {@link LayoutDefinition} is only used
+     * while the content of these files is unchanged.
+     * </p>
+     */
+    public static void writePrecompiled(File classesDir, String key, LayoutDefinition ld, Map<String, URL> sources) throws IOException {
+        String[] locations = new String[sources.size()];
+        String[] hashes = new String[sources.size()];
+        int idx = 0;
+        for (Map.Entry<String, URL> entry : sources.entrySet()) {
+            locations[idx] = entry.getKey();
+            hashes[idx++] = getContentHash(entry.getValue());
+        }
+        write(new File(classesDir, PRECOMPILED_PATH + getName(key)), key, ld, locations, hashes);
+    }
+
+    /**
+     * <p>
+     * This method writes a snapshot to the given <code>File</code>. It is written to a temporary file first, so it is not
+     * read before it is complete.
+     * </p>
+     */
+    private static void write(File file, String key, LayoutDefinition ld, String[] sources, String[] stamps) throws IOException {
+        File dir = file.getParentFile();
+        dir.mkdirs();
+        File tmp = File.createTempFile("snapshot", ".tmp", dir);
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE));
+            try {
+                out.writeInt(VERSION);
+                out.writeUTF(getLibraryVersion());
+                out.writeUTF(getDefinitionsHash(key));
+                out.writeUTF(key);
+                out.writeInt(sources.length);
+                for (int idx = 0; idx < sources.length; idx++) {
+                    out.writeUTF(sources[idx]);
+                    out.writeUTF(stamps[idx]);
+                }
+                out.writeObject(ld);
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // Only exists if it was not moved
+            tmp.delete();
+        }
+    }
+
+    /**
+     * <p>
+     * This method removes all snapshots.
+     * </p>
+     */
+    public void clear() {
+        File[] files = _dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the snapshot <code>File</code> for the given key.
+     * </p>
+     */
+    protected File getFile(String key) {
+        return new File(_dir, getName(key));
+    }
+
+    /**
+     * <p>
+     * This method returns the snapshot file name for the given key.
+     * </p>
+     */
+    private static String getName(String key) {
+        return toHex(newDigest().digest(key.getBytes(StandardCharsets.UTF_8))) + SUFFIX;
+    }
+
+    /**
+     * <p>
+     * This method returns the last modified time and size of the given file or jar entry as <code>String</code>, or
+     * <code>null</code> if they can't be determined.
+     * </p>
+     */
+    private static String getStamp(URL url) throws IOException {
+        long[] stamp = FileUtil.getStamp(url);
+        return stamp == null ? null : stamp[0] + "/" + stamp[1];
+    }
+
+    /**
+     * <p>
+     * This method returns a SHA-1 hash of the content of the given <code>URL</code>.
+     * </p>
+     */
+    private static String getContentHash(URL url) throws IOException {
+        MessageDigest digest = newDigest();
+        InputStream in = url.openStream();
+        try {
+            byte[] buf = new byte[4096];
+            for (int len = in.read(buf); len != -1; len = in.read(buf)) {
+                digest.update(buf, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * <p>
+     * This method returns the <code>URL</code> of a precompiled {@link LayoutDefinition}'s source file at runtime (see
+     * {@link #writePrecompiled(File, String, LayoutDefinition, Map)}), or <code>null</code> if it is not found.
+     * </p>
+     */
+    private static URL findSource(String location, String key) throws IOException {
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            return Util.getClassLoader(key).getResource(location.substring(CLASSPATH_PREFIX.length()));
+        }
+        return FileUtil.searchForFile(location, null);
+    }
+
+    /**
+     * <p>
+     * This method returns the version of this library. If the jar does not declare one, the last modified time and size
+     * of {@link LayoutDefinition}'s class file are used instead, so snapshots are not used with a rebuilt library.
+     * </p>
+     */
+    static String getLibraryVersion() {
+        String version = LayoutDefinition.class.getPackage().getImplementationVersion();
+        if (version == null) {
+            version = "";
+            URL url = LayoutDefinition.class.getResource("LayoutDefinition.class");
+            try {
+                long[] stamp = url == null ? null : FileUtil.getStamp(url);
+                if (stamp != null) {
+                    version = stamp[0] + "/" + stamp[1];
+                }
+            } catch (IOException ex) {
+                // Use ""
+            }
+        }
+        return version;
+    }
+
+    /**
+     * <p>
+     * This method returns a hash of the global handler and component type definitions (the contents of all the
+     * <code>Handler.map</code> and <code>UIComponentFactory.map</code> files) visible to the <code>ClassLoader</code> used
+     * for the given key. It is computed once per <code>ClassLoader</code>.
+     * </p>
+     */
+    static String getDefinitionsHash(String key) throws IOException {
+        ClassLoader loader = Util.getClassLoader(key);
+        synchronized (DEFINITIONS_HASHES) {
+            String hash = DEFINITIONS_HASHES.get(loader);
+            if (hash == null) {
+                MessageDigest digest = newDigest();
+                for (String name : new String[] {HandlerAP.HANDLER_FILE, UIComponentFactoryAP.FACTORY_FILE}) {
+                    Enumeration<URL> urls = loader.getResources(name);
+                    while (urls.hasMoreElements()) {
+                        digest.update(getContentHash(urls.nextElement()).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                hash = toHex(digest.digest());
+                DEFINITIONS_HASHES.put(loader, hash);
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns a new SHA-1 <code>MessageDigest</code>.
+     * </p>
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the given bytes as hexadecimal <code>String</code>.
+     * </p>
+     */
+    private static String toHex(byte[] bytes) {
+        StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buf.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the given <code>Class</code> may be deserialized from a snapshot. Classes
+     * which are not <code>Serializable</code> are allowed, they can only be referenced as types.
+     * </p>
+     */
+    static boolean isAllowed(Class<?> cls) {
+        while (cls.isArray()) {
+            cls = cls.getComponentType();
+        }
+        if (cls.isPrimitive() || !Serializable.class.isAssignableFrom(cls) || cls.getName().startsWith("com.sun.jsftemplating.")) {
+            return true;
+        }
+        if (cls == String.class || cls == Boolean.class || cls == Character.class || cls == Class.class
+                || (Number.class.isAssignableFrom(cls) && cls.getName().startsWith("java.lang."))) {
+            return true;
+        }
+        String pkg = cls.getName().substring(0, cls.getName().lastIndexOf('.'));
+        return ("java.util".equals(pkg) || "java.util.concurrent".equals(pkg))
+                && (Collection.class.isAssignableFrom(cls) || Map.class.isAssignableFrom(cls));
+    }
+
+    /**
+     * <p>
+     * This <code>ObjectInputStream</code> loads classes via the context <code>ClassLoader</code>, as application classes
+     * may be referenced by a {@link LayoutDefinition}. It rejects classes which are not allowed (see
+     * {@link LayoutDefinitionSnapshots#isAllowed(Class)}).
+     * </p>
+     */
+    private static class SnapshotInputStream extends ObjectInputStream {
+        SnapshotInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            Class<?> cls = null;
+            ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            if (loader != null) {
+                try {
+                    cls = Class.forName(desc.getName(), false, loader);
+                } catch (ClassNotFoundException ex) {
+                    // Try the default
+                }
+            }
+            if (cls == null) {
+                cls = super.resolveClass(desc);
+            }
+            if (!isAllowed(cls)) {
+                throw new InvalidClassException(desc.getName(), "Not allowed in a snapshot");
+            }
+            return cls;
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            throw new InvalidClassException("Proxy classes are not allowed in a snapshot");
+        }
+    }
+
+    /**
+     * <p>
+     * This is the name of the initParam which specifies the directory in which snapshots are stored
+     * ("com.sun.jsftemplating.SNAPSHOT_DIR"). If it is "true", the servlet container's temp directory is used.
+     * </p>
+     */
+    public static final String SNAPSHOT_DIR = "com.sun.jsftemplating.SNAPSHOT_DIR";
+
+    /**
+     * <p>
+     * The classpath directory of precompiled {@link LayoutDefinition}s.
+     * </p>
+     */
+    public static final String PRECOMPILED_PATH = "META-INF/jsftemplating/precompiled/";
+
+    /**
+     * <p>
+     * The prefix of a precompiled {@link LayoutDefinition}'s source file which is a classpath resource (see
+     * {@link #writePrecompiled(File, String, LayoutDefinition, Map)}).
+     * </p>
+     */
+    public static final String CLASSPATH_PREFIX = "classpath:";
+
+    /**
+     * <p>
+     * The application scope key for the <code>LayoutDefinitionSnapshots</code>.
+     * </p>
+     */
+    private static final String SNAPSHOTS_KEY = "__jsft_LayoutDefinitionSnapshots";
+
+    /**
+     * <p>
+     * The snapshot format version, it should be changed when the format changes.
+     * </p>
+     */
+    private static final int VERSION = 0x4A534603;
+
+    /**
+     * <p>
+     * The hashes computed by {@link #getDefinitionsHash(String)}, by <code>ClassLoader</code>.
+     * </p>
+     */
+    private static final Map<ClassLoader, String> DEFINITIONS_HASHES = new WeakHashMap<>();
+
+    private static final String SUFFIX = ".ld";
+    private static final int BUFFER_SIZE = 32 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File _dir;
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.util.FileUtil;
+import com.sun.jsftemplating.util.LogUtil;
+
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.event.SystemEvent;
+import jakarta.faces.event.SystemEventListener;
+
+/**
+ * <p>
+ * This class reloads {@link LayoutDefinition}s when the files they were read from change, without disabling the
+ * {@link LayoutDefinitionCache} as debug mode does. It is enabled by the {@link #WATCH_FLAG} initParam.
+ * </p>
+ *
+ * <p>
+ * While a {@link LayoutDefinition} is loaded, every file found via {@link FileUtil#searchForFile(String, String)} is
+ * recorded: the template itself and the files it includes (i.e. via <code>#include</code>). These files are watched
+ * with a <code>WatchService</code>, when one of them changes only the {@link LayoutDefinition}s read from it are removed
+ * from the {@link LayoutDefinitionCache}, they are read again when next needed. Templates used via
+ * <code>ui:include</code>, <code>ui:composition</code> or inserts are separate {@link LayoutDefinition}s which are
+ * looked up each time they are used, so they are reloaded on their own.
+ * </p>
+ *
+ * <p>
+ * Only files in the file system can be watched, templates in jar files are not reloaded. The watching thread is stopped
+ * by the {@link ShutdownListener} when the application is destroyed.
+ * </p>
+ */
+public class LayoutDefinitionWatcher {
+
+    /**
+     * <p>
+     * Constructor. Starts a daemon thread to process changes.
+     * </p>
+     */
+    protected LayoutDefinitionWatcher(LayoutDefinitionCache cache, Map<String, Object> appMap) throws IOException {
+        _cache = cache;
+        _appMap = appMap;
+        _watchService = FileSystems.getDefault().newWatchService();
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processEvents();
+            }
+        }, "jsft-template-watcher");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    /**
+     * <p>
+     * This method returns the application's <code>LayoutDefinitionWatcher</code>, or <code>null</code> if templates are
+     * not watched. They are only watched if the {@link #WATCH_FLAG} initParam is <code>true</code>, and never in debug
+     * mode, which does not cache {@link LayoutDefinition}s at all.
+     * </p>
+     */
+    public static LayoutDefinitionWatcher getInstance(FacesContext ctx) {
+        if (ctx == null || LayoutDefinitionManager.isDebug(ctx)) {
+            return null;
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        Object watcher = appMap.get(WATCHER_KEY);
+        if (watcher == null) {
+            synchronized (LayoutDefinitionWatcher.class) {
+                watcher = appMap.get(WATCHER_KEY);
+                if (watcher == null) {
+                    watcher = Boolean.FALSE;
+                    String flag = ctx.getExternalContext().getInitParameter(WATCH_FLAG);
+                    if (flag != null && Boolean.parseBoolean(flag.trim())) {
+                        try {
+                            watcher = new LayoutDefinitionWatcher(LayoutDefinitionManager.getLayoutDefinitionCache(ctx), appMap);
+                        } catch (IOException ex) {
+                            LogUtil.warning("Unable to watch templates for changes.", ex);
+                        }
+                    }
+                    appMap.put(WATCHER_KEY, watcher);
+                }
+            }
+        }
+        return watcher instanceof LayoutDefinitionWatcher ? (LayoutDefinitionWatcher) watcher : null;
+    }
+
+    /**
+     * <p>
+     * This method invokes the given {@link LayoutDefinitionCache.Loader} and watches the files it reads. The caller
+     * should call {@link #checkModified(String)} once the result is cached.
+     * </p>
+     */
+    public LayoutDefinition load(String key, LayoutDefinitionCache.Loader loader) throws LayoutDefinitionException {
+        Set<URL> files = new LinkedHashSet<>();
+        Set<URL> outer = startRecording(files);
+        long start = System.currentTimeMillis();
+        try {
+            LayoutDefinition ld = loader.load(key);
+            watch(key, files, start);
+            return ld;
+        } finally {
+            stopRecording(outer, files);
+        }
+    }
+
+    /**
+     * <p>
+     * This method records the files found by this thread in the given <code>Set</code> until
+     * {@link #stopRecording(Set, Set)} is called. It returns the <code>Set</code> recorded before, if any.
+     * </p>
+     */
+    static Set<URL> startRecording(Set<URL> files) {
+        Set<URL> outer = FILES.get();
+        FILES.set(files);
+        return outer;
+    }
+
+    /**
+     * <p>
+     * This method stops recording files in the given <code>Set</code>, and continues recording in the outer
+     * <code>Set</code> returned by {@link #startRecording(Set)}.
+     * </p>
+     */
+    static void stopRecording(Set<URL> outer, Set<URL> files) {
+        if (outer == null) {
+            FILES.remove();
+        } else {
+            // Nested load, the outer LayoutDefinition depends on these too
+            FILES.set(outer);
+            outer.addAll(files);
+        }
+    }
+
+    /**
+     * <p>
+     * This method is called by {@link FileUtil#searchForFile(String, String)} for each file it finds. It records the file
+     * if a {@link LayoutDefinition} is being loaded by this thread.
+     * </p>
+     */
+    public static void fileFound(URL url) {
+        Set<URL> files = FILES.get();
+        if (files != null) {
+            files.add(url);
+        }
+    }
+
+    /**
+     * <p>
+     * This method watches the given files for changes to the {@link LayoutDefinition} cached under the given key.
+     * </p>
+     */
+    private synchronized void watch(String key, Set<URL> urls, long start) {
+        forget(key);
+        Set<Path> files = new HashSet<>();
+        for (URL url : urls) {
+            if (!"file".equals(url.getProtocol())) {
+                // Can't watch it
+                continue;
+            }
+            Path file = null;
+            try {
+                file = Paths.get(url.toURI()).toAbsolutePath().normalize();
+                Path dir = file.getParent();
+                if (dir != null && !_dirs.contains(dir)) {
+                    dir.register(_watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                    _dirs.add(dir);
+                }
+            } catch (Exception ex) {
+                if (LogUtil.configEnabled()) {
+                    LogUtil.config("Unable to watch '" + url + "'.", ex);
+                }
+                continue;
+            }
+            files.add(file);
+            Set<String> keys = _keysByFile.get(file);
+            if (keys == null) {
+                keys = new HashSet<>(2);
+                _keysByFile.put(file, keys);
+            }
+            keys.add(key);
+        }
+        _filesByKey.put(key, files);
+        _loadTimes.put(key, start);
+    }
+
+    /**
+     * <p>
+     * This method removes the {@link LayoutDefinition} cached under the given key if one of its files was modified while
+     * it was being loaded, as that change may have been missed.
+     * </p>
+     */
+    public synchronized void checkModified(String key) {
+        Long start = _loadTimes.remove(key);
+        Set<Path> files = _filesByKey.get(key);
+        if (start == null || files == null) {
+            return;
+        }
+        for (Path file : files) {
+            try {
+                if (Files.getLastModifiedTime(file).toMillis() >= start) {
+                    invalidate(key, file);
+                    return;
+                }
+            } catch (IOException ex) {
+                // Deleted
+                invalidate(key, file);
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method waits for changes to watched files, and invalidates the {@link LayoutDefinition}s read from them.
+     * </p>
+     */
+    private void processEvents() {
+        while (true) {
+            WatchKey watchKey = null;
+            try {
+                watchKey = _watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            Path dir = (Path) watchKey.watchable();
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    // We don't know what changed
+                    invalidateAll();
+                    continue;
+                }
+                fileChanged(dir.resolve((Path) event.context()));
+            }
+
+            // Files may be found now
+            FileUtil.clearNotFoundCache(_appMap);
+            if (!watchKey.reset()) {
+                // The directory is gone
+                synchronized (this) {
+                    _dirs.remove(dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method invalidates the {@link LayoutDefinition}s read from the given file.
+     * </p>
+     */
+    private synchronized void fileChanged(Path file) {
+        Set<String> keys = _keysByFile.get(file);
+        if (keys != null) {
+            for (String key : keys.toArray(new String[keys.size()])) {
+                invalidate(key, file);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method removes the {@link LayoutDefinition} cached under the given key, it will be read again when next needed.
+     * </p>
+     */
+    private void invalidate(String key, Path file) {
+        if (LogUtil.configEnabled()) {
+            LogUtil.config("Reloading '" + key + "', '" + file + "' changed.");
+        }
+        forget(key);
+        _cache.remove(key);
+        LayoutDefinitionManager.clearResolvedManager(_appMap, key);
+    }
+
+    /**
+     * <p>
+     * This method removes all cached {@link LayoutDefinition}s.
+     * </p>
+     */
+    private synchronized void invalidateAll() {
+        _keysByFile.clear();
+        _filesByKey.clear();
+        _loadTimes.clear();
+        _cache.clear();
+        LayoutDefinitionManager.clearResolvedManager(_appMap, null);
+    }
+
+    /**
+     * <p>
+     * This method stops watching the files of the given key.
+     * </p>
+     */
+    private void forget(String key) {
+        _loadTimes.remove(key);
+        Set<Path> files = _filesByKey.remove(key);
+        if (files != null) {
+            for (Path file : files) {
+                Set<String> keys = _keysByFile.get(file);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        _keysByFile.remove(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method stops watching files and waits for the watching thread to finish, it should be called when the
+     * application is stopped.
+     * </p>
+     */
+    public void close() {
+        try {
+            _watchService.close();
+        } catch (IOException ex) {
+            if (LogUtil.configEnabled()) {
+                LogUtil.config("Unable to close WatchService.", ex);
+            }
+        }
+        if (Thread.currentThread() != _thread) {
+            try {
+                _thread.join(CLOSE_TIMEOUT);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method closes the application's <code>LayoutDefinitionWatcher</code>, if one was created.
+     * </p>
+     */
+    public static void close(Map<String, Object> appMap) {
+        Object watcher = appMap.remove(WATCHER_KEY);
+        if (watcher instanceof LayoutDefinitionWatcher) {
+            ((LayoutDefinitionWatcher) watcher).close();
+        }
+    }
+
+    /**
+     * <p>
+     * This listener closes the application's <code>LayoutDefinitionWatcher</code> when the application is destroyed. It
+     * is registered for the <code>PreDestroyApplicationEvent</code> in the faces-config.xml.
+     * </p>
+     */
+    public static class ShutdownListener implements SystemEventListener {
+        @Override
+        public boolean isListenerForSource(Object source) {
+            return true;
+        }
+
+        @Override
+        public void processEvent(SystemEvent event) {
+            FacesContext ctx = FacesContext.getCurrentInstance();
+            if (ctx != null) {
+                close(ctx.getExternalContext().getApplicationMap());
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * The files found by {@link FileUtil#searchForFile(String, String)} while loading a {@link LayoutDefinition} on this
+     * thread.
+     * </p>
+     */
+    private static final ThreadLocal<Set<URL>> FILES = new ThreadLocal<>();
+
+    /**
+     * <p>
+     * The application scope key for the <code>LayoutDefinitionWatcher</code>.
+     * </p>
+     */
+    private static final String WATCHER_KEY = "__jsft_LayoutDefinitionWatcher";
+
+    /**
+     * <p>
+     * The number of milliseconds {@link #close()} waits for the watching thread to finish.
+     * </p>
+     */
+    private static final long CLOSE_TIMEOUT = 5000;
+
+    /**
+     * <p>
+     * This is the name of the initParam which enables reloading {@link LayoutDefinition}s when their files change
+     * ("com.sun.jsftemplating.WATCH"). It is ignored in debug mode.
+     * </p>
+     */
+    public static final String WATCH_FLAG = "com.sun.jsftemplating.WATCH";
+
+    private final LayoutDefinitionCache _cache;
+    private final Map<String, Object> _appMap;
+    private final WatchService _watchService;
+    private final Thread _thread;
+    private final Set<Path> _dirs = new HashSet<>();
+    private final Map<Path, Set<String>> _keysByFile = new HashMap<>();
+    private final Map<String, Set<Path>> _filesByKey = new HashMap<>();
+    private final Map<String, Long> _loadTimes = new HashMap<>();
+}
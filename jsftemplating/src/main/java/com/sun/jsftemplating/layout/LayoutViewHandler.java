@@ -18,7 +18,6 @@ package com.sun.jsftemplating.layout;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
@@ -37,6 +36,7 @@ import com.sun.jsftemplating.layout.descriptors.LayoutElement;
 import com.sun.jsftemplating.layout.descriptors.LayoutFacet;
 import com.sun.jsftemplating.layout.descriptors.LayoutInsert;
 import com.sun.jsftemplating.layout.descriptors.Resource;
+import com.sun.jsftemplating.util.EncodedResponseWriter;
 import com.sun.jsftemplating.util.LogUtil;
 import com.sun.jsftemplating.util.SimplePatternMatcher;
 import com.sun.jsftemplating.util.TypeConversion;
@@ -96,14 +96,15 @@ public class LayoutViewHandler extends ViewHandler {
     public LayoutViewHandler(ViewHandler oldViewHandler) {
         _oldViewHandler = oldViewHandler;
 
-// FIXME: Fire an initializtion event, work out how to listen for this event
-
         // This is added here to ensure that if the ViewHandler is reloaded in
         // a running application, that handlers, ct's, and resources will get
         // re-read. Ryan added a feature which may introduce this code path.
         LayoutDefinitionManager.clearGlobalComponentTypes(null);
         LayoutDefinitionManager.clearGlobalHandlerDefinitions(null);
         LayoutDefinitionManager.clearGlobalResources(null);
+
+        // Read the LayoutDefinitions once the application starts (if enabled)
+        LayoutDefinitionPreloader.subscribe(FacesContext.getCurrentInstance());
     }
 
     /**
@@ -747,7 +748,7 @@ public class LayoutViewHandler extends ViewHandler {
         response.setCharacterEncoding(encType);
 
 // FIXME: Portlet?
-        writer = renderKit.createResponseWriter(new OutputStreamWriter(response.getOutputStream(), encType), contentTypeList, encType);
+        writer = renderKit.createResponseWriter(new EncodedResponseWriter.Output(response.getOutputStream(), encType), contentTypeList, encType);
         context.setResponseWriter(writer);
 // Not setting the contentType here results in XHTML which formats differently
 // than text/html in Mozilla.. even though the documentation claims this
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.util.FileUtil;
+
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.ExternalContextWrapper;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.FacesContextWrapper;
+
+/**
+ * <p>
+ * The <code>FacesContext</code> used to read {@link LayoutDefinition}s outside of a request, i.e. at build time or while
+ * the application starts. Only what reading needs is supported. Each {@link #install()} starts with an empty request
+ * map in which "initPage" handlers are disabled (see {@link LayoutDefinition#INIT_PAGE_DISABLED}).
+ * </p>
+ *
+ * <p>
+ * An instance must only be used by one thread at a time, however several instances may share the same application
+ * map if it is thread-safe. It is public as its methods may be invoked via reflection.
+ * </p>
+ */
+public class ReaderContext extends FacesContextWrapper {
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param context The <code>ServletContext</code>, or another <code>Object</code> with a
+     * <code>getResource(String)</code> method, which is used to find files in the document root.
+     *
+     * @param appMap The application map.
+     *
+     * @param initParams The initParams.
+     */
+    public ReaderContext(Object context, Map<String, Object> appMap, Map<String, String> initParams) {
+        super(null);
+        _extCtx = new ReaderExternalContext(context, appMap, initParams);
+    }
+
+    /**
+     * <p>
+     * This method makes this the current <code>FacesContext</code> with an empty request map. It returns the previous
+     * <code>FacesContext</code> which should be passed to {@link #restore(FacesContext)} when done.
+     * </p>
+     */
+    public FacesContext install() {
+        _extCtx._requestMap = new HashMap<>();
+        _extCtx._requestMap.put(LayoutDefinition.INIT_PAGE_DISABLED, Boolean.TRUE);
+        _attributes.clear();
+        FacesContext previous = FacesContext.getCurrentInstance();
+        FacesContext.setCurrentInstance(this);
+        return previous;
+    }
+
+    /**
+     * <p>
+     * This method makes the given <code>FacesContext</code> (which may be <code>null</code>) the current one again.
+     * </p>
+     */
+    public static void restore(FacesContext previous) {
+        FacesContext.setCurrentInstance(previous);
+    }
+
+    @Override
+    public ExternalContext getExternalContext() {
+        return _extCtx;
+    }
+
+    @Override
+    public Map<Object, Object> getAttributes() {
+        return _attributes;
+    }
+
+    @Override
+    public UIViewRoot getViewRoot() {
+        return null;
+    }
+
+    @Override
+    public void release() {
+    }
+
+    /**
+     * <p>
+     * The <code>ExternalContext</code> of the {@link ReaderContext}. It is public as its methods may be invoked via
+     * reflection.
+     * </p>
+     */
+    public static class ReaderExternalContext extends ExternalContextWrapper {
+        ReaderExternalContext(Object context, Map<String, Object> appMap, Map<String, String> initParams) {
+            super(null);
+            _context = context;
+            _appMap = appMap;
+            _initParams = initParams;
+        }
+
+        @Override
+        public Object getContext() {
+            return _context;
+        }
+
+        @Override
+        public URL getResource(String path) {
+            // Only valid while installed, as is the rest of this context
+            return FileUtil.getResource(path.startsWith("/") ? path.substring(1) : path);
+        }
+
+        @Override
+        public Map<String, Object> getApplicationMap() {
+            return _appMap;
+        }
+
+        @Override
+        public Map<String, Object> getRequestMap() {
+            return _requestMap;
+        }
+
+        @Override
+        public Map<String, Object> getSessionMap() {
+            return _sessionMap;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return _initParams.get(name);
+        }
+
+        @Override
+        public Map<String, String> getInitParameterMap() {
+            return _initParams;
+        }
+
+        @Override
+        public String getRequestContextPath() {
+            return "";
+        }
+
+        private final Object _context;
+        private final Map<String, Object> _appMap;
+        private final Map<String, String> _initParams;
+        private final Map<String, Object> _sessionMap = new HashMap<>();
+        private Map<String, Object> _requestMap = new HashMap<>();
+    }
+
+    private final ReaderExternalContext _extCtx;
+    private final Map<Object, Object> _attributes = new HashMap<>();
+}
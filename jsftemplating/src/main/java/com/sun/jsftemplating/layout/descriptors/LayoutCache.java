@@ -0,0 +1,609 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.descriptors;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.jsftemplating.component.factory.ComponentFactory;
+import com.sun.jsftemplating.component.factory.basic.GenericFactory;
+import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.layout.SyntaxException;
+import com.sun.jsftemplating.util.Util;
+
+import jakarta.faces.FacesException;
+import jakarta.faces.application.Application;
+import jakarta.faces.component.ActionSource;
+import jakarta.faces.component.EditableValueHolder;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIForm;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+
+/**
+ * <p>
+ * This class defines a LayoutCache {@link LayoutElement}. The LayoutCache stores the output of its children under the
+ * value of its <code>key</code> option (i.e. <code>#{view.locale}-#{userRole}</code>). Later requests which produce the
+ * same key write the stored output instead of encoding the children again. If the key resolves to <code>null</code>,
+ * nothing is cached.
+ * </p>
+ *
+ * <p>
+ * The <code>ttl</code> option sets how many seconds the output is kept ({@link #DEFAULT_TTL} by default), the
+ * <code>size</code> option how many keys are kept ({@link #DEFAULT_SIZE} by default). The least recently used output is
+ * removed first. The <code>Cache</code> component shares one <code>LayoutCache</code> (see
+ * <code>/jsftemplating/cache.jsf</code>), so there the <code>size</code> applies to each component, identified by view
+ * id and client id (see {@link #getCacheId(FacesContext, UIComponent)}). All components together keep at most
+ * {@link #MAX_ENTRIES} outputs, the least recently used components lose theirs first.
+ * </p>
+ *
+ * <p>
+ * Only output is stored; the {@link com.sun.jsftemplating.layout.descriptors.handler.Handler}s of the children are not
+ * invoked when stored output is written. Children may not contain input components, as their values differ for each
+ * request. This is checked when the template is read (see {@link #checkChildren()}), and again while the output is
+ * created (see {@link #checkEncoded(FacesContext, UIComponent)}) for children which can't be checked earlier.
+ * </p>
+ */
+public class LayoutCache extends LayoutComponent {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param parent The parent {@link LayoutElement}
+     * @param key The expression used as key for the output
+     */
+    public LayoutCache(LayoutElement parent, String key) {
+        this(parent, key, LayoutDefinitionManager.getGlobalComponentType(null, "cache"));
+    }
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param parent The parent {@link LayoutElement}
+     * @param key The expression used as key for the output
+     * @param type The {@link ComponentType}
+     */
+    protected LayoutCache(LayoutElement parent, String key, ComponentType type) {
+        super(parent, (String) null, type);
+        if (key == null || key.equals("")) {
+            throw new IllegalArgumentException("'key' is required!");
+        }
+        addOption(KEY, key);
+        if (key.equals("$property{key}")) {
+            _doubleEval = true;
+        }
+    }
+
+    /**
+     * <p>
+     * This method ensures none of the descendants of this <code>LayoutCache</code> create input components (see
+     * {@link #isInputComponent(UIComponent)}). Readers invoke it once the children have been read. The
+     * <code>UIComponent</code> class of each {@link LayoutComponent} is found from its {@link ComponentType}, see
+     * {@link #getComponentClass(FacesContext, LayoutComponent)}. Children whose class can't be found here (e.g.
+     * templates included at render time) are checked while output is stored.
+     * </p>
+     *
+     * @throws SyntaxException If an input component is found.
+     */
+    public void checkChildren() {
+        checkChildren(FacesContext.getCurrentInstance(), this);
+    }
+
+    /**
+     * <p>
+     * This method checks the children of the given {@link LayoutElement}, see {@link #checkChildren()}.
+     * </p>
+     */
+    private void checkChildren(FacesContext context, LayoutElement elt) {
+        for (LayoutElement child : elt.getChildLayoutElements()) {
+            if ((child instanceof LayoutComponent) && !(child instanceof LayoutStaticText)) {
+                Class<?> cls = getComponentClass(context, (LayoutComponent) child);
+                if ((cls != null) && isInputClass(cls)) {
+                    throw new SyntaxException("'cache' may not contain the input component '" + child.getUnevaluatedId() + "' ("
+                            + cls.getName() + ").");
+                }
+            }
+            checkChildren(context, child);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the <code>UIComponent</code> class the given {@link LayoutComponent} creates, or
+     * <code>null</code> if it is not known. The JSF component type is taken from the <code>componentType</code> of a
+     * {@link GenericFactory}, or else the <code>COMPONENT_TYPE</code> constant of the {@link ComponentFactory}. The
+     * <code>Application</code> resolves it to a class. Without one, the standard Faces component types are recognized
+     * (i.e. <code>jakarta.faces.HtmlInputText</code>).
+     * </p>
+     */
+    protected Class<?> getComponentClass(FacesContext context, LayoutComponent descriptor) {
+        String componentType = getComponentType(descriptor);
+        if (componentType == null) {
+            return null;
+        }
+        Application app = (context == null) ? null : context.getApplication();
+        if (app != null) {
+            try {
+                UIComponent comp = app.createComponent(componentType);
+                if (comp != null) {
+                    return comp.getClass();
+                }
+            } catch (FacesException ex) {
+                // Unknown component type
+            }
+        }
+        if (componentType.startsWith(FACES_TYPE_PREFIX)) {
+            String name = componentType.substring(FACES_TYPE_PREFIX.length());
+            name = name.startsWith("Html") ? ("jakarta.faces.component.html." + name) : ("jakarta.faces.component.UI" + name);
+            try {
+                return Util.loadClass(name, this);
+            } catch (ClassNotFoundException ex) {
+                // Not a standard component
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * This method returns the JSF component type the {@link ComponentFactory} of the given {@link LayoutComponent}
+     * creates, or <code>null</code> if it is not known.
+     * </p>
+     */
+    private static String getComponentType(LayoutComponent descriptor) {
+        ComponentType type = descriptor.getType();
+        if (type == null) {
+            return null;
+        }
+        ComponentFactory factory = null;
+        try {
+            factory = type.getFactory();
+        } catch (RuntimeException ex) {
+            // Factory not available
+            return null;
+        }
+        Object componentType = null;
+        if (factory instanceof GenericFactory) {
+            componentType = descriptor.getOption(GenericFactory.COMPONENT_TYPE);
+            if (componentType == null) {
+                componentType = factory.getExtraInfo();
+            }
+        } else {
+            try {
+                Field field = factory.getClass().getField("COMPONENT_TYPE");
+                if (Modifier.isStatic(field.getModifiers())) {
+                    componentType = field.get(null);
+                }
+            } catch (NoSuchFieldException ex) {
+                // No constant
+            } catch (IllegalAccessException ex) {
+                // Not accessible
+            }
+        }
+        if (!(componentType instanceof String)) {
+            return null;
+        }
+        String value = (String) componentType;
+        return ((value.indexOf('$') != -1) || (value.indexOf("#{") != -1)) ? null : value;
+    }
+
+    /**
+     * <p>
+     * This method always returns true, the children are encoded unless stored output is written (see
+     * {@link #encode(FacesContext, UIComponent)}).
+     * </p>
+     *
+     * @param context The <code>FacesContext</code>.
+     * @param component The <code>UIComponent</code>.
+     *
+     * @return true
+     */
+    @Override
+    public boolean encodeThis(FacesContext context, UIComponent component) {
+        return true;
+    }
+
+    /**
+     * <p>
+     * This method writes the stored output for the key, if any. Otherwise it encodes the children to a buffer, stores the
+     * output and writes it.
+     * </p>
+     *
+     * @param context The FacesContext
+     * @param component The UIComponent
+     */
+    @Override
+    public void encode(FacesContext context, UIComponent component) throws IOException {
+        String key = getKey(context, component);
+        if (key == null) {
+            // Nothing to store it under
+            super.encode(context, component);
+            return;
+        }
+
+        ResponseWriter writer = context.getResponseWriter();
+        String cacheId = getCacheId(context, component);
+        String output = getOutput(cacheId, key);
+        if (output == null) {
+            // Close a pending start tag, the copy doesn't know about it
+            writer.write("");
+
+            // Encode the children to a buffer, checking the UIComponents
+            StringWriter buf = new StringWriter();
+            ResponseWriter bufWriter = writer.cloneWithWriter(buf);
+            context.setResponseWriter(bufWriter);
+            Map<Object, Object> attributes = context.getAttributes();
+            Object checking = attributes.put(CHECK_KEY, Boolean.TRUE);
+            _checking.incrementAndGet();
+            try {
+                super.encode(context, component);
+                bufWriter.flush();
+            } finally {
+                _checking.decrementAndGet();
+                if (checking == null) {
+                    attributes.remove(CHECK_KEY);
+                }
+                context.setResponseWriter(writer);
+            }
+            output = buf.toString();
+            putOutput(cacheId, key, output, getLong(context, component, TTL, DEFAULT_TTL), (int) getLong(context, component, SIZE, DEFAULT_SIZE));
+        }
+        writer.write(output);
+    }
+
+    /**
+     * <p>
+     * {@link LayoutComponent} invokes this method for each <code>UIComponent</code> it encodes. While a
+     * <code>LayoutCache</code> stores output, this ensures the <code>UIComponent</code> and its rendered descendants
+     * are not input components (see {@link #isInputComponent(UIComponent)}). Otherwise this does nothing.
+     * </p>
+     *
+     * @param context The <code>FacesContext</code>.
+     * @param component The <code>UIComponent</code> about to be encoded.
+     *
+     * @throws IllegalArgumentException If an input component is found.
+     */
+    public static void checkEncoded(FacesContext context, UIComponent component) {
+        if (_checking.get() == 0 || context.getAttributes().get(CHECK_KEY) == null) {
+            // No output is being stored (the counter avoids the lookup)
+            return;
+        }
+        checkComponent(context, component);
+    }
+
+    /**
+     * <p>
+     * This method checks the given <code>UIComponent</code> and its children and facets, see
+     * {@link #checkEncoded(FacesContext, UIComponent)}.
+     * </p>
+     */
+    private static void checkComponent(FacesContext context, UIComponent component) {
+        if (!component.isRendered()) {
+            return;
+        }
+        if (isInputComponent(component)) {
+            throw new IllegalArgumentException("'cache' may not contain the input component '" + component.getClientId(context) + "' ("
+                    + component.getClass().getName() + ").");
+        }
+        Iterator<UIComponent> it = component.getFacetsAndChildren();
+        while (it.hasNext()) {
+            checkComponent(context, it.next());
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the given <code>UIComponent</code> takes input: an
+     * <code>EditableValueHolder</code>, an <code>ActionSource</code> or a <code>UIForm</code>.
+     * </p>
+     */
+    protected static boolean isInputComponent(UIComponent component) {
+        return isInputClass(component.getClass());
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> if the given <code>UIComponent</code> class takes input, see
+     * {@link #isInputComponent(UIComponent)}.
+     * </p>
+     */
+    private static boolean isInputClass(Class<?> cls) {
+        return EditableValueHolder.class.isAssignableFrom(cls) || ActionSource.class.isAssignableFrom(cls) || UIForm.class.isAssignableFrom(cls);
+    }
+
+    /**
+     * <p>
+     * This method returns the key for the output, or <code>null</code> if it should not be stored.
+     * </p>
+     */
+    protected String getKey(FacesContext context, UIComponent component) {
+        Object key = resolveValue(context, component, getOption(KEY));
+        if (_doubleEval) {
+            key = resolveValue(context, component, key);
+        }
+        return (key == null) ? null : key.toString();
+    }
+
+    /**
+     * <p>
+     * This method returns the id of the group of outputs the <code>size</code> applies to. This is <code>null</code>,
+     * except for the <code>Cache</code> component which shares this element: each component gets its own group, named
+     * by its view id and client id.
+     * </p>
+     */
+    protected String getCacheId(FacesContext context, UIComponent component) {
+        if (!_doubleEval) {
+            return null;
+        }
+        UIViewRoot viewRoot = context.getViewRoot();
+        return ((viewRoot == null) ? "" : viewRoot.getViewId()) + '\n' + component.getClientId(context);
+    }
+
+    /**
+     * <p>
+     * This method resolves the given option as a number, or returns the default.
+     * </p>
+     */
+    private long getLong(FacesContext context, UIComponent component, String name, long def) {
+        Object value = getOption(name);
+        if (value != null) {
+            value = resolveValue(context, component, value);
+        }
+        if (value == null || value.toString().trim().equals("")) {
+            return def;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Expression '" + getOption(name) + "' did not resolve to a number! Found: '" + value + "'", ex);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the stored output for the given key, or <code>null</code> if there is none or it expired.
+     * </p>
+     */
+    private synchronized String getOutput(String cacheId, String key) {
+        if (_caches == null) {
+            return null;
+        }
+        Map<String, Entry> entries = _caches.get(cacheId);
+        Entry entry = (entries == null) ? null : entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry._expires > 0) {
+            entries.remove(key);
+            _count--;
+            if (entries.isEmpty()) {
+                _caches.remove(cacheId);
+            }
+            return null;
+        }
+        return entry._output;
+    }
+
+    /**
+     * <p>
+     * This method stores the output for the given key. It first removes expired outputs and groups. Then it removes the
+     * least recently used outputs of the group above <code>size</code>, and the oldest outputs of the least recently
+     * used groups above {@link #MAX_ENTRIES}.
+     * </p>
+     */
+    private synchronized void putOutput(String cacheId, String key, String output, long ttl, int size) {
+        if (ttl <= 0 || size <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (_caches == null) {
+            _caches = new LinkedHashMap<>(16, 0.75f, true);
+        } else {
+            removeExpired(now);
+        }
+        Map<String, Entry> entries = _caches.get(cacheId);
+        if (entries == null) {
+            entries = new LinkedHashMap<>(16, 0.75f, true);
+            _caches.put(cacheId, entries);
+        }
+        if (entries.put(key, new Entry(output, now + TimeUnit.SECONDS.toNanos(ttl))) == null) {
+            _count++;
+        }
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > size && it.hasNext()) {
+            it.next();
+            it.remove();
+            _count--;
+        }
+
+        // Bound the total, the group just used is last
+        Iterator<Map<String, Entry>> groups = _caches.values().iterator();
+        while (_count > MAX_ENTRIES && groups.hasNext()) {
+            Map<String, Entry> group = groups.next();
+            it = group.values().iterator();
+            while (_count > MAX_ENTRIES && it.hasNext()) {
+                it.next();
+                it.remove();
+                _count--;
+            }
+            if (group.isEmpty()) {
+                groups.remove();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method removes the expired outputs, and groups left empty.
+     * </p>
+     */
+    private void removeExpired(long now) {
+        Iterator<Map<String, Entry>> groups = _caches.values().iterator();
+        while (groups.hasNext()) {
+            Map<String, Entry> group = groups.next();
+            Iterator<Entry> it = group.values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next()._expires > 0) {
+                    it.remove();
+                    _count--;
+                }
+            }
+            if (group.isEmpty()) {
+                groups.remove();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the number of stored outputs.
+     * </p>
+     */
+    public synchronized int getCount() {
+        return _count;
+    }
+
+    /**
+     * <p>
+     * This method removes all stored output.
+     * </p>
+     */
+    public synchronized void clear() {
+        _caches = null;
+        _count = 0;
+    }
+
+    /**
+     * <p>
+     * Stored output.
+     * </p>
+     */
+    private static final class Entry {
+        Entry(String output, long expires) {
+            _output = output;
+            _expires = expires;
+        }
+
+        final String _output;
+        final long _expires;
+    }
+
+    /**
+     * <p>
+     * The option which contains the key expression.
+     * </p>
+     */
+    public static final String KEY = "key";
+
+    /**
+     * <p>
+     * The option which contains the number of seconds output is kept.
+     * </p>
+     */
+    public static final String TTL = "ttl";
+
+    /**
+     * <p>
+     * The option which contains the number of keys for which output is kept.
+     * </p>
+     */
+    public static final String SIZE = "size";
+
+    /**
+     * <p>
+     * The default number of seconds output is kept (5 minutes).
+     * </p>
+     */
+    public static final long DEFAULT_TTL = 300;
+
+    /**
+     * <p>
+     * The default number of keys for which output is kept.
+     * </p>
+     */
+    public static final long DEFAULT_SIZE = 100;
+
+    /**
+     * <p>
+     * The maximum number of outputs a <code>LayoutCache</code> keeps in all groups together (see
+     * {@link #getCacheId(FacesContext, UIComponent)}).
+     * </p>
+     */
+    public static final int MAX_ENTRIES = 1000;
+
+    /**
+     * <p>
+     * The prefix of standard Faces component types, see {@link #getComponentClass(FacesContext, LayoutComponent)}.
+     * </p>
+     */
+    private static final String FACES_TYPE_PREFIX = "jakarta.faces.";
+
+    /**
+     * <p>
+     * The <code>FacesContext</code> attribute which is set while output is stored, see
+     * {@link #checkEncoded(FacesContext, UIComponent)}.
+     * </p>
+     */
+    private static final String CHECK_KEY = "__jsft_LayoutCache_check";
+
+    /**
+     * <p>
+     * The number of outputs being stored by all threads, so {@link #checkEncoded(FacesContext, UIComponent)} doesn't
+     * have to look up {@link #CHECK_KEY} otherwise.
+     * </p>
+     */
+    private static final AtomicInteger _checking = new AtomicInteger();
+
+    /**
+     * <p>
+     * This flag is set to true when the key equals "$property{key}", as used by the <code>Cache</code> component. See
+     * {@link LayoutIf} also.
+     * </p>
+     */
+    private boolean _doubleEval = false;
+
+    /**
+     * <p>
+     * The stored output by cache id (see {@link #getCacheId(FacesContext, UIComponent)}), then by key in least recently
+     * used order.
+     * </p>
+     */
+    private transient Map<String, Map<String, Entry>> _caches = null;
+
+    /**
+     * <p>
+     * The number of stored outputs in all groups.
+     * </p>
+     */
+    private transient int _count = 0;
+}
@@ -247,6 +247,7 @@ public class LayoutComponent extends LayoutElementBase implements LayoutElement
         }
 
         // Render the child UIComponent
+        LayoutCache.checkEncoded(context, childComponent);
         encodeChild(context, childComponent);
 
         // Invoke "after" handlers
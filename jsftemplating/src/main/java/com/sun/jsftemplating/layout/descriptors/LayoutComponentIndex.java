@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.descriptors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * This class indexes the {@link LayoutComponent}s of a {@link LayoutDefinition} by id, so that the
+ * {@link LayoutComponent} for a <code>UIComponent</code> may be found from its <code>id</code> or
+ * <code>clientId</code> without walking the {@link LayoutElement} tree.
+ * </p>
+ *
+ * <p>
+ * Only the {@link LayoutDefinition} itself is indexed, {@link LayoutComponent}s included from other files (i.e. via a
+ * {@link LayoutComposition} template) are not found. Ids are not evaluated, so {@link LayoutComponent}s with dynamic
+ * ids are only found by their unevaluated id.
+ * </p>
+ *
+ * <p>
+ * Use {@link LayoutDefinition#getLayoutComponentIndex()} to obtain the index for a {@link LayoutDefinition}.
+ * </p>
+ */
+public class LayoutComponentIndex {
+
+    /**
+     * <p>
+     * Constructor, indexes the given {@link LayoutDefinition}.
+     * </p>
+     */
+    public LayoutComponentIndex(LayoutDefinition def) {
+        index(def);
+    }
+
+    /**
+     * <p>
+     * This method adds the {@link LayoutComponent}s under the given {@link LayoutElement} to the index, in document order.
+     * </p>
+     */
+    private void index(LayoutElement elt) {
+        for (LayoutElement child : elt.getChildLayoutElements()) {
+            if (child instanceof LayoutComponent) {
+                String id = child.getUnevaluatedId();
+                if (id != null) {
+                    List<LayoutComponent> comps = _byId.get(id);
+                    if (comps == null) {
+                        comps = new ArrayList<>(1);
+                        _byId.put(id, comps);
+                    }
+                    comps.add((LayoutComponent) child);
+                }
+            }
+            index(child);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the first {@link LayoutComponent} (in document order) with the given <code>id</code>, or
+     * <code>null</code> if there is none.
+     * </p>
+     */
+    public LayoutComponent findById(String id) {
+        List<LayoutComponent> comps = _byId.get(id);
+        return comps == null ? null : comps.get(0);
+    }
+
+    /**
+     * <p>
+     * This method returns the {@link LayoutComponent} for the given <code>clientId</code>. The {@link LayoutComponent}s
+     * with the last id of the <code>clientId</code> are considered, the one whose ancestors match the most (naming
+     * container) ids of the <code>clientId</code> is returned. Ids which do not match an ancestor (i.e. table row
+     * indices) are skipped.
+     * </p>
+     *
+     * @param clientId The <code>clientId</code> of the <code>UIComponent</code>.
+     * @param exact <code>true</code> to return <code>null</code> unless every id of the <code>clientId</code> matches.
+     *
+     * @return The matching {@link LayoutComponent}, or <code>null</code>.
+     */
+    public LayoutComponent findByClientId(String clientId, boolean exact) {
+        if (clientId == null) {
+            return null;
+        }
+        int idx = clientId.lastIndexOf(SEPARATOR);
+        List<LayoutComponent> comps = _byId.get(clientId.substring(idx + 1));
+        if (comps == null) {
+            return null;
+        }
+        if (idx == -1) {
+            // Just an id
+            return comps.get(0);
+        }
+        if (comps.size() == 1 && !exact) {
+            // Only one choice
+            return comps.get(0);
+        }
+
+        // Find the best match
+        String[] path = clientId.substring(0, idx).split(String.valueOf(SEPARATOR));
+        LayoutComponent result = null;
+        int best = -1;
+        for (LayoutComponent comp : comps) {
+            int matches = countMatches(comp, path);
+            if (matches > best) {
+                result = comp;
+                best = matches;
+                if (best == path.length) {
+                    // Can't do better
+                    break;
+                }
+            }
+        }
+        return exact && best != path.length ? null : result;
+    }
+
+    /**
+     * <p>
+     * This method counts how many of the given (naming container) ids match the ids of the ancestors of the given
+     * {@link LayoutElement}, in order.
+     * </p>
+     */
+    private static int countMatches(LayoutElement elt, String[] path) {
+        int matches = 0;
+        int next = path.length - 1;
+        for (LayoutElement parent = elt.getParent(); parent != null && next >= 0; parent = parent.getParent()) {
+            String id = parent.getUnevaluatedId();
+            for (int idx = next; idx >= 0; idx--) {
+                if (path[idx].equals(id)) {
+                    matches++;
+                    next = idx - 1;
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * <p>
+     * The <code>clientId</code> separator.
+     * </p>
+     */
+    private static final char SEPARATOR = ':';
+
+    /**
+     * <p>
+     * The {@link LayoutComponent}s by id, in document order.
+     * </p>
+     */
+    private Map<String, List<LayoutComponent>> _byId = new HashMap<>();
+}
@@ -183,6 +183,31 @@ public class LayoutDefinition extends LayoutElementBase {
         return null;
     }
 
+    /**
+     * <p>
+     * This method returns the {@link LayoutComponentIndex} for this <code>LayoutDefinition</code>. It is created the
+     * first time it is needed, after this <code>LayoutDefinition</code> has been read. If the <code>LayoutDefinition</code>
+     * is modified after this, {@link #resetLayoutComponentIndex()} must be called.
+     * </p>
+     */
+    public LayoutComponentIndex getLayoutComponentIndex() {
+        LayoutComponentIndex index = _index;
+        if (index == null) {
+            index = new LayoutComponentIndex(this);
+            _index = index;
+        }
+        return index;
+    }
+
+    /**
+     * <p>
+     * This method discards the {@link LayoutComponentIndex} so that it is recreated when next needed.
+     * </p>
+     */
+    public void resetLayoutComponentIndex() {
+        _index = null;
+    }
+
     /**
      * <p>
      * Retrieve an attribute by key.
@@ -330,12 +355,13 @@ public class LayoutDefinition extends LayoutElementBase {
      * </p>
      *
      * <p>
-     * If the <code>FacesContext</code> provided is null, this method will simply return.
+     * If the <code>FacesContext</code> provided is null, or the {@link #INIT_PAGE_DISABLED} request attribute is
+     * <code>Boolean.TRUE</code>, this method will simply return.
      * </p>
      */
     public void dispatchInitPageHandlers(FacesContext ctx, Object source) {
         // Sanity check (this may happen if invoked outside JSF)...
-        if (ctx == null) {
+        if (ctx == null || Boolean.TRUE.equals(ctx.getExternalContext().getRequestMap().get(INIT_PAGE_DISABLED))) {
             // Do nothing...
             return;
         }
@@ -393,6 +419,14 @@ public class LayoutDefinition extends LayoutElementBase {
      */
     public static final String INIT_PAGE = "initPage";
 
+    /**
+     * <p>
+     * This request attribute disables the "initPage" handlers when set to <code>Boolean.TRUE</code>, i.e. while
+     * <code>LayoutDefinition</code>s are read at build time.
+     * </p>
+     */
+    public static final String INIT_PAGE_DISABLED = "com.sun.jsftemplating.INIT_PAGE_DISABLED";
+
     /**
      * <p>
      * This is a hard-coded LayoutComponent type. By default it corresponds to
@@ -429,4 +463,11 @@ public class LayoutDefinition extends LayoutElementBase {
      * </p>
      */
     private Map<String, HandlerDefinition> _attributes = new HashMap<>();
+
+    /**
+     * <p>
+     * The {@link LayoutComponentIndex}, created when first needed.
+     * </p>
+     */
+    private transient volatile LayoutComponentIndex _index = null;
 }
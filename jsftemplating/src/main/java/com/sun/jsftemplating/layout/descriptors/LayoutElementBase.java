@@ -18,6 +18,7 @@ package com.sun.jsftemplating.layout.descriptors;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -526,6 +527,10 @@ public abstract class LayoutElementBase implements LayoutElement {
      */
     @Override
     public void setHandlers(String type, List<Handler> handlers) {
+        if (_handlersByType == Collections.<String, List<Handler>>emptyMap()) {
+            // The empty Map set by LayoutDefinitionOptimizer can't be changed
+            _handlersByType = new HashMap<>();
+        }
         _handlersByType.put(type, handlers);
     }
 
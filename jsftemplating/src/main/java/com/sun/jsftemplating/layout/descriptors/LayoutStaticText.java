@@ -17,9 +17,11 @@
 package com.sun.jsftemplating.layout.descriptors;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import com.sun.jsftemplating.component.ComponentUtil;
 import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.util.EncodedOutput;
 
 import jakarta.el.ValueExpression;
 import jakarta.faces.component.UIComponent;
@@ -46,6 +48,7 @@ public class LayoutStaticText extends LayoutComponent {
         super(parent, id, LayoutDefinitionManager.getGlobalComponentType(null, "staticText"));
         addOption("value", value);
         _value = value;
+        _constant = (value != null) && (value.indexOf('$') == -1) && (value.indexOf("#{") == -1);
     }
 
     /**
@@ -55,6 +58,16 @@ public class LayoutStaticText extends LayoutComponent {
         return _value;
     }
 
+    /**
+     * <p>
+     * This method returns <code>true</code> if the value contains no expressions (no <code>$</code> or <code>#{</code>),
+     * so it is displayed as is.
+     * </p>
+     */
+    public boolean isConstant() {
+        return _constant;
+    }
+
     /**
      * <p>
      * This method displays the text described by this component. If the text includes an EL expression, it will be
@@ -70,6 +83,19 @@ public class LayoutStaticText extends LayoutComponent {
     public boolean encodeThis(FacesContext context, UIComponent component) throws IOException {
         // Get the ResponseWriter
         ResponseWriter writer = context.getResponseWriter();
+        if (_constant) {
+            // Nothing to evaluate
+            if (writer instanceof EncodedOutput) {
+                EncodedOutput out = (EncodedOutput) writer;
+                byte[] bytes = getEncodedValue(out.getOutputEncoding());
+                if (bytes != null) {
+                    out.write(bytes, 0, bytes.length);
+                    return false;
+                }
+            }
+            writer.write(_value);
+            return false;
+        }
 
         // Render the child UIComponent
 //	if (staticText.isEscape()) {
@@ -94,5 +120,67 @@ public class LayoutStaticText extends LayoutComponent {
         return false;
     }
 
+    /**
+     * <p>
+     * This method returns the constant value encoded in the given character encoding. It returns <code>null</code> if the
+     * encoding is not supported, or can't represent the value. The result is kept for up to {@link #MAX_ENCODINGS}
+     * encodings.
+     * </p>
+     *
+     * @param encoding The character encoding.
+     *
+     * @return The encoded value, or <code>null</code>.
+     */
+    protected byte[] getEncodedValue(String encoding) {
+        if (!_constant || encoding == null) {
+            return null;
+        }
+
+        // Look for the encoding
+        Object[] encoded = _encoded;
+        int len = (encoded == null) ? 0 : encoded.length;
+        for (int idx = 0; idx < len; idx += 2) {
+            if (encoding.equals(encoded[idx])) {
+                return (byte[]) encoded[idx + 1];
+            }
+        }
+
+        byte[] bytes = null;
+        try {
+            Charset charset = Charset.forName(encoding);
+            if (charset.canEncode() && charset.newEncoder().canEncode(_value)) {
+                bytes = _value.getBytes(charset);
+            }
+        } catch (IllegalArgumentException ex) {
+            // Not supported, let the ResponseWriter encode it
+        }
+        if (len < MAX_ENCODINGS * 2) {
+            // Copy on write, a lost update only means encoding again
+            Object[] copy = new Object[len + 2];
+            if (len > 0) {
+                System.arraycopy(encoded, 0, copy, 0, len);
+            }
+            copy[len] = encoding;
+            copy[len + 1] = bytes;
+            _encoded = copy;
+        }
+        return bytes;
+    }
+
     private String _value = null;
+    private boolean _constant = false;
+
+    /**
+     * <p>
+     * Pairs of an encoding and the value encoded in it (or <code>null</code>), see {@link #getEncodedValue(String)}.
+     * </p>
+     */
+    private transient volatile Object[] _encoded = null;
+
+    /**
+     * <p>
+     * The maximum number of encodings for which the encoded value is kept.
+     * </p>
+     */
+    private static final int MAX_ENCODINGS = 4;
 }
@@ -422,16 +422,22 @@ public class Handler implements java.io.Serializable {
         if (hasPermission(handlerContext)) {
             // Only attempt to do this if there is a handler method, there
             // might only be child handlers
-            Method method = handlerDef.getHandlerMethod();
-            if (method != null) {
-                Object instance = null;
-                if (!isStatic()) {
-                    // Get the class that contains the method
-                    instance = method.getDeclaringClass().newInstance();
-                }
+            HandlerInvoker invoker = handlerDef.getHandlerInvoker();
+            if (invoker != null) {
+                // Call the method directly
+                result = invoker.invoke(handlerContext);
+            } else {
+                Method method = handlerDef.getHandlerMethod();
+                if (method != null) {
+                    Object instance = null;
+                    if (!isStatic()) {
+                        // Get the class that contains the method
+                        instance = method.getDeclaringClass().newInstance();
+                    }
 
-                // Invoke the Method
-                result = method.invoke(instance, handlerContext);
+                    // Invoke the Method
+                    result = method.invoke(instance, handlerContext);
+                }
             }
 
             // Execute all the child handlers
@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import com.sun.jsftemplating.util.LogUtil;
 import com.sun.jsftemplating.util.Util;
 
 /**
@@ -97,6 +98,7 @@ public class HandlerDefinition implements java.io.Serializable {
         }
         _methodClass = cls;
         _methodName = methodName;
+        setHandlerInvoker(null);
     }
 
     /**
@@ -111,6 +113,43 @@ public class HandlerDefinition implements java.io.Serializable {
             _methodClass = null;
         }
         _method = method;
+        setHandlerInvoker(null);
+    }
+
+    /**
+     * <p>
+     * This method sets the name of the {@link HandlerInvoker} class used to call the handler method without reflection.
+     * It must be set after the handler method, as setting the handler method clears it.
+     * </p>
+     *
+     * @param cls The full class name of the {@link HandlerInvoker}, or <code>null</code> to use reflection.
+     */
+    public void setHandlerInvoker(String cls) {
+        _invokerClass = cls;
+        _invoker = null;
+    }
+
+    /**
+     * <p>
+     * This method returns the {@link HandlerInvoker} for the handler method, or <code>null</code> if the handler method
+     * must be invoked via reflection (see {@link #getHandlerMethod()}). This is the case for handlers not processed by
+     * <code>HandlerAP</code>, or when the {@link HandlerInvoker} cannot be created.
+     * </p>
+     */
+    public HandlerInvoker getHandlerInvoker() {
+        if (_invoker != null || _invokerClass == null) {
+            return _invoker;
+        }
+        try {
+            _invoker = (HandlerInvoker) Util.loadClass(_invokerClass, _invokerClass).newInstance();
+        } catch (Exception ex) {
+            if (LogUtil.fineEnabled()) {
+                LogUtil.fine("Unable to create '" + _invokerClass + "' for handler '" + _id + "', using reflection instead.", ex);
+            }
+            // Don't try again
+            _invokerClass = null;
+        }
+        return _invoker;
     }
 
     /**
@@ -317,6 +356,8 @@ public class HandlerDefinition implements java.io.Serializable {
     private String _methodClass = null;
     private String _methodName = null;
     private transient Method _method = null;
+    private String _invokerClass = null;
+    private transient HandlerInvoker _invoker = null;
     private Map<String, IODescriptor> _inputDefs = new HashMap<>(5);
     private Map<String, IODescriptor> _outputDefs = new HashMap<>(5);
     private List<Handler> _childHandlers = _emptyList;
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.descriptors.handler;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * <p>
+ * This interface calls a handler method directly, without reflection. Implementations are generated by the
+ * <code>HandlerAP</code> annotation processor for each <code>@Handler</code> method it processes, and are registered in
+ * <code>Handler.map</code> via the <code>&lt;id&gt;.invoker</code> property. Handlers without an invoker are called via
+ * reflection.
+ * </p>
+ */
+public interface HandlerInvoker {
+
+    /**
+     * <p>
+     * This method invokes the handler method. Non-static handler methods are invoked on a new instance of their class.
+     * </p>
+     *
+     * @param handlerContext The {@link HandlerContext}.
+     *
+     * @return The value returned by the handler method, or <code>null</code>.
+     *
+     * @throws InvocationTargetException If the handler method throws an exception, as with
+     * <code>Method.invoke</code>.
+     */
+    Object invoke(HandlerContext handlerContext) throws InvocationTargetException;
+}
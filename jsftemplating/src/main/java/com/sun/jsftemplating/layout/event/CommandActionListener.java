@@ -185,11 +185,19 @@ public class CommandActionListener implements ActionListener, Serializable {
         return result;
     }
 
+    /**
+     * <p>
+     * This method finds the {@link LayoutComponent} for the given client ID using the {@link LayoutDefinition}'s
+     * {@link com.sun.jsftemplating.layout.descriptors.LayoutComponentIndex}. See
+     * {@link #findLayoutElementByClientId(FacesContext, String, String)}.
+     * </p>
+     */
     public static LayoutElement findLayoutElementByClientId(LayoutDefinition def, String clientId) {
-// FIXME: TBD...
-// FIXME: Walk LE tree, ignore non-LayoutComponent entries (this may cause a problem itself b/c of conditional statements & loops)
+        if (def == null) {
+            return null;
+        }
 // FIXME: Handle LayoutCompositions / LayoutInserts
-        return null;
+        return def.getLayoutComponentIndex().findByClientId(clientId, false);
     }
 
     /**
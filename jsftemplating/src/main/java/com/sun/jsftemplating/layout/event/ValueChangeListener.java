@@ -186,13 +186,21 @@ public class ValueChangeListener implements jakarta.faces.event.ValueChangeListe
         return result;
     }
 
+    /**
+     * <p>
+     * This method finds the {@link LayoutComponent} for the given client ID using the {@link LayoutDefinition}'s
+     * {@link com.sun.jsftemplating.layout.descriptors.LayoutComponentIndex}. See
+     * {@link #findLayoutElementByClientId(FacesContext, String, String)}.
+     * </p>
+     */
     public static LayoutElement findLayoutElementByClientId(LayoutDefinition def, String clientId) {
 // FIXME: This should be a util method. (Same as CommandActionListener)
 //
-// FIXME: TBD...
-// FIXME: Walk LE tree, ignore non-LayoutComponent entries (this may cause a problem itself b/c of conditional statements & loops)
+        if (def == null) {
+            return null;
+        }
 // FIXME: Handle LayoutCompositions / LayoutInserts
-        return null;
+        return def.getLayoutComponentIndex().findByClientId(clientId, false);
     }
 
     /**
@@ -37,14 +37,12 @@ import com.sun.jsftemplating.layout.xml.XMLErrorHandler;
  */
 public class DbFactory {
     public static DocumentBuilder getInstance() throws ParserConfigurationException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.setValidating(false);
-        factory.setIgnoringComments(true);
-        factory.setIgnoringElementContentWhitespace(false);
-        factory.setCoalescing(false);
-        factory.setExpandEntityReferences(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
+        // Looking up and configuring the factory is expensive, it is only
+        // done once.  The factory itself is not thread safe.
+        DocumentBuilder builder;
+        synchronized (FACTORY) {
+            builder = FACTORY.newDocumentBuilder();
+        }
         try {
             builder.setErrorHandler(new XMLErrorHandler(new PrintWriter(new OutputStreamWriter(System.err, "UTF-8"), true)));
         } catch (UnsupportedEncodingException ex) {
@@ -55,4 +53,17 @@ public class DbFactory {
 
         return builder;
     }
+
+    private static DocumentBuilderFactory createFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setValidating(false);
+        factory.setIgnoringComments(true);
+        factory.setIgnoringElementContentWhitespace(false);
+        factory.setCoalescing(false);
+        factory.setExpandEntityReferences(true);
+        return factory;
+    }
+
+    private static final DocumentBuilderFactory FACTORY = createFactory();
 }
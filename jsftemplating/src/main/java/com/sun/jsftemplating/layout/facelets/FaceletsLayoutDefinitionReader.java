@@ -21,19 +21,30 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
 
-import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.DocumentType;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
 
 import com.sun.jsftemplating.layout.LayoutDefinitionException;
 import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.layout.LayoutDefinitionOptimizer;
 import com.sun.jsftemplating.layout.SyntaxException;
 import com.sun.jsftemplating.layout.descriptors.ComponentType;
+import com.sun.jsftemplating.layout.descriptors.LayoutCache;
 import com.sun.jsftemplating.layout.descriptors.LayoutComponent;
 import com.sun.jsftemplating.layout.descriptors.LayoutComposition;
 import com.sun.jsftemplating.layout.descriptors.LayoutDefine;
@@ -54,235 +65,299 @@ import com.sun.jsftemplating.util.LayoutElementUtil;
 import com.sun.jsftemplating.util.Util;
 
 /**
+ * <p>
+ * This class reads a Facelets file and creates a {@link LayoutDefinition}. It creates the {@link LayoutElement}s from
+ * SAX events as the file is parsed rather than building a DOM first. Only the content of <code>ui:component</code>,
+ * <code>ui:fragment</code> and <code>ui:event</code> elements is kept in memory, as it is needed more than once.
+ * </p>
+ *
  * @author Jason Lee
  *
  */
 public class FaceletsLayoutDefinitionReader {
     private URL url;
     private String key;
-    private Document document;
     private int _idNumber;
+    private String _idPrefix;
 
     public FaceletsLayoutDefinitionReader(String key, URL url) {
-        _idNumber = LayoutElementUtil.getStartingIdNumber(null, key);
+        _idPrefix = LayoutElementUtil.getIdPrefix(key);
+        this.key = key;
+        this.url = url;
+    }
+
+    public LayoutDefinition read() throws IOException {
+        LayoutDefinition layoutDefinition = new LayoutDefinition(key);
         InputStream is = null;
         BufferedInputStream bs = null;
         try {
-            this.key = key;
-            this.url = url;
-
-            DocumentBuilder builder = DbFactory.getInstance();
-            builder.setErrorHandler(new ParsingErrorHandler());
             is = this.url.openStream();
             bs = new BufferedInputStream(is);
-            document = builder.parse(new IncludeInputStream(bs));
-        } catch (Exception e) {
+            XMLReader reader = createXMLReader();
+            SaxHandler handler = new SaxHandler(layoutDefinition);
+            reader.setContentHandler(handler);
+            reader.setProperty(LEXICAL_HANDLER, handler);
+            reader.parse(new InputSource(new IncludeInputStream(bs)));
+        } catch (SAXException e) {
+            Exception cause = e.getException();
+            if (cause instanceof RuntimeException) {
+                // Thrown while processing the document
+                throw (RuntimeException) cause;
+            }
             throw new LayoutDefinitionException(e);
         } finally {
             Util.closeStream(bs);
             Util.closeStream(is);
         }
+        return LayoutDefinitionOptimizer.optimize(null, layoutDefinition);
     }
 
-    public LayoutDefinition read() throws IOException {
-        LayoutDefinition layoutDefinition = new LayoutDefinition(key);
-        NodeList nodeList = document.getChildNodes();
-        boolean abortProcessing = false;
-        DocumentType docType = document.getDoctype();
-        if (docType != null) {
-            LayoutStaticText stDocType = new LayoutStaticText(layoutDefinition, "",
-                    "<!DOCTYPE " + docType.getName() + " PUBLIC \"" + docType.getPublicId() + "\" \"" + docType.getSystemId() + "\">");
-            layoutDefinition.addChildLayoutElement(stDocType);
+    /**
+     * <p>
+     * This method creates the {@link LayoutElement} for the given DOM <code>Node</code> and processes its content. It
+     * returns <code>true</code> if processing should stop (a <code>ui:composition</code> was found).
+     * </p>
+     */
+    public boolean process(LayoutElement parent, Node node, boolean nested) throws IOException {
+        if (node.getNodeType() != Node.ELEMENT_NODE) {
+            return false;
         }
-        for (int i = 0; i < nodeList.getLength() && abortProcessing != true; i++) {
-            abortProcessing = process(layoutDefinition, nodeList.item(i), false);
+        return process(parent, toElement(node), nested);
+    }
+
+    /**
+     * <p>
+     * This method copies a DOM element into an {@link Element}.
+     * </p>
+     */
+    private static Element toElement(Node node) {
+        NamedNodeMap attrs = node.getAttributes();
+        String[] names = new String[attrs.getLength()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = attrs.item(i).getNodeName();
+        }
+        Arrays.sort(names);
+        String[] attributes = new String[names.length * 2];
+        for (int i = 0; i < names.length; i++) {
+            attributes[i * 2] = names[i];
+            attributes[i * 2 + 1] = attrs.getNamedItem(names[i]).getNodeValue();
         }
-        return layoutDefinition;
+        List<Object> children = new ArrayList<>();
+        NodeList nodeList = node.getChildNodes();
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            Node child = nodeList.item(i);
+            switch (child.getNodeType()) {
+                case Node.TEXT_NODE:
+                    children.add(child.getNodeValue());
+                    break;
+                case Node.CDATA_SECTION_NODE:
+                    children.add(child.getNodeValue().toCharArray());
+                    break;
+                case Node.ELEMENT_NODE:
+                    children.add(toElement(child));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new Element(node.getNodeName(), node.getLocalName(), node.getNamespaceURI(), attributes, children);
     }
 
-    public boolean process(LayoutElement parent, Node node, boolean nested) throws IOException {
+    /**
+     * <p>
+     * This method creates the {@link LayoutElement} for the given element and processes its content. It returns
+     * <code>true</code> if processing should stop (a <code>ui:composition</code> was found).
+     * </p>
+     */
+    private boolean process(LayoutElement parent, Element node, boolean nested) {
+        Frame frame = startElement(parent, node, nested);
+        if (frame._skip) {
+            return false;
+        }
+        if (processChildren(frame._newParent, node, frame._nested)) {
+            return true;
+        }
+        return endElement(frame, node.getNodeName());
+    }
+
+    /**
+     * <p>
+     * This method creates the {@link LayoutElement} for the given element and adds it to <code>parent</code>. The
+     * element's content has not been read yet, the returned {@link Frame} tells where it should be added.
+     * </p>
+     */
+    private Frame startElement(LayoutElement parent, Element node, boolean nested) {
         boolean abortProcessing = false;
-        LayoutElement element = null;
         LayoutElement newParent = parent;
         boolean endElement = false;
 
-        String value = node.getNodeValue();
 //	TODO:  find out what "name" should be in the ctors
-        switch (node.getNodeType()) {
-        case Node.TEXT_NODE:
-            if (!value.trim().equals("")) {
-                element = new LayoutStaticText(parent, LayoutElementUtil.getGeneratedId(node.getNodeName(), getNextIdNumber()), value);
-            }
-            break;
-        case Node.ELEMENT_NODE:
-            element = createComponent(parent, node, nested);
-            if (element instanceof LayoutStaticText) {
-                // We have a element node that needs to be static text
-                endElement = true;
-            } else if ((element instanceof LayoutForEach) || (element instanceof LayoutIf)) {
-                newParent = element;
-            } else if (element instanceof LayoutComponent) {
-                nested = true;
-                newParent = element;
-            } else if (element instanceof LayoutComposition) {
-                abortProcessing = ((LayoutComposition) element).isTrimming();
-                newParent = element;
-            } else if (element instanceof LayoutDefine) {
-                newParent = element;
-            } else if (element instanceof LayoutFacet) {
-                newParent = element;
-            } else if (element instanceof LayoutInsert) {
-                newParent = element;
-            }
-//	    FIXME: Jason, this code may need to be refactored.  I think almost
-//	    FIXME: everything should have newParent = element.  The problem comes when
-//	    FIXME: you are turning <html> and </html> into 2 separate staticText
-//	    FIXME: components.  This should be a single component, then it could contain
-//	    FIXME: children also.  You may want a to create a component like Woodstock's
-//	    FIXME: "markup" component to do this.
-            break;
-        default:
-            // just because... :P
-        }
-
-        if (element != null) {
-            parent.addChildLayoutElement(element);
-
-            NodeList nodeList = node.getChildNodes();
-            boolean abortChildProcessing = false;
-            for (int i = 0; i < nodeList.getLength() && abortChildProcessing != true; i++) {
-                abortChildProcessing = process(newParent, nodeList.item(i), nested);
-            }
-            if (abortChildProcessing == true) {
-                abortProcessing = abortChildProcessing;
-            } else {
+        LayoutElement element = createComponent(parent, node, nested);
+        if (element instanceof LayoutStaticText) {
+            // We have a element node that needs to be static text
+            endElement = true;
+        } else if ((element instanceof LayoutForEach) || (element instanceof LayoutIf) || (element instanceof LayoutCache)) {
+            newParent = element;
+        } else if (element instanceof LayoutComponent) {
+            nested = true;
+            newParent = element;
+        } else if (element instanceof LayoutComposition) {
+            abortProcessing = ((LayoutComposition) element).isTrimming();
+            newParent = element;
+        } else if (element instanceof LayoutDefine) {
+            newParent = element;
+        } else if (element instanceof LayoutFacet) {
+            newParent = element;
+        } else if (element instanceof LayoutInsert) {
+            newParent = element;
+        }
+//	FIXME: Jason, this code may need to be refactored.  I think almost
+//	FIXME: everything should have newParent = element.  The problem comes when
+//	FIXME: you are turning <html> and </html> into 2 separate staticText
+//	FIXME: components.  This should be a single component, then it could contain
+//	FIXME: children also.  You may want a to create a component like Woodstock's
+//	FIXME: "markup" component to do this.
+
+        if (element == null) {
+            // Skip the content
+            return new Frame(parent, parent, nested, false, false, true);
+        }
+        parent.addChildLayoutElement(element);
+        return new Frame(parent, newParent, nested, endElement, abortProcessing, false);
+    }
 
-                if (endElement) {
-                    String nodeName = node.getNodeName();
-                    element = new LayoutStaticText(parent, LayoutElementUtil.getGeneratedId(nodeName, getNextIdNumber()), "</" + nodeName + ">");
-                    parent.addChildLayoutElement(element);
+    /**
+     * <p>
+     * This method is called after the content of an element has been processed. It returns <code>true</code> if
+     * processing should stop.
+     * </p>
+     */
+    private boolean endElement(Frame frame, String nodeName) {
+        if (frame._skip) {
+            return false;
+        }
+        if (frame._abort) {
+            return true;
+        }
+        if (frame._newParent instanceof LayoutCache) {
+            ((LayoutCache) frame._newParent).checkChildren();
+        }
+        if (frame._endElement) {
+            LayoutElement element = new LayoutStaticText(frame._parent, getNextId(nodeName), "</" + nodeName + ">");
+            frame._parent.addChildLayoutElement(element);
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * This method processes the content of the given element. Text is added as {@link LayoutStaticText}, comments,
+     * <code>CDATA</code> sections and processing instructions are ignored. It returns <code>true</code> if processing
+     * should stop.
+     * </p>
+     */
+    private boolean processChildren(LayoutElement parent, Element node, boolean nested) {
+        for (int type = node.nextChild(); type != Element.END; type = node.nextChild()) {
+            if (type == Element.TEXT) {
+                String value = node.getText();
+                if (!value.trim().equals("")) {
+                    parent.addChildLayoutElement(new LayoutStaticText(parent, getNextId(TEXT_NODE_NAME), value));
+                }
+            } else if (type == Element.ELEMENT) {
+                if (process(parent, node.getChildElement(), nested)) {
+                    return true;
                 }
             }
         }
-
-        return abortProcessing;
+        return false;
     }
 
-    private LayoutComposition processComposition(LayoutElement parent, String attrName, NamedNodeMap attrs, String id, boolean trimming) {
+    private LayoutComposition processComposition(LayoutElement parent, String attrName, Element node, String id, boolean trimming) {
         LayoutComposition lc = new LayoutComposition(parent, id);
         lc.setTrimming(trimming);
         if (trimming) {
             parent = parent.getLayoutDefinition(); // parent to the LayoutDefinition
             parent.getChildLayoutElements().clear(); // a ui:composition clears everything outside of it
         }
-        Node fileNameNode = attrs.getNamedItem(attrName);
-        String fileName = fileNameNode != null ? fileNameNode.getNodeValue() : null;
-        lc.setTemplate(fileName);
+        lc.setTemplate(node.getAttribute(attrName));
 
         return lc;
     }
 
-    private LayoutComponent processComponent(LayoutElement parent, Node node, NamedNodeMap attrs, String id, boolean trimming) {
+    private LayoutComponent processComponent(LayoutElement parent, Element node, String id, boolean trimming) {
         if (trimming) {
             parent = parent.getLayoutDefinition(); // parent to the LayoutDefinition
             parent.getChildLayoutElements().clear(); // a ui:composition clears everything outside of it
         }
         LayoutComponent lc = new LayoutComponent(parent, id, LayoutDefinitionManager.getGlobalComponentType(null, "event"));
         parent.addChildLayoutElement(lc);
-        LayoutComposition comp = processComposition(lc, "template", attrs, id + "_lc", trimming);
+        LayoutComposition comp = processComposition(lc, "template", node, id + "_lc", trimming);
 
-        NodeList nodeList = node.getChildNodes();
-        boolean abortChildProcessing = false;
-        for (int i = 0; i < nodeList.getLength() && abortChildProcessing != true; i++) {
-            try {
-                abortChildProcessing = process(comp, nodeList.item(i), true);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        // Process a copy of the content, process() will process it again
+        processChildren(comp, node.copy(), true);
         lc.addChildLayoutElement(comp);
 
         return lc;
     }
 
-    /*
-     * This code is not used and does not appear to be correct, it should use FacesContext.getApplication() private
-     * Application getApplication() { ApplicationFactory appFactory = (ApplicationFactory) FactoryFinder
-     * .getFactory(FactoryFinder.APPLICATION_FACTORY); return appFactory.getApplication(); }
-     * 
-     * private Object getElValue(String el) { FacesContext context = FacesContext.getCurrentInstance(); return
-     * getApplication() .evaluateExpressionGet(context, el, Object.class); }
-     */
-
-    private LayoutElement createComponent(LayoutElement parent, Node node, boolean nested) {
+    private LayoutElement createComponent(LayoutElement parent, Element node, boolean nested) {
         LayoutElement element = null;
         String nodeName = node.getNodeName();
-        NamedNodeMap attrs = node.getAttributes();
-        Node nameNode = attrs.getNamedItem("id");
-        String id = nameNode != null ? nameNode.getNodeValue() : LayoutElementUtil.getGeneratedId(nodeName, getNextIdNumber());
+        String id = node.getAttribute("id");
+        if (id == null) {
+            id = getNextId(nodeName);
+        }
 
         if ("ui:composition".equals(nodeName)) {
-            element = processComposition(parent, "template", attrs, id, true);
+            element = processComposition(parent, "template", node, id, true);
         } else if ("ui:decorate".equals(nodeName)) {
-            element = processComposition(parent, "template", attrs, id, false);
+            element = processComposition(parent, "template", node, id, false);
         } else if ("ui:define".equals(nodeName)) {
-            String name = attrs.getNamedItem("name").getNodeValue();
+            String name = node.getAttribute("name");
+            if (name == null) {
+                throw new SyntaxException("The 'name' attribute is required on 'ui:define'.");
+            }
             element = new LayoutDefine(parent, name);
         } else if ("ui:insert".equals(nodeName)) {
             LayoutInsert li = new LayoutInsert(parent, id);
-            Node nameAttr = attrs.getNamedItem("name");
-            String name = nameAttr != null ? nameAttr.getNodeValue() : null;
-            li.setName(name);
+            li.setName(node.getAttribute("name"));
             element = li;
             // Let these be handled by the else below, and let's see what happens :)
         } else if ("ui:component".equals(nodeName)) {
-            element = processComponent(parent, node, attrs, id, true);
+            element = processComponent(parent, node, id, true);
         } else if ("ui:fragment".equals(nodeName)) {
-            element = processComponent(parent, node, attrs, id, false);
-            /*
-             * Node bindingAttr = attrs.getNamedItem("binding"); if (bindingAttr == null) { throw new
-             * LayoutDefinitionException("ui:fragment requires a binding attribute"); } String bindingEl =
-             * bindingAttr.getNodeValue(); Object obj = getElValue(bindingEl); if (!(obj instanceof UIComponent)) { throw new
-             * LayoutDefinitionException("Binding EL must return a UIComponent"); } UIComponent comp = (UIComponent) obj; String
-             * family = comp.getFamily(); // TODO: is the correct?
-             * System.out.println(LayoutDefinitionManager.getGlobalComponentTypes(null)); ComponentType componentType =
-             * LayoutDefinitionManager.getGlobalComponentType(null, family); LayoutComponent lc = new LayoutComponent(parent, id,
-             * componentType); addAttributesToComponent(lc, node); lc.setFacetChild(false); lc.setNested(nested); element = lc;
-             */
+            element = processComponent(parent, node, id, false);
         } else if ("ui:debug".equals(nodeName)) {
         } else if ("ui:include".equals(nodeName)) {
-            element = processComposition(parent, "src", attrs, id, false);
+            element = processComposition(parent, "src", node, id, false);
         } else if ("ui:param".equals(nodeName)) {
             // Handle "param"
-            Node nameAttNode = attrs.getNamedItem("name");
-            if (nameAttNode == null) {
+            String name = node.getAttribute("name");
+            if (name == null) {
                 throw new SyntaxException("The 'name' attribute is required on 'param'.");
             }
-            Node valueNode = attrs.getNamedItem("value");
-            if (valueNode == null) {
+            String value = node.getAttribute("value");
+            if (value == null) {
                 throw new SyntaxException("The 'value' attribute is required on 'param'.");
             }
 
             // For now only handle cases where the parent is a LayoutComposition
             if (!(parent instanceof LayoutComposition)) {
-                throw new SyntaxException("<" + nodeName + " name='" + nameAttNode.getNodeValue() + "' value='" + valueNode.getNodeValue()
-                        + "'> must be child of a 'composition' element!");
+                throw new SyntaxException("<" + nodeName + " name='" + name + "' value='" + value + "'> must be child of a 'composition' element!");
             }
             // Set the name=value on the parent LayoutComposition
-            ((LayoutComposition) parent).setParameter(nameAttNode.getNodeValue(), valueNode.getNodeValue());
+            ((LayoutComposition) parent).setParameter(name, value);
         } else if ("ui:remove".equals(nodeName) || "ui:repeat".equals(nodeName)) {
             // Let the element remain null
         } else if ("ui:event".equals(nodeName)) {
             // per Ken, we need to append "/>" to allow the handler parser code
             // to end correctly
-            String body = node.getTextContent();
-            body = body == null ? "/>" : body.trim() + "/>";
-            Node type = node.getAttributes().getNamedItem("type");
-            if (type == null) {
+            String body = node.getTextContent().trim() + "/>";
+            String eventName = node.getAttribute("type");
+            if (eventName == null) {
                 // Ensure type != null
                 throw new SyntaxException("The 'type' attribute is required on 'ui:event'!");
             }
-            String eventName = type.getNodeValue();
             InputStream is = new ByteArrayInputStream(body.getBytes());
             EventParserCommand command = new EventParserCommand();
             try {
@@ -299,38 +374,51 @@ public class FaceletsLayoutDefinitionReader {
                 // TODO Auto-generated catch block
                 e.printStackTrace();
             } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (Exception e) {
-                        // ignore
-                    }
-                }
+                Util.closeStream(is);
             }
         } else if ("ui:if".equals(nodeName)) {
             // Handle "if" conditions
-            String condition = attrs.getNamedItem("condition").getNodeValue();
+            String condition = node.getAttribute("condition");
+            if (condition == null) {
+                throw new SyntaxException("The 'condition' attribute is required on 'ui:if'.");
+            }
             element = new LayoutIf(parent, condition);
         } else if ("ui:foreach".equals(nodeName)) {
             // Handle "foreach" conditions
-            Node valueNode = attrs.getNamedItem("value");
-            if (valueNode == null) {
+            String value = node.getAttribute("value");
+            if (value == null) {
                 throw new SyntaxException("The 'value' property is required on 'foreach'.");
             }
-            Node varNode = attrs.getNamedItem("var");
-            if (varNode == null) {
+            String var = node.getAttribute("var");
+            if (var == null) {
                 throw new SyntaxException("The 'var' property is required on 'foreach'.");
             }
 
-            element = new LayoutForEach(parent, valueNode.getNodeValue(), varNode.getNodeValue());
+            element = new LayoutForEach(parent, value, var);
+        } else if ("ui:cache".equals(nodeName)) {
+            // Handle "cache" elements
+            String key = node.getAttribute(LayoutCache.KEY);
+            if (key == null) {
+                throw new SyntaxException("The 'key' attribute is required on 'ui:cache'.");
+            }
+            LayoutCache cacheElt = new LayoutCache(parent, key);
+            String value = node.getAttribute(LayoutCache.TTL);
+            if (value != null) {
+                cacheElt.addOption(LayoutCache.TTL, value);
+            }
+            value = node.getAttribute(LayoutCache.SIZE);
+            if (value != null) {
+                cacheElt.addOption(LayoutCache.SIZE, value);
+            }
+            element = cacheElt;
         } else if ("f:facet".equals(nodeName)) {
             // FIXME: Need to take NameSpace into account
-            nameNode = attrs.getNamedItem("name");
-            if (nameNode == null) {
+            String name = node.getAttribute("name");
+            if (name == null) {
                 throw new IllegalArgumentException(
                         "You must provide a name " + "attribute for all facets!  Parent component is: '" + parent.getUnevaluatedId() + "'.");
             }
-            LayoutFacet facetElt = new LayoutFacet(parent, nameNode.getNodeValue());
+            LayoutFacet facetElt = new LayoutFacet(parent, name);
 
             // Determine if this is a facet place holder (i.e. we're defining
             // a renderer w/ a facet), or if it is a facet value to set on a
@@ -351,10 +439,6 @@ public class FaceletsLayoutDefinitionReader {
                 componentType = LayoutDefinitionManager.getGlobalComponentType(null, nodeName);
             }
             if (componentType == null) {
-                String value = node.getNodeValue();
-                if (value == null) {
-                    value = "";
-                }
 //		FIXME: This needs to account for beginning and ending tags....
                 lc = new LayoutStaticText(parent, id, "<" + nodeName + buildAttributeList(node) + ">");
             } else {
@@ -376,21 +460,16 @@ public class FaceletsLayoutDefinitionReader {
         return element;
     }
 
-    private void addAttributesToComponent(LayoutComponent lc, Node node) {
-        NamedNodeMap map = node.getAttributes();
-        for (int i = 0; i < map.getLength(); i++) {
-            Node attr = map.item(i);
-            lc.addOption(attr.getNodeName(), attr.getNodeValue());
+    private void addAttributesToComponent(LayoutComponent lc, Element node) {
+        for (int i = 0; i < node.getAttributeCount(); i++) {
+            lc.addOption(node.getAttributeName(i), node.getAttributeValue(i));
         }
     }
 
-    private String buildAttributeList(Node node) {
+    private String buildAttributeList(Element node) {
         StringBuilder attrs = new StringBuilder();
-
-        NamedNodeMap map = node.getAttributes();
-        for (int i = 0; i < map.getLength(); i++) {
-            Node attr = map.item(i);
-            attrs.append(" ").append(attr.getNodeName()).append("=\"").append(attr.getNodeValue()).append("\"");
+        for (int i = 0; i < node.getAttributeCount(); i++) {
+            attrs.append(" ").append(node.getAttributeName(i)).append("=\"").append(node.getAttributeValue(i)).append("\"");
         }
 
         return attrs.toString();
@@ -402,8 +481,445 @@ public class FaceletsLayoutDefinitionReader {
      * </p>
      */
     public int getNextIdNumber() {
-        // Make sure we increment the global counter, if appropriate
-        LayoutElementUtil.incHighestId(_idNumber);
         return _idNumber++;
     }
+
+    /**
+     * <p>
+     * This method returns the next generated id for the given base. It contains the next ID number and the prefix of this
+     * {@link LayoutDefinition}'s key (see {@link LayoutElementUtil#getGeneratedId(String, String, int)}).
+     * </p>
+     *
+     * @param base Prefix to use in the id.
+     */
+    public String getNextId(String base) {
+        return LayoutElementUtil.getGeneratedId(base, _idPrefix, getNextIdNumber());
+    }
+
+    /**
+     * <p>
+     * This method creates an <code>XMLReader</code> configured to read Facelets files.
+     * </p>
+     */
+    private static XMLReader createXMLReader() throws SAXException {
+        try {
+            // The SAXParserFactory is configured once, make sure it is only
+            // used by one thread at a time.
+            XMLReader reader;
+            synchronized (PARSER_FACTORY) {
+                reader = PARSER_FACTORY.newSAXParser().getXMLReader();
+            }
+            reader.setEntityResolver(ENTITY_RESOLVER);
+            reader.setErrorHandler(new ParsingErrorHandler());
+            return reader;
+        } catch (ParserConfigurationException ex) {
+            throw new LayoutDefinitionException(ex);
+        }
+    }
+
+    private static SAXParserFactory createParserFactory() {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setValidating(false);
+        try {
+            // Report xmlns attributes like other attributes
+            factory.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        } catch (Exception ex) {
+            throw new LayoutDefinitionException(ex);
+        }
+        return factory;
+    }
+
+    /**
+     * <p>
+     * This <code>ContentHandler</code> creates the {@link LayoutElement}s as the document is parsed. It keeps a stack of
+     * the open elements in order to know where to add content. Comments are dropped, and the text around them is
+     * joined; <code>CDATA</code> sections are ignored and separate text. Elements whose content is needed more than once
+     * are read into a {@link Element} and processed when they end.
+     * </p>
+     */
+    private final class SaxHandler extends DefaultHandler implements LexicalHandler {
+        SaxHandler(LayoutDefinition ld) {
+            _ld = ld;
+            _frames.push(new Frame(null, ld, false, false, false, false));
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) {
+            LayoutStaticText stDocType = new LayoutStaticText(_ld, "", "<!DOCTYPE " + name + " PUBLIC \"" + publicId + "\" \"" + systemId + "\">");
+            _ld.addChildLayoutElement(stDocType);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            if (_abort) {
+                return;
+            }
+            endText();
+            String[] attributes = getAttributes(atts);
+            if (_recording != null) {
+                _recording.push(new RecordedElement(qName, localName, uri, attributes));
+                return;
+            }
+            Frame frame = _frames.peek();
+            if (frame._skip) {
+                _frames.push(frame);
+                return;
+            }
+            if (BUFFERED_TAGS.contains(qName)) {
+                // Read it into memory and process it when it ends
+                _recording = new Stack<>();
+                _recording.push(new RecordedElement(qName, localName, uri, attributes));
+                return;
+            }
+
+            Element node = new Element(qName, localName, emptyToNull(uri), attributes, NO_CHILDREN);
+            _frames.push(FaceletsLayoutDefinitionReader.this.startElement(frame._newParent, node, frame._nested));
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (_abort) {
+                return;
+            }
+            endText();
+            if (_recording != null) {
+                RecordedElement recorded = _recording.pop();
+                if (!_recording.isEmpty()) {
+                    _recording.peek().add(recorded.toElement());
+                    return;
+                }
+                _recording = null;
+                Frame frame = _frames.peek();
+                if (!frame._skip && process(frame._newParent, recorded.toElement(), frame._nested)) {
+                    _abort = true;
+                }
+                return;
+            }
+            if (FaceletsLayoutDefinitionReader.this.endElement(_frames.pop(), qName)) {
+                // Stop processing after a trimming ui:composition
+                _abort = true;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (_abort || _inCDATA && _recording == null || _frames.peek()._skip && _recording == null) {
+                return;
+            }
+            if (_text == null) {
+                _text = new StringBuilder();
+            }
+            _text.append(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            characters(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            // Processing instructions separate text
+            endText();
+        }
+
+        @Override
+        public void startCDATA() {
+            endText();
+            _inCDATA = true;
+        }
+
+        @Override
+        public void endCDATA() {
+            if (_recording != null && _text != null) {
+                _recording.peek().add(_text.toString().toCharArray());
+            }
+            _text = null;
+            _inCDATA = false;
+        }
+
+        @Override
+        public void endDTD() {
+        }
+
+        @Override
+        public void startEntity(String name) {
+        }
+
+        @Override
+        public void endEntity(String name) {
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) {
+            // Comments are dropped, the text around them is joined
+        }
+
+        /**
+         * <p>
+         * This method adds the text read since the last element, if any.
+         * </p>
+         */
+        private void endText() {
+            if (_text == null) {
+                return;
+            }
+            String value = _text.toString();
+            _text = null;
+            if (_recording != null) {
+                _recording.peek().add(value);
+                return;
+            }
+            if (!value.trim().equals("")) {
+                LayoutElement parent = _frames.peek()._newParent;
+                parent.addChildLayoutElement(new LayoutStaticText(parent, getNextId(TEXT_NODE_NAME), value));
+            }
+        }
+
+        private final LayoutDefinition _ld;
+        private final Stack<Frame> _frames = new Stack<>();
+        private Stack<RecordedElement> _recording = null;
+        private StringBuilder _text = null;
+        private boolean _inCDATA = false;
+        private boolean _abort = false;
+    }
+
+    /**
+     * <p>
+     * The state of an open element.
+     * </p>
+     */
+    private static final class Frame {
+        Frame(LayoutElement parent, LayoutElement newParent, boolean nested, boolean endElement, boolean abort, boolean skip) {
+            _parent = parent;
+            _newParent = newParent;
+            _nested = nested;
+            _endElement = endElement;
+            _abort = abort;
+            _skip = skip;
+        }
+
+        final LayoutElement _parent;
+        final LayoutElement _newParent;
+        final boolean _nested;
+        final boolean _endElement;
+        final boolean _abort;
+        final boolean _skip;
+    }
+
+    /**
+     * <p>
+     * An element being read into memory.
+     * </p>
+     */
+    private static final class RecordedElement {
+        RecordedElement(String nodeName, String localName, String namespaceURI, String[] attributes) {
+            _nodeName = nodeName;
+            _localName = localName;
+            _namespaceURI = emptyToNull(namespaceURI);
+            _attributes = attributes;
+        }
+
+        void add(Object child) {
+            _children.add(child);
+        }
+
+        Element toElement() {
+            return new Element(_nodeName, _localName, _namespaceURI, _attributes, _children);
+        }
+
+        private final String _nodeName;
+        private final String _localName;
+        private final String _namespaceURI;
+        private final String[] _attributes;
+        private final List<Object> _children = new ArrayList<>();
+    }
+
+    /**
+     * <p>
+     * This method returns the attributes as name / value pairs, sorted by name.
+     * </p>
+     */
+    private static String[] getAttributes(Attributes atts) {
+        int len = atts.getLength();
+        if (len == 0) {
+            return NO_ATTRIBUTES;
+        }
+        String[] names = new String[len];
+        for (int i = 0; i < len; i++) {
+            names[i] = atts.getQName(i);
+        }
+        Arrays.sort(names);
+        String[] result = new String[len * 2];
+        for (int i = 0; i < len; i++) {
+            result[i * 2] = names[i];
+            result[i * 2 + 1] = atts.getValue(names[i]);
+        }
+        return result;
+    }
+
+    private static String emptyToNull(String str) {
+        return str == null || str.equals("") ? null : str;
+    }
+
+    /**
+     * <p>
+     * An element read into memory. Its content is read one child at a time via {@link #nextChild()}. Adjacent text is
+     * a single {@link #TEXT} child, even when it contains comments.
+     * </p>
+     */
+    private static final class Element {
+        static final int TEXT = 0;
+        static final int CDATA = 1;
+        static final int ELEMENT = 2;
+        static final int END = 3;
+
+        Element(String nodeName, String localName, String namespaceURI, String[] attributes, List<Object> children) {
+            _nodeName = nodeName;
+            _localName = localName;
+            _namespaceURI = namespaceURI;
+            _attributes = attributes;
+            _children = children;
+        }
+
+        String getNodeName() {
+            return _nodeName;
+        }
+
+        String getLocalName() {
+            return _localName;
+        }
+
+        String getNamespaceURI() {
+            return _namespaceURI;
+        }
+
+        int getAttributeCount() {
+            return _attributes.length / 2;
+        }
+
+        String getAttributeName(int idx) {
+            return _attributes[idx * 2];
+        }
+
+        String getAttributeValue(int idx) {
+            return _attributes[idx * 2 + 1];
+        }
+
+        String getAttribute(String name) {
+            for (int i = 0; i < _attributes.length; i += 2) {
+                if (_attributes[i].equals(name)) {
+                    return _attributes[i + 1];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * <p>
+         * This method moves to the next child and returns its type: {@link #TEXT}, {@link #CDATA}, {@link #ELEMENT} or
+         * {@link #END} if there are no more children.
+         * </p>
+         */
+        int nextChild() {
+            if (++_idx >= _children.size()) {
+                _idx = _children.size();
+                return END;
+            }
+            Object child = _children.get(_idx);
+            if (child instanceof String) {
+                return TEXT;
+            }
+            return child instanceof char[] ? CDATA : ELEMENT;
+        }
+
+        /**
+         * <p>
+         * The value of the current {@link #TEXT} or {@link #CDATA} child.
+         * </p>
+         */
+        String getText() {
+            Object child = _children.get(_idx);
+            return child instanceof char[] ? new String((char[]) child) : (String) child;
+        }
+
+        /**
+         * <p>
+         * The current {@link #ELEMENT} child, read from the beginning.
+         * </p>
+         */
+        Element getChildElement() {
+            return ((Element) _children.get(_idx)).copy();
+        }
+
+        /**
+         * <p>
+         * This method reads the remaining content and returns its text.
+         * </p>
+         */
+        String getTextContent() {
+            StringBuilder buf = new StringBuilder();
+            for (int type = nextChild(); type != END; type = nextChild()) {
+                if (type == ELEMENT) {
+                    buf.append(getChildElement().getTextContent());
+                } else {
+                    buf.append(getText());
+                }
+            }
+            return buf.toString();
+        }
+
+        /**
+         * <p>
+         * This method returns a copy of this element which reads the content from the beginning.
+         * </p>
+         */
+        Element copy() {
+            return new Element(_nodeName, _localName, _namespaceURI, _attributes, _children);
+        }
+
+        private final String _nodeName;
+        private final String _localName;
+        private final String _namespaceURI;
+
+        /**
+         * <p>
+         * Name / value pairs, sorted by name.
+         * </p>
+         */
+        private final String[] _attributes;
+
+        /**
+         * <p>
+         * <code>String</code> (text), <code>char[]</code> (<code>CDATA</code>) and {@link Element} children.
+         * </p>
+         */
+        private final List<Object> _children;
+        private int _idx = -1;
+    }
+
+    /**
+     * <p>
+     * The node name used to generate ids for text.
+     * </p>
+     */
+    private static final String TEXT_NODE_NAME = "#text";
+
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    private static final List<Object> NO_CHILDREN = new ArrayList<>(0);
+
+    /**
+     * <p>
+     * The elements whose content is read into memory before it is processed.
+     * </p>
+     */
+    private static final List<String> BUFFERED_TAGS = Arrays.asList("ui:component", "ui:fragment", "ui:event");
+
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    private static final FaceletsClasspathEntityResolver ENTITY_RESOLVER = new FaceletsClasspathEntityResolver();
+
+    private static final SAXParserFactory PARSER_FACTORY = createParserFactory();
 }
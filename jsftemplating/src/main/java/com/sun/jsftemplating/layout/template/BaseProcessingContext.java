@@ -22,7 +22,6 @@ import com.sun.jsftemplating.layout.SyntaxException;
 import com.sun.jsftemplating.layout.descriptors.LayoutComponent;
 import com.sun.jsftemplating.layout.descriptors.LayoutElement;
 import com.sun.jsftemplating.layout.descriptors.LayoutStaticText;
-import com.sun.jsftemplating.util.LayoutElementUtil;
 import com.sun.jsftemplating.util.Util;
 
 /**
@@ -119,7 +118,7 @@ public class BaseProcessingContext implements ProcessingContext {
         LayoutElement parent = env.getParent();
 
         // Create a LayoutStaticText
-        LayoutComponent child = new LayoutStaticText(parent, LayoutElementUtil.getGeneratedId("txt", env.getReader().getNextIdNumber()), content);
+        LayoutComponent child = new LayoutStaticText(parent, env.getReader().getNextId("txt"), content);
         child.addOption("value", content);
         child.setNested(env.isNested());
 
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2007, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.template;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.sun.jsftemplating.layout.SyntaxException;
+import com.sun.jsftemplating.layout.descriptors.LayoutCache;
+import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import com.sun.jsftemplating.util.LayoutElementUtil;
+
+/**
+ * <p>
+ * This {@link CustomParserCommand} handles "cache" statements. The syntax must look like:
+ * </p>
+ *
+ * <code>
+ *	    &lt;!cache key="#{view.locale}" ttl="600" size="10"&gt;
+ *		...
+ *	    &lt;/cache&gt;
+ *	</code>
+ *
+ * <p>
+ * The <code>key</code> attribute is required, <code>ttl</code> and <code>size</code> are optional. See
+ * {@link LayoutCache}.
+ * </p>
+ */
+public class CacheParserCommand implements CustomParserCommand {
+
+    /**
+     * <p>
+     * This method processes a "custom" command. These are commands that start with a !. When this method receives control,
+     * the <code>name</code> (i.e. the token after the '!' character) has already been read. It is passed via the
+     * <code>name</code> parameter.
+     * </p>
+     *
+     * <p>
+     * The {@link ProcessingContext} and {@link ProcessingContextEnvironment} are both available.
+     * </p>
+     */
+    @Override
+    public void process(ProcessingContext ctx, ProcessingContextEnvironment env, String name) throws IOException {
+        // Get the reader
+        TemplateReader reader = env.getReader();
+
+        // Get the attributes
+        List<NameValuePair> nvps = reader.readNameValuePairs(name, LayoutCache.KEY, true);
+        String key = null;
+        for (NameValuePair nvp : nvps) {
+            if (nvp.getName().equals(LayoutCache.KEY)) {
+                key = nvp.getValue().toString();
+            }
+        }
+        if (key == null) {
+            throw new SyntaxException("The '" + LayoutCache.KEY + "' attribute is required on '" + name + "'.");
+        }
+
+        // Create new LayoutCache
+        LayoutElement parent = env.getParent();
+        LayoutCache cacheElt = new LayoutCache(parent, key);
+        for (NameValuePair nvp : nvps) {
+            if (!nvp.getName().equals(LayoutCache.KEY)) {
+                cacheElt.addOption(nvp.getName(), nvp.getValue());
+            }
+        }
+        parent.addChildLayoutElement(cacheElt);
+
+        // See if this is a single tag or not...
+        TemplateParser parser = reader.getTemplateParser();
+        int ch = parser.nextChar();
+        if (ch == '/') {
+            reader.popTag(); // Don't look for end tag
+        } else {
+            // Unread the ch we just read
+            parser.unread(ch);
+
+            // Process child LayoutElements (recurse)
+            reader.process(LAYOUT_CACHE_CONTEXT, cacheElt, LayoutElementUtil.isLayoutComponentChild(cacheElt));
+            cacheElt.checkChildren();
+        }
+    }
+
+    /**
+     * <p>
+     * This is the {@link ProcessingContext} for {@link LayoutCache}s.
+     * </p>
+     */
+    protected static class LayoutCacheContext extends BaseProcessingContext {
+    }
+
+    /**
+     * <p>
+     * The {@link ProcessingContext} to be used when processing children of a {@link LayoutCache}.
+     * </p>
+     */
+    public static final ProcessingContext LAYOUT_CACHE_CONTEXT = new LayoutCacheContext();
+}
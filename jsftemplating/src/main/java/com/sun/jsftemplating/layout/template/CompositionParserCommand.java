@@ -76,7 +76,7 @@ public class CompositionParserCommand implements CustomParserCommand {
         List<NameValuePair> nvps = reader.readNameValuePairs(name, templateAttName, true);
 
         // Create new LayoutComposition
-        LayoutComposition compElt = new LayoutComposition(parent, LayoutElementUtil.getGeneratedId(name, reader.getNextIdNumber()), trimming);
+        LayoutComposition compElt = new LayoutComposition(parent, reader.getNextId(name), trimming);
 
         // Look for required attribute
         // Find the template name
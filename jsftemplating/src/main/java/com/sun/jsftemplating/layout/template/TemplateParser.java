@@ -17,14 +17,14 @@
 package com.sun.jsftemplating.layout.template;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
 
 import com.sun.jsftemplating.layout.SyntaxException;
 import com.sun.jsftemplating.layout.descriptors.handler.OutputTypeManager;
@@ -42,6 +42,12 @@ import com.sun.jsftemplating.util.LogUtil;
  * static and safe to share. However, this class itself is not thread safe.
  * </p>
  *
+ * <p>
+ * The template is read into a <code>char[]</code> as it is parsed. Characters which are unread are usually the ones
+ * which were just read, in which case the position in the buffer is simply moved back. Tokens and values which don't
+ * need to be unescaped are created directly from the buffer.
+ * </p>
+ *
  * @author Ken Paulsen (ken.paulsen@sun.com)
  */
 public class TemplateParser {
@@ -105,10 +111,17 @@ public class TemplateParser {
 
 // FIXME: It is possible while evaluating the file an #include may need to log a message to the screen!  Provide a callback mechanism to do this in a Template-specific way
         // Create the reader from the stream
-        _reader = new BufferedReader(new InputStreamReader(new IncludeInputStream(new BufferedInputStream(getInputStream()))));
-
-        // Initialize the queue we will use to push values back
-        _stack = new Stack<>();
+        _reader = new InputStreamReader(new IncludeInputStream(new BufferedInputStream(getInputStream())));
+
+        // Initialize the buffer, and the stack we will use to push back
+        // characters which were not just read
+        _chars = new char[BUFFER_SIZE];
+        _len = 0;
+        _pos = 0;
+        _readPos = 0;
+        _eof = false;
+        _pushed = new char[16];
+        _pushedLen = 0;
     }
 
     /**
@@ -135,11 +148,18 @@ public class TemplateParser {
      * </p>
      */
     public int nextChar() throws IOException {
-        if (!_stack.empty()) {
+        if (_pushedLen > 0) {
             // We have values in the queue
-            return _stack.pop().charValue();
+            return _pushed[--_pushedLen];
+        }
+        if (_pos == _len && !fill()) {
+            return -1;
         }
-        return _reader.read();
+        char ch = _chars[_pos++];
+        if (_pos > _readPos) {
+            _readPos = _pos;
+        }
+        return ch;
     }
 
     /**
@@ -148,7 +168,51 @@ public class TemplateParser {
      * </p>
      */
     public void unread(int ch) {
-        _stack.push(new Character((char) ch));
+        char value = (char) ch;
+        if (_pushedLen == 0 && _pos > 0 && _chars[_pos - 1] == value) {
+            // Same as the previous character, just move back
+            _pos--;
+            return;
+        }
+        if (_pushedLen == _pushed.length) {
+            _pushed = Arrays.copyOf(_pushed, _pushedLen * 2);
+        }
+        _pushed[_pushedLen++] = value;
+    }
+
+    /**
+     * <p>
+     * This method reads more characters into the buffer. It returns <code>false</code> at the end of the stream.
+     * </p>
+     */
+    private boolean fill() throws IOException {
+        if (_eof) {
+            return false;
+        }
+        if (_len == _chars.length) {
+            // Keep what was read, tokens are created from the buffer
+            _chars = Arrays.copyOf(_chars, _len * 2);
+        }
+        int count = _reader.read(_chars, _len, _chars.length - _len);
+        if (count == -1) {
+            _eof = true;
+            return false;
+        }
+        _len += count;
+        return true;
+    }
+
+    /**
+     * <p>
+     * This method moves the position in the buffer forward to the given index, which was scanned without using
+     * {@link #nextChar()}.
+     * </p>
+     */
+    private void skipTo(int idx) {
+        _pos = idx;
+        if (_pos > _readPos) {
+            _readPos = _pos;
+        }
     }
 
     /**
@@ -446,7 +510,34 @@ public class TemplateParser {
             otherChars = "";
         }
 
-        StringBuffer buf = new StringBuffer();
+        if (_pushedLen == 0) {
+            // Nothing pushed back, the token is in the buffer
+            int start = _pos;
+            int end = start;
+            boolean eof = false;
+            while (true) {
+                if (end == _len && !fill()) {
+                    eof = true;
+                    break;
+                }
+                char ch = _chars[end];
+                if (!Character.isLetterOrDigit(ch) && otherChars.indexOf(ch) == -1) {
+                    break;
+                }
+                end++;
+            }
+            skipTo(end);
+            if (eof) {
+                // As if -1 was read and unread
+                unread(-1);
+            } else if (_readPos == end) {
+                // As if the next character was read and unread
+                _readPos++;
+            }
+            return new String(_chars, start, end - start);
+        }
+
+        StringBuilder buf = new StringBuilder();
         int next = nextChar();
         while (Character.isLetterOrDigit(next) || otherChars.indexOf(next) != -1) {
             buf.append((char) next);
@@ -472,9 +563,34 @@ public class TemplateParser {
             // In case we start on a comment and should skip it...
             skipCommentsAndWhiteSpace("");
         }
+        StringBuilder buf;
+        if (_pushedLen == 0) {
+            // Nothing pushed back, use the buffer until something needs to
+            // be unescaped or skipped
+            int start = _pos;
+            int end = start;
+            while (true) {
+                if (end == _len && !fill()) {
+                    skipTo(end);
+                    return new String(_chars, start, end - start);
+                }
+                char ch = _chars[end];
+                if (ch == endingChar) {
+                    skipTo(end + 1);
+                    return new String(_chars, start, end - start);
+                }
+                if (ch == '\\' || (skipComments && (ch == '\'' || ch == '"' || ch == '#' || ch == '/' || ch == '<'))) {
+                    break;
+                }
+                end++;
+            }
+            skipTo(end);
+            buf = new StringBuilder(end - start + 16).append(_chars, start, end - start);
+        } else {
+            buf = new StringBuilder();
+        }
         int tmpch;
         int next = nextChar();
-        StringBuffer buf = new StringBuffer();
         while (next != endingChar && next != -1) {
             switch (next) {
             case '\'':
@@ -560,7 +676,7 @@ public class TemplateParser {
         char arr[] = endingStr.toCharArray();
         int arrlen = arr.length;
 
-        StringBuffer buf = new StringBuffer("");
+        StringBuilder buf = new StringBuilder();
         int ch = nextChar(); // Read a char to unread
         int idx = 1;
         do {
@@ -715,19 +831,19 @@ public class TemplateParser {
      * </p>
      */
     public String readLine() throws IOException {
-        StringBuffer buf = new StringBuffer();
+        StringBuilder buf = new StringBuilder();
         int ch = -1;
-        while (!_stack.empty()) {
+        while (hasUnread()) {
             // We have values in the queue
-            ch = _stack.pop().charValue();
+            ch = nextChar();
             if (ch == '\r' || ch == '\n') {
                 // We hit the EOL...
                 // Check to see if there are 2...
-                if (!_stack.empty()) {
-                    ch = _stack.peek().charValue();
+                if (hasUnread()) {
+                    ch = (_pushedLen > 0) ? _pushed[_pushedLen - 1] : _chars[_pos];
                     if (ch == '\r' || ch == '\n') {
                         // Remove this one too...
-                        _stack.pop().charValue();
+                        nextChar();
                     }
                 }
                 return buf.toString();
@@ -736,7 +852,7 @@ public class TemplateParser {
         }
 
         // Read the rest of the line
-        buf.append(_reader.readLine());
+        buf.append(readRemainingLine());
 
         int idx = buf.indexOf("\\n");
         while (idx != -1) {
@@ -755,6 +871,42 @@ public class TemplateParser {
         return buf.toString();
     }
 
+    /**
+     * <p>
+     * This method returns <code>true</code> if there are characters which were unread.
+     * </p>
+     */
+    private boolean hasUnread() {
+        return _pushedLen > 0 || _pos < _readPos;
+    }
+
+    /**
+     * <p>
+     * This method reads the rest of the line from the characters which were not read yet, like
+     * <code>BufferedReader.readLine()</code>: the line ends with "\n", "\r" or "\r\n", which is not returned. It returns
+     * <code>null</code> at the end of the stream.
+     * </p>
+     */
+    private String readRemainingLine() throws IOException {
+        int start = _pos;
+        int end = start;
+        while (true) {
+            if (end == _len && !fill()) {
+                skipTo(end);
+                return (end == start) ? null : new String(_chars, start, end - start);
+            }
+            char ch = _chars[end];
+            if (ch == '\n' || ch == '\r') {
+                skipTo(end + 1);
+                if (ch == '\r' && (_pos < _len || fill()) && _chars[_pos] == '\n') {
+                    skipTo(_pos + 1);
+                }
+                return new String(_chars, start, end - start);
+            }
+            end++;
+        }
+    }
+
     //////////////////////////////////////////////////////////////////////
     // Constants
     //////////////////////////////////////////////////////////////////////
@@ -773,8 +925,33 @@ public class TemplateParser {
      */
     public static final String SIMPLE_WHITE_SPACE = " \t\r\n";
 
+    /**
+     * <p>
+     * The initial size of the buffer, it grows as needed.
+     * </p>
+     */
+    private static final int BUFFER_SIZE = 8192;
+
     private URL _url = null;
     private InputStream _inputStream = null;
-    private transient BufferedReader _reader = null;
-    private transient Stack<Character> _stack = null;
+    private transient Reader _reader = null;
+
+    /**
+     * <p>
+     * The characters read so far. Characters between {@link #_pos} and {@link #_readPos} were unread.
+     * </p>
+     */
+    private transient char[] _chars = null;
+    private transient int _len = 0;
+    private transient int _pos = 0;
+    private transient int _readPos = 0;
+    private transient boolean _eof = false;
+
+    /**
+     * <p>
+     * Characters which were unread that are not the previous characters in {@link #_chars}, the last one is read next.
+     * </p>
+     */
+    private transient char[] _pushed = null;
+    private transient int _pushedLen = 0;
 }
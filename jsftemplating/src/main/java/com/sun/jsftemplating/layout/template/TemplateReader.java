@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Stack;
 
 import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.layout.LayoutDefinitionOptimizer;
 import com.sun.jsftemplating.layout.ProcessingCompleteException;
 import com.sun.jsftemplating.layout.SyntaxException;
 import com.sun.jsftemplating.layout.descriptors.ComponentType;
@@ -70,7 +71,7 @@ public class TemplateReader {
             throw new IllegalArgumentException("Template id's may not be null!");
         }
         _id = id;
-        _idNumber = LayoutElementUtil.getStartingIdNumber(null, id);
+        _idPrefix = LayoutElementUtil.getIdPrefix(id);
         _tpl = new TemplateParser(url);
     }
 
@@ -87,6 +88,7 @@ public class TemplateReader {
             throw new IllegalArgumentException("Template id's may not be null!");
         }
         _id = id;
+        _idPrefix = LayoutElementUtil.getIdPrefix(id);
         _tpl = new TemplateParser(stream);
     }
 
@@ -100,6 +102,7 @@ public class TemplateReader {
      */
     public TemplateReader(String id, TemplateParser parser) {
         _id = id;
+        _idPrefix = LayoutElementUtil.getIdPrefix(id);
         _tpl = parser;
     }
 
@@ -131,7 +134,7 @@ public class TemplateReader {
 
         try {
             // Populate the LayoutDefinition from the Document
-            return readLayoutDefinition();
+            return LayoutDefinitionOptimizer.optimize(null, readLayoutDefinition());
         } finally {
             parser.close();
         }
@@ -372,7 +375,7 @@ public class TemplateReader {
 
         // Create the LayoutComponent
         if (id == null) {
-            id = LayoutElementUtil.getGeneratedId(type, getNextIdNumber());
+            id = getNextId(type);
         }
         LayoutComponent component = new LayoutComponent(parent, id, componentType);
 
@@ -617,11 +620,21 @@ public class TemplateReader {
      * </p>
      */
     public int getNextIdNumber() {
-        // Make sure we increment the global counter, if appropriate
-        LayoutElementUtil.incHighestId(_idNumber);
         return _idNumber++;
     }
 
+    /**
+     * <p>
+     * This method returns the next generated id for the given base. It contains the next ID number and the prefix of this
+     * {@link LayoutDefinition}'s key (see {@link LayoutElementUtil#getGeneratedId(String, String, int)}).
+     * </p>
+     *
+     * @param base Prefix to use in the id.
+     */
+    public String getNextId(String base) {
+        return LayoutElementUtil.getGeneratedId(base, _idPrefix, getNextIdNumber());
+    }
+
     //////////////////////////////////////////////////////////////////////
     // Utility Methods
     //////////////////////////////////////////////////////////////////////
@@ -686,6 +699,7 @@ public class TemplateReader {
         map.put("include", new CompositionParserCommand(false, SRC_ATTRIBUTE));
         map.put("decorate", new CompositionParserCommand(false, TEMPLATE_ATTRIBUTE));
         map.put("insert", new InsertParserCommand());
+        map.put("cache", new CacheParserCommand());
         map.put("namespace", new NamespaceParserCommand());
         map.put("event", EVENT_PARSER_COMMAND);
         return map;
@@ -977,5 +991,6 @@ public class TemplateReader {
 
     private TemplateParser _tpl = null;
     private int _idNumber;
+    private String _idPrefix;
     private String _id = null; // The id of the LayoutDefinition
 }
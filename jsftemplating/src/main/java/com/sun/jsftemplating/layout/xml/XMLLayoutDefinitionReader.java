@@ -20,25 +20,38 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
 import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.layout.LayoutDefinitionOptimizer;
 import com.sun.jsftemplating.layout.SyntaxException;
 import com.sun.jsftemplating.layout.descriptors.ComponentType;
 import com.sun.jsftemplating.layout.descriptors.LayoutAttribute;
@@ -64,6 +77,12 @@ import com.sun.jsftemplating.util.LayoutElementUtil;
  * produces a {@link LayoutElement} tree with a {@link LayoutDefinition} object at the root of the tree.
  * </p>
  *
+ * <p>
+ * {@link #read()} builds the tree while the document is parsed, without creating a DOM. The parsers are reused, so
+ * reading a {@link LayoutDefinition} only costs the parse itself. {@link #readDocument()} and
+ * {@link #createLayoutDefinition(Document)} read it from a DOM <code>Document</code> instead, they produce the same tree.
+ * </p>
+ *
  * @author Ken Paulsen (ken.paulsen@sun.com)
  */
 public class XMLLayoutDefinitionReader {
@@ -123,8 +142,8 @@ public class XMLLayoutDefinitionReader {
 
     /**
      * <p>
-     * The read method opens the given URL and parses the XML document that it points to. It then walks the DOM and
-     * populates a {@link LayoutDefinition} structure, which is returned.
+     * The read method opens the given URL and parses the XML document that it points to. It populates a
+     * {@link LayoutDefinition} structure as the document is parsed, which is returned.
      * </p>
      *
      * @return The {@link LayoutDefinition}
@@ -134,23 +153,60 @@ public class XMLLayoutDefinitionReader {
     public LayoutDefinition read() throws IOException {
         // Open the URL
         InputStream inputStream = new IncludeInputStream(new BufferedInputStream(getURL().openStream()));
-        Document doc = null;
-
+        LayoutHandler handler = new LayoutHandler();
+        SAXParser parser = getSAXParser();
         try {
-            // Get a DocumentBuilderFactory and set it up
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            dbf.setValidating(true);
-            dbf.setIgnoringComments(true);
-            dbf.setIgnoringElementContentWhitespace(false);
-            dbf.setCoalescing(false);
-            // The opposite of creating entity ref nodes is expanding inline
-            dbf.setExpandEntityReferences(true);
+            // Set it up like readDocument() does
+            XMLReader reader = parser.getXMLReader();
+            reader.setContentHandler(handler);
+            if (getEntityResolver() != null) {
+                reader.setEntityResolver(getEntityResolver());
+            }
+            if (getErrorHandler() != null) {
+                reader.setErrorHandler(getErrorHandler());
+            }
+
+            // Parse the XML file
+            InputSource source = new InputSource(inputStream);
+            source.setSystemId(getBaseURI());
+            reader.parse(source);
+        } catch (IOException ex) {
+            throw new SyntaxException("Unable to parse XML file!", ex);
+        } catch (SAXException ex) {
+            throw new SyntaxException(ex);
+        } finally {
+            releaseSAXParser(parser);
+            try {
+                inputStream.close();
+            } catch (Exception ex) {
+                // Ignore...
+            }
+        }
 
+        // Return the LayoutDefinition
+        return LayoutDefinitionOptimizer.optimize(null, handler.getLayoutDefinition());
+    }
+
+    /**
+     * <p>
+     * This method opens the given URL and parses the XML document that it points to into a DOM <code>Document</code>. Pass
+     * it to {@link #createLayoutDefinition(Document)} to get its {@link LayoutDefinition}.
+     * </p>
+     *
+     * @return The <code>Document</code>
+     *
+     * @throws IOException
+     */
+    public Document readDocument() throws IOException {
+        // Open the URL
+        InputStream inputStream = new IncludeInputStream(new BufferedInputStream(getURL().openStream()));
+        try {
             // Get a DocumentBuilder...
             DocumentBuilder db = null;
             try {
-                db = dbf.newDocumentBuilder();
+                synchronized (DOCUMENT_BUILDER_FACTORY) {
+                    db = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+                }
             } catch (ParserConfigurationException ex) {
                 throw new RuntimeException(ex);
             }
@@ -163,7 +219,7 @@ public class XMLLayoutDefinitionReader {
 
             // Parse the XML file
             try {
-                doc = db.parse(inputStream, getBaseURI());
+                return db.parse(inputStream, getBaseURI());
             } catch (IOException ex) {
                 throw new SyntaxException("Unable to parse XML file!", ex);
             } catch (SAXException ex) {
@@ -176,9 +232,6 @@ public class XMLLayoutDefinitionReader {
                 // Ignore...
             }
         }
-
-        // Populate the LayoutDefinition from the Document
-        return createLayoutDefinition(doc);
     }
 
     /**
@@ -191,7 +244,7 @@ public class XMLLayoutDefinitionReader {
      *
      * @return The new {@link LayoutDefinition} Object.
      */
-    private LayoutDefinition createLayoutDefinition(Document doc) {
+    public LayoutDefinition createLayoutDefinition(Document doc) {
         // Get the document element (LAYOUT_DEFINITION_ELEMENT)
         Node node = doc.getDocumentElement();
         if (!node.getNodeName().equalsIgnoreCase(LAYOUT_DEFINITION_ELEMENT)) {
@@ -250,7 +303,7 @@ public class XMLLayoutDefinitionReader {
         }
 
         // Return the LayoutDefinition
-        return ld;
+        return LayoutDefinitionOptimizer.optimize(null, ld);
     }
 
     /**
@@ -269,7 +322,7 @@ public class XMLLayoutDefinitionReader {
         // Walk children (we only care about RESOURCE_ELEMENT)
         while (it.hasNext()) {
             // Found a RESOURCE_ELEMENT
-            ld.addResource(createResource(it.next()));
+            ld.addResource(createResource(getAttributes(it.next())));
         }
     }
 
@@ -280,11 +333,10 @@ public class XMLLayoutDefinitionReader {
      * two attributes.
      * </p>
      *
-     * @param node The {@link Resource} node to extract information from when creating the {@link Resource}.
+     * @param attributes The attributes of the {@link Resource} node.
      */
-    private Resource createResource(Node node) {
+    private Resource createResource(Map<String, String> attributes) {
         // Pull off the attributes
-        Map<String, String> attributes = getAttributes(node);
         String id = attributes.get(ID_ATTRIBUTE);
         String extraInfo = attributes.get(EXTRA_INFO_ATTRIBUTE);
         String factoryClass = attributes.get(FACTORY_CLASS_ATTRIBUTE);
@@ -314,7 +366,7 @@ public class XMLLayoutDefinitionReader {
 
         // Walk the COMPONENT_TYPE_ELEMENT elements
         while (it.hasNext()) {
-            ld.addComponentType(createComponentType(it.next()));
+            ld.addComponentType(createComponentType(getAttributes(it.next())));
         }
     }
 
@@ -325,11 +377,10 @@ public class XMLLayoutDefinitionReader {
      * these two attributes.
      * </p>
      *
-     * @param node The {@link ComponentType} node to extract information from when creating the {@link ComponentType}.
+     * @param attributes The attributes of the {@link ComponentType} node.
      */
-    private ComponentType createComponentType(Node node) {
+    private ComponentType createComponentType(Map<String, String> attributes) {
         // Pull off the attributes
-        Map<String, String> attributes = getAttributes(node);
         String id = attributes.get(ID_ATTRIBUTE);
         String factoryClass = attributes.get(FACTORY_CLASS_ATTRIBUTE);
 
@@ -381,9 +432,36 @@ public class XMLLayoutDefinitionReader {
      * @return The newly created {@link HandlerDefinition}.
      */
     public HandlerDefinition createHandlerDefinition(Node node) {
-
         // Create he HandlerDefinition
-        Map<String, String> attributes = getAttributes(node);
+        HandlerDefinition hd = createHandlerDefinition(getAttributes(node));
+
+        // Add child handlers to this HandlerDefinition. This allows a
+        // HandlerDefinition to define handlers that should be invoked before
+        // the method defined by this handler definition is invoked.
+        List<Handler> handlers = new ArrayList<>(hd.getChildHandlers());
+        hd.setChildHandlers(getHandlers(node, handlers));
+
+        // Add InputDef objects to the HandlerDefinition
+        addInputDefs(hd, node);
+
+        // Add OutputDef objects to the HandlerDefinition
+        addOutputDefs(hd, node);
+
+        // Return the newly created HandlerDefinition object
+        return hd;
+    }
+
+    /**
+     * <p>
+     * This method creates a {@link HandlerDefinition} from the {@link #ID_ATTRIBUTE}, {@link #CLASS_NAME_ATTRIBUTE},
+     * and {@link #METHOD_NAME_ATTRIBUTE} attributes of a {@link #HANDLER_DEFINITION_ELEMENT}, without its children.
+     * </p>
+     *
+     * @param attributes The attributes of the {@link #HANDLER_DEFINITION_ELEMENT}.
+     *
+     * @return The newly created {@link HandlerDefinition}.
+     */
+    private HandlerDefinition createHandlerDefinition(Map<String, String> attributes) {
         String value = attributes.get(ID_ATTRIBUTE);
         HandlerDefinition hd = new HandlerDefinition(value);
 
@@ -400,20 +478,6 @@ public class XMLLayoutDefinitionReader {
             }
             hd.setHandlerMethod(value, tmpStr);
         }
-
-        // Add child handlers to this HandlerDefinition. This allows a
-        // HandlerDefinition to define handlers that should be invoked before
-        // the method defined by this handler definition is invoked.
-        List<Handler> handlers = new ArrayList(hd.getChildHandlers());
-        hd.setChildHandlers(getHandlers(node, handlers));
-
-        // Add InputDef objects to the HandlerDefinition
-        addInputDefs(hd, node);
-
-        // Add OutputDef objects to the HandlerDefinition
-        addOutputDefs(hd, node);
-
-        // Return the newly created HandlerDefinition object
         return hd;
     }
 
@@ -457,22 +521,8 @@ public class XMLLayoutDefinitionReader {
      * @return The newly created {@link Handler}.
      */
     private Handler createHandler(Node handlerNode) {
-        // Pull off attributes...
-        String id = getAttributes(handlerNode).get(ID_ATTRIBUTE);
-        if (id == null || id.trim().equals("")) {
-            throw new RuntimeException("'" + ID_ATTRIBUTE + "' attribute not found on '" + HANDLER_ELEMENT + "' Element!");
-        }
-
-        // Find the HandlerDefinition associated with this Handler
-        HandlerDefinition handlerDef = getHandlerDef(id);
-        if (handlerDef == null) {
-            throw new IllegalArgumentException(HANDLER_ELEMENT + " elements " + ID_ATTRIBUTE + " attribute must match the " + ID_ATTRIBUTE + " attribute of a "
-                    + HANDLER_DEFINITION_ELEMENT + ".  A HANDLER_ELEMENT with '" + id + "' was specified, however there is no cooresponding "
-                    + HANDLER_DEFINITION_ELEMENT + " with a matching " + ID_ATTRIBUTE + " attribute.");
-        }
-
         // Create new Handler
-        Handler handler = new Handler(handlerDef);
+        Handler handler = createHandler(getAttributes(handlerNode));
 
         // Add the inputs
         Map<String, String> attributes = null;
@@ -497,6 +547,35 @@ public class XMLLayoutDefinitionReader {
         return handler;
     }
 
+    /**
+     * <p>
+     * This method creates a {@link Handler} from the attributes of a {@link #HANDLER_ELEMENT}, without its inputs or
+     * output mappings.
+     * </p>
+     *
+     * @param attributes The attributes of the {@link #HANDLER_ELEMENT}.
+     *
+     * @return The newly created {@link Handler}.
+     */
+    private Handler createHandler(Map<String, String> attributes) {
+        // Pull off attributes...
+        String id = attributes.get(ID_ATTRIBUTE);
+        if (id == null || id.trim().equals("")) {
+            throw new RuntimeException("'" + ID_ATTRIBUTE + "' attribute not found on '" + HANDLER_ELEMENT + "' Element!");
+        }
+
+        // Find the HandlerDefinition associated with this Handler
+        HandlerDefinition handlerDef = getHandlerDef(id);
+        if (handlerDef == null) {
+            throw new IllegalArgumentException(HANDLER_ELEMENT + " elements " + ID_ATTRIBUTE + " attribute must match the " + ID_ATTRIBUTE + " attribute of a "
+                    + HANDLER_DEFINITION_ELEMENT + ".  A HANDLER_ELEMENT with '" + id + "' was specified, however there is no cooresponding "
+                    + HANDLER_DEFINITION_ELEMENT + " with a matching " + ID_ATTRIBUTE + " attribute.");
+        }
+
+        // Create new Handler
+        return new Handler(handlerDef);
+    }
+
     /**
      * <p>
      * This method first attempts to find a locally defined {@link HandlerDefinition} with the given <code>id</code>. If
@@ -535,7 +614,7 @@ public class XMLLayoutDefinitionReader {
         // Walk children (we only care about INPUT_DEF_ELEMENT)
         while (it.hasNext()) {
             // Found a INPUT_DEF_ELEMENT
-            hd.addInputDef(createIODescriptor(it.next()));
+            hd.addInputDef(createIODescriptor(getAttributes(it.next())));
         }
     }
 
@@ -556,7 +635,7 @@ public class XMLLayoutDefinitionReader {
         // Walk children (we only care about OUTPUT_DEF_ELEMENT)
         while (it.hasNext()) {
             // Found a OUTPUT_DEF_ELEMENT
-            hd.addOutputDef(createIODescriptor(it.next()));
+            hd.addOutputDef(createIODescriptor(getAttributes(it.next())));
         }
     }
 
@@ -568,13 +647,12 @@ public class XMLLayoutDefinitionReader {
      * not know the difference between input and output descriptors.
      * </p>
      *
-     * @param node The <code>Node</code> holding info used to create an {@link IODescriptor}.
+     * @param attributes The attributes of the <code>Node</code> used to create an {@link IODescriptor}.
      *
      * @return A newly created {@link IODescriptor}.
      */
-    private IODescriptor createIODescriptor(Node node) {
+    private IODescriptor createIODescriptor(Map<String, String> attributes) {
         // Get the attributes
-        Map<String, String> attributes = getAttributes(node);
         String name = attributes.get(NAME_ATTRIBUTE);
         if (name == null || name.equals("")) {
             throw new IllegalArgumentException("Name must be provided!");
@@ -671,14 +749,8 @@ public class XMLLayoutDefinitionReader {
      * @param node The {@link #IF_ELEMENT} node to extract information from when creating the {@link LayoutIf}
      */
     private LayoutElement createLayoutIf(LayoutElement parent, Node node) {
-        // Pull off attributes...
-        String condition = getAttributes(node).get(CONDITION_ATTRIBUTE);
-        if (condition == null || condition.trim().equals("")) {
-            throw new RuntimeException("'" + CONDITION_ATTRIBUTE + "' attribute not found on '" + IF_ELEMENT + "' Element!");
-        }
-
         // Create new LayoutIf
-        LayoutElement ifElt = new LayoutIf(parent, condition);
+        LayoutElement ifElt = createLayoutIf(parent, getAttributes(node));
 
         // Add children...
         addChildLayoutElements(ifElt, node);
@@ -687,6 +759,22 @@ public class XMLLayoutDefinitionReader {
         return ifElt;
     }
 
+    /**
+     * <p>
+     * This method creates a new {@link LayoutIf} from the attributes of an {@link #IF_ELEMENT}, without its children.
+     * </p>
+     */
+    private LayoutElement createLayoutIf(LayoutElement parent, Map<String, String> attributes) {
+        // Pull off attributes...
+        String condition = attributes.get(CONDITION_ATTRIBUTE);
+        if (condition == null || condition.trim().equals("")) {
+            throw new RuntimeException("'" + CONDITION_ATTRIBUTE + "' attribute not found on '" + IF_ELEMENT + "' Element!");
+        }
+
+        // Create new LayoutIf
+        return new LayoutIf(parent, condition);
+    }
+
     /**
      * <p>
      * This method creates a new {@link LayoutForEach} {@link LayoutElement}.
@@ -698,24 +786,35 @@ public class XMLLayoutDefinitionReader {
      * @return The new {@link LayoutForEach} {@link LayoutElement}.
      */
     private LayoutElement createLayoutForEach(LayoutElement parent, Node node) {
+        // Create new LayoutForEach
+        LayoutElement forEachElt = createLayoutForEach(parent, getAttributes(node));
+
+        // Add children...
+        addChildLayoutElements(forEachElt, node);
+
+        // Return the forEach
+        return forEachElt;
+    }
+
+    /**
+     * <p>
+     * This method creates a new {@link LayoutForEach} from the attributes of a {@link #FOREACH_ELEMENT}, without its
+     * children.
+     * </p>
+     */
+    private LayoutElement createLayoutForEach(LayoutElement parent, Map<String, String> attributes) {
         // Pull off attributes...
-        String list = getAttributes(node).get(LIST_ATTRIBUTE);
+        String list = attributes.get(LIST_ATTRIBUTE);
         if (list == null || list.trim().equals("")) {
             throw new RuntimeException("'" + LIST_ATTRIBUTE + "' attribute not found on '" + FOREACH_ELEMENT + "' Element!");
         }
-        String key = getAttributes(node).get(KEY_ATTRIBUTE);
+        String key = attributes.get(KEY_ATTRIBUTE);
         if (key == null || key.trim().equals("")) {
             throw new RuntimeException("'" + KEY_ATTRIBUTE + "' attribute not found on '" + FOREACH_ELEMENT + "' Element!");
         }
 
         // Create new LayoutForEach
-        LayoutElement forEachElt = new LayoutForEach(parent, list, key);
-
-        // Add children...
-        addChildLayoutElements(forEachElt, node);
-
-        // Return the forEach
-        return forEachElt;
+        return new LayoutForEach(parent, list, key);
     }
 
     /**
@@ -729,14 +828,8 @@ public class XMLLayoutDefinitionReader {
      * @return The new {@link LayoutWhile} {@link LayoutElement}.
      */
     private LayoutElement createLayoutWhile(LayoutElement parent, Node node) {
-        // Pull off attributes...
-        String condition = getAttributes(node).get(CONDITION_ATTRIBUTE);
-        if (condition == null || condition.trim().equals("")) {
-            throw new RuntimeException("'" + CONDITION_ATTRIBUTE + "' attribute not found on '" + WHILE_ELEMENT + "' Element!");
-        }
-
         // Create new LayoutWhile
-        LayoutElement whileElt = new LayoutWhile(parent, condition);
+        LayoutElement whileElt = createLayoutWhile(parent, getAttributes(node));
 
         // Add children...
         addChildLayoutElements(whileElt, node);
@@ -745,6 +838,23 @@ public class XMLLayoutDefinitionReader {
         return whileElt;
     }
 
+    /**
+     * <p>
+     * This method creates a new {@link LayoutWhile} from the attributes of a {@link #WHILE_ELEMENT}, without its
+     * children.
+     * </p>
+     */
+    private LayoutElement createLayoutWhile(LayoutElement parent, Map<String, String> attributes) {
+        // Pull off attributes...
+        String condition = attributes.get(CONDITION_ATTRIBUTE);
+        if (condition == null || condition.trim().equals("")) {
+            throw new RuntimeException("'" + CONDITION_ATTRIBUTE + "' attribute not found on '" + WHILE_ELEMENT + "' Element!");
+        }
+
+        // Create new LayoutWhile
+        return new LayoutWhile(parent, condition);
+    }
+
     /**
      *
      *
@@ -754,36 +864,56 @@ public class XMLLayoutDefinitionReader {
     private LayoutElement createLayoutAttribute(LayoutElement parent, Node node) {
         // Pull off attributes...
         Map<String, String> attributes = getAttributes(node);
+        LayoutElement attributeElt = createLayoutAttribute(parent, attributes);
+        if (attributeElt == null) {
+            // Treat this as a LayoutComponent "option" instead of "attribute"
+            addOption(getOptionComponent(parent), attributes, getValueFromNode(node, attributes));
+        } else {
+            // Add children... (event children are supported)
+            addChildLayoutElements(attributeElt, node);
+        }
+
+        // Return the LayoutAttribute (or null if inside LayoutComponent)
+        return attributeElt;
+    }
+
+    /**
+     * <p>
+     * This method creates a new {@link LayoutAttribute} from the attributes of an {@link #ATTRIBUTE_ELEMENT}, without its
+     * children. If it is inside a {@link LayoutComponent}, it is an "option" of that component instead, and
+     * <code>null</code> is returned.
+     * </p>
+     */
+    private LayoutElement createLayoutAttribute(LayoutElement parent, Map<String, String> attributes) {
+        // Pull off attributes...
         String name = attributes.get(NAME_ATTRIBUTE);
         if (name == null || name.trim().equals("")) {
             throw new RuntimeException("'" + NAME_ATTRIBUTE + "' attribute not found on '" + ATTRIBUTE_ELEMENT + "' Element!");
         }
-        LayoutElement attributeElt = null;
 
         // Check if we're setting this on a LayoutComponent vs. LayoutMarkup
         // Do this after checking for "name" to show correct error message
-        LayoutComponent comp = null;
-        if (parent instanceof LayoutComponent) {
-            comp = (LayoutComponent) parent;
-        } else {
-            comp = LayoutElementUtil.getParentLayoutComponent(parent);
+        if (getOptionComponent(parent) != null) {
+            return null;
         }
-        if (comp != null) {
-            // Treat this as a LayoutComponent "option" instead of "attribute"
-            addOption(comp, node);
-        } else {
-            String value = attributes.get(VALUE_ATTRIBUTE);
-            String property = attributes.get(PROPERTY_ATTRIBUTE);
+        String value = attributes.get(VALUE_ATTRIBUTE);
+        String property = attributes.get(PROPERTY_ATTRIBUTE);
 
-            // Create new LayoutAttribute
-            attributeElt = new LayoutAttribute(parent, name, value, property);
+        // Create new LayoutAttribute
+        return new LayoutAttribute(parent, name, value, property);
+    }
 
-            // Add children... (event children are supported)
-            addChildLayoutElements(attributeElt, node);
+    /**
+     * <p>
+     * This method returns the {@link LayoutComponent} which an {@link #ATTRIBUTE_ELEMENT} inside the given parent sets an
+     * option on, or <code>null</code> if it is not inside a {@link LayoutComponent}.
+     * </p>
+     */
+    private LayoutComponent getOptionComponent(LayoutElement parent) {
+        if (parent instanceof LayoutComponent) {
+            return (LayoutComponent) parent;
         }
-
-        // Return the LayoutAttribute (or null if inside LayoutComponent)
-        return attributeElt;
+        return LayoutElementUtil.getParentLayoutComponent(parent);
     }
 
     /**
@@ -794,8 +924,27 @@ public class XMLLayoutDefinitionReader {
      * @param node The {@link #MARKUP_ELEMENT} node to extract information from when creating the {@link LayoutMarkup}.
      */
     private LayoutElement createLayoutMarkup(LayoutElement parent, Node node) {
+        LayoutElement markupElt = createLayoutMarkup(parent, getAttributes(node));
+
+        // Add children...
+        if (markupElt instanceof LayoutComponent) {
+            addChildLayoutComponentChildren((LayoutComponent) markupElt, node);
+        } else {
+            addChildLayoutElements(markupElt, node);
+        }
+
+        // Return the LayoutMarkup
+        return markupElt;
+    }
+
+    /**
+     * <p>
+     * This method creates a new {@link LayoutMarkup} from the attributes of a {@link #MARKUP_ELEMENT}, without its
+     * children. Inside a {@link LayoutComponent} a "markup" {@link LayoutComponent} is created instead.
+     * </p>
+     */
+    private LayoutElement createLayoutMarkup(LayoutElement parent, Map<String, String> attributes) {
         // Pull off attributes...
-        Map<String, String> attributes = getAttributes(node);
         String tag = attributes.get(TAG_ATTRIBUTE);
         if (tag == null || tag.trim().equals("")) {
             throw new RuntimeException("'" + TAG_ATTRIBUTE + "' attribute not found on '" + MARKUP_ELEMENT + "' Element!");
@@ -811,16 +960,10 @@ public class XMLLayoutDefinitionReader {
             LayoutComponent markupComp = (LayoutComponent) markupElt;
             markupComp.addOption("tag", tag);
             markupComp.setNested(true);
-
-            // Add children...
-            addChildLayoutComponentChildren(markupComp, node);
         } else {
             // Create new LayoutMarkup
             String type = attributes.get(TYPE_ATTRIBUTE);
             markupElt = new LayoutMarkup(parent, tag, type);
-
-            // Add children...
-            addChildLayoutElements(markupElt, node);
         }
 
         // Return the LayoutMarkup
@@ -838,9 +981,25 @@ public class XMLLayoutDefinitionReader {
      * @return The new {@link LayoutFacet} {@link LayoutElement}.
      */
     private LayoutElement createLayoutFacet(LayoutElement parent, Node node) {
+        // Create new LayoutFacet
+        LayoutElement facetElt = createLayoutFacet(parent, getAttributes(node));
+
+        // Add children...
+        addChildLayoutElements(facetElt, node);
+
+        // Return the LayoutFacet
+        return facetElt;
+    }
+
+    /**
+     * <p>
+     * This method creates a new {@link LayoutFacet} from the attributes of a {@link #FACET_ELEMENT}, without its children.
+     * </p>
+     */
+    private LayoutElement createLayoutFacet(LayoutElement parent, Map<String, String> attributes) {
         // Pull off attributes...
         // id
-        String id = getAttributes(node).get(ID_ATTRIBUTE);
+        String id = attributes.get(ID_ATTRIBUTE);
         if (id == null || id.trim().equals("")) {
             throw new RuntimeException("'" + ID_ATTRIBUTE + "' attribute not found on '" + FACET_ELEMENT + "' Element!");
         }
@@ -849,7 +1008,7 @@ public class XMLLayoutDefinitionReader {
         LayoutFacet facetElt = new LayoutFacet(parent, id);
 
         // Set isRendered
-        String rendered = getAttributes(node).get(RENDERED_ATTRIBUTE);
+        String rendered = attributes.get(RENDERED_ATTRIBUTE);
         boolean isRendered = true;
         if (rendered == null || rendered.trim().equals("") || rendered.equals(AUTO_RENDERED)) {
             // Automatically determine if this LayoutFacet should be rendered
@@ -859,9 +1018,6 @@ public class XMLLayoutDefinitionReader {
         }
         facetElt.setRendered(isRendered);
 
-        // Add children...
-        addChildLayoutElements(facetElt, node);
-
         // Return the LayoutFacet
         return facetElt;
     }
@@ -872,8 +1028,23 @@ public class XMLLayoutDefinitionReader {
      * {@link LayoutComponent}.
      */
     private LayoutElement createLayoutComponent(LayoutElement parent, Node node) {
+        LayoutComponent component = createLayoutComponent(parent, getAttributes(node));
+
+        // Add children... (different for component LayoutElements)
+        addChildLayoutComponentChildren(component, node);
+
+        // Return the LayoutComponent
+        return component;
+    }
+
+    /**
+     * <p>
+     * This method creates a new {@link LayoutComponent} from the attributes of a {@link #COMPONENT_ELEMENT}, without its
+     * children.
+     * </p>
+     */
+    private LayoutComponent createLayoutComponent(LayoutElement parent, Map<String, String> attributes) {
         // Pull off attributes...
-        Map<String, String> attributes = getAttributes(node);
         String id = attributes.get(ID_ATTRIBUTE);
         String type = attributes.get(TYPE_ATTRIBUTE);
         if (type == null || type.trim().equals("")) {
@@ -922,9 +1093,6 @@ public class XMLLayoutDefinitionReader {
             component.addOption(LayoutComponent.FACET_NAME, id);
         }
 
-        // Add children... (different for component LayoutElements)
-        addChildLayoutComponentChildren(component, node);
-
         // Return the LayoutComponent
         return component;
     }
@@ -995,11 +1163,27 @@ public class XMLLayoutDefinitionReader {
      * {@link LayoutComponent}.
      */
     private LayoutElement createEditLayoutComponent(LayoutElement parent, Node node) {
+        LayoutComponent component = createEditLayoutComponent(parent, getAttributes(node));
+
+        // Add children... (different for component LayoutElements)
+        addChildLayoutComponentChildren(component, node);
+
+        // Return the popupMenu around it
+        return component.getParent();
+    }
+
+    /**
+     * <p>
+     * This method creates the <em>Edit</em> {@link LayoutComponent} (see
+     * {@link #createEditLayoutComponent(LayoutElement, Node)}) from the attributes of an {@link #EDIT_ELEMENT}, without
+     * its children. Its parent is the popupMenu {@link LayoutComponent} which should be added to the given parent.
+     * </p>
+     */
+    private LayoutComponent createEditLayoutComponent(LayoutElement parent, Map<String, String> attributes) {
         // First Add a popupMenu around this component... use it as the parent
-        parent = createEditPopupMenuLayoutComponent(parent, node);
+        parent = createEditPopupMenuLayoutComponent(parent, attributes);
 
         // Pull off attributes...
-        Map<String, String> attributes = getAttributes(node);
         String id = attributes.get(ID_ATTRIBUTE);
 
         // Create the LayoutComponent
@@ -1011,10 +1195,7 @@ public class XMLLayoutDefinitionReader {
         component.setNested(LayoutElementUtil.isNestedLayoutComponent(component));
         component.addOption(EDITABLE, Boolean.TRUE); // Flag
 
-        // Add children... (different for component LayoutElements)
-        addChildLayoutComponentChildren(component, node);
-
-        return parent;
+        return component;
     }
 
     /**
@@ -1022,9 +1203,8 @@ public class XMLLayoutDefinitionReader {
      * This method creates a PopupMenu component w/ the Editor commands.
      * </p>
      */
-    private LayoutElement createEditPopupMenuLayoutComponent(LayoutElement parent, Node node) {
+    private LayoutElement createEditPopupMenuLayoutComponent(LayoutElement parent, Map<String, String> attributes) {
         // Pull off attributes...
-        Map<String, String> attributes = getAttributes(node);
         String id = attributes.get(ID_ATTRIBUTE);
 
         // Create the LayoutComponent
@@ -1116,6 +1296,21 @@ public class XMLLayoutDefinitionReader {
         // Pull off the attributes
         Map<String, String> attributes = getAttributes(node);
 
+        // Add the option to the component (value may be null)
+        addOption(component, attributes, getValueFromNode(node, attributes));
+    }
+
+    /**
+     * <p>
+     * This method adds an option with the given value to the given {@link LayoutComponent}, named by the
+     * {@link #NAME_ATTRIBUTE} of an {@link #OPTION_ELEMENT}.
+     * </p>
+     *
+     * @param component The {@link LayoutComponent}.
+     * @param attributes The attributes of the {@link #OPTION_ELEMENT}.
+     * @param value The value of the option.
+     */
+    private void addOption(LayoutComponent component, Map<String, String> attributes, Object value) {
         // Get the name
         String name = attributes.get(NAME_ATTRIBUTE);
         if (name == null || name.trim().equals("")) {
@@ -1123,9 +1318,6 @@ public class XMLLayoutDefinitionReader {
         }
         name = name.trim();
 
-        // Get the value
-        Object value = getValueFromNode(node, attributes);
-
         // Add the option to the component (value may be null)
         component.addOption(name, value);
     }
@@ -1167,8 +1359,17 @@ public class XMLLayoutDefinitionReader {
      * {@link LayoutStaticText}.
      */
     private LayoutElement createLayoutStaticText(LayoutElement parent, Node node) {
+        return createLayoutStaticText(parent, getTextNodesAsString(node));
+    }
+
+    /**
+     * <p>
+     * This method creates a new {@link LayoutStaticText} with the given text.
+     * </p>
+     */
+    private LayoutElement createLayoutStaticText(LayoutElement parent, String value) {
         // Create new LayoutComponent
-        LayoutStaticText text = new LayoutStaticText(parent, "", getTextNodesAsString(node));
+        LayoutStaticText text = new LayoutStaticText(parent, "", value);
 
         // Add all the attributes from the static text as options
 //	component.addOptions(getAttributes(node));
@@ -1331,6 +1532,531 @@ public class XMLLayoutDefinitionReader {
         return compType;
     }
 
+    //////////////////////////////////////////////////////////////////////
+    // SAX Parsing
+    //////////////////////////////////////////////////////////////////////
+
+    /**
+     * <p>
+     * This method returns a pooled <code>SAXParser</code>, or a new one if none are available. Return it via
+     * {@link #releaseSAXParser(SAXParser)}.
+     * </p>
+     */
+    private static SAXParser getSAXParser() {
+        SAXParser parser = SAX_PARSERS.poll();
+        if (parser == null) {
+            try {
+                // Factories are not required to be thread safe
+                synchronized (SAX_PARSER_FACTORY) {
+                    parser = SAX_PARSER_FACTORY.newSAXParser();
+                }
+            } catch (ParserConfigurationException ex) {
+                throw new RuntimeException(ex);
+            } catch (SAXException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        return parser;
+    }
+
+    /**
+     * <p>
+     * This method resets the given <code>SAXParser</code> (including its handlers) and returns it to the pool, unless the
+     * pool is full.
+     * </p>
+     */
+    private static void releaseSAXParser(SAXParser parser) {
+        try {
+            parser.reset();
+        } catch (UnsupportedOperationException ex) {
+            // Can't be reused
+            return;
+        }
+        SAX_PARSERS.offer(parser);
+    }
+
+    /**
+     * <p>
+     * This method returns a <code>Map</code> of the given SAX <code>Attributes</code>, see {@link #getAttributes(Node)}.
+     * </p>
+     */
+    private static Map<String, String> getAttributes(Attributes attributes) {
+        Map<String, String> map = new HashMap<>();
+        for (int idx = 0; idx < attributes.getLength(); idx++) {
+            map.put(attributes.getQName(idx).toLowerCase(), attributes.getValue(idx));
+        }
+        return map;
+    }
+
+    /**
+     * <p>
+     * This <code>DefaultHandler</code> creates the {@link LayoutDefinition} as the document is parsed. It keeps a
+     * {@link Frame} for each open element, which handles its children. {@link LayoutElement}s are added to their parent
+     * when their element ends, after their children, as {@link #createLayoutDefinition(Document)} does.
+     * </p>
+     */
+    private class LayoutHandler extends DefaultHandler {
+
+        /**
+         * <p>
+         * This method returns the {@link LayoutDefinition} once the document has been parsed.
+         * </p>
+         */
+        LayoutDefinition getLayoutDefinition() {
+            return _ld;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            Frame frame = null;
+            if (_frames.isEmpty()) {
+                // The document element (LAYOUT_DEFINITION_ELEMENT)
+                if (!qName.equalsIgnoreCase(LAYOUT_DEFINITION_ELEMENT)) {
+                    throw new RuntimeException("Document Element must be '" + LAYOUT_DEFINITION_ELEMENT + "'");
+                }
+                frame = new DefinitionFrame();
+            } else {
+                frame = _frames.peek().startChild(qName, getAttributes(attributes));
+            }
+            _frames.push(frame);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            _frames.pop().end();
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (!_frames.isEmpty()) {
+                _frames.peek().characters(ch, start, length);
+            }
+        }
+
+        private LayoutDefinition _ld = null;
+        private Deque<Frame> _frames = new ArrayDeque<>();
+
+        /**
+         * <p>
+         * This class handles the content of an element. By default its children are ignored.
+         * </p>
+         */
+        private class Frame {
+            /**
+             * <p>
+             * This method is called for each child element, it returns the <code>Frame</code> for the child.
+             * </p>
+             */
+            Frame startChild(String name, Map<String, String> attributes) {
+                return new Frame();
+            }
+
+            void characters(char[] ch, int start, int length) {
+            }
+
+            void end() {
+            }
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles the {@link #LAYOUT_DEFINITION_ELEMENT}, see
+         * {@link #createLayoutDefinition(Document)}.
+         * </p>
+         */
+        private class DefinitionFrame extends Frame {
+            DefinitionFrame() {
+                // Create a new LayoutDefinition (the id is not propagated here)
+                _ld = new LayoutDefinition("");
+            }
+
+            @Override
+            Frame startChild(String name, Map<String, String> attributes) {
+                String lowerName = name.toLowerCase();
+                if (!_found.add(lowerName)) {
+                    // There is at most 1 of each
+                    return new Frame();
+                }
+                if (lowerName.equals(RESOURCES_ELEMENT)) {
+                    return new Frame() {
+                        @Override
+                        Frame startChild(String name, Map<String, String> attributes) {
+                            if (name.equalsIgnoreCase(RESOURCE_ELEMENT)) {
+                                _ld.addResource(createResource(attributes));
+                            }
+                            return new Frame();
+                        }
+                    };
+                } else if (lowerName.equals(TYPES_ELEMENT)) {
+                    return new Frame() {
+                        @Override
+                        Frame startChild(String name, Map<String, String> attributes) {
+                            if (name.equalsIgnoreCase(COMPONENT_TYPE_ELEMENT)) {
+                                _ld.addComponentType(createComponentType(attributes));
+                            }
+                            return new Frame();
+                        }
+                    };
+                } else if (lowerName.equals(HANDLERS_ELEMENT)) {
+                    return new Frame() {
+                        @Override
+                        Frame startChild(String name, Map<String, String> attributes) {
+                            if (name.equalsIgnoreCase(HANDLER_DEFINITION_ELEMENT)) {
+                                return new HandlerDefinitionFrame(attributes);
+                            }
+                            return new Frame();
+                        }
+                    };
+                } else if (lowerName.equals(EVENT_ELEMENT)) {
+                    // This comes before the "handlers" it may use, so it is
+                    // set when the "layout" starts
+                    _event = new EventFrame(_ld, attributes) {
+                        @Override
+                        void end() {
+                        }
+                    };
+                    return _event;
+                } else if (lowerName.equals(LAYOUT_ELEMENT)) {
+                    if (_event != null) {
+                        _event.setHandlers();
+                    }
+                    return new LayoutFrame(name, null, _ld);
+                }
+                return new Frame();
+            }
+
+            @Override
+            void end() {
+                if (!_found.contains(LAYOUT_ELEMENT)) {
+                    throw new RuntimeException("A '" + LAYOUT_ELEMENT + "' element is required in the XML document!");
+                }
+            }
+
+            private Set<String> _found = new HashSet<>();
+            private EventFrame _event = null;
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles a {@link #HANDLER_DEFINITION_ELEMENT}, see
+         * {@link #createHandlerDefinition(Node)}. The {@link HandlerDefinition} may be used once it ends.
+         * </p>
+         */
+        private class HandlerDefinitionFrame extends Frame {
+            HandlerDefinitionFrame(Map<String, String> attributes) {
+                _hd = createHandlerDefinition(attributes);
+            }
+
+            @Override
+            Frame startChild(String name, Map<String, String> attributes) {
+                if (name.equalsIgnoreCase(HANDLER_ELEMENT)) {
+                    HandlerFrame frame = new HandlerFrame(attributes);
+                    _handlers.add(frame);
+                    return frame;
+                } else if (name.equalsIgnoreCase(INPUT_DEF_ELEMENT)) {
+                    _hd.addInputDef(createIODescriptor(attributes));
+                } else if (name.equalsIgnoreCase(OUTPUT_DEF_ELEMENT)) {
+                    _hd.addOutputDef(createIODescriptor(attributes));
+                }
+                return new Frame();
+            }
+
+            @Override
+            void end() {
+                // Add child handlers to this HandlerDefinition
+                List<Handler> handlers = new ArrayList<>(_hd.getChildHandlers());
+                for (HandlerFrame frame : _handlers) {
+                    handlers.add(frame.createHandler());
+                }
+                _hd.setChildHandlers(handlers);
+
+                // Cache it
+                _handlerDefs.put(_hd.getId(), _hd);
+            }
+
+            private HandlerDefinition _hd = null;
+            private List<HandlerFrame> _handlers = new ArrayList<>();
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles an {@link #EVENT_ELEMENT}, its {@link Handler}s are set on the given
+         * {@link LayoutElement} when it ends.
+         * </p>
+         */
+        private class EventFrame extends Frame {
+            EventFrame(LayoutElement elt, Map<String, String> attributes) {
+                _elt = elt;
+                _type = attributes.get(TYPE_ATTRIBUTE);
+            }
+
+            @Override
+            Frame startChild(String name, Map<String, String> attributes) {
+                if (name.equalsIgnoreCase(HANDLER_ELEMENT)) {
+                    HandlerFrame frame = new HandlerFrame(attributes);
+                    _handlers.add(frame);
+                    return frame;
+                }
+                return new Frame();
+            }
+
+            @Override
+            void end() {
+                setHandlers();
+            }
+
+            /**
+             * <p>
+             * This method sets the {@link Handler}s for the event type, see {@link #getHandlers(Node, List)}.
+             * </p>
+             */
+            void setHandlers() {
+                List<Handler> handlers = _elt.getHandlers(_type);
+                if (handlers == null) {
+                    handlers = new ArrayList<>();
+                }
+                for (HandlerFrame frame : _handlers) {
+                    handlers.add(frame.createHandler());
+                }
+                _elt.setHandlers(_type, handlers);
+            }
+
+            private LayoutElement _elt = null;
+            private String _type = null;
+            private List<HandlerFrame> _handlers = new ArrayList<>();
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles a {@link #HANDLER_ELEMENT}, the {@link Handler} is created by
+         * {@link #createHandler()} once its {@link HandlerDefinition} is known.
+         * </p>
+         */
+        private class HandlerFrame extends Frame {
+            HandlerFrame(Map<String, String> attributes) {
+                _attributes = attributes;
+            }
+
+            @Override
+            Frame startChild(String name, Map<String, String> attributes) {
+                if (name.equalsIgnoreCase(INPUT_ELEMENT)) {
+                    ValueFrame frame = new ValueFrame(attributes);
+                    _inputs.add(frame);
+                    return frame;
+                } else if (name.equalsIgnoreCase(OUTPUT_MAPPING_ELEMENT)) {
+                    _outputs.add(attributes);
+                }
+                return new Frame();
+            }
+
+            /**
+             * <p>
+             * This method creates the {@link Handler}, see {@link #createHandler(Node)}.
+             * </p>
+             */
+            Handler createHandler() {
+                Handler handler = XMLLayoutDefinitionReader.this.createHandler(_attributes);
+                for (ValueFrame input : _inputs) {
+                    handler.setInputValue(input._attributes.get(NAME_ATTRIBUTE), input.getValue());
+                }
+                for (Map<String, String> attributes : _outputs) {
+                    handler.setOutputMapping(attributes.get(OUTPUT_NAME_ATTRIBUTE), attributes.get(TARGET_KEY_ATTRIBUTE), attributes.get(TARGET_TYPE_ATTRIBUTE));
+                }
+                return handler;
+            }
+
+            private Map<String, String> _attributes = null;
+            private List<ValueFrame> _inputs = new ArrayList<>();
+            private List<Map<String, String>> _outputs = new ArrayList<>();
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles an element with a {@link #VALUE_ATTRIBUTE} or child {@link #LIST_ELEMENT}s, see
+         * {@link #getValueFromNode(Node, Map)}.
+         * </p>
+         */
+        private class ValueFrame extends Frame {
+            ValueFrame(Map<String, String> attributes) {
+                _attributes = attributes;
+            }
+
+            @Override
+            Frame startChild(String name, Map<String, String> attributes) {
+                if (name.equalsIgnoreCase(LIST_ELEMENT)) {
+                    _list.add(attributes.get(VALUE_ATTRIBUTE));
+                }
+                return new Frame();
+            }
+
+            Object getValue() {
+                Object value = _attributes.get(VALUE_ATTRIBUTE);
+                if (value == null && _list.size() > 0) {
+                    // Only use the list if it has values
+                    value = _list;
+                }
+                return value;
+            }
+
+            Map<String, String> _attributes = null;
+            private List<String> _list = new ArrayList<>();
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles the text of a {@link #STATIC_TEXT_ELEMENT}, see
+         * {@link #getTextNodesAsString(Node)}.
+         * </p>
+         */
+        private class StaticTextFrame extends Frame {
+            StaticTextFrame(LayoutElement parent) {
+                _parent = parent;
+            }
+
+            @Override
+            void characters(char[] ch, int start, int length) {
+                _text.append(ch, start, length);
+            }
+
+            @Override
+            void end() {
+                _parent.addChildLayoutElement(createLayoutStaticText(_parent, _text.toString()));
+            }
+
+            private LayoutElement _parent = null;
+            private StringBuilder _text = new StringBuilder();
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles an element which creates a {@link LayoutElement}. The {@link LayoutElement} is
+         * added to its parent (if any) when the element ends.
+         * </p>
+         */
+        private abstract class ElementFrame extends Frame {
+            ElementFrame(String name, LayoutElement parent, LayoutElement element) {
+                _name = name;
+                _parent = parent;
+                _element = element;
+            }
+
+            /**
+             * <p>
+             * This method returns the <code>Frame</code> for a child element which may be in a {@link LayoutComponent}
+             * or not, or <code>null</code> if it is not one of them.
+             * </p>
+             */
+            Frame startChild(LayoutElement elt, String name, Map<String, String> attributes) {
+                if (name.equalsIgnoreCase(FACET_ELEMENT)) {
+                    return new LayoutFrame(name, elt, createLayoutFacet(elt, attributes));
+                } else if (name.equalsIgnoreCase(STATIC_TEXT_ELEMENT)) {
+                    return new StaticTextFrame(elt);
+                } else if (name.equalsIgnoreCase(COMPONENT_ELEMENT)) {
+                    LayoutComponent component = createLayoutComponent(elt, attributes);
+                    return new ComponentFrame(name, elt, component, component);
+                } else if (name.equalsIgnoreCase(EVENT_ELEMENT)) {
+                    return new EventFrame(elt, attributes);
+                } else if (name.equalsIgnoreCase(MARKUP_ELEMENT)) {
+                    LayoutElement markupElt = createLayoutMarkup(elt, attributes);
+                    if (markupElt instanceof LayoutComponent) {
+                        return new ComponentFrame(name, elt, markupElt, (LayoutComponent) markupElt);
+                    }
+                    return new LayoutFrame(name, elt, markupElt);
+                } else if (name.equalsIgnoreCase(EDIT_ELEMENT)) {
+                    // The popupMenu around it is added
+                    LayoutComponent component = createEditLayoutComponent(elt, attributes);
+                    return new ComponentFrame(name, elt, component.getParent(), component);
+                } else if (name.equalsIgnoreCase(ATTRIBUTE_ELEMENT)) {
+                    LayoutElement attributeElt = createLayoutAttribute(elt, attributes);
+                    if (attributeElt == null) {
+                        // Treat this as a LayoutComponent "option" instead of "attribute"
+                        final LayoutComponent component = getOptionComponent(elt);
+                        return new ValueFrame(attributes) {
+                            @Override
+                            void end() {
+                                addOption(component, _attributes, getValue());
+                            }
+                        };
+                    }
+                    return new LayoutFrame(name, elt, attributeElt);
+                }
+                return null;
+            }
+
+            @Override
+            void end() {
+                if (_parent != null) {
+                    _parent.addChildLayoutElement(_element);
+                }
+            }
+
+            String _name = null;
+            LayoutElement _parent = null;
+            LayoutElement _element = null;
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles the children of a {@link LayoutElement}, see
+         * {@link #addChildLayoutElements(LayoutElement, Node)}.
+         * </p>
+         */
+        private class LayoutFrame extends ElementFrame {
+            LayoutFrame(String name, LayoutElement parent, LayoutElement element) {
+                super(name, parent, element);
+            }
+
+            @Override
+            Frame startChild(String name, Map<String, String> attributes) {
+                if (name.equalsIgnoreCase(IF_ELEMENT)) {
+                    return new LayoutFrame(name, _element, createLayoutIf(_element, attributes));
+                } else if (name.equalsIgnoreCase(FOREACH_ELEMENT)) {
+                    return new LayoutFrame(name, _element, createLayoutForEach(_element, attributes));
+                } else if (name.equalsIgnoreCase(WHILE_ELEMENT)) {
+                    return new LayoutFrame(name, _element, createLayoutWhile(_element, attributes));
+                }
+                Frame frame = startChild(_element, name, attributes);
+                if (frame == null) {
+                    throw new RuntimeException("Unknown Element Found: '" + name + "' under '" + _name + "'.");
+                }
+                return frame;
+            }
+        }
+
+        /**
+         * <p>
+         * This <code>Frame</code> handles the children of a {@link LayoutComponent}, see
+         * {@link #addChildLayoutComponentChildren(LayoutComponent, Node)}.
+         * </p>
+         */
+        private class ComponentFrame extends ElementFrame {
+            ComponentFrame(String name, LayoutElement parent, LayoutElement element, LayoutComponent component) {
+                super(name, parent, element);
+                _component = component;
+            }
+
+            @Override
+            Frame startChild(String name, Map<String, String> attributes) {
+                if (name.equalsIgnoreCase(OPTION_ELEMENT)) {
+                    return new ValueFrame(attributes) {
+                        @Override
+                        void end() {
+                            addOption(_component, _attributes, getValue());
+                        }
+                    };
+                }
+                Frame frame = startChild(_component, name, attributes);
+                if (frame == null) {
+                    throw new RuntimeException("Unknown Element Found: '" + name + "' under '<" + COMPONENT_ELEMENT + " id=\""
+                            + _component.getUnevaluatedId() + "\"...'.");
+                }
+                return frame;
+            }
+
+            private LayoutComponent _component = null;
+        }
+    }
+
     //////////////////////////////////////////////////////////////////////
     // Constants
     //////////////////////////////////////////////////////////////////////
@@ -1405,4 +2131,39 @@ public class XMLLayoutDefinitionReader {
 
     private Map<String, HandlerDefinition> _handlerDefs = new HashMap<>();
     private int _markupCount = 1;
+
+    /**
+     * <p>
+     * The <code>DocumentBuilderFactory</code> used by {@link #readDocument()}.
+     * </p>
+     */
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+
+    /**
+     * <p>
+     * The <code>SAXParserFactory</code> used by {@link #read()}, configured like {@link #DOCUMENT_BUILDER_FACTORY}.
+     * </p>
+     */
+    private static final SAXParserFactory SAX_PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    /**
+     * <p>
+     * <code>SAXParser</code>s which are not in use, at most one per processor is kept.
+     * </p>
+     */
+    private static final BlockingQueue<SAXParser> SAX_PARSERS = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    static {
+        DOCUMENT_BUILDER_FACTORY.setNamespaceAware(true);
+        DOCUMENT_BUILDER_FACTORY.setValidating(true);
+        DOCUMENT_BUILDER_FACTORY.setIgnoringComments(true);
+        DOCUMENT_BUILDER_FACTORY.setIgnoringElementContentWhitespace(false);
+        DOCUMENT_BUILDER_FACTORY.setCoalescing(false);
+        // The opposite of creating entity ref nodes is expanding inline
+        DOCUMENT_BUILDER_FACTORY.setExpandEntityReferences(true);
+
+        // SAX always expands entities and skips comments
+        SAX_PARSER_FACTORY.setNamespaceAware(true);
+        SAX_PARSER_FACTORY.setValidating(true);
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.renderer;
+
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.jsftemplating.util.EncodedOutput;
+import com.sun.jsftemplating.util.EncodedResponseWriter;
+
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+import jakarta.faces.render.RenderKit;
+import jakarta.faces.render.RenderKitFactory;
+import jakarta.faces.render.RenderKitWrapper;
+
+/**
+ * <p>
+ * This <code>RenderKitFactory</code> wraps each <code>RenderKit</code> so that a <code>ResponseWriter</code> created
+ * for an {@link EncodedResponseWriter.Output} is an {@link EncodedResponseWriter}. This lets constant text be written
+ * as pre-encoded bytes (see {@link EncodedOutput}). Other <code>Writer</code>s get the <code>RenderKit</code>'s
+ * <code>ResponseWriter</code> unchanged. It is registered in <code>faces-config.xml</code>.
+ * </p>
+ */
+public class EncodedOutputRenderKitFactory extends RenderKitFactory {
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param wrapped The <code>RenderKitFactory</code> to decorate.
+     */
+    public EncodedOutputRenderKitFactory(RenderKitFactory wrapped) {
+        super(wrapped);
+    }
+
+    @Override
+    public void addRenderKit(String renderKitId, RenderKit renderKit) {
+        getWrapped().addRenderKit(renderKitId, renderKit);
+    }
+
+    /**
+     * <p>
+     * This method returns the wrapped factory's <code>RenderKit</code>, decorated so its <code>ResponseWriter</code>s
+     * support {@link EncodedOutput}.
+     * </p>
+     */
+    @Override
+    public RenderKit getRenderKit(FacesContext context, String renderKitId) {
+        RenderKit renderKit = getWrapped().getRenderKit(context, renderKitId);
+        if (renderKit == null) {
+            return null;
+        }
+        EncodedOutputRenderKit result = _renderKits.get(renderKitId);
+        if (result == null || result.getWrapped() != renderKit) {
+            result = new EncodedOutputRenderKit(renderKit);
+            _renderKits.put(renderKitId, result);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<String> getRenderKitIds() {
+        return getWrapped().getRenderKitIds();
+    }
+
+    /**
+     * <p>
+     * This <code>RenderKit</code> creates {@link EncodedResponseWriter}s for {@link EncodedResponseWriter.Output}s.
+     * </p>
+     */
+    static class EncodedOutputRenderKit extends RenderKitWrapper {
+
+        EncodedOutputRenderKit(RenderKit wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        public ResponseWriter createResponseWriter(Writer writer, String contentTypeList, String characterEncoding) {
+            ResponseWriter responseWriter = getWrapped().createResponseWriter(writer, contentTypeList, characterEncoding);
+            if (writer instanceof EncodedResponseWriter.Output && !(responseWriter instanceof EncodedOutput)) {
+                responseWriter = new EncodedResponseWriter(responseWriter, (EncodedResponseWriter.Output) writer);
+            }
+            return responseWriter;
+        }
+    }
+
+    /**
+     * <p>
+     * The decorated <code>RenderKit</code>s by id.
+     * </p>
+     */
+    private final Map<String, EncodedOutputRenderKit> _renderKits = new ConcurrentHashMap<String, EncodedOutputRenderKit>();
+}
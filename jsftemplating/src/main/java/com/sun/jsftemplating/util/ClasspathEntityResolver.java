@@ -16,11 +16,18 @@
 
 package com.sun.jsftemplating.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.xml.sax.InputSource;
 import org.xml.sax.ext.EntityResolver2;
@@ -58,114 +65,252 @@ public class ClasspathEntityResolver implements EntityResolver2 {
     }
 
     /**
-     *
+     * <p>
+     * This method returns an <code>InputSource</code> for the content of the requested entity, or null to use the
+     * default behaviour. Found entities are cached by their public and system id (see {@link #clearCache()}), so each one
+     * is only looked up and read once; the cached content is read again if its file has changed.
+     * </p>
      */
     @Override
     public InputSource resolveEntity(String name, String publicId, String baseURI, String systemId) {
         if (systemId != null) {
-            if (baseURI != null) {
-                if (systemId.startsWith(baseURI)) {
-                    systemId = systemId.substring(baseURI.length());
+            Object ctx = getContext();
+            Map<String, Entity> cache = getCache(ctx);
+            String key = publicId + '\n' + baseURI + '\n' + systemId;
+            Entity entity = cache.get(key);
+            if (entity == null || !entity.isCurrent()) {
+                entity = findEntity(ctx, baseURI, systemId);
+                if (entity == null) {
+                    if (LogUtil.configEnabled(LOGGER_NAME)) {
+                        LogUtil.config(LOGGER_NAME, "Unable to resolve entity." + "\n\tsystemId: '" + systemId + "'\n\tbaseURI: '" + baseURI
+                                + "'\n\tpublicId: '" + publicId + "'\n\tname: '" + name + "'");
+                    }
+
+                    // use the default behaviour
+                    return null;
                 }
+                cache.put(key, entity);
             }
-            int idx = systemId.indexOf(':');
-            if (idx != -1) {
-                // remove "file:/", "jndi:/", etc
-                systemId = systemId.substring(idx + 1);
+
+            // Found, return an InputSource to the content
+            return new InputSource(new ByteArrayInputStream(entity._content));
+        }
+
+        // use the default behaviour
+        return null;
+    }
+
+    /**
+     * <p>
+     * This method looks for the given entity in the context root, relative to the baseURI, and in the class path (in that
+     * order). It returns <code>null</code> if it is not found.
+     * </p>
+     */
+    private Entity findEntity(Object ctx, String baseURI, String systemId) {
+        if (baseURI != null) {
+            if (systemId.startsWith(baseURI)) {
+                systemId = systemId.substring(baseURI.length());
             }
+        }
+        int idx = systemId.indexOf(':');
+        if (idx != -1) {
+            // remove "file:/", "jndi:/", etc
+            systemId = systemId.substring(idx + 1);
+        }
 
-            // Remove any extra leading /'s
-            while (systemId.startsWith("/")) {
-                // String of leading '/'
-                systemId = systemId.substring(1);
+        // Remove any extra leading /'s
+        while (systemId.startsWith("/")) {
+            // String of leading '/'
+            systemId = systemId.substring(1);
+        }
+
+        // We should first check to see if it is in the context root,
+        // avoid using Servlet API's so this code can work outside a
+        // Servlet container.
+        Entity entity = null;
+        if (ctx != null) {
+            try {
+                // Get the resource using the ServletContext/PortletContext
+                Method meth = ctx.getClass().getMethod("getResource", STRING_ARG);
+                // The path must start w/ a '/'
+                entity = Entity.read((URL) meth.invoke(ctx, "/" + systemId));
+            } catch (NoSuchMethodException ex) {
+                throw new RuntimeException(ex);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            } catch (InvocationTargetException ex) {
+                throw new RuntimeException(ex);
             }
+        }
 
-            // We should first check to see if it is in the context root,
-            // avoid using Servlet API's so this code can work outside a
-            // Servlet container.
-            InputStream stream = null;
-            URL url = null;
-            if (FACES_CONTEXT != null) {
-                try {
-                    // The following will work w/ ServletContext/PortletContext
-                    // Get the FacesContext...
-                    Method meth = FACES_CONTEXT.getMethod("getCurrentInstance", (Class[]) null);
-                    Object ctx = meth.invoke((Object) null, (Object[]) null);
-
-                    if (ctx != null) {
-                        // Get the ExternalContext...
-                        meth = ctx.getClass().getMethod("getExternalContext", (Class[]) null);
-                        ctx = meth.invoke(ctx, (Object[]) null);
-
-                        // Get actual underlying external context...
-                        meth = ctx.getClass().getMethod("getContext", (Class[]) null);
-                        ctx = meth.invoke(ctx, (Object[]) null);
-
-                        // Get the resource using the ServletContext/PortletContext
-                        meth = ctx.getClass().getMethod("getResource", STRING_ARG);
-                        // The path must start w/ a '/'
-                        url = (URL) meth.invoke(ctx, "/" + systemId);
-                        if (url != null) {
-                            stream = url.openStream();
-                        }
+        // First check to see if we can load this via a file:/// path,
+        // even though this may work via the default... depending on how
+        // the uri is constructed, it may not be able to locate it
+        // correctly this way. We will give higher priority to
+        // file:/// than finding it in the ClassPath.
+        if (entity == null) {
+            try {
+                entity = Entity.read(new URL(baseURI + "/" + systemId));
+            } catch (MalformedURLException ex) {
+                // Ignore... we will check the ClassPath
+            }
+
+            if (entity == null) {
+                // Ok, we tried... now check the Classpath...
+                // Get the ClassLoader
+                ClassLoader loader = Util.getClassLoader(systemId);
+
+                // Attempt to find the resource via the ClassPath
+                entity = Entity.read(loader.getResource(systemId));
+                if (entity == null) {
+                    // Try adding a '/'
+                    entity = Entity.read(loader.getResource("/" + systemId));
+                    if (entity == null) {
+                        // Try in the META-INF directory
+                        entity = Entity.read(loader.getResource("META-INF/" + systemId));
                     }
-                } catch (NoSuchMethodException ex) {
-                    throw new RuntimeException(ex);
-                } catch (IllegalAccessException ex) {
-                    throw new RuntimeException(ex);
-                } catch (InvocationTargetException ex) {
-                    throw new RuntimeException(ex);
-                } catch (IOException ex) {
-                    // Ignore... we will check other places
                 }
             }
+        }
+        return entity;
+    }
 
-            // First check to see if we can load this via a file:/// path,
-            // even though this may work via the default... depending on how
-            // the uri is constructed, it may not be able to locate it
-            // correctly this way. We will give higher priority to
-            // file:/// than finding it in the ClassPath.
-            if (stream == null) {
-                try {
-                    stream = new URL(baseURI + "/" + systemId).openStream();
-                } catch (IOException ex) {
-                    // Ignore... we will check the ClassPath
-                }
+    /**
+     * <p>
+     * This method returns the underlying ServletContext/PortletContext of the current <code>FacesContext</code>, or
+     * <code>null</code> if there is none.
+     * </p>
+     */
+    private static Object getContext() {
+        if (GET_CURRENT_INSTANCE == null) {
+            return null;
+        }
+        try {
+            // The following will work w/ ServletContext/PortletContext
+            // Get the FacesContext...
+            Object ctx = GET_CURRENT_INSTANCE.invoke((Object) null, (Object[]) null);
+            if (ctx == null) {
+                return null;
+            }
+
+            // Get the ExternalContext...
+            ctx = GET_EXTERNAL_CONTEXT.invoke(ctx, (Object[]) null);
 
-                if (stream == null) {
-                    // Ok, we tried... now check the Classpath...
-                    // Get the ClassLoader
-                    ClassLoader loader = Util.getClassLoader(systemId);
-
-                    // Attempt to find the resource via the ClassPath
-                    stream = loader.getResourceAsStream(systemId);
-                    if (stream == null) {
-                        // Try adding a '/'
-                        stream = loader.getResourceAsStream("/" + systemId);
-                        if (stream == null) {
-                            // Try in the META-INF directory
-                            stream = loader.getResourceAsStream("META-INF/" + systemId);
-                        }
+            // Get actual underlying external context...
+            return GET_CONTEXT.invoke(ctx, (Object[]) null);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        } catch (InvocationTargetException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the cache of entities found for the given ServletContext/PortletContext (which may be
+     * <code>null</code>). Entities found in the context root of one application should not be used by another.
+     * </p>
+     */
+    private static Map<String, Entity> getCache(Object ctx) {
+        synchronized (CACHES) {
+            Map<String, Entity> cache = CACHES.get(ctx);
+            if (cache == null) {
+                cache = new ConcurrentHashMap<>();
+                CACHES.put(ctx, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * <p>
+     * This method forgets all cached entities.
+     * </p>
+     */
+    public static void clearCache() {
+        synchronized (CACHES) {
+            CACHES.clear();
+        }
+    }
+
+    /**
+     * <p>
+     * This class holds the content of an entity, along with the last modified time and size of the file it was read from
+     * (if it can be determined).
+     * </p>
+     */
+    private static final class Entity {
+        private Entity(byte[] content, URL url, long[] stamp) {
+            _content = content;
+            _url = url;
+            _stamp = stamp;
+        }
+
+        /**
+         * <p>
+         * This method reads the entity at the given <code>URL</code>. It returns <code>null</code> if the
+         * <code>URL</code> is <code>null</code> or can't be read.
+         * </p>
+         */
+        static Entity read(URL url) {
+            if (url == null) {
+                return null;
+            }
+            try {
+                long[] stamp = FileUtil.getStamp(url);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                InputStream stream = url.openStream();
+                try {
+                    byte[] buf = new byte[8192];
+                    int count;
+                    while ((count = stream.read(buf)) != -1) {
+                        out.write(buf, 0, count);
                     }
+                } finally {
+                    stream.close();
                 }
+                return new Entity(out.toByteArray(), url, stamp);
+            } catch (IOException ex) {
+                // Ignore... we will check other places
+                return null;
             }
+        }
 
-            if (stream != null) {
-                // Found, return an InputSource to the resource
-                return new InputSource(stream);
+        /**
+         * <p>
+         * This method returns <code>true</code> unless the file has changed since it was read.
+         * </p>
+         */
+        boolean isCurrent() {
+            if (_stamp == null) {
+                // Changes can't be detected, see clearCache()
+                return true;
             }
-            if (LogUtil.configEnabled(LOGGER_NAME)) {
-                LogUtil.config(LOGGER_NAME, "Unable to resolve entity." + "\n\tsystemId: '" + systemId + "'\n\tbaseURI: '" + baseURI + "'\n\tpublicId: '"
-                        + publicId + "'\n\tname: '" + name + "'");
+            try {
+                return Arrays.equals(_stamp, FileUtil.getStamp(_url));
+            } catch (IOException ex) {
+                return false;
             }
         }
 
-        // use the default behaviour
-        return null;
+        private final byte[] _content;
+        private final URL _url;
+        private final long[] _stamp;
     }
 
     public static final String LOGGER_NAME = "javax.enterpise.system.tools.admin.guiframework";
 
     private static final Class[] STRING_ARG = new Class[] { String.class };
     private static final Class FACES_CONTEXT = Util.noExceptionLoadClass("jakarta.faces.context.FacesContext");
+    private static final Method GET_CURRENT_INSTANCE = (FACES_CONTEXT == null) ? null : Util.getMethod(FACES_CONTEXT, "getCurrentInstance");
+    private static final Method GET_EXTERNAL_CONTEXT = (FACES_CONTEXT == null) ? null : Util.getMethod(FACES_CONTEXT, "getExternalContext");
+    private static final Method GET_CONTEXT = (FACES_CONTEXT == null) ? null
+            : Util.getMethod(Util.noExceptionLoadClass("jakarta.faces.context.ExternalContext"), "getContext");
+
+    /**
+     * <p>
+     * The cached entities of each ServletContext/PortletContext, weakly referenced so they are dropped with it.
+     * </p>
+     */
+    private static final Map<Object, Map<String, Entity>> CACHES = new WeakHashMap<>();
 }
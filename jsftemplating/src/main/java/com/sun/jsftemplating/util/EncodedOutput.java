@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * This interface may be implemented by a <code>ResponseWriter</code> which can write bytes that are already encoded in
+ * its character encoding. Constant text (see <code>LayoutStaticText</code>) is then encoded once and written as bytes,
+ * rather than being encoded on every request. The bytes must be written after any characters written so far, e.g. by
+ * flushing the characters first.
+ * </p>
+ */
+public interface EncodedOutput {
+
+    /**
+     * <p>
+     * This method returns the character encoding bytes passed to {@link #write(byte[], int, int)} must use, or
+     * <code>null</code> if bytes can't be written. The bytes go to the underlying stream, so this is the encoding of
+     * that stream, which is not necessarily <code>ResponseWriter.getCharacterEncoding()</code>.
+     * </p>
+     */
+    String getOutputEncoding();
+
+    /**
+     * <p>
+     * This method writes the given bytes, which are encoded in the {@link #getOutputEncoding()}.
+     * </p>
+     *
+     * @param bytes The encoded bytes.
+     * @param off The offset of the first byte to write.
+     * @param len The number of bytes to write.
+     */
+    void write(byte[] bytes, int off, int len) throws IOException;
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.context.ResponseWriter;
+import jakarta.faces.context.ResponseWriterWrapper;
+
+/**
+ * <p>
+ * This <code>ResponseWriter</code> implements {@link EncodedOutput} by writing bytes directly to the response
+ * <code>OutputStream</code>. It wraps a <code>ResponseWriter</code> whose <code>Writer</code> is an {@link Output},
+ * which gives access to the stream beneath the character encoder. Before any bytes are written, the wrapped
+ * <code>ResponseWriter</code> is flushed so pending output (such as the end of a start tag) comes first. This flush only
+ * drains the character encoder, the response itself is not flushed. It is skipped when nothing was written since the
+ * last bytes, so adjacent constant text doesn't pay for it.
+ * </p>
+ *
+ * <p>
+ * A <code>ResponseWriter</code> may hold back the content of some elements, e.g. Mojarra buffers
+ * <code>&lt;script&gt;</code> and <code>&lt;style&gt;</code> bodies until the element ends. Bytes written directly to
+ * the stream would come out before that content. So inside these elements and CDATA sections no bytes are offered
+ * ({@link #getOutputEncoding()} returns <code>null</code>), and bytes written anyway are passed on as characters.
+ * </p>
+ *
+ * <p>
+ * Instances are normally created by the <code>EncodedOutputRenderKitFactory</code> when a <code>ResponseWriter</code>
+ * is created for an {@link Output}.
+ * </p>
+ */
+public class EncodedResponseWriter extends ResponseWriterWrapper implements EncodedOutput {
+
+    /**
+     * <p>
+     * Constructor.
+     * </p>
+     *
+     * @param wrapped The <code>ResponseWriter</code> which writes to <code>output</code>.
+     * @param output The {@link Output} <code>wrapped</code> writes to.
+     */
+    public EncodedResponseWriter(ResponseWriter wrapped, Output output) {
+        super(wrapped);
+        _output = output;
+    }
+
+    /**
+     * <p>
+     * This method returns the encoding of the {@link Output}, or <code>null</code> if the wrapped
+     * <code>ResponseWriter</code> reports a different character encoding. In that case the writer may be translating
+     * characters itself, so bytes are not written. It also returns <code>null</code> while the wrapped
+     * <code>ResponseWriter</code> may be buffering (see above).
+     * </p>
+     */
+    @Override
+    public String getOutputEncoding() {
+        if (_buffered > 0) {
+            return null;
+        }
+        String encoding = getWrapped().getCharacterEncoding();
+        if (encoding == null) {
+            return null;
+        }
+        if (!encoding.equals(_checkedEncoding)) {
+            boolean same = false;
+            try {
+                same = Charset.forName(encoding).equals(_output.getCharset());
+            } catch (IllegalArgumentException ex) {
+                // Unknown or illegal charset name, don't write bytes
+            }
+            _outputEncoding = same ? encoding : null;
+            _checkedEncoding = encoding;
+        }
+        return _outputEncoding;
+    }
+
+    /**
+     * <p>
+     * This method flushes the wrapped <code>ResponseWriter</code> into the response <code>OutputStream</code> and then
+     * writes the given bytes after it.
+     * </p>
+     *
+     * @param bytes The encoded bytes.
+     * @param off The offset of the first byte to write.
+     * @param len The number of bytes to write.
+     */
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        if (_buffered > 0) {
+            // Keep the order of the ResponseWriter's buffer
+            getWrapped().write(new String(bytes, off, len, _output.getCharset()));
+            return;
+        }
+        _output.write(getWrapped(), bytes, off, len);
+    }
+
+    @Override
+    public void startElement(String name, UIComponent component) throws IOException {
+        getWrapped().startElement(name, component);
+        if (isBufferedElement(name)) {
+            _buffered++;
+        }
+    }
+
+    @Override
+    public void endElement(String name) throws IOException {
+        getWrapped().endElement(name);
+        if (_buffered > 0 && isBufferedElement(name)) {
+            _buffered--;
+        }
+    }
+
+    @Override
+    public void startCDATA() throws IOException {
+        getWrapped().startCDATA();
+        _buffered++;
+    }
+
+    @Override
+    public void endCDATA() throws IOException {
+        getWrapped().endCDATA();
+        if (_buffered > 0) {
+            _buffered--;
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns <code>true</code> for elements whose content a <code>ResponseWriter</code> may buffer.
+     * </p>
+     */
+    private static boolean isBufferedElement(String name) {
+        return "script".equalsIgnoreCase(name) || "style".equalsIgnoreCase(name);
+    }
+
+    /**
+     * <p>
+     * This <code>Writer</code> encodes characters to a response <code>OutputStream</code> while also allowing bytes to
+     * be written to that stream. Pass it to <code>RenderKit.createResponseWriter()</code> to get an
+     * {@link EncodedResponseWriter}.
+     * </p>
+     */
+    public static class Output extends OutputStreamWriter {
+
+        /**
+         * <p>
+         * Constructor.
+         * </p>
+         *
+         * @param stream The response <code>OutputStream</code>.
+         * @param encoding The character encoding.
+         */
+        public Output(OutputStream stream, String encoding) throws UnsupportedEncodingException {
+            this(new ResponseStream(stream), encoding);
+        }
+
+        /**
+         * <p>
+         * This constructor keeps a reference to the {@link ResponseStream} the encoder writes to.
+         * </p>
+         */
+        private Output(ResponseStream stream, String encoding) throws UnsupportedEncodingException {
+            super(stream, encoding);
+            _stream = stream;
+            _charset = Charset.forName(encoding);
+        }
+
+        /**
+         * <p>
+         * This method returns the <code>Charset</code> characters are encoded with.
+         * </p>
+         */
+        public Charset getCharset() {
+            return _charset;
+        }
+
+        /**
+         * <p>
+         * This method flushes <code>writer</code>, which must write to this <code>Output</code>, and the encoder so that
+         * everything written so far is encoded, then writes the given bytes. The <code>OutputStream</code> is not
+         * flushed. If no characters were written since the last bytes, nothing needs to be flushed.
+         * </p>
+         */
+        void write(ResponseWriter writer, byte[] bytes, int off, int len) throws IOException {
+            if (_pending) {
+                _stream._holdFlush = true;
+                try {
+                    // Closes any open start tag, the ResponseWriter may not flush its Writer
+                    writer.flush();
+                    flush();
+                } finally {
+                    _stream._holdFlush = false;
+                }
+                _pending = false;
+            }
+            _stream.write(bytes, off, len);
+        }
+
+        @Override
+        public void write(int ch) throws IOException {
+            _pending = true;
+            super.write(ch);
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            _pending = true;
+            super.write(chars, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            _pending = true;
+            super.write(str, off, len);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            // Newer JDKs don't implement this with write()
+            _pending = true;
+            return super.append(csq);
+        }
+
+        @Override
+        public Writer append(CharSequence csq, int start, int end) throws IOException {
+            _pending = true;
+            return super.append(csq, start, end);
+        }
+
+        private final ResponseStream _stream;
+        private final Charset _charset;
+
+        /**
+         * <p>
+         * This is <code>true</code> when characters were written since the last bytes.
+         * </p>
+         */
+        private boolean _pending = true;
+    }
+
+    /**
+     * <p>
+     * This passes writes to the response <code>OutputStream</code>, but ignores flushes while bytes are being written so
+     * an {@link EncodedOutput#write(byte[], int, int)} doesn't flush the response each time.
+     * </p>
+     */
+    private static class ResponseStream extends FilterOutputStream {
+
+        ResponseStream(OutputStream stream) {
+            super(stream);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            // FilterOutputStream would write one byte at a time
+            out.write(bytes, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!_holdFlush) {
+                super.flush();
+            }
+        }
+
+        private boolean _holdFlush = false;
+    }
+
+    private final Output _output;
+
+    /**
+     * <p>
+     * The number of open elements and CDATA sections the wrapped <code>ResponseWriter</code> may be buffering.
+     * </p>
+     */
+    private int _buffered = 0;
+    private String _checkedEncoding = null;
+    private String _outputEncoding = null;
+}
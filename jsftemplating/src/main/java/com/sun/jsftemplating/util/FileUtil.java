@@ -21,17 +21,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import com.sun.jsftemplating.layout.LayoutDefinitionException;
+import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.layout.LayoutDefinitionWatcher;
 
 import jakarta.faces.component.UIViewRoot;
 import jakarta.faces.context.ExternalContext;
@@ -121,6 +127,20 @@ public class FileUtil {
      * path using a default suffix.
      */
     public static URL searchForFile(String path, String defSuff) throws IOException {
+        URL url = findFile(path, defSuff);
+        if (url != null) {
+            // Let a LayoutDefinitionWatcher know what was read
+            LayoutDefinitionWatcher.fileFound(url);
+        }
+        return url;
+    }
+
+    /**
+     * <p>
+     * This method implements {@link #searchForFile(String, String)}.
+     * </p>
+     */
+    private static URL findFile(String path, String defSuff) throws IOException {
         // Remove leading '/' characters if needed
         boolean absolutePath = false;
         String newPath = path;
@@ -184,12 +204,22 @@ public class FileUtil {
             }
 
             String absPath = getAbsolutePath(ctx, newPath);
-            url = searchForFile(absPath, defSuff);
+            url = findFile(absPath, defSuff);
 
             // We're done, don't search anymore even if not found
             return url;
         }
 
+        // Check to see if we recently searched for this and didn't find it
+        NotFoundCache notFound = getNotFoundCache(ctx);
+        String notFoundKey = null;
+        if (notFound != null) {
+            notFoundKey = defSuff == null ? newPath : newPath + '\n' + defSuff;
+            if (notFound.contains(notFoundKey)) {
+                return null;
+            }
+        }
+
         // Check for file in docroot.
         url = getResource(newPath);
         if (url == null) {
@@ -212,10 +242,18 @@ public class FileUtil {
                         if (idx != -1) {
                             String ext = path.substring(idx);
                             if (!ext.equalsIgnoreCase(defSuff)) {
-                                return searchForFile(path.substring(0, idx) + defSuff, null);
+                                url = findFile(path.substring(0, idx) + defSuff, null);
+                                if (url == null && notFound != null) {
+                                    notFound.add(notFoundKey);
+                                }
+                                return url;
                             }
                         } else {
-                            return searchForFile(path + defSuff, null);
+                            url = findFile(path + defSuff, null);
+                            if (url == null && notFound != null) {
+                                notFound.add(notFoundKey);
+                            }
+                            return url;
                         }
                     }
                 }
@@ -225,6 +263,9 @@ public class FileUtil {
         if (url != null && filesFound != null) {
             // Cache what we found -- each LDM calls this method, help them...
             filesFound.put(newPath, url);
+        } else if (url == null && notFound != null) {
+            // Remember that we didn't find it
+            notFound.add(notFoundKey);
         }
 
         // Return a url to the file (hopefully)...
@@ -403,6 +444,156 @@ public class FileUtil {
         return filesFound;
     }
 
+    /**
+     * <p>
+     * This method returns the application scoped {@link NotFoundCache}, or <code>null</code> if paths which are not found
+     * should not be remembered.
+     * </p>
+     */
+    private static NotFoundCache getNotFoundCache(FacesContext ctx) {
+        if (ctx == null || LayoutDefinitionManager.isDebug(ctx)) {
+            return null;
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        NotFoundCache cache = (NotFoundCache) appMap.get(NOT_FOUND_KEY);
+        if (cache == null) {
+            synchronized (NotFoundCache.class) {
+                cache = (NotFoundCache) appMap.get(NOT_FOUND_KEY);
+                if (cache == null) {
+                    long ttl = DEFAULT_NOT_FOUND_TTL;
+                    String value = ctx.getExternalContext().getInitParameter(NOT_FOUND_TTL);
+                    if (value != null) {
+                        try {
+                            ttl = Long.parseLong(value.trim());
+                        } catch (NumberFormatException ex) {
+                            throw new IllegalArgumentException("Invalid value for '" + NOT_FOUND_TTL + "': '" + value + "'.", ex);
+                        }
+                    }
+                    cache = new NotFoundCache(ttl * 1000000000L);
+                    appMap.put(NOT_FOUND_KEY, cache);
+                }
+            }
+        }
+        return cache.isEnabled() ? cache : null;
+    }
+
+    /**
+     * <p>
+     * This method forgets all paths which were recently not found by {@link #searchForFile(String, String)}. It should be
+     * called when files are added to the application.
+     * </p>
+     */
+    public static void clearNotFoundCache(FacesContext ctx) {
+        if (ctx == null) {
+            ctx = FacesContext.getCurrentInstance();
+        }
+        if (ctx != null) {
+            clearNotFoundCache(ctx.getExternalContext().getApplicationMap());
+        }
+    }
+
+    /**
+     * <p>
+     * This method forgets all paths which were recently not found by {@link #searchForFile(String, String)} in the given
+     * application scope <code>Map</code>. It may be used when there is no <code>FacesContext</code>.
+     * </p>
+     */
+    public static void clearNotFoundCache(Map<String, Object> appMap) {
+        NotFoundCache cache = (NotFoundCache) appMap.get(NOT_FOUND_KEY);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * <p>
+     * This method returns the last modified time and size of the given file or jar entry, or <code>null</code> if it can't
+     * be determined.
+     * </p>
+     */
+    public static long[] getStamp(URL url) throws IOException {
+        String protocol = url.getProtocol();
+        if ("file".equals(protocol)) {
+            File file = null;
+            try {
+                file = new File(url.toURI());
+            } catch (Exception ex) {
+                return null;
+            }
+            return file.isFile() ? new long[] {file.lastModified(), file.length()} : null;
+        }
+        if ("jar".equals(protocol)) {
+            URLConnection conn = url.openConnection();
+            if (conn instanceof JarURLConnection) {
+                JarEntry entry = ((JarURLConnection) conn).getJarEntry();
+                return entry == null ? null : new long[] {entry.getTime(), entry.getSize()};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * This class remembers paths that were not found, each for a limited time.
+     * </p>
+     */
+    private static final class NotFoundCache {
+        NotFoundCache(long ttl) {
+            _ttl = ttl;
+        }
+
+        boolean isEnabled() {
+            return _ttl > 0;
+        }
+
+        boolean contains(String key) {
+            Long expires = _entries.get(key);
+            if (expires == null) {
+                return false;
+            }
+            if (System.nanoTime() - expires < 0) {
+                return true;
+            }
+            _entries.remove(key, expires);
+            return false;
+        }
+
+        void add(String key) {
+            long now = System.nanoTime();
+            if (_entries.size() >= MAX_NOT_FOUND) {
+                // Make room by removing expired entries
+                Iterator<Long> it = _entries.values().iterator();
+                while (it.hasNext()) {
+                    if (now - it.next() >= 0) {
+                        it.remove();
+                    }
+                }
+                if (_entries.size() >= MAX_NOT_FOUND) {
+                    return;
+                }
+            }
+            _entries.put(key, now + _ttl);
+        }
+
+        void clear() {
+            _entries.clear();
+        }
+
+        private final long _ttl;
+        private final Map<String, Long> _entries = new ConcurrentHashMap<>(64, 0.75f, 2);
+    }
+
+    /**
+     * <p>
+     * This is the name of the initParameter used to set the number of seconds a path which was not found by
+     * {@link #searchForFile(String, String)} is remembered (default 30). A value of 0 disables this.
+     * </p>
+     */
+    public static final String NOT_FOUND_TTL = "com.sun.jsftemplating.NOT_FOUND_TTL";
+
+    private static final long DEFAULT_NOT_FOUND_TTL = 30;
+    private static final int MAX_NOT_FOUND = 4096;
+    private static final String NOT_FOUND_KEY = "__jsft_filesNotFound";
     private static final String FILES_FOUND = "_filesFoundThisRequest";
     private static final Class[] REALPATH_ARGS = new Class[] { String.class };
     private static final Class[] GET_RES_ARGS = new Class[] { String.class };
@@ -17,12 +17,23 @@
 package com.sun.jsftemplating.util;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import com.sun.jsftemplating.layout.LayoutDefinitionWatcher;
+
+import jakarta.faces.context.FacesContext;
 
 /**
  * <p>
@@ -31,6 +42,12 @@ import java.net.URL;
  * beginning with '#' is illegal.
  * </p>
  *
+ * <p>
+ * The input is read and scanned a block at a time. Included files are read completely (including their own includes)
+ * and, unless in debug mode, cached in application scope by filename. A cached include is used as long as none of the
+ * files it was read from have changed. An included file which can't be found is left out.
+ * </p>
+ *
  * @author Ken Paulsen (ken.paulsen@sun.com)
  */
 public class IncludeInputStream extends FilterInputStream {
@@ -41,7 +58,17 @@ public class IncludeInputStream extends FilterInputStream {
      * </p>
      */
     public IncludeInputStream(InputStream input) {
+        this(input, null);
+    }
+
+    /**
+     * <p>
+     * This constructor records the <code>URL</code> of each file included by this stream in the given <code>Set</code>.
+     * </p>
+     */
+    private IncludeInputStream(InputStream input, Set<URL> sources) {
         super(input);
+        _sources = sources;
     }
 
     /**
@@ -53,38 +80,10 @@ public class IncludeInputStream extends FilterInputStream {
      */
     @Override
     public int read() throws IOException {
-        int intChar = -1;
-        if (redirStream != null) {
-            // We are already redirecting, delegate
-            intChar = redirStream.read();
-            if (intChar != -1) {
-                return intChar;
-            }
-
-            // Found end of redirect file, stop delegating
-            redirStream = null;
-        }
-
-        // Read next character
-        intChar = super.read();
-        char ch = (char) intChar;
-
-        // If we were at the end of the line, check for new line w/ #
-        if (eol) {
-            // Check to see if we have a '#'
-            if (ch == '#') {
-                intChar = startInclude();
-            } else {
-                eol = false;
-            }
-        }
-
-        // Flag EOL if we're at the end of a line
-        if (ch == 0x0A || ch == 0x0D) {
-            eol = true;
+        if (read(_one, 0, 1) == -1) {
+            return -1;
         }
-
-        return intChar;
+        return _one[0] & 0xFF;
     }
 
     @Override
@@ -97,6 +96,21 @@ public class IncludeInputStream extends FilterInputStream {
         return false;
     }
 
+    @Override
+    public long skip(long num) throws IOException {
+        // Skipped bytes must be scanned for includes too
+        long skipped = 0;
+        byte[] bytes = new byte[(int) Math.min(num, BUFFER_SIZE)];
+        while (skipped < num) {
+            int count = read(bytes, 0, (int) Math.min(num - skipped, bytes.length));
+            if (count == -1) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
     @Override
     public int read(byte[] bytes, int off, int len) throws IOException {
         if (bytes == null) {
@@ -107,84 +121,284 @@ public class IncludeInputStream extends FilterInputStream {
             return 0;
         }
 
-        int c = read();
-        if (c == -1) {
-            return -1;
-        }
-        bytes[off] = (byte) c;
-
-        int i = 1;
-        try {
-            for (; i < len; i++) {
-                c = read();
-                if (c == -1) {
+        int num = 0;
+        while (num < len) {
+            if (_include != null) {
+                // Copy from the included file
+                int count = Math.min(len - num, _include.length - _includePos);
+                System.arraycopy(_include, _includePos, bytes, off + num, count);
+                _includePos += count;
+                num += count;
+                if (_includePos == _include.length) {
+                    _include = null;
+                }
+                continue;
+            }
+            if (_pos == _count) {
+                // Don't block for more input if we have something to return
+                if (num > 0 || !fill()) {
                     break;
                 }
-                if (bytes != null) {
-                    bytes[off + i] = (byte) c;
+            }
+            if (eol && _buf[_pos] == '#') {
+                if (!startInclude()) {
+                    // Not an include, the next character still starts a line
+                    bytes[off + num++] = '#';
+                    _pos++;
+                }
+                continue;
+            }
+
+            // Copy up to the next line beginning w/ '#'
+            int start = _pos;
+            int end = Math.min(_count, _pos + len - num);
+            byte ch;
+            while (_pos < end) {
+                ch = _buf[_pos];
+                if (eol && ch == '#') {
+                    break;
                 }
+                eol = ch == 0x0A || ch == 0x0D;
+                _pos++;
             }
-        } catch (IOException ee) {
-            ee.printStackTrace();
+            System.arraycopy(_buf, start, bytes, off + num, _pos - start);
+            num += _pos - start;
         }
-        return i;
+        return num == 0 ? -1 : num;
     }
 
     /**
-     *
+     * <p>
+     * This method reads more input into the buffer, keeping any unread bytes. It returns <code>false</code> if there is no
+     * more input.
+     * </p>
      */
-    private int startInclude() throws IOException {
-        // Mark this spot in case #include doesn't match
-        mark(MARK_LIMIT);
+    private boolean fill() throws IOException {
+        if (_pos > 0) {
+            System.arraycopy(_buf, _pos, _buf, 0, _count - _pos);
+            _count -= _pos;
+            _pos = 0;
+        }
+        int count = in.read(_buf, _count, _buf.length - _count);
+        if (count <= 0) {
+            return false;
+        }
+        _count += count;
+        return true;
+    }
+
+    /**
+     * <p>
+     * This method returns the next byte of the underlying stream, or -1.
+     * </p>
+     */
+    private int next() throws IOException {
+        if (_pos == _count && !fill()) {
+            return -1;
+        }
+        return _buf[_pos++] & 0xFF;
+    }
+
+    /**
+     * <p>
+     * This method is called with the buffer positioned at a '#' which begins a line. If it begins an "#include" line, the
+     * line is consumed, the included file is found and <code>true</code> is returned. Otherwise nothing is consumed.
+     * </p>
+     */
+    private boolean startInclude() throws IOException {
+        // Make sure "#include" may be checked within the buffer
+        while (_count - _pos <= INCLUDE_LEN && fill()) {
+        }
+        if (_count - _pos <= INCLUDE_LEN) {
+            return false;
+        }
 
         // We have a line beginning w/ '#', verify we have "#include"
-        int ch;
         for (int count = 0; count < INCLUDE_LEN; count++) {
-            // look for include
-            ch = super.read();
-            if (Character.toLowerCase((char) ch) != INCLUDE.charAt(count)) {
-                reset(); // Restore stream position
-                return '#';
+            if (Character.toLowerCase((char) (_buf[_pos + 1 + count] & 0xFF)) != INCLUDE.charAt(count)) {
+                return false;
             }
         }
+        _pos += INCLUDE_LEN + 1;
 
         // Skip whitespace...
-        ch = super.read();
+        int ch = next();
         while (ch == ' ' || ch == '\t') {
-            ch = super.read();
+            ch = next();
         }
 
         // Skip '"' or '\''
         if (ch == '"' || ch == '\'') {
-            ch = super.read();
+            ch = next();
         }
 
         // Read the file name
-        StringBuffer buf = new StringBuffer("");
+        StringBuilder buf = new StringBuilder();
         while (ch != '"' && ch != '\'' && ch != 0x0A && ch != 0x0D && ch != -1) {
             buf.append((char) ch);
-            ch = super.read();
+            ch = next();
         }
 
-        // Skip ending '"' or '\'', if any
+        // Skip ending '"' or '\'', if any (along w/ the character after it)
         if (ch == '"' || ch == '\'') {
-            ch = super.read();
+            next();
         }
 
         // Get the file name...
         String filename = buf.toString();
+        try {
+            _include = getInclude(filename);
+        } catch (FileNotFoundException ex) {
+            // The line is left out quietly, as it always has been when it isn't found
+            if (LogUtil.fineEnabled()) {
+                LogUtil.fine("JSFT0012", (Object) filename);
+            }
+            _include = null;
+        }
+        _includePos = 0;
+        if (_include != null && _include.length == 0) {
+            _include = null;
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * This method returns the content of the given included file, with its own includes replaced.
+     * </p>
+     */
+    private byte[] getInclude(String filename) throws IOException {
+        Map<String, Include> cache = getIncludeCache(FacesContext.getCurrentInstance());
+        if (cache != null) {
+            Include include = cache.get(filename);
+            if (include != null && include.isCurrent()) {
+                for (URL url : include._urls) {
+                    // Tell the watcher about it, as if it were found again
+                    LayoutDefinitionWatcher.fileFound(url);
+                    if (_sources != null) {
+                        _sources.add(url);
+                    }
+                }
+                return include._content;
+            }
+        }
 
         // Look for the file
         URL url = FileUtil.searchForFile(filename, null);
-        if (url != null) {
-            redirStream = new IncludeInputStream(new BufferedInputStream(url.openStream()));
-        } else {
+        if (url == null) {
             // Throw a FnF exception...
             throw new FileNotFoundException(filename);
         }
 
-        // Read the first character from the file to return
-        return redirStream.read();
+        // Read the whole file...
+        Set<URL> urls = new LinkedHashSet<>();
+        urls.add(url);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+        InputStream stream = new IncludeInputStream(new BufferedInputStream(url.openStream()), urls);
+        try {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = stream.read(bytes)) != -1) {
+                out.write(bytes, 0, count);
+            }
+        } finally {
+            stream.close();
+        }
+        if (_sources != null) {
+            _sources.addAll(urls);
+        }
+        byte[] content = out.toByteArray();
+        if (cache != null) {
+            Include include = Include.create(content, urls);
+            if (include != null) {
+                cache.put(filename, include);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * <p>
+     * This method returns the application scoped cache of included files, or <code>null</code> if they should not be
+     * cached.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Include> getIncludeCache(FacesContext ctx) {
+        if (ctx == null || LayoutDefinitionManager.isDebug(ctx)) {
+            return null;
+        }
+        Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+        Map<String, Include> cache = (Map<String, Include>) appMap.get(INCLUDE_CACHE_KEY);
+        if (cache == null) {
+            synchronized (IncludeInputStream.class) {
+                cache = (Map<String, Include>) appMap.get(INCLUDE_CACHE_KEY);
+                if (cache == null) {
+                    cache = new ConcurrentHashMap<>();
+                    appMap.put(INCLUDE_CACHE_KEY, cache);
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * <p>
+     * This method forgets all included files cached in the given application scope <code>Map</code>.
+     * </p>
+     */
+    public static void clearIncludeCache(Map<String, Object> appMap) {
+        appMap.remove(INCLUDE_CACHE_KEY);
+    }
+
+    /**
+     * <p>
+     * This class holds the content of an included file, along with the files it was read from and their last modified
+     * time and size when it was read.
+     * </p>
+     */
+    private static final class Include {
+        private Include(byte[] content, URL[] urls, long[][] stamps) {
+            _content = content;
+            _urls = urls;
+            _stamps = stamps;
+        }
+
+        /**
+         * <p>
+         * This method returns a new <code>Include</code>, or <code>null</code> if changes to the given files can't be
+         * detected.
+         * </p>
+         */
+        static Include create(byte[] content, Set<URL> urls) throws IOException {
+            URL[] urlArr = urls.toArray(new URL[urls.size()]);
+            long[][] stamps = new long[urlArr.length][];
+            for (int idx = 0; idx < urlArr.length; idx++) {
+                stamps[idx] = FileUtil.getStamp(urlArr[idx]);
+                if (stamps[idx] == null) {
+                    return null;
+                }
+            }
+            return new Include(content, urlArr, stamps);
+        }
+
+        /**
+         * <p>
+         * This method returns <code>true</code> if none of the files have changed since they were read.
+         * </p>
+         */
+        boolean isCurrent() throws IOException {
+            for (int idx = 0; idx < _urls.length; idx++) {
+                if (!Arrays.equals(_stamps[idx], FileUtil.getStamp(_urls[idx]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private final byte[] _content;
+        private final URL[] _urls;
+        private final long[][] _stamps;
     }
 
     /**
@@ -206,10 +420,17 @@ public class IncludeInputStream extends FilterInputStream {
     }
 
     private boolean eol = true;
-    private IncludeInputStream redirStream = null;
+    private final byte[] _buf = new byte[BUFFER_SIZE];
+    private int _pos = 0;
+    private int _count = 0;
+    private byte[] _include = null;
+    private int _includePos = 0;
+    private final byte[] _one = new byte[1];
+    private final Set<URL> _sources;
 
     private static final String INCLUDE = "include";
     private static final int INCLUDE_LEN = INCLUDE.length();
 
-    private static final int MARK_LIMIT = 128;
+    private static final int BUFFER_SIZE = 8192;
+    private static final String INCLUDE_CACHE_KEY = "__jsft_IncludeCache";
 }
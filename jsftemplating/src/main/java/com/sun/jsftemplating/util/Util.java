@@ -273,6 +273,18 @@ public class Util {
         return props;
     }
 
+    /**
+     * <p>
+     * This method returns the value stored in the given <code>Map</code> (i.e. the application <code>Map</code>) under the
+     * given key, as the type the caller stored there. The typed caches kept in such <code>Map</code>s are read through it,
+     * so their unchecked cast is only here.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getMapValue(Map<String, Object> map, String key) {
+        return (T) map.get(key);
+    }
+
     /**
      * <p>
      * Help obtain the current <code>Locale</code>.
@@ -16,15 +16,19 @@
 
 package com.sun.jsftemplating.util.fileStreamer;
 
-import java.io.BufferedInputStream;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
@@ -287,26 +291,60 @@ public class FileStreamer {
 
         OutputStream out = context.getOutputStream();
 
-        // Get the InputStream
-        InputStream stream = new BufferedInputStream(in);
-
         // Write the header
         context.writeHeader(source);
 
-        // Copy the data to the ServletOutputStream
-        byte[] buf = new byte[512]; // Set our buffer at 512 bytes
-
-        int read = stream.read(buf, 0, 512);
-        while (read != -1) {
-            // Write data from the OutputStream to the InputStream
-            out.write(buf, 0, read);
+        // Copy the data to the OutputStream
+        try {
+            if (in instanceof FileInputStream && out instanceof FileOutputStream) {
+                // Let the OS copy it
+                transfer(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel());
+            } else {
+                copy(in, out);
+            }
+        } finally {
+            // Close the Stream
+            in.close();
+        }
+    }
 
-            // Read more...
-            read = stream.read(buf, 0, 512);
+    /**
+     * <p>
+     * This method copies the remaining content of <code>in</code> to <code>out</code> without an intermediate buffer.
+     * </p>
+     */
+    private static void transfer(FileChannel in, FileChannel out) throws IOException {
+        long pos = in.position();
+        long size = in.size();
+        while (pos < size) {
+            long count = in.transferTo(pos, size - pos, out);
+            if (count <= 0) {
+                // Truncated while we were copying it
+                break;
+            }
+            pos += count;
         }
+    }
 
-        // Close the Stream
-        stream.close();
+    /**
+     * <p>
+     * This method copies <code>in</code> to <code>out</code> using one of the pooled buffers. The buffers are large enough
+     * for most resources to be read in a few calls.
+     * </p>
+     */
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = BUFFERS.poll();
+        if (buf == null) {
+            buf = new byte[BUFFER_SIZE];
+        }
+        try {
+            for (int read = in.read(buf); read != -1; read = in.read(buf)) {
+                out.write(buf, 0, read);
+            }
+        } finally {
+            // Keep it for next time (unless the pool is full)
+            BUFFERS.offer(buf);
+        }
     }
 
     /**
@@ -338,6 +376,20 @@ public class FileStreamer {
         return DEFAULT_CONTENT_TYPE;
     }
 
+    /**
+     * <p>
+     * The size of the buffers used to copy content.
+     * </p>
+     */
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    /**
+     * <p>
+     * Buffers which are not in use. At most 16 are kept, more will be created (and discarded) when needed.
+     * </p>
+     */
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(16);
+
     /**
      * <p>
      * Application scope key for an instance of this class.
@@ -17,8 +17,10 @@
 package com.sun.jsftemplating.util.fileStreamer;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Date;
 
@@ -78,13 +80,34 @@ public class ResourceContentSource implements ContentSource {
         }
 
         // Open the InputStream
-        in = url.openStream();
+        in = openStream(url);
         ctx.setAttribute("inputStream", in);
 
         // Return an InputStream to the file
         return in;
     }
 
+    /**
+     * <p>
+     * This method opens the given <code>URL</code>. Files (in the docroot or an exploded classpath directory) are opened
+     * as a <code>FileInputStream</code>, which allows the {@link FileStreamer} to copy them via their
+     * <code>FileChannel</code>.
+     * </p>
+     */
+    protected InputStream openStream(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                File file = new File(url.toURI());
+                if (file.isFile()) {
+                    return new FileInputStream(file);
+                }
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                // Not a valid file URI, let the URL open it
+            }
+        }
+        return url.openStream();
+    }
+
     /**
      * <p>
      * This method returns the path of the resource that was requested.
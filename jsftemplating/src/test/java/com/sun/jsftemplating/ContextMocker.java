@@ -52,6 +52,10 @@ public class ContextMocker extends FacesContext {
     setCurrentInstance(_ctx);
   }
 
+  public static void clear(){
+    setCurrentInstance(null);
+  }
+
   @Override
   public ExternalContext getExternalContext() {
     return _extCtx;
@@ -153,7 +157,7 @@ public class ContextMocker extends FacesContext {
     }
     
     public Map<String,Object> _appMap = new HashMap<String,Object>();
-    public Map _initParamMap = new HashMap();
+    public Map<String,String> _initParamMap = new HashMap<String,String>();
     public Map<String, Object> _requestMap = new HashMap<String,Object>();
     
     @Override
@@ -192,11 +196,11 @@ public class ContextMocker extends FacesContext {
 
     @Override
     public String getInitParameter(String name) {
-      return (String) _initParamMap.get(name);
+      return _initParamMap.get(name);
     }
 
     @Override
-    public Map getInitParameterMap() {
+    public Map<String, String> getInitParameterMap() {
       return _initParamMap;
     }
 
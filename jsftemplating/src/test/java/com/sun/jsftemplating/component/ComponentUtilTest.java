@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.component;
+
+import java.util.HashMap;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.ValueExpression;
+import jakarta.faces.application.Application;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ *  <p>	Tests for the {@link ComponentUtil}.</p>
+ */
+public class ComponentUtilTest {
+
+    @Before
+    public void init() {
+	// A FacesContext whose ExpressionFactory creates a new ValueExpression each time
+	_created = 0;
+	ExternalContext extCtx = Mockito.mock(ExternalContext.class);
+	Mockito.when(extCtx.getApplicationMap()).thenReturn(new HashMap<String, Object>());
+	ExpressionFactory factory = Mockito.mock(ExpressionFactory.class);
+	Mockito.when(factory.createValueExpression(Mockito.any(ELContext.class), Mockito.anyString(), Mockito.any(Class.class))).thenAnswer(new Answer<ValueExpression>() {
+	    @Override
+	    public ValueExpression answer(InvocationOnMock invocation) {
+		_created++;
+		return Mockito.mock(ValueExpression.class);
+	    }
+	});
+	Application app = Mockito.mock(Application.class);
+	Mockito.when(app.getExpressionFactory()).thenReturn(factory);
+	_ctx = Mockito.mock(FacesContext.class);
+	Mockito.when(_ctx.getExternalContext()).thenReturn(extCtx);
+	Mockito.when(_ctx.getApplication()).thenReturn(app);
+	Mockito.when(_ctx.getELContext()).thenReturn(Mockito.mock(ELContext.class));
+    }
+
+    /**
+     *	<p> Ensure repeated lookups of a <code>ValueExpression</code> use the
+     *	    cache.</p>
+     */
+    @Test
+    public void testValueExpressionCacheHit() {
+	ComponentUtil util = ComponentUtil.getInstance(_ctx);
+	ValueExpression ve = util.getValueExpression(_ctx, "#{foo.bar}", Object.class);
+	Assert.assertNotNull(ve);
+	Assert.assertEquals(0, util.getValueExpressionCacheHits());
+	Assert.assertEquals(1, util.getValueExpressionCacheMisses());
+	Assert.assertEquals(1, util.getValueExpressionCacheSize());
+
+	Assert.assertSame(ve, util.getValueExpression(_ctx, "#{foo.bar}", Object.class));
+	Assert.assertSame(ve, util.getValueExpression(_ctx, "#{foo.bar}", Object.class));
+	Assert.assertEquals(1, _created);
+	Assert.assertEquals(2, util.getValueExpressionCacheHits());
+	Assert.assertEquals(1, util.getValueExpressionCacheMisses());
+	Assert.assertEquals(1, util.getValueExpressionCacheSize());
+    }
+
+    /**
+     *	<p> Ensure a different expression or expected type is a cache
+     *	    miss.</p>
+     */
+    @Test
+    public void testValueExpressionCacheMiss() {
+	ComponentUtil util = ComponentUtil.getInstance(_ctx);
+	ValueExpression ve = util.getValueExpression(_ctx, "#{foo.bar}", Object.class);
+	ValueExpression str = util.getValueExpression(_ctx, "#{foo.bar}", String.class);
+	Assert.assertNotSame(ve, str);
+	Assert.assertNotSame(ve, util.getValueExpression(_ctx, "#{foo.baz}", Object.class));
+	Assert.assertEquals(3, _created);
+	Assert.assertEquals(0, util.getValueExpressionCacheHits());
+	Assert.assertEquals(3, util.getValueExpressionCacheMisses());
+	Assert.assertEquals(3, util.getValueExpressionCacheSize());
+
+	// Each is now cached by its own expected type
+	Assert.assertSame(str, util.getValueExpression(_ctx, "#{foo.bar}", String.class));
+	Assert.assertSame(ve, util.getValueExpression(_ctx, "#{foo.bar}", Object.class));
+	Assert.assertEquals(3, _created);
+	Assert.assertEquals(2, util.getValueExpressionCacheHits());
+	Assert.assertEquals(3, util.getValueExpressionCacheMisses());
+    }
+
+    private FacesContext _ctx;
+    private int _created;
+}
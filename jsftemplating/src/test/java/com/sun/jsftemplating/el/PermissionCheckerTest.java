@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.el;
+
+import java.util.Iterator;
+import java.util.Stack;
+
+import com.sun.jsftemplating.ContextMocker;
+import jakarta.faces.context.FacesContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link PermissionChecker}.</p>
+ */
+public class PermissionCheckerTest {
+
+    private static final String[] OPERANDS = {"true", "false", "ab", "a.*", "1", "3", "0"};
+    private static final String[] BINARY = {"&", "|", "=", "<", ">", "%", "/"};
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+    }
+
+    /**
+     *	<p> Test the postfix conversion and results of a few equations.</p>
+     */
+    @Test
+    public void testEquations() {
+	assertEquation("false|false", "falsefalse|", false);
+	assertEquation("true |false", "truefalse|", true);
+	assertEquation("true&(false|true)", "truefalsetrue|&", true);
+	assertEquation("true&true|false&true", "truetrue&falsetrue&|", true);
+	assertEquation("!true|false&!(false|true)", "true!falsefalsetrue|!&|", false);
+	assertEquation("false =false", "falsefalse=", true);
+	assertEquation(" test= me ", "testme=", false);
+	assertEquation("false|(ab=ab)", "falseabab=|", true);
+	assertEquation("(3>1)&(7%2=1)", "31>72%1=&", true);
+	assertEquation("!", "!", true);
+	assertEquation("", "", false);
+    }
+
+    /**
+     *	<p> Compiled {@link PermissionChecker.Equation}s are cached.</p>
+     */
+    @Test
+    public void testEquationCache() {
+	// Other tests may have filled the cache
+	FacesContext.getCurrentInstance().getExternalContext().getApplicationMap().remove("__jsft_permEquations");
+	Assert.assertSame(PermissionChecker.getEquation(null, "true&(a|b)"), PermissionChecker.getEquation(null, "true&(a|b)"));
+	Assert.assertEquals("tFF|&", PermissionChecker.getEquation(null, " true & (a|b)").getPostfix());
+    }
+
+    /**
+     *	<p> Ensure the evaluator produces the same results as the original
+     *	    stack-based evaluation for every combination of operands and
+     *	    operators (up to 3 operands).</p>
+     */
+    @Test
+    public void testTruthTables() {
+	int count = 0;
+	for (String a : OPERANDS) {
+	    for (String b : OPERANDS) {
+		for (String op1 : BINARY) {
+		    compare(a + op1 + b);
+		    compare("!" + a + op1 + b);
+		    compare(a + op1 + "!" + b);
+		    compare("!(" + a + op1 + b + ")");
+		    count += 4;
+		    for (String c : OPERANDS) {
+			for (String op2 : BINARY) {
+			    compare(a + op1 + b + op2 + c);
+			    compare("(" + a + op1 + b + ")" + op2 + c);
+			    compare(a + op1 + "(" + b + op2 + c + ")");
+			    count += 3;
+			}
+		    }
+		}
+	    }
+	}
+	// Malformed equations
+	for (String eq : new String[] {"|", "&true", "true!", "(true", "true)", "true false", "!!", "=", "1%"}) {
+	    compare(eq);
+	    count++;
+	}
+	Assert.assertTrue(count > 30000);
+    }
+
+    private void assertEquation(String infix, String postfix, boolean result) {
+	PermissionChecker checker = new PermissionChecker(null, null, infix);
+	Assert.assertEquals(infix, PermissionChecker.stripWhiteSpace(infix) + " = " + postfix, checker.toString());
+	Assert.assertEquals(infix, result, checker.hasPermission());
+    }
+
+    /**
+     *	<p> Compares the result of the {@link PermissionChecker} with that of
+     *	    the {@link LegacyPermissionChecker}.  If the original evaluation
+     *	    threw an exception, the new evaluation may only succeed when it
+     *	    short-circuited the part of the equation that failed.</p>
+     */
+    private void compare(String infix) {
+	Boolean expected = null;
+	try {
+	    expected = new LegacyPermissionChecker(infix).hasPermission();
+	} catch (RuntimeException ex) {
+	    // expected stays null
+	}
+	Boolean actual = null;
+	try {
+	    actual = new PermissionChecker(null, null, infix).hasPermission();
+	} catch (RuntimeException ex) {
+	    // actual stays null
+	}
+	if (expected != null) {
+	    Assert.assertEquals(infix, expected, actual);
+	} else if (actual != null) {
+	    Assert.assertTrue(infix, infix.indexOf('&') != -1 || infix.indexOf('|') != -1);
+	}
+    }
+
+    /**
+     *	<p> The original stack-based evaluation, which resolved every operand
+     *	    before applying '&amp;' and '|'.</p>
+     */
+    private static class LegacyPermissionChecker extends PermissionChecker {
+	LegacyPermissionChecker(String infix) {
+	    super(null, null, infix);
+	}
+
+	@Override
+	public boolean hasPermission() {
+	    char[] postfixArr = getPostfixArr();
+	    Stack<Function> result = new Stack<>();
+	    result.push(FALSE_BOOLEAN_FUNCTION);
+	    boolean val1, val2;
+	    Iterator<Function> it = getFunctionList().iterator();
+	    for (char ch : postfixArr) {
+		switch (ch) {
+		    case POST_TRUE:
+			result.push(TRUE_BOOLEAN_FUNCTION);
+			break;
+		    case POST_FALSE:
+			result.push(FALSE_BOOLEAN_FUNCTION);
+			break;
+		    case FUNCTION_MARKER:
+			result.push(it.next());
+			break;
+		    case EQUALS_OPERATOR:
+			String matchStr = result.pop().toString();
+			val1 = result.pop().toString().matches(matchStr);
+			result.push(val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
+			break;
+		    case LESS_THAN_OPERATOR:
+			val1 = Integer.parseInt(result.pop().toString()) > Integer.parseInt(result.pop().toString());
+			result.push(val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
+			break;
+		    case MORE_THAN_OPERATOR:
+			val1 = Integer.parseInt(result.pop().toString()) < Integer.parseInt(result.pop().toString());
+			result.push(val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
+			break;
+		    case MODULUS_OPERATOR: {
+			int modNumber = Integer.parseInt(result.pop().toString());
+			int num = Integer.parseInt(result.pop().toString());
+			result.push(new StringFunction("" + num % modNumber));
+			break;
+		    }
+		    case DIVIDE_OPERATOR: {
+			int divNumber = Integer.parseInt(result.pop().toString());
+			int num = Integer.parseInt(result.pop().toString());
+			result.push(new StringFunction("" + num / divNumber));
+			break;
+		    }
+		    case OR_OPERATOR:
+			val1 = result.pop().evaluate();
+			val2 = result.pop().evaluate();
+			result.push(val1 || val2 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
+			break;
+		    case AND_OPERATOR:
+			val1 = result.pop().evaluate();
+			val2 = result.pop().evaluate();
+			result.push(val1 && val2 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
+			break;
+		    case NOT_OPERATOR:
+			val1 = result.pop().evaluate();
+			result.push(!val1 ? TRUE_BOOLEAN_FUNCTION : FALSE_BOOLEAN_FUNCTION);
+			break;
+		}
+	    }
+	    val1 = result.pop().evaluate();
+	    if (!result.empty()) {
+		result.pop();
+		if (!result.empty()) {
+		    throw new RuntimeException("Values left on the stack.");
+		}
+	    }
+	    return val1;
+	}
+    }
+}
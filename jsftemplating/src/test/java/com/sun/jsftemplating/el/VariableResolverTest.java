@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.el;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.context.FacesContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link VariableResolver}.</p>
+ */
+public class VariableResolverTest {
+
+    private static final String[] STRINGS = {
+	"plain text",
+	"$test{a}",
+	"$test{a}$test{b}",
+	"$test{a} and $test{b}!",
+	"$test{empty}",
+	"$test{empty}$test{empty}",
+	"$test{int}$test{empty}",
+	"$test{int}$test{null}",
+	"$test{int}x",
+	"x$test{int}",
+	"$test{null}",
+	"$test{$test{key}}",
+	"$test{pre$test{key}post}",
+	"$test{$test{key}$test{key2}}",
+	"$test{$test{brace}}",
+	"$test{$test{open}} tail}",
+	"$test{x{y}z}",
+	"\\$test{a}",
+	"a\\$test{a}$test{b}",
+	"$ 5 dollars",
+	"$test{unterminated",
+	"$te(st{a}",
+	"$test{brace}$test{a}",
+	"$escape{$test{a}}",
+	"$int{$test{int}}",
+	"#{bean.value}$test{a}",
+	"$test{a}\uFFFF",
+    };
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+	Map<String, Object> values = new HashMap<>();
+	values.put("a", "A");
+	values.put("b", "B");
+	values.put("empty", "");
+	values.put("int", 42);
+	values.put("key", "a");
+	values.put("key2", "b");
+	values.put("Ab", "nested");
+	values.put("brace", "x}y");
+	values.put("open", "{");
+	values.put("prekeypost", "wrong");
+	values.put("preapost", "right");
+	VariableResolver.setDataSource(null, "test", new MapDataSource(values));
+    }
+
+    /**
+     *	<p> Ensure a {@link VariableResolver.ParsedString} produces the same
+     *	    result as searching the <code>String</code>.</p>
+     */
+    @Test
+    public void testParsedStrings() {
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	for (String str : STRINGS) {
+	    Object expected = null;
+	    Object actual = null;
+	    try {
+		expected = VariableResolver.scanVariables(ctx, null, null, str, "$", "{", "}");
+	    } catch (IllegalArgumentException ex) {
+		expected = ex.getClass();
+	    }
+	    try {
+		actual = VariableResolver.resolveVariables(ctx, null, null, str);
+	    } catch (IllegalArgumentException ex) {
+		actual = ex.getClass();
+	    }
+	    Assert.assertEquals(str, expected, actual);
+	}
+	Assert.assertEquals(42, VariableResolver.resolveVariables(ctx, null, null, "$test{int}$test{empty}"));
+	Assert.assertEquals("right", VariableResolver.resolveVariables(ctx, null, null, "$test{pre$test{key}post}"));
+    }
+
+    /**
+     *	<p> Ensure <code>String</code>s are only parsed when possible.</p>
+     */
+    @Test
+    public void testGetParsedString() {
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	VariableResolver.ParsedString parsed = VariableResolver.getParsedString(ctx, "$test{a} and $test{b}!");
+	Assert.assertNotNull(parsed);
+	Assert.assertSame(parsed, VariableResolver.getParsedString(ctx, "$test{a} and $test{b}!"));
+	Assert.assertNotNull(VariableResolver.getParsedString(ctx, "$test{$test{key}}"));
+
+	// Unknown type, resolveVariables() reports the error
+	Assert.assertNull(VariableResolver.getParsedString(ctx, "$unknown{a}"));
+	// The '{' may come from the substituted value
+	Assert.assertNull(VariableResolver.getParsedString(ctx, "$test $test{a}"));
+
+	// Registering a DataSource discards the ParsedStrings
+	VariableResolver.setDataSource(ctx, "unknown", new VariableResolver.EscapeDataSource());
+	Assert.assertNotSame(parsed, VariableResolver.getParsedString(ctx, "$test{a} and $test{b}!"));
+	Assert.assertEquals("a", VariableResolver.resolveVariables(ctx, null, null, "$unknown{a}"));
+    }
+
+    /**
+     *	<p> Ensure values containing braces are not evaluated again when the
+     *	    <code>String</code> must be searched.</p>
+     */
+    @Test
+    public void testUnresolvedEvaluatesOnce() {
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	MapDataSource counting = (MapDataSource) VariableResolver.getDataSource(ctx, "test");
+	String[] strs = {"$test{$test{open}} tail}", "$test{$test{brace}}", "$test{a}$test{$test{open}} tail}"};
+	for (String str : strs) {
+	    Object expected = VariableResolver.scanVariables(ctx, null, null, str, "$", "{", "}");
+	    counting._counts.clear();
+	    Assert.assertEquals(str, expected, VariableResolver.resolveVariables(ctx, null, null, str));
+	    for (Map.Entry<String, Integer> entry : counting._counts.entrySet()) {
+		Assert.assertEquals(str + ": " + entry.getKey(), Integer.valueOf(1), entry.getValue());
+	    }
+	}
+    }
+
+    /**
+     *	<p> A {@link VariableResolver.DataSource} backed by a <code>Map</code>.</p>
+     */
+    private static class MapDataSource implements VariableResolver.DataSource {
+	MapDataSource(Map<String, Object> values) {
+	    _values = values;
+	}
+
+	@Override
+	public Object getValue(FacesContext ctx, LayoutElement desc, UIComponent component, String key) {
+	    Integer count = _counts.get(key);
+	    _counts.put(key, (count == null) ? 1 : count + 1);
+	    return _values.get(key);
+	}
+
+	Map<String, Integer> _counts = new HashMap<>();
+
+	private Map<String, Object> _values;
+    }
+}
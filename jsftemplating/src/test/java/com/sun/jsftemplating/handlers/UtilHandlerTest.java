@@ -15,11 +15,14 @@
  */
 package com.sun.jsftemplating.handlers;
 
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.LayoutDefinitionManager;
 import com.sun.jsftemplating.layout.descriptors.handler.Handler;
 import com.sun.jsftemplating.layout.descriptors.handler.HandlerContext;
 import com.sun.jsftemplating.layout.descriptors.handler.HandlerContextImpl;
 import com.sun.jsftemplating.layout.descriptors.handler.HandlerDefinition;
 import com.sun.jsftemplating.layout.descriptors.handler.IODescriptor;
+import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
 import org.junit.Assert;
@@ -52,7 +55,48 @@ public class UtilHandlerTest {
             //expected result
         }
     }
-    
-    
-    
+
+    /**
+     * Ensure handlers processed by HandlerAP are invoked without reflection,
+     * and report exceptions the same way as the reflective path.
+     */
+    @Test
+    public void generatedInvokerTest() throws Exception {
+        ContextMocker.init();
+        HandlerDefinition def = LayoutDefinitionManager.getGlobalHandlerDefinition("mapPut");
+        Assert.assertEquals("com.sun.jsftemplating.handlers.UtilHandlers_mapPutInvoker",
+                def.getHandlerInvoker().getClass().getName());
+        assertMapPutFails(def);
+
+        // Handlers without an invoker use reflection
+        HandlerDefinition reflective = new HandlerDefinition("mapPut");
+        reflective.setHandlerMethod(UtilHandlers.class.getCanonicalName(), "mapPut");
+        reflective.setInputDefs(def.getInputDefs());
+        Assert.assertNull(reflective.getHandlerInvoker());
+        assertMapPutFails(reflective);
+
+        reflective.setHandlerInvoker("com.sun.jsftemplating.handlers.NoSuchInvoker");
+        Assert.assertNull(reflective.getHandlerInvoker());
+        assertMapPutFails(reflective);
+
+        // Return values are passed through
+        HandlerContext context = new HandlerContextImpl(null, null, null, null);
+        Handler handler = new Handler(LayoutDefinitionManager.getGlobalHandlerDefinition("returnTrue"));
+        context.setHandler(handler);
+        Assert.assertEquals(Boolean.TRUE, handler.invoke(context));
+    }
+
+    private void assertMapPutFails(HandlerDefinition def) throws Exception {
+        HandlerContext context = new HandlerContextImpl(null, null, null, null);
+        Handler handler = new Handler(def);
+        context.setHandler(handler);
+        try {
+            handler.invoke(context);
+            Assert.fail("mapPut failed to throw exception");
+        } catch (InvocationTargetException ex) {
+            // The handler's exception is wrapped, as with Method.invoke()
+            Assert.assertTrue(ex.getCause() instanceof RuntimeException);
+            Assert.assertTrue(ex.getCause().getMessage(), ex.getCause().getMessage().contains("map"));
+        }
+    }
 }
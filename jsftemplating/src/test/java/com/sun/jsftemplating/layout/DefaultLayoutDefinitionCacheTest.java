@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import jakarta.faces.context.FacesContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link DefaultLayoutDefinitionCache}.</p>
+ */
+public class DefaultLayoutDefinitionCacheTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+    }
+
+    /**
+     *	<p> Test the least recently used eviction policy.</p>
+     */
+    @Test
+    public void testLRU() {
+	DefaultLayoutDefinitionCache cache = new DefaultLayoutDefinitionCache(2, false);
+	cache.put("a", new LayoutDefinition("a"));
+	cache.put("b", new LayoutDefinition("b"));
+	Assert.assertNotNull(cache.get("a"));
+	cache.put("c", new LayoutDefinition("c"));
+	Assert.assertEquals(2, cache.size());
+	Assert.assertNull(cache.get("b"));
+	Assert.assertNotNull(cache.get("a"));
+	Assert.assertNotNull(cache.get("c"));
+	Assert.assertEquals(1, cache.getEvictionCount());
+	Assert.assertEquals(3, cache.getHitCount());
+	Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     *	<p> Test the least frequently used eviction policy.</p>
+     */
+    @Test
+    public void testLFU() {
+	DefaultLayoutDefinitionCache cache = new DefaultLayoutDefinitionCache(2, true);
+	cache.put("a", new LayoutDefinition("a"));
+	cache.put("b", new LayoutDefinition("b"));
+	cache.get("a");
+	cache.get("a");
+	cache.get("b");
+	cache.put("c", new LayoutDefinition("c"));
+	Assert.assertNull(cache.get("b"));
+	Assert.assertNotNull(cache.get("a"));
+	Assert.assertNotNull(cache.get("c"));
+    }
+
+    /**
+     *	<p> Ensure concurrent requests for the same key only load it once.</p>
+     */
+    @Test
+    public void testSingleFlight() throws Exception {
+	final DefaultLayoutDefinitionCache cache = new DefaultLayoutDefinitionCache();
+	final AtomicInteger loads = new AtomicInteger();
+	final CountDownLatch started = new CountDownLatch(1);
+	final CountDownLatch release = new CountDownLatch(1);
+	final LayoutDefinitionCache.Loader loader = new LayoutDefinitionCache.Loader() {
+	    @Override
+	    public LayoutDefinition load(String key) {
+		loads.incrementAndGet();
+		started.countDown();
+		try {
+		    release.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+		    Thread.currentThread().interrupt();
+		}
+		return new LayoutDefinition(key);
+	    }
+	};
+	int threads = 8;
+	ExecutorService exec = Executors.newFixedThreadPool(threads);
+	try {
+	    List<Future<LayoutDefinition>> results = new ArrayList<>();
+	    for (int i = 0; i < threads; i++) {
+		results.add(exec.submit(new Callable<LayoutDefinition>() {
+		    @Override
+		    public LayoutDefinition call() {
+			return cache.get("page", loader);
+		    }
+		}));
+	    }
+	    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+	    // Give the other threads time to block on the load
+	    Thread.sleep(100);
+	    release.countDown();
+	    LayoutDefinition first = results.get(0).get(10, TimeUnit.SECONDS);
+	    for (Future<LayoutDefinition> result : results) {
+		Assert.assertSame(first, result.get(10, TimeUnit.SECONDS));
+	    }
+	} finally {
+	    exec.shutdownNow();
+	}
+	Assert.assertEquals(1, loads.get());
+	Assert.assertEquals(1, cache.getLoadCount());
+	Assert.assertEquals(1, cache.size());
+    }
+
+    /**
+     *	<p> Ensure failed loads are not cached and a {@link LayoutDefinition}
+     *	    may load itself while it is being loaded.</p>
+     */
+    @Test
+    public void testLoadFailureAndReentrance() {
+	final DefaultLayoutDefinitionCache cache = new DefaultLayoutDefinitionCache();
+	LayoutDefinitionCache.Loader failing = new LayoutDefinitionCache.Loader() {
+	    @Override
+	    public LayoutDefinition load(String key) {
+		throw new LayoutDefinitionException("Unable to locate '" + key + "'");
+	    }
+	};
+	try {
+	    cache.get("missing", failing);
+	    Assert.fail("Expected LayoutDefinitionException");
+	} catch (LayoutDefinitionException ex) {
+	    // expected
+	}
+	Assert.assertEquals(0, cache.size());
+
+	LayoutDefinitionCache.Loader recursive = new LayoutDefinitionCache.Loader() {
+	    @Override
+	    public LayoutDefinition load(String key) {
+		if (_depth++ == 0) {
+		    // Must not wait for itself
+		    cache.get(key, this);
+		}
+		return new LayoutDefinition(key);
+	    }
+
+	    private int _depth = 0;
+	};
+	Assert.assertNotNull(cache.get("outer", recursive));
+	Assert.assertEquals(3, cache.getLoadCount());
+    }
+
+    /**
+     *	<p> Ensure the {@link LayoutDefinitionManager} stores its cache in
+     *	    application scope.</p>
+     */
+    @Test
+    public void testApplicationCache() {
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	LayoutDefinitionCache cache = LayoutDefinitionManager.getLayoutDefinitionCache(ctx);
+	Assert.assertTrue(cache instanceof DefaultLayoutDefinitionCache);
+	Assert.assertSame(cache, LayoutDefinitionManager.getLayoutDefinitionCache(ctx));
+	LayoutDefinition def = new LayoutDefinition("/test.jsf");
+	LayoutDefinitionManager.putCachedLayoutDefinition(ctx, "/test.jsf", def);
+	Assert.assertSame(def, cache.get("/test.jsf"));
+    }
+}
@@ -20,6 +20,14 @@ import com.sun.jsftemplating.ContextMocker;
 import com.sun.jsftemplating.component.factory.basic.StaticTextFactory;
 import com.sun.jsftemplating.layout.descriptors.ComponentType;
 import com.sun.jsftemplating.layout.descriptors.handler.HandlerDefinition;
+import com.sun.jsftemplating.layout.template.TemplateLayoutDefinitionManager;
+import jakarta.faces.context.FacesContext;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -98,4 +106,39 @@ public class LayoutDefinitionManagerTest {
 	    Assert.fail(ex.getMessage());
 	}
     }
+
+    /**
+     *	<p> Ensure the <code>LayoutDefinitionManager</code> which accepts a
+     *	    key is remembered until it is cleared.</p>
+     */
+    @Test
+    public void testResolvedManager() throws IOException {
+	File dir = Files.createTempDirectory("jsft").toFile();
+	File file = new File(dir, "resolvedManager.jsf");
+	Files.write(file.toPath(), "<staticText value=\"x\" />".getBytes(StandardCharsets.UTF_8));
+	ClassLoader loader = Thread.currentThread().getContextClassLoader();
+	Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {dir.toURI().toURL()}, loader));
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	try {
+	    LayoutDefinitionManager mgr = LayoutDefinitionManager.getLayoutDefinitionManager(ctx, "/resolvedManager.jsf");
+	    Assert.assertTrue(mgr instanceof TemplateLayoutDefinitionManager);
+
+	    // Not searched for again
+	    file.delete();
+	    ctx.getExternalContext().getRequestMap().clear();
+	    Assert.assertSame(mgr, LayoutDefinitionManager.getLayoutDefinitionManager(ctx, "/resolvedManager.jsf"));
+
+	    LayoutDefinitionManager.clearResolvedManager(ctx.getExternalContext().getApplicationMap(), "/resolvedManager.jsf");
+	    try {
+		LayoutDefinitionManager.getLayoutDefinitionManager(ctx, "/resolvedManager.jsf");
+		Assert.fail("Not found");
+	    } catch (LayoutDefinitionException ex) {
+		// Expected
+	    }
+	} finally {
+	    Thread.currentThread().setContextClassLoader(loader);
+	    file.delete();
+	    dir.delete();
+	}
+    }
 }
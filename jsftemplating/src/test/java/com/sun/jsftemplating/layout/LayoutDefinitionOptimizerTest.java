@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.descriptors.LayoutComponent;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import com.sun.jsftemplating.layout.descriptors.LayoutStaticText;
+import com.sun.jsftemplating.layout.descriptors.handler.Handler;
+import com.sun.jsftemplating.layout.facelets.FaceletsLayoutDefinitionReader;
+import com.sun.jsftemplating.layout.template.TemplateReader;
+import com.sun.jsftemplating.layout.xml.XMLErrorHandler;
+import com.sun.jsftemplating.layout.xml.XMLLayoutDefinitionReader;
+import com.sun.jsftemplating.util.ClasspathEntityResolver;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *  <p>	Tests for the {@link LayoutDefinitionOptimizer}.</p>
+ */
+public class LayoutDefinitionOptimizerTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+    }
+
+    @After
+    public void cleanUp() {
+	setEnabled(true);
+    }
+
+    /**
+     *	<p> Ensure optimizing the templates of the tests and the samples
+     *	    only merges text, so they render the same output.</p>
+     */
+    @Test
+    public void testGoldenOutput() throws IOException {
+	List<Path> files = new ArrayList<Path>();
+	String baseDir = System.getProperty("basedir", ".");
+	addFiles(Paths.get(baseDir, "src", "test", "resources"), files);
+	addFiles(Paths.get(baseDir, "..", "samples"), files);
+
+	int read = 0;
+	int elements = 0;
+	int optimizedElements = 0;
+	for (Path file : files) {
+	    setEnabled(false);
+	    LayoutDefinition ld;
+	    try {
+		ld = read(file);
+	    } catch (Exception ex) {
+		// Not readable in this environment
+		continue;
+	    }
+	    setEnabled(true);
+	    LayoutDefinition optimized = read(file);
+	    Assert.assertEquals(file.toString(), render(ld), render(optimized));
+	    elements += count(ld);
+	    optimizedElements += count(optimized);
+	    read++;
+	}
+	Assert.assertTrue("Read " + read + " of " + files.size(), read >= 50);
+	Assert.assertTrue(elements + " > " + optimizedElements, optimizedElements < elements);
+    }
+
+    /**
+     *	<p> Ensure adjacent constant text is merged and written at once,
+     *	    and text with expressions is left alone.</p>
+     */
+    @Test
+    public void testMerge() throws IOException {
+	LayoutDefinition ld = new LayoutDefinition("test");
+	ld.addChildLayoutElement(new LayoutStaticText(ld, "t1", "<div>"));
+	ld.addChildLayoutElement(new LayoutStaticText(ld, "t2", "Hello"));
+	ld.addChildLayoutElement(new LayoutStaticText(ld, "t3", "</div>"));
+	ld.addChildLayoutElement(new LayoutStaticText(ld, "t4", "#{bean.value}"));
+	ld.addChildLayoutElement(new LayoutStaticText(ld, "t5", "<br />"));
+	LayoutDefinitionOptimizer.optimize(null, ld);
+
+	List<LayoutElement> children = ld.getChildLayoutElements();
+	Assert.assertEquals(3, children.size());
+	Assert.assertEquals("t1", children.get(0).getUnevaluatedId());
+	Assert.assertEquals("<div>Hello</div>", ((LayoutStaticText) children.get(0)).getValue());
+	Assert.assertEquals("t4", children.get(1).getUnevaluatedId());
+	Assert.assertFalse(((LayoutStaticText) children.get(1)).isConstant());
+	Assert.assertTrue(ld.getHandlersByTypeMap().isEmpty());
+
+	// Handlers may still be added
+	ld.setHandlers(LayoutDefinition.INIT_PAGE, new ArrayList<Handler>());
+
+	// Constant text is written as is
+	FacesContext ctx = Mockito.mock(FacesContext.class);
+	ResponseWriter writer = Mockito.mock(ResponseWriter.class);
+	Mockito.when(ctx.getResponseWriter()).thenReturn(writer);
+	children.get(0).encode(ctx, Mockito.mock(UIComponent.class));
+	Mockito.verify(writer).write("<div>Hello</div>");
+    }
+
+    /**
+     *	<p> Ensure text inside a <code>UIComponent</code> is not merged, and
+     *	    nothing is merged when turned off.</p>
+     */
+    @Test
+    public void testNoMerge() {
+	LayoutDefinition ld = new LayoutDefinition("test");
+	LayoutComponent comp = new LayoutComponent(ld, "grid", null);
+	ld.addChildLayoutElement(comp);
+	comp.addChildLayoutElement(new LayoutStaticText(comp, "t1", "a"));
+	comp.addChildLayoutElement(new LayoutStaticText(comp, "t2", "b"));
+	LayoutDefinitionOptimizer.optimize(null, ld);
+	Assert.assertEquals(2, comp.getChildLayoutElements().size());
+
+	ld.addChildLayoutElement(new LayoutStaticText(ld, "t3", "a"));
+	ld.addChildLayoutElement(new LayoutStaticText(ld, "t4", "b"));
+	setEnabled(false);
+	LayoutDefinitionOptimizer.optimize(null, ld);
+	Assert.assertEquals(3, ld.getChildLayoutElements().size());
+    }
+
+    private static void setEnabled(boolean enabled) {
+	Map<String, String> initParams = FacesContext.getCurrentInstance().getExternalContext().getInitParameterMap();
+	if (enabled) {
+	    initParams.remove(LayoutDefinitionOptimizer.OPTIMIZE_FLAG);
+	} else {
+	    initParams.put(LayoutDefinitionOptimizer.OPTIMIZE_FLAG, "false");
+	}
+    }
+
+    private static void addFiles(Path dir, List<Path> files) throws IOException {
+	if (!Files.isDirectory(dir)) {
+	    return;
+	}
+	Stream<Path> paths = Files.walk(dir);
+	try {
+	    Iterator<Path> it = paths.iterator();
+	    while (it.hasNext()) {
+		Path path = it.next();
+		String name = path.toString();
+		if (name.endsWith(".jsf") || name.endsWith(".xhtml")
+			|| (name.endsWith(".xml") && new String(Files.readAllBytes(path), StandardCharsets.UTF_8).contains("<layoutDefinition"))) {
+		    files.add(path);
+		}
+	    }
+	} finally {
+	    paths.close();
+	}
+    }
+
+    private static LayoutDefinition read(Path file) throws IOException {
+	URL url = file.toUri().toURL();
+	String name = file.toString();
+	if (name.endsWith(".jsf")) {
+	    return new TemplateReader(name, url).read();
+	}
+	if (name.endsWith(".xhtml")) {
+	    return new FaceletsLayoutDefinitionReader(name, url).read();
+	}
+	return new XMLLayoutDefinitionReader(url, new ClasspathEntityResolver(),
+		new XMLErrorHandler(new PrintWriter(new StringWriter())), null).read();
+    }
+
+    /**
+     *	<p> Returns what the given {@link LayoutElement} renders: the text,
+     *	    and a line describing each other {@link LayoutElement}.  The
+     *	    generated ids are numbered in the order they appear, as each
+     *	    read generates new ones.</p>
+     */
+    private static String render(LayoutElement elt) {
+	StringBuilder buf = new StringBuilder();
+	render(elt, buf, "");
+
+	Map<String, String> ids = new HashMap<String, String>();
+	Matcher matcher = GENERATED_ID.matcher(buf);
+	StringBuffer result = new StringBuffer();
+	while (matcher.find()) {
+	    String id = ids.get(matcher.group());
+	    if (id == null) {
+		id = "id_" + ids.size();
+		ids.put(matcher.group(), id);
+	    }
+	    matcher.appendReplacement(result, id);
+	}
+	return matcher.appendTail(result).toString();
+    }
+
+    private static void render(LayoutElement elt, StringBuilder buf, String indent) {
+	for (LayoutElement child : elt.getChildLayoutElements()) {
+	    if (child.getClass() == LayoutStaticText.class && child.getChildLayoutElements().isEmpty()) {
+		buf.append(((LayoutStaticText) child).getValue());
+		continue;
+	    }
+	    buf.append("\n" + indent + "[" + child.getClass().getSimpleName() + " " + child.getUnevaluatedId());
+	    if (child instanceof LayoutComponent) {
+		buf.append(" " + new TreeMap<String, Object>(((LayoutComponent) child).getOptions()));
+	    }
+	    for (Map.Entry<String, List<Handler>> entry : new TreeMap<String, List<Handler>>(child.getHandlersByTypeMap()).entrySet()) {
+		if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+		    buf.append(" " + entry.getKey() + "=" + entry.getValue().size());
+		}
+	    }
+	    buf.append("]\n");
+	    render(child, buf, indent + "  ");
+	    buf.append("\n" + indent + "[/" + child.getUnevaluatedId() + "]\n");
+	}
+    }
+
+    private static final Pattern GENERATED_ID = Pattern.compile("\\bid_[0-9]+\\b");
+
+    private static int count(LayoutElement elt) {
+	int count = 1;
+	for (LayoutElement child : elt.getChildLayoutElements()) {
+	    count += count(child);
+	}
+	return count;
+    }
+}
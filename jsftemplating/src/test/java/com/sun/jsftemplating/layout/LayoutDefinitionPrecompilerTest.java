@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import jakarta.faces.context.FacesContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link LayoutDefinitionPrecompiler}.</p>
+ */
+public class LayoutDefinitionPrecompilerTest {
+
+    @Before
+    public void init() throws IOException {
+	ContextMocker.init();
+	_dir = Files.createTempDirectory("jsft").toFile();
+	_docRoot = new File(_dir, "webapp");
+	_classes = new File(_dir, "classes");
+	copy("speed-s.jsf", new File(_docRoot, "speed-s.jsf"));
+	copy("speed-s.xhtml", new File(_docRoot, "sub/speed-s.xhtml"));
+	copy("speed-m.jsf", new File(_classes, "META-INF/jsftemplating/speed-m.jsf"));
+	Files.write(new File(_docRoot, "notes.txt").toPath(), "Not a template".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void cleanUp() {
+	delete(_dir);
+    }
+
+    private void delete(File file) {
+	File[] files = file.listFiles();
+	if (files != null) {
+	    for (File child : files) {
+		delete(child);
+	    }
+	}
+	file.delete();
+    }
+
+    private void copy(String name, File file) throws IOException {
+	file.getParentFile().mkdirs();
+	InputStream in = getClass().getClassLoader().getResourceAsStream(name);
+	try {
+	    Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	} finally {
+	    in.close();
+	}
+    }
+
+    /**
+     *	<p> Ensure templates are precompiled, and found on the classpath.</p>
+     */
+    @Test
+    public void testPrecompile() throws Exception {
+	// The classes directory is on the classpath, as in a build
+	ClassLoader loader = Thread.currentThread().getContextClassLoader();
+	Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {_classes.toURI().toURL()}, loader));
+	try {
+	    LayoutDefinitionPrecompiler precompiler = new LayoutDefinitionPrecompiler(_docRoot, _classes);
+	    Assert.assertEquals(Arrays.asList("/speed-s.jsf", "/sub/speed-s.xhtml", "/jsftemplating/speed-m.jsf"), precompiler.findKeys());
+	    for (String key : precompiler.findKeys()) {
+		Assert.assertTrue(key, precompiler.precompile(key));
+	    }
+	    Assert.assertFalse(precompiler.precompile("/notes.txt"));
+	    Assert.assertSame(ContextMocker.class, FacesContext.getCurrentInstance().getClass());
+
+	    // At runtime the document root files are found too
+	    Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {_classes.toURI().toURL(), _docRoot.toURI().toURL()}, loader));
+	    LayoutDefinition ld = LayoutDefinitionSnapshots.readPrecompiled("/sub/speed-s.xhtml");
+	    Assert.assertNotNull(ld);
+	    Assert.assertEquals("/sub/speed-s.xhtml", ld.getUnevaluatedId());
+	    Assert.assertNotNull(LayoutDefinitionSnapshots.readPrecompiled("/speed-s.jsf"));
+	    Assert.assertNotNull(LayoutDefinitionSnapshots.readPrecompiled("/jsftemplating/speed-m.jsf"));
+	    Assert.assertNull(LayoutDefinitionSnapshots.readPrecompiled("/missing.jsf"));
+	} finally {
+	    Thread.currentThread().setContextClassLoader(loader);
+	}
+    }
+
+    /**
+     *	<p> Ensure a precompiled {@link LayoutDefinition} is not used after
+     *	    a file it was read from changes.</p>
+     */
+    @Test
+    public void testChanged() throws Exception {
+	ClassLoader loader = Thread.currentThread().getContextClassLoader();
+	Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {_classes.toURI().toURL()}, loader));
+	try {
+	    LayoutDefinitionPrecompiler precompiler = new LayoutDefinitionPrecompiler(_docRoot, _classes);
+	    Assert.assertTrue(precompiler.precompile("/jsftemplating/speed-m.jsf"));
+	    Assert.assertNotNull(LayoutDefinitionSnapshots.readPrecompiled("/jsftemplating/speed-m.jsf"));
+
+	    File file = new File(_classes, "META-INF/jsftemplating/speed-m.jsf");
+	    Files.write(file.toPath(), "<staticText value=\"changed\" />".getBytes(StandardCharsets.UTF_8));
+	    Assert.assertNull(LayoutDefinitionSnapshots.readPrecompiled("/jsftemplating/speed-m.jsf"));
+	    file.delete();
+	    Assert.assertNull(LayoutDefinitionSnapshots.readPrecompiled("/jsftemplating/speed-m.jsf"));
+	} finally {
+	    Thread.currentThread().setContextClassLoader(loader);
+	}
+    }
+
+    /**
+     *	<p> Ensure errors are reported.</p>
+     */
+    @Test(expected = LayoutDefinitionException.class)
+    public void testError() throws Exception {
+	Files.write(new File(_docRoot, "broken.jsf").toPath(), "<sun:form id=\"form\">\n</sun:panelGroup>\n".getBytes(StandardCharsets.UTF_8));
+	new LayoutDefinitionPrecompiler(_docRoot, _classes).precompile("/broken.jsf");
+    }
+
+    private File _dir;
+    private File _docRoot;
+    private File _classes;
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.jsftemplating.ContextMocker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link LayoutDefinitionPreloader}.</p>
+ */
+public class LayoutDefinitionPreloaderTest {
+
+    /**
+     *	<p> Ensure templates are found in the document root and in
+     *	    <code>META-INF/jsftemplating</code> on the classpath.</p>
+     */
+    @Test
+    public void testFindKeys() throws IOException {
+	ContextMocker ctx = new ContextMocker();
+	ctx._extCtx = new ContextMocker.ExternalContextMocker() {
+	    @Override
+	    public Set<String> getResourcePaths(String path) {
+		if (path.equals("/")) {
+		    return new HashSet<>(Arrays.asList("/index.jsf", "/a/", "/WEB-INF/"));
+		} else if (path.equals("/a/")) {
+		    return new HashSet<>(Arrays.asList("/a/b.xhtml", "/a/c.txt"));
+		} else if (path.equals("/WEB-INF/")) {
+		    return new HashSet<>(Arrays.asList("/WEB-INF/inc.jsf", "/WEB-INF/lib/"));
+		} else if (path.equals("/WEB-INF/lib/")) {
+		    Assert.fail("Libraries are not searched.");
+		}
+		return null;
+	    }
+	};
+	List<String> keys = new LayoutDefinitionPreloader(ctx, 1).findKeys();
+	Assert.assertTrue(keys.containsAll(Arrays.asList("/WEB-INF/inc.jsf", "/a/b.xhtml", "/index.jsf", "/jsftemplating/renderChildren.jsf")));
+	Assert.assertFalse(keys.contains("/a/c.txt"));
+    }
+
+    /**
+     *	<p> Ensure templates are read in parallel into the cache, and
+     *	    failures are reported.</p>
+     */
+    @Test
+    public void testPreload() throws Exception {
+	File dir = Files.createTempDirectory("jsft").toFile();
+	File bad = new File(dir, "preloadBad.jsf");
+	Files.write(bad.toPath(), "<staticText value=\"x\" >".getBytes(StandardCharsets.UTF_8));
+	ClassLoader loader = Thread.currentThread().getContextClassLoader();
+	Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {dir.toURI().toURL()}, loader));
+	try {
+	    ContextMocker ctx = new ContextMocker();
+	    ((ContextMocker.ExternalContextMocker) ctx._extCtx)._appMap = new ConcurrentHashMap<>();
+	    LayoutDefinitionPreloader preloader = new LayoutDefinitionPreloader(ctx, 4);
+	    Map<String, Throwable> failures = preloader.preload(Arrays.asList(
+		    "/speed-s.jsf", "/speed-m.jsf", "/speed-l.jsf", "/speed-xl.jsf", "/preloadBad.jsf", "/preloadMissing.jsf"));
+
+	    Assert.assertEquals(Arrays.asList("/preloadBad.jsf"), Arrays.asList(failures.keySet().toArray()));
+	    Assert.assertEquals(4, preloader.getCount());
+	    LayoutDefinitionCache cache = LayoutDefinitionManager.getLayoutDefinitionCache(ctx);
+	    Assert.assertEquals(4, cache.size());
+	    Assert.assertNotNull(cache.get("/speed-xl.jsf"));
+	} finally {
+	    Thread.currentThread().setContextClassLoader(loader);
+	    bad.delete();
+	    dir.delete();
+	}
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.descriptors.ComponentType;
+import com.sun.jsftemplating.layout.descriptors.LayoutComponent;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.layout.facelets.FaceletsLayoutDefinitionReader;
+import com.sun.jsftemplating.layout.template.TemplateReader;
+import com.sun.jsftemplating.layout.template.TemplateWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link LayoutDefinitionSnapshots}.</p>
+ */
+public class LayoutDefinitionSnapshotsTest {
+
+    @Before
+    public void init() throws IOException {
+	ContextMocker.init();
+	_dir = Files.createTempDirectory("jsft").toFile();
+	_snapshots = new LayoutDefinitionSnapshots(new File(_dir, "snapshots"));
+    }
+
+    @After
+    public void cleanUp() {
+	_snapshots.clear();
+	new File(_dir, "snapshots").delete();
+	for (File file : _dir.listFiles()) {
+	    file.delete();
+	}
+	_dir.delete();
+    }
+
+    private URL copy(String name) throws IOException {
+	File file = new File(_dir, name);
+	InputStream in = getClass().getClassLoader().getResourceAsStream(name);
+	try {
+	    Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	} finally {
+	    in.close();
+	}
+	return file.toURI().toURL();
+    }
+
+    /**
+     *	<p> This method writes the given {@link LayoutDefinition} as a
+     *	    template. Handler arguments are sorted, as their order depends
+     *	    on a <code>HashMap</code>.</p>
+     */
+    private String toString(LayoutDefinition ld) throws IOException {
+	ByteArrayOutputStream stream = new ByteArrayOutputStream();
+	new TemplateWriter(stream).write(ld);
+	StringBuilder buf = new StringBuilder();
+	for (String line : stream.toString("UTF-8").split("\n")) {
+	    Matcher matcher = HANDLER.matcher(line);
+	    if (matcher.matches()) {
+		String[] args = matcher.group(2).split(", ");
+		Arrays.sort(args);
+		line = matcher.group(1) + '(' + String.join(", ", args) + ");";
+	    }
+	    buf.append(line).append('\n');
+	}
+	return buf.toString();
+    }
+
+    /**
+     *	<p> Ensure a template snapshot reads the same as the template.</p>
+     */
+    @Test
+    public void testTemplate() throws Exception {
+	URL url = copy("speed-m.jsf");
+	LayoutDefinition ld = new TemplateReader("/speed-m.jsf", url).read();
+	Assert.assertNull(_snapshots.read("/speed-m.jsf"));
+	_snapshots.write("/speed-m.jsf", ld, Collections.singleton(url));
+
+	LayoutDefinition snapshot = _snapshots.read("/speed-m.jsf");
+	Assert.assertNotNull(snapshot);
+	Assert.assertNotSame(ld, snapshot);
+	Assert.assertEquals(toString(ld), toString(snapshot));
+	Assert.assertNull(_snapshots.read("/other.jsf"));
+    }
+
+    /**
+     *	<p> Ensure a Facelets snapshot reads the same as the page.</p>
+     */
+    @Test
+    public void testFacelets() throws Exception {
+	URL url = copy("speed-m.xhtml");
+	LayoutDefinition ld = new FaceletsLayoutDefinitionReader("/speed-m.xhtml", url).read();
+	_snapshots.write("/speed-m.xhtml", ld, Collections.singleton(url));
+
+	LayoutDefinition snapshot = _snapshots.read("/speed-m.xhtml");
+	Assert.assertNotNull(snapshot);
+	Assert.assertEquals(toString(ld), toString(snapshot));
+    }
+
+    /**
+     *	<p> Ensure a snapshot is not used after its file changes.</p>
+     */
+    @Test
+    public void testChanged() throws Exception {
+	URL url = copy("speed-s.jsf");
+	File file = new File(url.toURI());
+	file.setLastModified(System.currentTimeMillis() - 10000);
+	_snapshots.write("/speed-s.jsf", new TemplateReader("/speed-s.jsf", url).read(), Collections.singleton(url));
+	Assert.assertNotNull(_snapshots.read("/speed-s.jsf"));
+
+	file.setLastModified(System.currentTimeMillis());
+	Assert.assertNull(_snapshots.read("/speed-s.jsf"));
+
+	file.delete();
+	Assert.assertNull(_snapshots.read("/speed-s.jsf"));
+    }
+
+    /**
+     *	<p> Ensure a snapshot containing a class which is not allowed is not
+     *	    used.</p>
+     */
+    @Test
+    public void testNotAllowed() throws Exception {
+	URL url = copy("speed-s.jsf");
+	LayoutDefinition ld = new LayoutDefinition("/speed-s.jsf");
+	LayoutComponent comp = new LayoutComponent(ld, "comp", new ComponentType("type", "com.sun.jsftemplating.component.factory.basic.StaticTextFactory"));
+	comp.addOption("value", new URI("http://example.com/"));
+	ld.addChildLayoutElement(comp);
+	_snapshots.write("/speed-s.jsf", ld, Collections.singleton(url));
+	Assert.assertNull(_snapshots.read("/speed-s.jsf"));
+
+	Assert.assertTrue(LayoutDefinitionSnapshots.isAllowed(LayoutDefinition.class));
+	Assert.assertTrue(LayoutDefinitionSnapshots.isAllowed(String[].class));
+	Assert.assertTrue(LayoutDefinitionSnapshots.isAllowed(Integer.class));
+	Assert.assertTrue(LayoutDefinitionSnapshots.isAllowed(ArrayList.class));
+	Assert.assertTrue(LayoutDefinitionSnapshots.isAllowed(HashMap.class));
+	// Only referenced as a type
+	Assert.assertTrue(LayoutDefinitionSnapshots.isAllowed(Object.class));
+	Assert.assertFalse(LayoutDefinitionSnapshots.isAllowed(URI.class));
+	Assert.assertFalse(LayoutDefinitionSnapshots.isAllowed(URI[].class));
+    }
+
+    /**
+     *	<p> Ensure a snapshot is not used after the global handler
+     *	    definitions change.</p>
+     */
+    @Test
+    public void testDefinitionsChanged() throws Exception {
+	URL url = copy("speed-s.jsf");
+	_snapshots.write("/speed-s.jsf", new TemplateReader("/speed-s.jsf", url).read(), Collections.singleton(url));
+	Assert.assertNotNull(_snapshots.read("/speed-s.jsf"));
+
+	File dir = new File(_dir, "classes");
+	File map = new File(dir, "META-INF/jsftemplating/Handler.map");
+	map.getParentFile().mkdirs();
+	Files.write(map.toPath(), "added.class=com.example.Handlers\n".getBytes(StandardCharsets.UTF_8));
+	ClassLoader loader = Thread.currentThread().getContextClassLoader();
+	Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {dir.toURI().toURL()}, loader));
+	try {
+	    Assert.assertNull(_snapshots.read("/speed-s.jsf"));
+	} finally {
+	    Thread.currentThread().setContextClassLoader(loader);
+	    map.delete();
+	    map.getParentFile().delete();
+	    map.getParentFile().getParentFile().delete();
+	    dir.delete();
+	}
+	Assert.assertNotNull(_snapshots.read("/speed-s.jsf"));
+    }
+
+    private static final Pattern HANDLER = Pattern.compile("(\\s*\\w+)\\((.*)\\);");
+
+    private File _dir;
+    private LayoutDefinitionSnapshots _snapshots;
+}
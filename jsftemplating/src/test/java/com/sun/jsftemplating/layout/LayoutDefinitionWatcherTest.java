@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import jakarta.faces.context.FacesContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link LayoutDefinitionWatcher}.</p>
+ */
+public class LayoutDefinitionWatcherTest {
+
+    @Before
+    public void init() throws IOException {
+	_file = File.createTempFile("jsft", ".jsf");
+	_include = File.createTempFile("jsft", ".inc");
+	// Ensure they were not changed while loading
+	_file.setLastModified(System.currentTimeMillis() - 10000);
+	_include.setLastModified(System.currentTimeMillis() - 10000);
+	_cache = new DefaultLayoutDefinitionCache();
+	_watcher = new LayoutDefinitionWatcher(_cache, new HashMap<String, Object>());
+    }
+
+    @After
+    public void cleanUp() {
+	_watcher.close();
+	_file.delete();
+	_include.delete();
+    }
+
+    /**
+     *	<p> Ensure a {@link LayoutDefinition} is removed from the cache
+     *	    when a file it was read from changes, and others are not.</p>
+     */
+    @Test
+    public void testReload() throws Exception {
+	_cache.get("/page.jsf", new LayoutDefinitionCache.Loader() {
+	    @Override
+	    public LayoutDefinition load(final String key) throws LayoutDefinitionException {
+		return _watcher.load(key, new LayoutDefinitionCache.Loader() {
+		    @Override
+		    public LayoutDefinition load(String key) throws LayoutDefinitionException {
+			try {
+			    LayoutDefinitionWatcher.fileFound(_file.toURI().toURL());
+			    LayoutDefinitionWatcher.fileFound(_include.toURI().toURL());
+			} catch (IOException ex) {
+			    throw new LayoutDefinitionException(ex);
+			}
+			return new LayoutDefinition(key);
+		    }
+		});
+	    }
+	});
+	_watcher.checkModified("/page.jsf");
+	_cache.put("/other.jsf", new LayoutDefinition("/other.jsf"));
+	Assert.assertNotNull(_cache.get("/page.jsf"));
+
+	// Change the included file
+	Files.write(_include.toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+	long timeout = System.currentTimeMillis() + 30000;
+	while (_cache.get("/page.jsf") != null && System.currentTimeMillis() < timeout) {
+	    Thread.sleep(50);
+	}
+	Assert.assertNull(_cache.get("/page.jsf"));
+	Assert.assertNotNull(_cache.get("/other.jsf"));
+    }
+
+    /**
+     *	<p> Ensure a {@link LayoutDefinition} is reloaded if a file it was
+     *	    read from changed during the load.</p>
+     */
+    @Test
+    public void testChangedWhileLoading() throws Exception {
+	_watcher.load("/page.jsf", new LayoutDefinitionCache.Loader() {
+	    @Override
+	    public LayoutDefinition load(String key) throws LayoutDefinitionException {
+		try {
+		    LayoutDefinitionWatcher.fileFound(_file.toURI().toURL());
+		    _file.setLastModified(System.currentTimeMillis() + 1000);
+		} catch (IOException ex) {
+		    throw new LayoutDefinitionException(ex);
+		}
+		return new LayoutDefinition(key);
+	    }
+	});
+	_cache.put("/page.jsf", new LayoutDefinition("/page.jsf"));
+	_watcher.checkModified("/page.jsf");
+	Assert.assertNull(_cache.get("/page.jsf"));
+    }
+
+    /**
+     *	<p> Ensure the {@link LayoutDefinitionWatcher.ShutdownListener}
+     *	    stops the application's watcher.</p>
+     */
+    @Test
+    public void testShutdown() throws Exception {
+	ContextMocker.init();
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	Map<String, Object> appMap = ctx.getExternalContext().getApplicationMap();
+	ctx.getExternalContext().getInitParameterMap().put(LayoutDefinitionWatcher.WATCH_FLAG, "true");
+	// Forget if other tests found watching disabled
+	LayoutDefinitionWatcher.close(appMap);
+	try {
+	    LayoutDefinitionWatcher watcher = LayoutDefinitionWatcher.getInstance(ctx);
+	    Assert.assertNotNull(watcher);
+	    Assert.assertTrue(isWatching());
+
+	    new LayoutDefinitionWatcher.ShutdownListener().processEvent(null);
+	    Assert.assertFalse(isWatching());
+	    Assert.assertNotSame(watcher, LayoutDefinitionWatcher.getInstance(ctx));
+	} finally {
+	    ctx.getExternalContext().getInitParameterMap().remove(LayoutDefinitionWatcher.WATCH_FLAG);
+	    LayoutDefinitionWatcher.close(appMap);
+	}
+	Assert.assertFalse(isWatching());
+    }
+
+    /**
+     *	<p> This method returns <code>true</code> if a watching thread, other
+     *	    than the one of {@link #_watcher}, is alive.</p>
+     */
+    private boolean isWatching() {
+	int count = 0;
+	for (Thread thread : Thread.getAllStackTraces().keySet()) {
+	    if (thread.isAlive() && "jsft-template-watcher".equals(thread.getName())) {
+		count++;
+	    }
+	}
+	return count > 1;
+    }
+
+    private File _file;
+    private File _include;
+    private LayoutDefinitionCache _cache;
+    private LayoutDefinitionWatcher _watcher;
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.descriptors;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.component.ChildManager;
+import com.sun.jsftemplating.component.factory.basic.StaticTextFactory;
+import com.sun.jsftemplating.layout.LayoutDefinitionOptimizer;
+import com.sun.jsftemplating.layout.SyntaxException;
+import com.sun.jsftemplating.layout.facelets.FaceletsLayoutDefinitionReader;
+import com.sun.jsftemplating.layout.template.TemplateReader;
+import jakarta.faces.component.UICommand;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIForm;
+import jakarta.faces.component.UIInput;
+import jakarta.faces.component.UIOutput;
+import jakarta.faces.component.UIPanel;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+import jakarta.faces.render.RenderKit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ *  <p>	Tests for the {@link LayoutCache}.</p>
+ */
+public class LayoutCacheTest {
+
+    @Before
+    public void init() throws IOException {
+	ContextMocker.init();
+	FacesContext.getCurrentInstance().getExternalContext().getInitParameterMap().put(LayoutDefinitionOptimizer.OPTIMIZE_FLAG, "false");
+
+	// A FacesContext which keeps the ResponseWriter it is given
+	_ctx = Mockito.mock(FacesContext.class);
+	Mockito.when(_ctx.getExternalContext()).thenReturn(FacesContext.getCurrentInstance().getExternalContext());
+	Mockito.when(_ctx.getAttributes()).thenReturn(new HashMap<Object, Object>());
+	Mockito.when(_ctx.getRenderKit()).thenReturn(Mockito.mock(RenderKit.class));
+	_parent = Mockito.mock(UIComponent.class, Mockito.withSettings().extraInterfaces(ChildManager.class));
+	Mockito.when(_ctx.getResponseWriter()).thenAnswer(new Answer<ResponseWriter>() {
+	    @Override
+	    public ResponseWriter answer(InvocationOnMock invocation) {
+		return _writer;
+	    }
+	});
+	Mockito.doAnswer(new Answer<Object>() {
+	    @Override
+	    public Object answer(InvocationOnMock invocation) {
+		_writer = (ResponseWriter) invocation.getArguments()[0];
+		return null;
+	    }
+	}).when(_ctx).setResponseWriter(Mockito.any(ResponseWriter.class));
+	_file = File.createTempFile("jsft", ".tmp");
+    }
+
+    @After
+    public void cleanUp() {
+	FacesContext.getCurrentInstance().getExternalContext().getInitParameterMap().remove(LayoutDefinitionOptimizer.OPTIMIZE_FLAG);
+	_file.delete();
+    }
+
+    /**
+     *	<p> Encodes the given {@link LayoutCache} with the given key, and
+     *	    returns the output.</p>
+     */
+    private String encode(LayoutCache cache, String key) throws IOException {
+	return encode(cache, key, Mockito.mock(UIComponent.class));
+    }
+
+    /**
+     *	<p> Encodes the given {@link LayoutCache} with the given key and
+     *	    <code>UIComponent</code>, and returns the output.</p>
+     */
+    private String encode(LayoutCache cache, String key, UIComponent component) throws IOException {
+	_key = key;
+	StringBuilder out = new StringBuilder();
+	_writer = new StringResponseWriter(out);
+	cache.encode(_ctx, component);
+	return out.toString();
+    }
+
+    /**
+     *	<p> Creates a {@link LayoutCache} with the given options, which uses
+     *	    {@link #_key} as key and contains a child that counts how often
+     *	    it is encoded.</p>
+     */
+    private LayoutCache createCache(String ttl, String size) {
+	LayoutDefinition ld = new LayoutDefinition("cache");
+	LayoutCache cache = new LayoutCache(ld, "key") {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected String getKey(FacesContext context, UIComponent component) {
+		return _key;
+	    }
+
+	    @Override
+	    protected String getCacheId(FacesContext context, UIComponent component) {
+		return component.getId();
+	    }
+	};
+	if (ttl != null) {
+	    cache.addOption(LayoutCache.TTL, ttl);
+	}
+	if (size != null) {
+	    cache.addOption(LayoutCache.SIZE, size);
+	}
+	cache.addChildLayoutElement(new LayoutStaticText(cache, "count", "count") {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    public boolean encodeThis(FacesContext context, UIComponent component) throws IOException {
+		context.getResponseWriter().write("<p>" + (++_count) + "</p>");
+		return false;
+	    }
+	});
+	ld.addChildLayoutElement(cache);
+	return cache;
+    }
+
+    /**
+     *	<p> Ensure output is stored by key, and the least recently used key
+     *	    is removed.</p>
+     */
+    @Test
+    public void testCache() throws IOException {
+	LayoutCache cache = createCache(null, "2");
+	Assert.assertEquals("<p>1</p>", encode(cache, "a"));
+	Assert.assertEquals("<p>1</p>", encode(cache, "a"));
+	Assert.assertEquals("<p>2</p>", encode(cache, "b"));
+	Assert.assertEquals("<p>1</p>", encode(cache, "a"));
+	Assert.assertEquals("<p>3</p>", encode(cache, "c"));
+	Assert.assertEquals(3, _count);
+
+	// "b" was removed, then "a"
+	Assert.assertEquals("<p>4</p>", encode(cache, "b"));
+	Assert.assertEquals("<p>3</p>", encode(cache, "c"));
+	Assert.assertEquals("<p>5</p>", encode(cache, "a"));
+	Assert.assertEquals("<p>3</p>", encode(cache, "c"));
+
+	// Nothing is stored without a key
+	Assert.assertEquals("<p>6</p>", encode(cache, null));
+	Assert.assertEquals("<p>7</p>", encode(cache, null));
+
+	cache.clear();
+	Assert.assertEquals("<p>8</p>", encode(cache, "c"));
+    }
+
+    /**
+     *	<p> Ensure the size applies to each cache id separately.</p>
+     */
+    @Test
+    public void testCacheIds() throws IOException {
+	LayoutCache cache = createCache(null, "1");
+	UIComponent first = Mockito.mock(UIComponent.class);
+	Mockito.when(first.getId()).thenReturn("first");
+	UIComponent second = Mockito.mock(UIComponent.class);
+	Mockito.when(second.getId()).thenReturn("second");
+
+	Assert.assertEquals("<p>1</p>", encode(cache, "a", first));
+	Assert.assertEquals("<p>2</p>", encode(cache, "b", second));
+	Assert.assertEquals("<p>1</p>", encode(cache, "a", first));
+	Assert.assertEquals("<p>2</p>", encode(cache, "b", second));
+	Assert.assertEquals("<p>3</p>", encode(cache, "b", first));
+	Assert.assertEquals("<p>4</p>", encode(cache, "a", first));
+	Assert.assertEquals("<p>2</p>", encode(cache, "b", second));
+	Assert.assertEquals(2, cache.getCount());
+
+	// The total is bounded, the least recently used group goes first
+	for (int idx = 0; idx < LayoutCache.MAX_ENTRIES; idx++) {
+	    UIComponent comp = Mockito.mock(UIComponent.class);
+	    Mockito.when(comp.getId()).thenReturn("c" + idx);
+	    encode(cache, "a", comp);
+	    if (idx == 0) {
+		Assert.assertEquals("<p>2</p>", encode(cache, "b", second));
+	    }
+	}
+	Assert.assertEquals(LayoutCache.MAX_ENTRIES, cache.getCount());
+	Assert.assertEquals("<p>2</p>", encode(cache, "b", second));
+	Assert.assertEquals("<p>" + (_count + 1) + "</p>", encode(cache, "a", first));
+    }
+
+    /**
+     *	<p> Ensure expired output of other groups is removed when output is
+     *	    stored.</p>
+     */
+    @Test
+    public void testExpiredGroups() throws IOException, InterruptedException {
+	LayoutCache cache = createCache("1", null);
+	UIComponent first = Mockito.mock(UIComponent.class);
+	Mockito.when(first.getId()).thenReturn("first");
+	UIComponent second = Mockito.mock(UIComponent.class);
+	Mockito.when(second.getId()).thenReturn("second");
+	encode(cache, "a", first);
+	encode(cache, "b", first);
+	Assert.assertEquals(2, cache.getCount());
+
+	Thread.sleep(1100);
+	encode(cache, "a", second);
+	Assert.assertEquals(1, cache.getCount());
+    }
+
+    /**
+     *	<p> Ensure rendered input components are rejected while output is
+     *	    stored.</p>
+     */
+    @Test
+    public void testInputComponents() throws IOException {
+	Assert.assertTrue(LayoutCache.isInputComponent(new UIInput()));
+	Assert.assertTrue(LayoutCache.isInputComponent(new UICommand()));
+	Assert.assertTrue(LayoutCache.isInputComponent(new UIForm()));
+	Assert.assertFalse(LayoutCache.isInputComponent(new UIOutput()));
+	Assert.assertFalse(LayoutCache.isInputComponent(new UIPanel()));
+
+	// Not checked unless output is stored
+	LayoutCache.checkEncoded(_ctx, new UIInput());
+
+	UIInput input = new UIInput();
+	input.setId("in");
+	input.setRendered(false);
+	LayoutCache cache = createCache(input);
+	Assert.assertEquals("", encode(cache, "a", _parent));
+
+	UIPanel panel = new UIPanel();
+	panel.setId("p");
+	panel.getChildren().add(input);
+	input.setRendered(true);
+	cache = createCache(panel);
+	try {
+	    encode(cache, "a", _parent);
+	    Assert.fail("An input component was not rejected.");
+	} catch (IllegalArgumentException ex) {
+	    // Expected
+	}
+	Assert.assertNull(_ctx.getAttributes().get("__jsft_LayoutCache_check"));
+	Assert.assertTrue(_writer instanceof StringResponseWriter);
+
+	// Nothing was stored
+	panel.getChildren().clear();
+	panel.setRendered(false);
+	Assert.assertEquals("", encode(cache, "a", _parent));
+    }
+
+    /**
+     *	<p> Creates a {@link LayoutCache} containing a
+     *	    {@link LayoutComponent} for the given
+     *	    <code>UIComponent</code>.</p>
+     */
+    private LayoutCache createCache(final UIComponent child) {
+	LayoutDefinition ld = new LayoutDefinition("cache");
+	LayoutCache cache = new LayoutCache(ld, "key") {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected String getKey(FacesContext context, UIComponent component) {
+		return _key;
+	    }
+	};
+	cache.addChildLayoutElement(new LayoutComponent(cache, child.getId(), new ComponentType("child", StaticTextFactory.class.getName())));
+	ld.addChildLayoutElement(cache);
+	Mockito.when(((ChildManager) _parent).getChild(Mockito.any(FacesContext.class), Mockito.any(LayoutComponent.class))).thenReturn(child);
+	return cache;
+    }
+
+    /**
+     *	<p> Ensure output is not stored once its ttl passed.</p>
+     */
+    @Test
+    public void testTtl() throws IOException {
+	LayoutCache cache = createCache("0", null);
+	Assert.assertEquals("<p>1</p>", encode(cache, "a"));
+	Assert.assertEquals("<p>2</p>", encode(cache, "a"));
+
+	cache = createCache("600", null);
+	Assert.assertEquals("<p>3</p>", encode(cache, "a"));
+	Assert.assertEquals("<p>3</p>", encode(cache, "a"));
+    }
+
+    /**
+     *	<p> Ensure "cache" is read from templates, and input components are
+     *	    rejected.</p>
+     */
+    @Test
+    public void testRead() throws IOException {
+	LayoutCache cache = (LayoutCache) read(".jsf", "<!cache key=\"#{nav}\" ttl=\"60\">\n<sun:staticText id=\"y\" value=\"abcd\" />\n</cache>\n");
+	Assert.assertEquals("#{nav}", cache.getOption(LayoutCache.KEY));
+	Assert.assertEquals("60", cache.getOption(LayoutCache.TTL));
+	Assert.assertEquals(1, cache.getChildLayoutElements().size());
+
+	cache = (LayoutCache) read(".xhtml", "<div xmlns:ui=\"http://java.sun.com/jsf/facelets\">"
+		+ "<ui:cache key=\"#{nav}\" size=\"5\"><b>Hello</b></ui:cache></div>");
+	Assert.assertEquals("#{nav}", cache.getOption(LayoutCache.KEY));
+	Assert.assertEquals("5", cache.getOption(LayoutCache.SIZE));
+	Assert.assertEquals(3, cache.getChildLayoutElements().size());
+
+	cache = (LayoutCache) read(".xhtml", "<div xmlns:ui=\"http://java.sun.com/jsf/facelets\" xmlns:h=\"http://java.sun.com/jsf/html\">"
+		+ "<ui:cache key=\"#{nav}\"><h:outputText id=\"out\" value=\"x\" /></ui:cache></div>");
+	Assert.assertEquals(1, cache.getChildLayoutElements().size());
+
+	try {
+	    read(".jsf", "<!cache key=\"#{nav}\">\n<h:panelGroup id=\"g\">\n<h:inputText id=\"in\" />\n</h:panelGroup>\n</cache>\n");
+	    Assert.fail("An input component was not rejected.");
+	} catch (SyntaxException ex) {
+	    // Expected
+	}
+	try {
+	    read(".jsf", "<!cache key=\"#{nav}\">\n<h:form id=\"f\" />\n</cache>\n");
+	    Assert.fail("A form was not rejected.");
+	} catch (SyntaxException ex) {
+	    // Expected
+	}
+	try {
+	    read(".xhtml", "<div xmlns:ui=\"http://java.sun.com/jsf/facelets\" xmlns:h=\"http://java.sun.com/jsf/html\">"
+		    + "<ui:cache key=\"#{nav}\"><h:commandButton id=\"b\" value=\"Go\" /></ui:cache></div>");
+	    Assert.fail("An input component was not rejected.");
+	} catch (SyntaxException ex) {
+	    // Expected
+	}
+    }
+
+    /**
+     *	<p> Reads the given template and returns its first
+     *	    {@link LayoutCache}.</p>
+     */
+    private LayoutElement read(String type, String content) throws IOException {
+	File file = new File(_file.getPath() + type);
+	try {
+	    Files.write(file.toPath(), content.getBytes("UTF-8"));
+	    LayoutDefinition ld = type.equals(".jsf") ? new TemplateReader("cache", file.toURI().toURL()).read()
+		    : new FaceletsLayoutDefinitionReader("cache", file.toURI().toURL()).read();
+	    return find(ld);
+	} finally {
+	    file.delete();
+	}
+    }
+
+    private LayoutElement find(LayoutElement elt) {
+	if (elt instanceof LayoutCache) {
+	    return elt;
+	}
+	for (LayoutElement child : elt.getChildLayoutElements()) {
+	    LayoutElement found = find(child);
+	    if (found != null) {
+		return found;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     *	<p> A <code>ResponseWriter</code> which appends to the given
+     *	    <code>StringBuilder</code>.</p>
+     */
+    private static class StringResponseWriter extends ResponseWriter {
+	StringResponseWriter(StringBuilder out) {
+	    _out = out;
+	}
+
+	@Override
+	public String getContentType() {
+	    return "text/html";
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+	    return "UTF-8";
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void startDocument() {
+	}
+
+	@Override
+	public void endDocument() {
+	}
+
+	@Override
+	public void startElement(String name, UIComponent component) {
+	    _out.append('<').append(name).append('>');
+	}
+
+	@Override
+	public void endElement(String name) {
+	    _out.append("</").append(name).append('>');
+	}
+
+	@Override
+	public void writeAttribute(String name, Object value, String property) {
+	}
+
+	@Override
+	public void writeURIAttribute(String name, Object value, String property) {
+	}
+
+	@Override
+	public void writeComment(Object comment) {
+	}
+
+	@Override
+	public void writeText(Object text, String property) {
+	    _out.append(text);
+	}
+
+	@Override
+	public void writeText(char[] text, int off, int len) {
+	    _out.append(text, off, len);
+	}
+
+	@Override
+	public ResponseWriter cloneWithWriter(final Writer writer) {
+	    final StringBuilder buf = new StringBuilder();
+	    return new StringResponseWriter(buf) {
+		@Override
+		public void flush() {
+		    try {
+			writer.write(buf.toString());
+		    } catch (IOException ex) {
+			throw new RuntimeException(ex);
+		    }
+		    buf.setLength(0);
+		}
+	    };
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+	    _out.append(cbuf, off, len);
+	}
+
+	@Override
+	public void close() {
+	}
+
+	private StringBuilder _out;
+    }
+
+    private FacesContext _ctx;
+    private UIComponent _parent;
+    private ResponseWriter _writer;
+    private File _file;
+    private String _key;
+    private int _count = 0;
+}
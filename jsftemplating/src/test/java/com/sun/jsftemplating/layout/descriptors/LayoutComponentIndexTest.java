@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.descriptors;
+
+import com.sun.jsftemplating.ContextMocker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link LayoutComponentIndex}.</p>
+ */
+public class LayoutComponentIndexTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+
+	// form > panel > save, form > table > column > save, form2 > save
+	_ld = new LayoutDefinition("index");
+	LayoutComponent form = add(_ld, "form");
+	_save = add(add(form, "panel"), "save");
+	_tableSave = add(add(add(form, "table"), "column"), "save");
+	_form2Save = add(add(_ld, "form2"), "save");
+    }
+
+    private LayoutComponent add(LayoutElement parent, String id) {
+	LayoutComponent comp = new LayoutComponent(parent, id, null);
+	parent.addChildLayoutElement(comp);
+	return comp;
+    }
+
+    /**
+     *	<p> Ensure clientIds resolve to the right {@link LayoutComponent}
+     *	    when ids are reused.</p>
+     */
+    @Test
+    public void testFindByClientId() {
+	LayoutComponentIndex index = _ld.getLayoutComponentIndex();
+	Assert.assertSame(index, _ld.getLayoutComponentIndex());
+
+	Assert.assertSame(_save, index.findById("save"));
+	Assert.assertSame(_save, index.findByClientId("save", false));
+	Assert.assertSame(_save, index.findByClientId("form:save", false));
+	Assert.assertSame(_save, index.findByClientId("form:panel:save", true));
+	Assert.assertSame(_tableSave, index.findByClientId("form:table:save", true));
+	// Row indices are skipped
+	Assert.assertSame(_tableSave, index.findByClientId("form:table:3:save", false));
+	Assert.assertNull(index.findByClientId("form:table:3:save", true));
+	Assert.assertSame(_form2Save, index.findByClientId("form2:save", true));
+	Assert.assertNull(index.findByClientId("other:save", true));
+	Assert.assertNull(index.findByClientId("form:missing", false));
+	Assert.assertNull(index.findById("missing"));
+    }
+
+    /**
+     *	<p> Ensure the index is recreated after it is reset.</p>
+     */
+    @Test
+    public void testReset() {
+	Assert.assertNull(_ld.getLayoutComponentIndex().findById("late"));
+	LayoutComponent late = add(_ld, "late");
+	_ld.resetLayoutComponentIndex();
+	Assert.assertSame(late, _ld.getLayoutComponentIndex().findById("late"));
+    }
+
+    private LayoutDefinition _ld;
+    private LayoutComponent _save;
+    private LayoutComponent _tableSave;
+    private LayoutComponent _form2Save;
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.descriptors;
+
+import java.io.IOException;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.util.EncodedOutput;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *  <p>	Tests for the {@link LayoutStaticText}.</p>
+ */
+public class LayoutStaticTextTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+	_ld = new LayoutDefinition("text");
+	_ctx = Mockito.mock(FacesContext.class);
+    }
+
+    /**
+     *	<p> Ensure constant text is written as encoded bytes when the
+     *	    <code>ResponseWriter</code> supports it, and encoded once per
+     *	    encoding.</p>
+     */
+    @Test
+    public void testEncodedOutput() throws IOException {
+	LayoutStaticText text = new LayoutStaticText(_ld, "t1", "<p>café</p>");
+	ResponseWriter writer = Mockito.mock(ResponseWriter.class, Mockito.withSettings().extraInterfaces(EncodedOutput.class));
+	Mockito.when(((EncodedOutput) writer).getOutputEncoding()).thenReturn("UTF-8");
+	Mockito.when(_ctx.getResponseWriter()).thenReturn(writer);
+
+	text.encode(_ctx, Mockito.mock(UIComponent.class));
+	byte[] utf8 = text.getEncodedValue("UTF-8");
+	Assert.assertArrayEquals("<p>café</p>".getBytes("UTF-8"), utf8);
+	Assert.assertSame(utf8, text.getEncodedValue("UTF-8"));
+	Mockito.verify((EncodedOutput) writer).write(utf8, 0, utf8.length);
+	Mockito.verify(writer, Mockito.never()).write(Mockito.anyString());
+
+	byte[] latin1 = text.getEncodedValue("ISO-8859-1");
+	Assert.assertArrayEquals("<p>café</p>".getBytes("ISO-8859-1"), latin1);
+
+	// Each encoding is kept
+	Assert.assertSame(utf8, text.getEncodedValue("UTF-8"));
+	Assert.assertSame(latin1, text.getEncodedValue("ISO-8859-1"));
+    }
+
+    /**
+     *	<p> Ensure text is written as characters when it can't be encoded,
+     *	    or the <code>ResponseWriter</code> doesn't support bytes.</p>
+     */
+    @Test
+    public void testCharacterOutput() throws IOException {
+	LayoutStaticText text = new LayoutStaticText(_ld, "t1", "café");
+	Assert.assertNull(text.getEncodedValue("US-ASCII"));
+	Assert.assertNull(text.getEncodedValue("no-such-encoding"));
+	Assert.assertNull(new LayoutStaticText(_ld, "t2", "#{bean.value}").getEncodedValue("UTF-8"));
+
+	ResponseWriter writer = Mockito.mock(ResponseWriter.class, Mockito.withSettings().extraInterfaces(EncodedOutput.class));
+	Mockito.when(((EncodedOutput) writer).getOutputEncoding()).thenReturn("US-ASCII");
+	Mockito.when(_ctx.getResponseWriter()).thenReturn(writer);
+	text.encode(_ctx, Mockito.mock(UIComponent.class));
+	Mockito.verify(writer).write("café");
+
+	writer = Mockito.mock(ResponseWriter.class);
+	Mockito.when(_ctx.getResponseWriter()).thenReturn(writer);
+	text.encode(_ctx, Mockito.mock(UIComponent.class));
+	Mockito.verify(writer).write("café");
+    }
+
+    private LayoutDefinition _ld;
+    private FacesContext _ctx;
+}
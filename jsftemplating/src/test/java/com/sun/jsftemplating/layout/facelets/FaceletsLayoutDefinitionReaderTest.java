@@ -16,8 +16,15 @@
 
 package com.sun.jsftemplating.layout.facelets;
 
+import java.util.List;
+
 import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.LayoutDefinitionOptimizer;
 import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import com.sun.jsftemplating.layout.descriptors.LayoutStaticText;
+import jakarta.faces.context.FacesContext;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +44,13 @@ public class FaceletsLayoutDefinitionReaderTest {
   @Before
   public void init(){
     ContextMocker.init();
+    // Check what was read, not how it was optimized
+    FacesContext.getCurrentInstance().getExternalContext().getInitParameterMap().put(LayoutDefinitionOptimizer.OPTIMIZE_FLAG, "false");
+  }
+
+  @After
+  public void cleanUp(){
+    FacesContext.getCurrentInstance().getExternalContext().getInitParameterMap().remove(LayoutDefinitionOptimizer.OPTIMIZE_FLAG);
   }
   
     /**
@@ -60,6 +74,25 @@ public class FaceletsLayoutDefinitionReaderTest {
         }
     }
 
+    /**
+     * <p>
+     * Ensure the DOCTYPE, attributes defaulted by the DTD and text are read.
+     * </p>
+     */
+    @Test
+    public void testReadStaticText() throws Exception {
+        FaceletsLayoutDefinitionReader reader =
+            new FaceletsLayoutDefinitionReader("template", cl.getResource("./simpleTemplate.xhtml"));
+        List<LayoutElement> children = reader.read().getChildLayoutElements();
+        Assert.assertEquals("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"https://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">",
+                ((LayoutStaticText) children.get(0)).getValue());
+        StringBuilder buf = new StringBuilder();
+        for (LayoutElement child : children) {
+            buf.append(((LayoutStaticText) child).getValue().trim());
+        }
+        Assert.assertTrue(buf.toString(), buf.toString().endsWith("<body>#{3+3}<br clear=\"none\"></br>#{3 + 3}</body></html>"));
+    }
+
     public void timeTest(String fileName, int iterations) {
         try {
 	    java.util.Date start = new java.util.Date();
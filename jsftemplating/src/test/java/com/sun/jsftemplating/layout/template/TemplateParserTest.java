@@ -16,7 +16,10 @@
 
 package com.sun.jsftemplating.layout.template;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -260,6 +263,58 @@ public class TemplateParserTest {
 	}
     }
 
+    /**
+     *	<p> Ensure characters which were not just read may be unread, and
+     *	    that lines are read after them.</p>
+     */
+    @Test
+    public void testPushBack() throws IOException {
+	TemplateParser parser = parser("abc\r\ndef\nghi");
+	Assert.assertEquals('a', parser.nextChar());
+	parser.unread('x');
+	parser.unread('y');
+	Assert.assertEquals('y', parser.nextChar());
+	Assert.assertEquals('x', parser.nextChar());
+	Assert.assertEquals('b', parser.nextChar());
+	Assert.assertEquals("c", parser.readToken());
+	parser.unread('c');
+	// The '\r' read by readToken() ends the line, the '\n' remains
+	Assert.assertEquals("c", parser.readLine());
+	Assert.assertEquals('\n', parser.nextChar());
+	Assert.assertEquals('d', parser.nextChar());
+	parser.unread('\n');
+	parser.unread('z');
+	Assert.assertEquals("z", parser.readLine());
+	Assert.assertEquals('e', parser.nextChar());
+	Assert.assertEquals("f", parser.readLine());
+	Assert.assertEquals("ghi", parser.readLine());
+	Assert.assertEquals(-1, parser.nextChar());
+	parser.close();
+    }
+
+    /**
+     *	<p> Ensure values larger than the buffer are read.</p>
+     */
+    @Test
+    public void testLargeValue() throws IOException {
+	char[] value = new char[20000];
+	Arrays.fill(value, 'v');
+	value[12345] = '\\';
+	TemplateParser parser = parser("name=\"" + new String(value) + "\" x");
+	NameValuePair nvp = parser.getNVP(null);
+	Assert.assertEquals("name", nvp.getName());
+	Assert.assertEquals(19999, nvp.getValue().toString().length());
+	parser.skipWhiteSpace(TemplateParser.SIMPLE_WHITE_SPACE);
+	Assert.assertEquals("x", parser.readToken());
+	parser.close();
+    }
+
+    private TemplateParser parser(String content) throws IOException {
+	TemplateParser parser = new TemplateParser(new ByteArrayInputStream(content.getBytes("UTF-8")));
+	parser.open();
+	return parser;
+    }
+
 /*
     public void testAdd() {
 	assertTrue(5 == 6);
@@ -17,11 +17,14 @@
 package com.sun.jsftemplating.layout.template;
 
 import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.LayoutDefinitionOptimizer;
 import com.sun.jsftemplating.layout.descriptors.LayoutComponent;
 import com.sun.jsftemplating.layout.descriptors.LayoutComposition;
 import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
 import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import jakarta.faces.context.FacesContext;
 import java.util.List;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,6 +39,13 @@ public class TemplateReaderTest {
   @Before
   public void init(){
     ContextMocker.init();
+    // Check what was read, not how it was optimized
+    FacesContext.getCurrentInstance().getExternalContext().getInitParameterMap().put(LayoutDefinitionOptimizer.OPTIMIZE_FLAG, "false");
+  }
+
+  @After
+  public void cleanUp(){
+    FacesContext.getCurrentInstance().getExternalContext().getInitParameterMap().remove(LayoutDefinitionOptimizer.OPTIMIZE_FLAG);
   }
   
     /**
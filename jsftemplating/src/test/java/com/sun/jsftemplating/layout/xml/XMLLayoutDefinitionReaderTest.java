@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.layout.xml;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.SyntaxException;
+import com.sun.jsftemplating.layout.descriptors.LayoutAttribute;
+import com.sun.jsftemplating.layout.descriptors.LayoutComponent;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import com.sun.jsftemplating.layout.descriptors.LayoutFacet;
+import com.sun.jsftemplating.layout.descriptors.LayoutMarkup;
+import com.sun.jsftemplating.layout.descriptors.LayoutStaticText;
+import com.sun.jsftemplating.layout.descriptors.Resource;
+import com.sun.jsftemplating.layout.descriptors.handler.Handler;
+import com.sun.jsftemplating.layout.descriptors.handler.HandlerDefinition;
+import com.sun.jsftemplating.layout.descriptors.handler.OutputMapping;
+import com.sun.jsftemplating.util.ClasspathEntityResolver;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link XMLLayoutDefinitionReader}.</p>
+ */
+public class XMLLayoutDefinitionReaderTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+    }
+
+    /**
+     *	<p> Ensure the SAX based <code>read()</code> creates the same
+     *	    {@link LayoutDefinition} as the DOM based
+     *	    <code>createLayoutDefinition(readDocument())</code> for every
+     *	    XML layout in this project.</p>
+     */
+    @Test
+    public void testReadMatchesDocument() throws IOException {
+	List<Path> files = new ArrayList<Path>();
+	Stream<Path> paths = Files.walk(Paths.get(System.getProperty("basedir", "."), "src"));
+	try {
+	    Iterator<Path> it = paths.iterator();
+	    while (it.hasNext()) {
+		Path path = it.next();
+		if (path.toString().endsWith(".xml")
+			&& new String(Files.readAllBytes(path), StandardCharsets.UTF_8).contains("<layoutDefinition")) {
+		    files.add(path);
+		}
+	    }
+	} finally {
+	    paths.close();
+	}
+	Assert.assertTrue("Found " + files, files.size() >= 6);
+
+	for (Path path : files) {
+	    URL url = path.toUri().toURL();
+	    String expected = describe(newReader(url).createLayoutDefinition(newReader(url).readDocument()));
+
+	    // Read twice, the second time with a pooled parser
+	    Assert.assertEquals(path.toString(), expected, describe(newReader(url).read()));
+	    Assert.assertEquals(path.toString(), expected, describe(newReader(url).read()));
+	}
+    }
+
+    /**
+     *	<p> Ensure errors are reported by the <code>ErrorHandler</code> and
+     *	    do not leave the parser in a bad state.</p>
+     */
+    @Test
+    public void testReadInvalid() throws IOException {
+	Path file = Files.createTempFile("jsft", ".xml");
+	try {
+	    Files.write(file, ("<!DOCTYPE layoutDefinition SYSTEM \"/jsftemplating/layout.dtd\">\n"
+		    + "<layoutDefinition><layout><bogus /></layout></layoutDefinition>").getBytes(StandardCharsets.UTF_8));
+	    try {
+		newReader(file.toUri().toURL()).read();
+		Assert.fail("Invalid layout was read.");
+	    } catch (SyntaxException ex) {
+		// Expected
+	    }
+	} finally {
+	    Files.delete(file);
+	}
+
+	URL url = XMLLayoutDefinitionReaderTest.class.getClassLoader().getResource("xmlLayout.xml");
+	Assert.assertEquals(describe(newReader(url).createLayoutDefinition(newReader(url).readDocument())),
+		describe(newReader(url).read()));
+    }
+
+    private XMLLayoutDefinitionReader newReader(URL url) {
+	return new XMLLayoutDefinitionReader(url, new ClasspathEntityResolver(),
+		new XMLErrorHandler(new PrintWriter(new StringWriter())), null);
+    }
+
+    /**
+     *	<p> Returns the structure, resources, options and handlers of the
+     *	    given {@link LayoutDefinition}.  The generated ids are numbered
+     *	    in the order they appear, as each read generates new ones.</p>
+     */
+    private String describe(LayoutDefinition ld) {
+	StringBuilder buf = new StringBuilder();
+	for (Resource res : ld.getResources()) {
+	    buf.append(res.getId() + "=" + res.getExtraInfo() + "\n");
+	}
+	describe(ld, buf, "");
+
+	Map<String, String> ids = new HashMap<String, String>();
+	Matcher matcher = GENERATED_ID.matcher(buf);
+	StringBuffer result = new StringBuffer();
+	while (matcher.find()) {
+	    String id = ids.get(matcher.group());
+	    if (id == null) {
+		id = "id_" + ids.size();
+		ids.put(matcher.group(), id);
+	    }
+	    matcher.appendReplacement(result, id);
+	}
+	return matcher.appendTail(result).toString();
+    }
+
+    private void describe(LayoutElement elt, StringBuilder buf, String indent) {
+	buf.append(indent + elt.getClass().getSimpleName() + " " + elt.getUnevaluatedId());
+	if (elt instanceof LayoutComponent) {
+	    LayoutComponent comp = (LayoutComponent) elt;
+	    buf.append(" type=" + comp.getType().getId() + " nested=" + comp.isNested()
+		    + " options=" + new TreeMap<String, Object>(comp.getOptions()));
+	}
+	if (elt instanceof LayoutStaticText) {
+	    buf.append(" value=" + ((LayoutStaticText) elt).getValue());
+	} else if (elt instanceof LayoutAttribute) {
+	    LayoutAttribute attribute = (LayoutAttribute) elt;
+	    buf.append(" name=" + attribute.getName() + " value=" + attribute.getValue()
+		    + " property=" + attribute.getProperty());
+	} else if (elt instanceof LayoutMarkup) {
+	    LayoutMarkup markup = (LayoutMarkup) elt;
+	    buf.append(" tag=" + markup.getTag() + " type=" + markup.getType());
+	} else if (elt instanceof LayoutFacet) {
+	    buf.append(" rendered=" + ((LayoutFacet) elt).isRendered());
+	}
+	buf.append("\n");
+	for (Map.Entry<String, List<Handler>> entry
+		: new TreeMap<String, List<Handler>>(elt.getHandlersByTypeMap()).entrySet()) {
+	    buf.append(indent + "  event " + entry.getKey() + "\n");
+	    describe(entry.getValue(), buf, indent + "    ");
+	}
+	for (LayoutElement child : elt.getChildLayoutElements()) {
+	    describe(child, buf, indent + "  ");
+	}
+    }
+
+    private void describe(List<Handler> handlers, StringBuilder buf, String indent) {
+	if (handlers == null) {
+	    return;
+	}
+	for (Handler handler : handlers) {
+	    HandlerDefinition def = handler.getHandlerDefinition();
+	    buf.append(indent + def.getId() + " condition=" + handler.getCondition() + "\n");
+	    for (String name : new TreeSet<String>(def.getInputDefs().keySet())) {
+		buf.append(indent + "  input " + def.getInputDefs().get(name).getType()
+			+ " " + name + "=" + handler.getInputValue(name) + "\n");
+	    }
+	    for (String name : new TreeSet<String>(def.getOutputDefs().keySet())) {
+		OutputMapping mapping = handler.getOutputValue(name);
+		buf.append(indent + "  output " + def.getOutputDefs().get(name).getType() + " " + name
+			+ ((mapping == null) ? "" : "=>" + mapping.getStringOutputType() + "{" + mapping.getOutputKey() + "}")
+			+ "\n");
+	    }
+	    describe(def.getChildHandlers(), buf, indent + "  ");
+	    describe(handler.getChildHandlers(), buf, indent + "  ");
+	}
+    }
+
+    private static final Pattern GENERATED_ID = Pattern.compile("\\bid_[0-9]+\\b");
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import com.sun.faces.renderkit.html_basic.HtmlResponseWriter;
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.util.EncodedResponseWriter;
+
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.ResponseWriter;
+import jakarta.faces.render.RenderKit;
+import jakarta.faces.render.RenderKitFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ *  <p>	Tests for the {@link EncodedOutputRenderKitFactory}.</p>
+ */
+public class EncodedOutputRenderKitFactoryTest {
+
+    /**
+     *	<p> Mojarra's <code>ResponseWriter</code> reads its configuration
+     *	    from a current <code>FacesContext</code>, so don't leave the
+     *	    mock one there.</p>
+     */
+    @Before
+    public void init() {
+	ContextMocker.clear();
+    }
+
+    /**
+     *	<p> Ensure only <code>ResponseWriter</code>s for an
+     *	    {@link EncodedResponseWriter.Output} are wrapped.</p>
+     */
+    @Test
+    public void testCreateResponseWriter() throws IOException {
+	RenderKit kit = Mockito.mock(RenderKit.class);
+	Mockito.when(kit.createResponseWriter(Matchers.any(Writer.class), Matchers.anyString(), Matchers.anyString())).thenAnswer(new Answer<ResponseWriter>() {
+	    @Override
+	    public ResponseWriter answer(InvocationOnMock invocation) {
+		Object[] args = invocation.getArguments();
+		return new HtmlResponseWriter((Writer) args[0], (String) args[1], (String) args[2]);
+	    }
+	});
+	RenderKitFactory wrapped = Mockito.mock(RenderKitFactory.class);
+	FacesContext ctx = Mockito.mock(FacesContext.class);
+	Mockito.when(wrapped.getRenderKit(ctx, RenderKitFactory.HTML_BASIC_RENDER_KIT)).thenReturn(kit);
+
+	EncodedOutputRenderKitFactory factory = new EncodedOutputRenderKitFactory(wrapped);
+	Assert.assertNull(factory.getRenderKit(ctx, "other"));
+	RenderKit result = factory.getRenderKit(ctx, RenderKitFactory.HTML_BASIC_RENDER_KIT);
+	Assert.assertSame(result, factory.getRenderKit(ctx, RenderKitFactory.HTML_BASIC_RENDER_KIT));
+
+	ResponseWriter writer = result.createResponseWriter(new EncodedResponseWriter.Output(new ByteArrayOutputStream(), "UTF-8"), "text/html", "UTF-8");
+	Assert.assertTrue(writer instanceof EncodedResponseWriter);
+	Assert.assertEquals("UTF-8", ((EncodedResponseWriter) writer).getOutputEncoding());
+	writer = result.createResponseWriter(new StringWriter(), "text/html", "UTF-8");
+	Assert.assertTrue(writer instanceof HtmlResponseWriter);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sun.jsftemplating.ContextMocker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+/**
+ *  <p>	Tests for the {@link ClasspathEntityResolver}.</p>
+ */
+public class ClasspathEntityResolverTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+	ClasspathEntityResolver.clearCache();
+	_oldLoader = Thread.currentThread().getContextClassLoader();
+	_loader = new CountingClassLoader(_oldLoader);
+	Thread.currentThread().setContextClassLoader(_loader);
+    }
+
+    @After
+    public void cleanUp() {
+	Thread.currentThread().setContextClassLoader(_oldLoader);
+	ClasspathEntityResolver.clearCache();
+    }
+
+    /**
+     *	<p> Ensure DTDs are found in the class path, and only looked up
+     *	    once.</p>
+     */
+    @Test
+    public void testResolve() throws IOException {
+	byte[] expected = read(_oldLoader.getResourceAsStream("META-INF/jsftemplating/layout.dtd"));
+	ClasspathEntityResolver resolver = new ClasspathEntityResolver();
+	InputSource source = resolver.resolveEntity("[dtd]", null, null, "/jsftemplating/layout.dtd");
+	Assert.assertArrayEquals(expected, read(source.getByteStream()));
+	int lookups = _loader._count;
+	Assert.assertTrue(lookups > 0);
+
+	// Found again without looking for it, also by a new resolver
+	source = new ClasspathEntityResolver().resolveEntity("[dtd]", null, null, "/jsftemplating/layout.dtd");
+	Assert.assertArrayEquals(expected, read(source.getByteStream()));
+	Assert.assertEquals(lookups, _loader._count);
+
+	// Not found
+	Assert.assertNull(resolver.resolveEntity("[dtd]", null, null, "/noSuch.dtd"));
+	Assert.assertNull(resolver.resolveEntity("[dtd]", null, null, "/noSuch.dtd"));
+    }
+
+    /**
+     *	<p> Ensure a changed DTD is read again.</p>
+     */
+    @Test
+    public void testChanged() throws IOException {
+	File dir = Files.createTempDirectory("jsft").toFile();
+	File dtd = new File(dir, "test.dtd");
+	try {
+	    Files.write(dtd.toPath(), "<!ENTITY a \"a\">".getBytes(StandardCharsets.UTF_8));
+	    String baseURI = dir.toURI().toString();
+	    ClasspathEntityResolver resolver = new ClasspathEntityResolver();
+	    Assert.assertEquals("<!ENTITY a \"a\">",
+		    new String(read(resolver.resolveEntity("[dtd]", null, baseURI, "test.dtd").getByteStream()), StandardCharsets.UTF_8));
+
+	    Files.write(dtd.toPath(), "<!ENTITY a \"changed\">".getBytes(StandardCharsets.UTF_8));
+	    Assert.assertEquals("<!ENTITY a \"changed\">",
+		    new String(read(resolver.resolveEntity("[dtd]", null, baseURI, "test.dtd").getByteStream()), StandardCharsets.UTF_8));
+	} finally {
+	    dtd.delete();
+	    dir.delete();
+	}
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	try {
+	    byte[] buf = new byte[1024];
+	    int count;
+	    while ((count = in.read(buf)) != -1) {
+		out.write(buf, 0, count);
+	    }
+	} finally {
+	    in.close();
+	}
+	return out.toByteArray();
+    }
+
+    /**
+     *	<p> A <code>ClassLoader</code> which counts resource lookups.</p>
+     */
+    private static class CountingClassLoader extends ClassLoader {
+	CountingClassLoader(ClassLoader parent) {
+	    super(parent);
+	}
+
+	@Override
+	public URL getResource(String name) {
+	    _count++;
+	    return super.getResource(name);
+	}
+
+	int _count = 0;
+    }
+
+    private ClassLoader _oldLoader;
+    private CountingClassLoader _loader;
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.faces.renderkit.html_basic.HtmlResponseWriter;
+import com.sun.jsftemplating.ContextMocker;
+
+import jakarta.faces.context.ResponseWriter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *  <p>	Tests for the {@link EncodedResponseWriter}.</p>
+ */
+public class EncodedResponseWriterTest {
+
+    /**
+     *	<p> Mojarra's <code>ResponseWriter</code> reads its configuration
+     *	    from a current <code>FacesContext</code>, so don't leave the
+     *	    mock one there.</p>
+     */
+    @Before
+    public void init() {
+	ContextMocker.clear();
+    }
+
+    /**
+     *	<p> Ensure bytes are written after everything the real
+     *	    <code>ResponseWriter</code> wrote before them, including the end
+     *	    of an open start tag, without flushing the response.</p>
+     */
+    @Test
+    public void testOrder() throws IOException {
+	CountingStream stream = new CountingStream();
+	EncodedResponseWriter.Output output = new EncodedResponseWriter.Output(stream, "UTF-8");
+	EncodedResponseWriter writer = new EncodedResponseWriter(new HtmlResponseWriter(output, "text/html", "UTF-8"), output);
+	Assert.assertEquals("UTF-8", writer.getOutputEncoding());
+
+	writer.startElement("p", null);
+	writer.writeAttribute("class", "x", null);
+	byte[] bytes = "<b>café</b>".getBytes(StandardCharsets.UTF_8);
+	writer.write(bytes, 0, bytes.length);
+	writer.writeText("ü&", null);
+	writer.endElement("p");
+	Assert.assertEquals(0, stream._flushes);
+	output.flush();
+	Assert.assertEquals(1, stream._flushes);
+
+	Assert.assertEquals("<p class=\"x\"><b>café</b>ü&amp;</p>", new String(stream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     *	<p> Ensure bytes keep their place inside <code>script</code> and
+     *	    <code>style</code> elements, whose content the real
+     *	    <code>ResponseWriter</code> buffers, in HTML and XHTML.</p>
+     */
+    @Test
+    public void testScript() throws IOException {
+	for (String contentType : new String[] {"text/html", "application/xhtml+xml"}) {
+	    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+	    EncodedResponseWriter.Output output = new EncodedResponseWriter.Output(stream, "UTF-8");
+	    EncodedResponseWriter writer = new EncodedResponseWriter(new HtmlResponseWriter(output, contentType, "UTF-8"), output);
+	    ResponseWriter expected = new HtmlResponseWriter(new StringWriter(), contentType, "UTF-8");
+	    StringWriter buf = new StringWriter();
+	    expected = expected.cloneWithWriter(buf);
+
+	    for (String name : new String[] {"script", "style"}) {
+		for (ResponseWriter out : new ResponseWriter[] {writer, expected}) {
+		    out.startElement(name, null);
+		    out.write("var a = 1;");
+		    if (out == writer) {
+			Assert.assertNull(writer.getOutputEncoding());
+			byte[] bytes = " var b = 2;".getBytes(StandardCharsets.UTF_8);
+			writer.write(bytes, 0, bytes.length);
+		    } else {
+			out.write(" var b = 2;");
+		    }
+		    out.write(" var c = 3;");
+		    out.endElement(name);
+		}
+		Assert.assertEquals("UTF-8", writer.getOutputEncoding());
+	    }
+	    output.flush();
+	    expected.flush();
+	    String result = new String(stream.toByteArray(), StandardCharsets.UTF_8);
+	    Assert.assertTrue(result, result.contains("var a = 1; var b = 2; var c = 3;"));
+	    Assert.assertEquals(buf.toString(), result);
+	}
+    }
+
+    /**
+     *	<p> Ensure adjacent bytes don't flush the <code>ResponseWriter</code>
+     *	    again.</p>
+     */
+    @Test
+    public void testAdjacentBytes() throws IOException {
+	ByteArrayOutputStream stream = new ByteArrayOutputStream();
+	EncodedResponseWriter.Output output = new EncodedResponseWriter.Output(stream, "UTF-8");
+	ResponseWriter wrapped = Mockito.spy(new HtmlResponseWriter(output, "text/html", "UTF-8"));
+	EncodedResponseWriter writer = new EncodedResponseWriter(wrapped, output);
+	byte[] bytes = "<b>".getBytes(StandardCharsets.UTF_8);
+
+	writer.startElement("p", null);
+	writer.write(bytes, 0, bytes.length);
+	writer.write(bytes, 0, bytes.length);
+	Mockito.verify(wrapped, Mockito.times(1)).flush();
+	writer.writeText("x", null);
+	writer.write(bytes, 0, bytes.length);
+	Mockito.verify(wrapped, Mockito.times(2)).flush();
+	output.flush();
+	Assert.assertEquals("<p><b><b>x<b>", new String(stream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     *	<p> Ensure bytes aren't offered when the <code>ResponseWriter</code>
+     *	    and the stream use different encodings.</p>
+     */
+    @Test
+    public void testEncodingMismatch() throws IOException {
+	ByteArrayOutputStream stream = new ByteArrayOutputStream();
+	EncodedResponseWriter.Output output = new EncodedResponseWriter.Output(stream, "ISO-8859-1");
+	Assert.assertNull(new EncodedResponseWriter(new HtmlResponseWriter(output, "text/html", "UTF-8"), output).getOutputEncoding());
+	Assert.assertEquals("ISO-8859-1", new EncodedResponseWriter(new HtmlResponseWriter(output, "text/html", "ISO-8859-1"), output).getOutputEncoding());
+	Assert.assertEquals("latin1", new EncodedResponseWriter(new HtmlResponseWriter(output, "text/html", "latin1"), output).getOutputEncoding());
+    }
+
+    /**
+     *	<p> Counts flushes of the response stream.</p>
+     */
+    private static class CountingStream extends ByteArrayOutputStream {
+	@Override
+	public void flush() throws IOException {
+	    _flushes++;
+	}
+
+	private int _flushes = 0;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.LayoutDefinitionManager;
+import jakarta.faces.context.FacesContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link FileUtil}.</p>
+ */
+public class FileUtilTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+	_oldLoader = Thread.currentThread().getContextClassLoader();
+	_loader = new CountingClassLoader(_oldLoader);
+	Thread.currentThread().setContextClassLoader(_loader);
+    }
+
+    @After
+    public void cleanUp() {
+	Thread.currentThread().setContextClassLoader(_oldLoader);
+    }
+
+    /**
+     *	<p> Ensure paths which are not found are not searched again.</p>
+     */
+    @Test
+    public void testNotFound() throws Exception {
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	FileUtil.clearNotFoundCache(ctx);
+	Assert.assertNull(FileUtil.searchForFile("/noSuchPage.xyz", ".jsf"));
+	int probes = _loader._count;
+	Assert.assertTrue(probes > 0);
+	Assert.assertNull(FileUtil.searchForFile("/noSuchPage.xyz", ".jsf"));
+	Assert.assertEquals(probes, _loader._count);
+
+	// Forgetting it searches again
+	FileUtil.clearNotFoundCache(ctx);
+	Assert.assertNull(FileUtil.searchForFile("/noSuchPage.xyz", ".jsf"));
+	Assert.assertEquals(2 * probes, _loader._count);
+
+	// Found files are not affected
+	URL url = FileUtil.searchForFile("/META-INF/jsftemplating/Handler.map", null);
+	Assert.assertNotNull(url);
+    }
+
+    /**
+     *	<p> Ensure paths which were not found are searched again once a
+     *	    {@link com.sun.jsftemplating.layout.descriptors.LayoutDefinition}
+     *	    is loaded.</p>
+     */
+    @Test
+    public void testNotFoundClearedOnLoad() throws Exception {
+	File dir = Files.createTempDirectory("jsft").toFile();
+	File page = new File(dir, "loadedPage.jsf");
+	File added = new File(dir, "addedPage.jsf");
+	Files.write(page.toPath(), "<staticText value=\"x\" />".getBytes(StandardCharsets.UTF_8));
+	Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {dir.toURI().toURL()}, _loader));
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	try {
+	    FileUtil.clearNotFoundCache(ctx);
+	    Assert.assertNull(FileUtil.searchForFile("/addedPage.jsf", null));
+	    Files.write(added.toPath(), "<staticText value=\"y\" />".getBytes(StandardCharsets.UTF_8));
+	    Assert.assertNull(FileUtil.searchForFile("/addedPage.jsf", null));
+
+	    Assert.assertNotNull(LayoutDefinitionManager.getLayoutDefinition(ctx, "/loadedPage.jsf"));
+	    Assert.assertNotNull(FileUtil.searchForFile("/addedPage.jsf", null));
+	} finally {
+	    LayoutDefinitionManager.getLayoutDefinitionCache(ctx).clear();
+	    page.delete();
+	    added.delete();
+	    dir.delete();
+	}
+    }
+
+    /**
+     *	<p> Ensure paths are always searched in debug mode.</p>
+     */
+    @Test
+    public void testNotFoundDebug() throws Exception {
+	FacesContext ctx = FacesContext.getCurrentInstance();
+	LayoutDefinitionManager.setDebug(ctx, true);
+	try {
+	    Assert.assertNull(FileUtil.searchForFile("/noSuchPage.xyz", null));
+	    int probes = _loader._count;
+	    Assert.assertNull(FileUtil.searchForFile("/noSuchPage.xyz", null));
+	    Assert.assertEquals(2 * probes, _loader._count);
+	} finally {
+	    LayoutDefinitionManager.setDebug(ctx, false);
+	}
+    }
+
+    /**
+     *	<p> A <code>ClassLoader</code> which counts resource lookups.</p>
+     */
+    private static class CountingClassLoader extends ClassLoader {
+	CountingClassLoader(ClassLoader parent) {
+	    super(parent);
+	}
+
+	@Override
+	public URL getResource(String name) {
+	    _count++;
+	    return super.getResource(name);
+	}
+
+	int _count = 0;
+    }
+
+    private ClassLoader _oldLoader;
+    private CountingClassLoader _loader;
+}
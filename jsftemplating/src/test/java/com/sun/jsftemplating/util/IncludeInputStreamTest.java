@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.ReaderContext;
+
+import jakarta.faces.context.FacesContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link IncludeInputStream}.</p>
+ */
+public class IncludeInputStreamTest {
+
+    @Before
+    public void init() throws IOException {
+	_dir = Files.createTempDirectory("jsft").toFile();
+	write("header.inc", "h1\n#include \"inner.inc\"\nh2\n");
+	write("inner.inc", "inner\n");
+	write("empty.inc", "");
+	_loader = Thread.currentThread().getContextClassLoader();
+	Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {_dir.toURI().toURL()}, _loader));
+    }
+
+    @After
+    public void cleanUp() {
+	Thread.currentThread().setContextClassLoader(_loader);
+	for (File file : _dir.listFiles()) {
+	    file.delete();
+	}
+	_dir.delete();
+    }
+
+    /**
+     *	<p> Ensure "#include" lines are replaced with the included
+     *	    files, whether read a block or a byte at a time.</p>
+     */
+    @Test
+    public void testInclude() throws IOException {
+	String content = "a\n#include 'header.inc'\nb\n#INCLUDE empty.inc\n##include inner.inc\n#if\nc #include inner.inc\n#include missing.inc\nd\n#include inner.inc";
+	String expected = "a\nh1\ninner\nh2\nb\n#inner\n#if\nc #include inner.inc\nd\ninner\n";
+	Map<String, Object> appMap = new HashMap<>();
+	Assert.assertEquals(expected, read(content, appMap, false));
+	Assert.assertEquals(expected, read(content, appMap, true));
+	Assert.assertEquals(expected, read(content, null, false));
+    }
+
+    /**
+     *	<p> Ensure included files are cached, and read again once
+     *	    they (or a file they include) change.</p>
+     */
+    @Test
+    public void testCache() throws IOException {
+	Map<String, Object> appMap = new HashMap<>();
+	Assert.assertEquals("h1\ninner\nh2\n", read("#include header.inc\n", appMap, false));
+
+	// Found in the cache, even though it is no longer on the classpath
+	ClassLoader loader = Thread.currentThread().getContextClassLoader();
+	Thread.currentThread().setContextClassLoader(_loader);
+	try {
+	    Assert.assertEquals("h1\ninner\nh2\n", read("#include header.inc\n", appMap, false));
+	} finally {
+	    Thread.currentThread().setContextClassLoader(loader);
+	}
+
+	write("inner.inc", "changed inner\n");
+	Assert.assertEquals("h1\nchanged inner\nh2\n", read("#include header.inc\n", appMap, false));
+
+	IncludeInputStream.clearIncludeCache(appMap);
+	Assert.assertEquals("h1\nchanged inner\nh2\n", read("#include header.inc\n", appMap, false));
+    }
+
+    /**
+     *	<p> This method reads the given content through an
+     *	    {@link IncludeInputStream}, with a <code>FacesContext</code>
+     *	    which uses the given application <code>Map</code> (if
+     *	    any).</p>
+     */
+    private String read(String content, Map<String, Object> appMap, boolean byteAtATime) throws IOException {
+	FacesContext previous = null;
+	if (appMap != null) {
+	    previous = new ReaderContext(new ContextMocker.ExternalContextMocker(), appMap, new HashMap<String, String>()).install();
+	}
+	try {
+	    InputStream in = new IncludeInputStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+	    ByteArrayOutputStream out = new ByteArrayOutputStream();
+	    if (byteAtATime) {
+		int ch;
+		while ((ch = in.read()) != -1) {
+		    out.write(ch);
+		}
+	    } else {
+		byte[] bytes = new byte[5];
+		int count;
+		while ((count = in.read(bytes)) != -1) {
+		    out.write(bytes, 0, count);
+		}
+	    }
+	    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	} finally {
+	    if (appMap != null) {
+		ReaderContext.restore(previous);
+	    }
+	}
+    }
+
+    private void write(String name, String content) throws IOException {
+	Files.write(new File(_dir, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private File _dir;
+    private ClassLoader _loader;
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.sun.jsftemplating.ContextMocker;
+import com.sun.jsftemplating.layout.descriptors.LayoutDefinition;
+import com.sun.jsftemplating.layout.descriptors.LayoutElement;
+import com.sun.jsftemplating.layout.template.TemplateReader;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link LayoutElementUtil}.</p>
+ */
+public class LayoutElementUtilTest {
+
+    @Before
+    public void init() {
+	ContextMocker.init();
+    }
+
+    /**
+     *	<p> Ensure generated ids only contain legal characters.</p>
+     */
+    @Test
+    public void testGeneratedId() {
+	Assert.assertEquals("staticText5", LayoutElementUtil.getGeneratedId("staticText", 5));
+	Assert.assertEquals("h_panel_5", LayoutElementUtil.getGeneratedId(" h:panel2 ", 5));
+	Assert.assertEquals(LayoutElementUtil.DEFAULT_ID_BASE + "3", LayoutElementUtil.getGeneratedId(null, 3));
+	Assert.assertTrue(LayoutElementUtil.getGeneratedId("staticText").matches("staticText_[0-9]+"));
+    }
+
+    /**
+     *	<p> Ensure the ids generated for a template do not depend on the
+     *	    templates read before it.</p>
+     */
+    @Test
+    public void testReproducibleIds() throws Exception {
+	Assert.assertEquals(LayoutElementUtil.getIdPrefix("/a.jsf"), LayoutElementUtil.getIdPrefix("/a.jsf"));
+	Assert.assertNotEquals(LayoutElementUtil.getIdPrefix("/a.jsf"), LayoutElementUtil.getIdPrefix("/b.jsf"));
+
+	String first = read("/a.jsf", "speed-s.jsf");
+	read("/b.jsf", "speed-m.jsf");
+	read("/c.jsf", "speed-s.jsf");
+	Assert.assertEquals(first, read("/a.jsf", "speed-s.jsf"));
+	Assert.assertNotEquals(first, read("/c.jsf", "speed-s.jsf"));
+    }
+
+    /**
+     *	<p> Ensure the ids of templates contain their key's prefix, and
+     *	    can't be equal to the ids of other templates.</p>
+     */
+    @Test
+    public void testTemplateIds() {
+	String prefix = LayoutElementUtil.getIdPrefix("/a.jsf");
+	Assert.assertTrue(prefix.matches("[0-9a-z]{1,10}"));
+	Assert.assertEquals("staticText5_" + prefix, LayoutElementUtil.getGeneratedId("staticText", prefix, 5));
+	Assert.assertEquals("h_panel0_" + prefix, LayoutElementUtil.getGeneratedId("h:panel", prefix, 0));
+	Assert.assertEquals(LayoutElementUtil.getIdPrefix(""), LayoutElementUtil.getIdPrefix(null));
+
+	// "Aa" and "BB" have the same hashCode
+	Assert.assertEquals("/collideAa.jsf".hashCode(), "/collideBB.jsf".hashCode());
+	Assert.assertNotEquals(LayoutElementUtil.getIdPrefix("/collideAa.jsf"), LayoutElementUtil.getIdPrefix("/collideBB.jsf"));
+
+	Set<String> prefixes = new HashSet<>();
+	for (int idx = 0; idx < 10000; idx++) {
+	    Assert.assertTrue(prefixes.add(LayoutElementUtil.getIdPrefix("/page" + idx + ".jsf")));
+	}
+    }
+
+    /**
+     *	<p> Ensure a template may generate many ids.</p>
+     */
+    @Test
+    public void testManyIds() throws Exception {
+	StringBuilder tpl = new StringBuilder();
+	int count = 5000;
+	for (int idx = 0; idx < count; idx++) {
+	    tpl.append("<staticText value=\"x\" />\n");
+	}
+	LayoutDefinition ld = new TemplateReader("/big.jsf", new ByteArrayInputStream(tpl.toString().getBytes(StandardCharsets.UTF_8))).read();
+	Set<String> ids = new HashSet<>();
+	for (LayoutElement elt : ld.getChildLayoutElements()) {
+	    ids.add(elt.getUnevaluatedId());
+	}
+	Assert.assertEquals(count, ids.size());
+	Assert.assertTrue(ids.contains("staticText0_" + LayoutElementUtil.getIdPrefix("/big.jsf")));
+    }
+
+    /**
+     *	<p> Ensure {@link LayoutElementUtil#incHighestId(int)} returns
+     *	    increasing numbers.</p>
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testIncHighestId() {
+	int id = LayoutElementUtil.incHighestId(100);
+	Assert.assertTrue(id > 100);
+	int next = LayoutElementUtil.incHighestId(0);
+	Assert.assertTrue(next > id);
+    }
+
+    private String read(String key, String file) throws Exception {
+	URL url = getClass().getClassLoader().getResource(file);
+	LayoutDefinition ld = new TemplateReader(key, url).read();
+	StringBuffer buf = new StringBuffer();
+	LayoutElementUtil.dumpTree(ld, buf, "");
+	return buf.toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2006, 2020 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package com.sun.jsftemplating.util.fileStreamer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import jakarta.servlet.ServletContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *  <p>	Tests for the {@link FileStreamer}.</p>
+ */
+public class FileStreamerTest {
+
+    @Before
+    public void init() throws IOException {
+	_content = new byte[1024 * 1024 + 17];
+	new Random(42).nextBytes(_content);
+	_file = File.createTempFile("jsft", ".js");
+	Files.write(_file.toPath(), _content);
+	_out = File.createTempFile("jsft", ".out");
+    }
+
+    @After
+    public void cleanUp() {
+	_file.delete();
+	_out.delete();
+    }
+
+    /**
+     *	<p> Ensure file, file to file, and other content is copied
+     *	    completely.</p>
+     */
+    @Test
+    public void testWriteContent() throws IOException {
+	FileStreamer streamer = FileStreamer.getFileStreamer((ServletContext) null);
+
+	ByteArrayOutputStream buf = new ByteArrayOutputStream();
+	streamer.writeContent(new TestSource(new FileInputStream(_file)), new TestContext(buf));
+	Assert.assertTrue(Arrays.equals(_content, buf.toByteArray()));
+
+	buf = new ByteArrayOutputStream();
+	streamer.writeContent(new TestSource(new ByteArrayInputStream(_content)), new TestContext(buf));
+	Assert.assertTrue(Arrays.equals(_content, buf.toByteArray()));
+
+	OutputStream out = new FileOutputStream(_out);
+	try {
+	    streamer.writeContent(new TestSource(new FileInputStream(_file)), new TestContext(out));
+	} finally {
+	    out.close();
+	}
+	Assert.assertTrue(Arrays.equals(_content, Files.readAllBytes(_out.toPath())));
+    }
+
+    /**
+     *	<p> Ensure files are opened so they may be copied via their
+     *	    <code>FileChannel</code>.</p>
+     */
+    @Test
+    public void testOpenFile() throws IOException {
+	InputStream in = new ResourceContentSource().openStream(_file.toURI().toURL());
+	try {
+	    Assert.assertTrue(in instanceof FileInputStream);
+	} finally {
+	    in.close();
+	}
+    }
+
+    public void timeTest(String name, boolean file, int iterations) throws IOException {
+	FileStreamer streamer = FileStreamer.getFileStreamer((ServletContext) null);
+	long start = System.nanoTime();
+	for (int x = 0; x < iterations; x++) {
+	    InputStream in = file ? new FileInputStream(_file) : new ByteArrayInputStream(_content);
+	    streamer.writeContent(new TestSource(in), new TestContext(new NullOutputStream()));
+	}
+	long time = System.nanoTime() - start;
+System.out.println("FileStreamer throughput " + name + " (" + iterations + "), higher is better: " + (long) (_content.length * (double) iterations / time * 1000) + " MB/s");
+    }
+
+    @Test
+    public void testSpeed() throws IOException {
+	int iterations = Integer.getInteger("jsft.fileStreamer.iterations", 5);
+	timeTest("file", true, iterations);
+	timeTest("stream", false, iterations);
+    }
+
+    /**
+     *	<p> A {@link ContentSource} which provides the given
+     *	    <code>InputStream</code>.</p>
+     */
+    private static class TestSource implements ContentSource {
+	TestSource(InputStream in) {
+	    _in = in;
+	}
+
+	@Override
+	public String getId() {
+	    return "test";
+	}
+
+	@Override
+	public InputStream getInputStream(Context ctx) {
+	    return _in;
+	}
+
+	@Override
+	public String getResourcePath(Context ctx) {
+	    return null;
+	}
+
+	@Override
+	public void cleanUp(Context ctx) {
+	}
+
+	@Override
+	public long getLastModified(Context context) {
+	    return -1;
+	}
+
+	private InputStream _in;
+    }
+
+    /**
+     *	<p> A {@link Context} which writes to the given
+     *	    <code>OutputStream</code>.</p>
+     */
+    private static class TestContext extends BaseContext {
+	TestContext(OutputStream out) {
+	    _out = out;
+	}
+
+	@Override
+	public FileStreamer getFileStreamer() {
+	    return FileStreamer.getFileStreamer((ServletContext) null);
+	}
+
+	@Override
+	public ContentSource getContentSource() {
+	    return null;
+	}
+
+	@Override
+	public boolean hasPermission(ContentSource src) {
+	    return true;
+	}
+
+	@Override
+	public void writeHeader(ContentSource source) {
+	}
+
+	@Override
+	public void sendError(int code, String msg) {
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+	    return _out;
+	}
+
+	private OutputStream _out;
+    }
+
+    private static class NullOutputStream extends OutputStream {
+	@Override
+	public void write(int b) {
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+	}
+    }
+
+    private byte[] _content;
+    private File _file;
+    private File _out;
+}